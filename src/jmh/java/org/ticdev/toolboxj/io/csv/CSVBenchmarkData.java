@@ -0,0 +1,225 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.util.Random;
+
+/**
+ * Generator of the CSV datasets used by the benchmarks.
+ * <p>
+ * Each {@link Shape} defines both the content and the parser configuration
+ * that reads it. The content is deterministic for a given shape, size and
+ * seed, so results can be compared between runs.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVBenchmarkData {
+
+    /**
+     * The shapes of the datasets.
+     */
+    public enum Shape {
+
+        /**
+         * 4 short unquoted fields per record.
+         */
+        NARROW,
+
+        /**
+         * 64 unquoted fields per record.
+         */
+        WIDE,
+
+        /**
+         * 8 quoted fields with delimiters and doubled text delimiters.
+         */
+        QUOTED,
+
+        /**
+         * 8 fields, some quoted with end-of-lines inside.
+         */
+        MULTILINE,
+
+        /**
+         * 8 unquoted fields with many escaped characters.
+         */
+        ESCAPED,
+
+        /**
+         * 8 unquoted fields separated by tabs.
+         */
+        TAB,
+
+        /**
+         * 8 unquoted fields separated by either ',' or ';'.
+         */
+        MULTI_DELIMITER,
+
+        /**
+         * 4 unquoted fields of 1 to 4 thousand characters.
+         */
+        LONG,
+
+        /**
+         * 4 quoted fields of 1 to 4 thousand characters, with delimiters,
+         * doubled text delimiters and end-of-lines.
+         */
+        LONG_QUOTED
+
+    }
+
+    /**
+     * Private constructor.
+     */
+    private CSVBenchmarkData() {
+    }
+
+    /**
+     * Returns the parser configuration of a shape.
+     *
+     * @param shape the shape
+     * @return the parser configuration
+     */
+    public static CSVParserBuilder builder(Shape shape) {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .multiLineEOL("\n");
+        switch (shape) {
+            case TAB:
+                return builder.addDelimiter('\t');
+            case MULTI_DELIMITER:
+                return builder.addDelimiter(',').addDelimiter(';');
+            case ESCAPED:
+                return builder.addDelimiter(',').escapeCharacter('\\')
+                    .addEscapeCharacterExpansionMapping('n', "\n")
+                    .addEscapeCharacterExpansionMapping('t', "\t");
+            default:
+                return builder.addDelimiter(',').textDelimiter('"')
+                    .textDelimiterEscapesItself(true);
+        }
+    }
+
+    /**
+     * Generates a dataset of at least the given size.
+     *
+     * @param shape the shape
+     * @param size  the minimum number of characters
+     * @param seed  the seed of the random content
+     * @return the content
+     */
+    public static String generate(Shape shape, int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(size + 4096);
+        int fields = shape == Shape.WIDE ? 64 :
+            shape == Shape.NARROW || shape == Shape.LONG ||
+            shape == Shape.LONG_QUOTED ? 4 : 8;
+        while (sb.length() < size) {
+            for (int f = 0; f < fields; f++) {
+                if (f > 0) {
+                    sb.append(delimiter_(shape, random));
+                }
+                field_(shape, random, sb);
+            }
+            sb.append("\r\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the delimiter before a field.
+     *
+     * @param shape  the shape
+     * @param random the random generator
+     * @return the delimiter
+     */
+    private static char delimiter_(Shape shape, Random random) {
+        switch (shape) {
+            case TAB:
+                return '\t';
+            case MULTI_DELIMITER:
+                return random.nextBoolean() ? ',' : ';';
+            default:
+                return ',';
+        }
+    }
+
+    /**
+     * Appends random word characters.
+     *
+     * @param random the random generator
+     * @param length the number of characters
+     * @param sb     the destination
+     */
+    private static void word_(Random random, int length, StringBuilder sb) {
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+    }
+
+    /**
+     * Appends a field.
+     *
+     * @param shape  the shape
+     * @param random the random generator
+     * @param sb     the destination
+     */
+    private static void field_(Shape shape, Random random, StringBuilder sb) {
+        int length = 4 + random.nextInt(12);
+        switch (shape) {
+            case QUOTED:
+                sb.append('"');
+                word_(random, length / 2, sb);
+                sb.append(random.nextBoolean() ? ", " : "\"\"");
+                word_(random, length / 2, sb);
+                sb.append('"');
+                return;
+            case MULTILINE:
+                if (random.nextInt(4) == 0) {
+                    sb.append('"');
+                    word_(random, length, sb);
+                    sb.append("\r\n");
+                    word_(random, length, sb);
+                    sb.append('"');
+                } else {
+                    word_(random, length, sb);
+                }
+                return;
+            case LONG:
+                word_(random, 1024 + random.nextInt(3072), sb);
+                return;
+            case LONG_QUOTED:
+                sb.append('"');
+                for (int i = 1024 + random.nextInt(3072); i > 0; i -= 256) {
+                    word_(random, 256, sb);
+                    switch (random.nextInt(4)) {
+                        case 0:
+                            sb.append("\"\"");
+                            break;
+                        case 1:
+                            sb.append("\r\n");
+                            break;
+                        default:
+                            sb.append(", ");
+                    }
+                }
+                sb.append('"');
+                return;
+            case ESCAPED:
+                for (int i = 0; i < length; i += 4) {
+                    word_(random, 3, sb);
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            sb.append("\\n");
+                            break;
+                        case 1:
+                            sb.append("\\t");
+                            break;
+                        default:
+                            sb.append("\\,");
+                    }
+                }
+                return;
+            default:
+                word_(random, length, sb);
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ticdev.toolboxj.io.DevNullOutputStream;
+
+/**
+ * Formats the records of generated datasets with
+ * {@link CSVParser#format(List, StringBuilder)} and with a
+ * {@link CSVWriter}.
+ * <p>
+ * Besides the passes over the dataset per second, the results report the
+ * records per second ("records") and the megabytes of parsed content per
+ * second ("megabytes") through the auxiliary counters of
+ * {@link CSVParserBenchmark.Throughput}.
+ * </p>
+ * <p>
+ * Run with: mvn -Pbenchmark clean test-compile exec:exec
+ * -Dbenchmark=CSVFormatBenchmark
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVFormatBenchmark {
+
+    /**
+     * the shape of the dataset
+     */
+    @Param({"NARROW", "WIDE", "QUOTED", "MULTILINE"})
+    public CSVBenchmarkData.Shape shape;
+
+    /**
+     * the size of the dataset in megabytes
+     */
+    @Param({"1"})
+    public int sizeMB;
+
+    /**
+     * the records
+     */
+    private List<List<String>> records;
+
+    /**
+     * the size of the CSV content
+     */
+    private long size;
+
+    /**
+     * the parser
+     */
+    private CSVParser parser;
+
+    /**
+     * parser configuration
+     */
+    private CSVParserBuilder builder;
+
+    /**
+     * the destination of the formatted records
+     */
+    private final StringBuilder destination = new StringBuilder();
+
+    /**
+     * Generates and parses the dataset.
+     *
+     * @throws Exception if the dataset cannot be parsed
+     */
+    @Setup
+    public void setup()
+            throws
+            Exception {
+        builder = CSVBenchmarkData.builder(shape);
+        String content =
+            CSVBenchmarkData.generate(shape, sizeMB * 1024 * 1024, 1);
+        size = content.getBytes(StandardCharsets.UTF_8).length;
+        records = CSVSupport.parseReader(new StringReader(content), builder);
+        parser = builder.build();
+    }
+
+    /**
+     * Counts one pass over the dataset.
+     *
+     * @param throughput the counters
+     */
+    private void count_(CSVParserBenchmark.Throughput throughput) {
+        throughput.records += records.size();
+        throughput.add(size);
+    }
+
+    /**
+     * Formats each record into a reused {@link StringBuilder}.
+     *
+     * @param throughput the counters
+     * @return the number of characters formatted
+     */
+    @Benchmark
+    public long format(CSVParserBenchmark.Throughput throughput) {
+        long length = 0;
+        for (List<String> record : records) {
+            destination.setLength(0);
+            length += parser.format(record, destination).length();
+        }
+        count_(throughput);
+        return length;
+    }
+
+    /**
+     * Writes the records with a {@link CSVWriter}, encoded in UTF-8, to an
+     * output stream that discards them.
+     *
+     * @param throughput the counters
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public void writer(CSVParserBenchmark.Throughput throughput)
+            throws
+            Exception {
+        CSVWriter writer = new CSVWriter(DevNullOutputStream.getInstance(),
+                                         StandardCharsets.UTF_8, builder);
+        for (List<String> record : records) {
+            writer.writeRecord(record);
+        }
+        writer.flush();
+        count_(throughput);
+    }
+
+}
@@ -0,0 +1,211 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ticdev.toolboxj.io.csv.impl.DefaultCSVByteParser;
+
+/**
+ * Parses records with long unquoted and quoted fields, comparing the runs
+ * of plain characters appended in bulk, with one limit check per run, to
+ * the characters appended one by one, with one limit check per character.
+ * <p>
+ * Both arms read through a {@link BufferedCSVParserInputHelper}. The
+ * per-character arm hides it behind a delegating helper, which the parser
+ * does not recognize as a source of plain runs, so the benchmark compares
+ * the bulk appends of the runs, found by the structural scanner and copied
+ * with {@link System#arraycopy}, with the per-character appends; the limit
+ * checks are not measured on their own.
+ * </p>
+ * <p>
+ * The limits are set below the defaults, so the checks cannot be removed by
+ * the compiler.
+ * </p>
+ * <p>
+ * Run with: mvn -Pbenchmark clean test-compile exec:exec
+ * -Dbenchmark=CSVLongFieldBenchmark
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVLongFieldBenchmark {
+
+    /**
+     * Delegating helper, which reads through a buffered helper but makes the
+     * parser append the characters one by one.
+     */
+    private static final class PerCharacterInputHelper
+            implements
+            CSVParserInputHelper {
+
+        /**
+         * the buffered helper
+         */
+        private final BufferedCSVParserInputHelper helper =
+                new BufferedCSVParserInputHelper();
+
+        @Override
+        public int next(Reader reader)
+                throws
+                IOException {
+            return helper.next(reader);
+        }
+
+        @Override
+        public void unget(int character) {
+            helper.unget(character);
+        }
+
+        @Override
+        public long lineNumber() {
+            return helper.lineNumber();
+        }
+
+    }
+
+    /**
+     * the shape of the dataset
+     */
+    @Param({"LONG", "LONG_QUOTED"})
+    public CSVBenchmarkData.Shape shape;
+
+    /**
+     * the size of the dataset in megabytes
+     */
+    @Param({"4"})
+    public int sizeMB;
+
+    /**
+     * the CSV content
+     */
+    private String content;
+
+    /**
+     * the encoded CSV content
+     */
+    private byte[] bytes;
+
+    /**
+     * parser configuration
+     */
+    private CSVParserBuilder builder;
+
+    /**
+     * Generates the dataset.
+     */
+    @Setup
+    public void setup() {
+        builder = CSVBenchmarkData.builder(shape)
+                .maxFieldSize(1024 * 1024).maxRecordCharSize(4 * 1024 * 1024);
+        content = CSVBenchmarkData.generate(shape, sizeMB * 1024 * 1024, 1);
+        bytes = content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Counts one pass over the dataset.
+     *
+     * @param throughput the counters
+     * @param records    the number of records of the pass
+     * @return the number of records
+     */
+    private long count_(CSVParserBenchmark.Throughput throughput,
+                        long records) {
+        throughput.records += records;
+        throughput.add(bytes.length);
+        return records;
+    }
+
+    /**
+     * Reads the records with the given parser.
+     *
+     * @param parser the parser
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    private long read_(CSVParser parser)
+            throws
+            Exception {
+        StringReader reader = new StringReader(content);
+        CSVRecord record = new CSVRecord();
+        long count = 0;
+        while (parser.readRecord(reader, record)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Appends the runs of plain characters in bulk.
+     *
+     * @param throughput the counters
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public long bulk(CSVParserBenchmark.Throughput throughput)
+            throws
+            Exception {
+        return count_(throughput, read_(
+                builder.build(new BufferedCSVParserInputHelper())));
+    }
+
+    /**
+     * Appends the characters one by one, reading through the same buffered
+     * helper.
+     *
+     * @param throughput the counters
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public long perCharacter(CSVParserBenchmark.Throughput throughput)
+            throws
+            Exception {
+        return count_(throughput, read_(
+                builder.build(new PerCharacterInputHelper())));
+    }
+
+    /**
+     * Appends the runs of plain bytes in bulk, with the byte parser.
+     *
+     * @param throughput the counters
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public long bulkBytes(CSVParserBenchmark.Throughput throughput)
+            throws
+            Exception {
+        CSVByteParser parser = new DefaultCSVByteParser(
+                builder, StandardCharsets.UTF_8);
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+        CSVByteRecord record = new CSVByteRecord();
+        long count = 0;
+        while (parser.readRecord(input, record)) {
+            count++;
+        }
+        return count_(throughput, count);
+    }
+
+}
@@ -0,0 +1,278 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ticdev.toolboxj.io.csv.impl.DefaultCSVByteParser;
+
+/**
+ * Parses generated datasets of every {@link CSVBenchmarkData.Shape} with the
+ * parser methods and with the {@link CSVSupport} entry points.
+ * <p>
+ * Besides the passes over the dataset per second, the results report the
+ * records per second ("records") and the megabytes of content per second
+ * ("megabytes") through auxiliary counters.
+ * </p>
+ * <p>
+ * Run with: mvn -Pbenchmark clean test-compile exec:exec
+ * -Dbenchmark=CSVParserBenchmark
+ * </p>
+ * <p>
+ * The JMH options can follow the pattern, e.g.
+ * -Dbenchmark="CSVParserBenchmark -p shape=QUOTED -p sizeMB=16"
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVParserBenchmark {
+
+    /**
+     * the shape of the dataset
+     */
+    @Param({"NARROW", "WIDE", "QUOTED", "MULTILINE", "ESCAPED", "TAB",
+            "MULTI_DELIMITER"})
+    public CSVBenchmarkData.Shape shape;
+
+    /**
+     * the size of the dataset in megabytes
+     */
+    @Param({"1"})
+    public int sizeMB;
+
+    /**
+     * the CSV content
+     */
+    private String content;
+
+    /**
+     * the encoded CSV content
+     */
+    private byte[] bytes;
+
+    /**
+     * the number of records of the content
+     */
+    private long recordCount;
+
+    /**
+     * parser configuration
+     */
+    private CSVParserBuilder builder;
+
+    /**
+     * Records and megabytes parsed, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+
+        /**
+         * the records parsed
+         */
+        public long records;
+
+        /**
+         * the bytes parsed
+         */
+        private long bytes;
+
+        /**
+         * Adds parsed bytes.
+         *
+         * @param count the number of bytes
+         */
+        void add(long count) {
+            bytes += count;
+        }
+
+        /**
+         * Returns the megabytes parsed.
+         *
+         * @return the megabytes parsed
+         */
+        public double megabytes() {
+            return bytes / (1024.0 * 1024.0);
+        }
+
+        /**
+         * Clears the counters before each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void clear() {
+            records = 0;
+            bytes = 0;
+        }
+
+    }
+
+    /**
+     * Generates the dataset.
+     *
+     * @throws Exception if the dataset cannot be parsed
+     */
+    @Setup
+    public void setup()
+            throws
+            Exception {
+        builder = CSVBenchmarkData.builder(shape);
+        content = CSVBenchmarkData.generate(shape, sizeMB * 1024 * 1024, 1);
+        bytes = content.getBytes(StandardCharsets.UTF_8);
+        recordCount = CSVSupport.parseReader(new StringReader(content),
+                                             builder).size();
+    }
+
+    /**
+     * Counts one pass over the dataset.
+     *
+     * @param throughput the counters
+     * @param records    the number of records of the pass
+     * @return the number of records
+     */
+    private long count_(Throughput throughput, long records) {
+        if (records != recordCount) {
+            throw new IllegalStateException(
+                "Records: " + records + ", expected: " + recordCount);
+        }
+        throughput.records += records;
+        throughput.add(bytes.length);
+        return records;
+    }
+
+    /**
+     * Parses the records into new lists.
+     *
+     * @param throughput the counters
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public long parseRecord(Throughput throughput)
+            throws
+            Exception {
+        CSVParser parser = builder.build(new BufferedCSVParserInputHelper());
+        StringReader reader = new StringReader(content);
+        long count = 0;
+        while (parser.parseRecord(reader, null) != null) {
+            count++;
+        }
+        return count_(throughput, count);
+    }
+
+    /**
+     * Parses the records into a reusable record, without strings.
+     *
+     * @param throughput the counters
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public long readRecord(Throughput throughput)
+            throws
+            Exception {
+        CSVParser parser = builder.build(new BufferedCSVParserInputHelper());
+        StringReader reader = new StringReader(content);
+        CSVRecord record = new CSVRecord();
+        long count = 0;
+        while (parser.readRecord(reader, record)) {
+            count++;
+        }
+        return count_(throughput, count);
+    }
+
+    /**
+     * Parses the encoded records into a reusable byte record.
+     *
+     * @param throughput the counters
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public long readByteRecord(Throughput throughput)
+            throws
+            Exception {
+        CSVByteParser parser = new DefaultCSVByteParser(
+            builder, StandardCharsets.UTF_8);
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+        CSVByteRecord record = new CSVByteRecord();
+        long count = 0;
+        while (parser.readRecord(input, record)) {
+            count++;
+        }
+        return count_(throughput, count);
+    }
+
+    /**
+     * Parses all the records with
+     * {@link CSVSupport#parseReader(java.io.Reader, CSVParserConfiguration)}.
+     *
+     * @param throughput the counters
+     * @return the records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public List<List<String>> parseReader(Throughput throughput)
+            throws
+            Exception {
+        List<List<String>> records = CSVSupport.parseReader(
+            new StringReader(content), builder);
+        count_(throughput, records.size());
+        return records;
+    }
+
+    /**
+     * Counts the records of
+     * {@link CSVSupport#newStream(CSVParser, java.io.Reader)}.
+     *
+     * @param throughput the counters
+     * @return the number of records
+     */
+    @Benchmark
+    public long newStream(Throughput throughput) {
+        try (Stream<List<String>> stream = CSVSupport.newStream(
+            builder.build(new BufferedCSVParserInputHelper()),
+            new StringReader(content))) {
+            return count_(throughput, stream.count());
+        }
+    }
+
+    /**
+     * Counts the records of
+     * {@link CSVSupport#newStream(CSVParser, java.io.Reader, boolean)},
+     * reusing the same list for all the records.
+     *
+     * @param throughput the counters
+     * @return the number of records
+     */
+    @Benchmark
+    public long newStreamReused(Throughput throughput) {
+        try (Stream<List<String>> stream = CSVSupport.newStream(
+            builder.build(new BufferedCSVParserInputHelper()),
+            new StringReader(content), true)) {
+            return count_(throughput, stream.count());
+        }
+    }
+
+}
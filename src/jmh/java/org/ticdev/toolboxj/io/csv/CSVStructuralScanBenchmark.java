@@ -0,0 +1,199 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ticdev.toolboxj.io.csv.impl.CSVStructuralScanner;
+import org.ticdev.toolboxj.io.csv.impl.DefaultCSVByteParser;
+
+/**
+ * Compares the per-character scan of unquoted fields with the SWAR scan and
+ * the bulk copy of plain runs.
+ * <p>
+ * Run with: mvn -Pbenchmark clean test-compile exec:exec
+ * -Dbenchmark=CSVStructuralScanBenchmark
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVStructuralScanBenchmark {
+
+    /**
+     * length of the unquoted fields
+     */
+    @Param({"8", "32", "128"})
+    public int fieldLength;
+
+    /**
+     * the CSV content
+     */
+    private String content;
+
+    /**
+     * the encoded CSV content
+     */
+    private byte[] bytes;
+
+    /**
+     * the view of the encoded content used by the SWAR scan
+     */
+    private ByteBuffer view;
+
+    /**
+     * parser configuration
+     */
+    private CSVParserBuilder builder;
+
+    /**
+     * the scanner
+     */
+    private CSVStructuralScanner scanner;
+
+    /**
+     * Generates about 1MB of records with 8 unquoted fields each.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1024 * 1024) {
+            for (int f = 0; f < 8; f++) {
+                if (f > 0) {
+                    sb.append(',');
+                }
+                for (int i = 0; i < fieldLength; i++) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            sb.append("\r\n");
+        }
+        content = sb.toString();
+        bytes = content.getBytes(StandardCharsets.UTF_8);
+        view = CSVStructuralScanner.view(bytes);
+        builder = CSVParserBuilder.newInstance().addDelimiter(',')
+            .textDelimiter('"');
+        scanner = new CSVStructuralScanner(builder);
+    }
+
+    /**
+     * Counts the structural bytes one byte at a time.
+     *
+     * @return the number of structural bytes
+     */
+    @Benchmark
+    public int scanSequential() {
+        int count = 0;
+        int to = bytes.length;
+        for (int i = scanner.indexOfSequential(bytes, 0, to); i < to;
+             i = scanner.indexOfSequential(bytes, i + 1, to)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Counts the structural bytes eight bytes at a time.
+     *
+     * @return the number of structural bytes
+     */
+    @Benchmark
+    public int scanSWAR() {
+        int count = 0;
+        int to = bytes.length;
+        for (int i = scanner.indexOf(bytes, view, 0, to); i < to;
+             i = scanner.indexOf(bytes, view, i + 1, to)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Parses the content with the per-character input helper.
+     *
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public int parsePerCharacter()
+            throws
+            Exception {
+        return parse_(builder.build(new DefaultCSVParserInputHelper()));
+    }
+
+    /**
+     * Parses the content with the buffered input helper, which copies the
+     * plain runs in bulk.
+     *
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public int parseBulk()
+            throws
+            Exception {
+        return parse_(builder.build(new BufferedCSVParserInputHelper()));
+    }
+
+    /**
+     * Parses the encoded content with the byte parser, which uses the SWAR
+     * scan.
+     *
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    @Benchmark
+    public int parseBytes()
+            throws
+            Exception {
+        CSVByteParser parser = new DefaultCSVByteParser(builder,
+            StandardCharsets.UTF_8);
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+        CSVByteRecord record = new CSVByteRecord();
+        int count = 0;
+        while (parser.readRecord(input, record)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Parses the content into a reusable record.
+     *
+     * @param parser the parser
+     * @return the number of records
+     * @throws Exception if an exception occurred
+     */
+    private int parse_(CSVParser parser)
+            throws
+            Exception {
+        StringReader reader = new StringReader(content);
+        CSVRecord record = new CSVRecord();
+        int count = 0;
+        while (parser.readRecord(reader, record)) {
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.ticdev.toolboxj.functions;
+
+/**
+ * {@link UnaryConsumer} generalization for boolean primitives.
+ * 
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ *
+ */
+public interface UnaryConsumerBoolean
+    extends
+    UnaryConsumer<Boolean> {
+
+    /**
+     * Calls the method with the given boolean argument.
+     * 
+     * @param arg1
+     *            the argument
+     */
+    void acceptBoolean(boolean arg1);
+
+    @Override
+    default void accept(Boolean arg1) {
+        acceptBoolean(arg1);
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.ticdev.toolboxj.functions;
+
+/**
+ * {@link UnaryConsumer} generalization for double primitives.
+ * 
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ *
+ */
+public interface UnaryConsumerDouble
+    extends
+    UnaryConsumer<Double> {
+
+    /**
+     * Calls the method with the given double argument.
+     * 
+     * @param arg1
+     *            the argument
+     */
+    void acceptDouble(double arg1);
+
+    @Override
+    default void accept(Double arg1) {
+        acceptDouble(arg1);
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.ticdev.toolboxj.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Thread safe pool of direct {@link ByteBuffer}s of the same size.
+ * <p>
+ * Direct buffers are expensive to allocate and are only freed by the
+ * garbage collector, so they are reused through the pool. The pool never
+ * blocks: a new buffer is allocated when the pool is empty, and a released
+ * buffer is dropped when the pool is full.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class ByteBufferPool {
+
+    /**
+     * the size of the buffers
+     */
+    private final int bufferSize;
+
+    /**
+     * the available buffers
+     */
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    /**
+     * Class constructor.
+     *
+     * @param bufferSize the size, in bytes, of the buffers
+     * @param capacity   the maximum number of buffers kept by the pool
+     * @throws IllegalArgumentException if the size or the capacity is not
+     *                                  positive
+     */
+    public ByteBufferPool(int bufferSize, int capacity)
+            throws
+            IllegalArgumentException {
+        if (bufferSize <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Sizes must be positive: buffer %d, capacity %d",
+                    bufferSize, capacity));
+        }
+        this.bufferSize = bufferSize;
+        buffers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Returns the size of the buffers.
+     *
+     * @return the size, in bytes, of the buffers
+     */
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns a cleared buffer from the pool, or a new one if the pool is
+     * empty.
+     *
+     * @return the buffer
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers of a different size, or that are
+     * not direct, are ignored. The buffer must not be used after it is
+     * released.
+     *
+     * @param buffer the buffer
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.isDirect() && buffer.capacity() == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.ticdev.toolboxj.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Detection and decompression of compressed input streams.
+ * <p>
+ * The gzip format is recognized by its magic bytes and the zlib format,
+ * which HTTP calls deflate, by its two byte header. As a zlib header can
+ * also be the start of a text, the first bytes of a zlib candidate are
+ * inflated to confirm it. A raw deflate stream has no header and cannot be
+ * detected.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CompressionSupport {
+
+    /**
+     * Default size, in bytes, of the decompression buffers.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * the number of bytes inspected to detect the format
+     */
+    private static final int PEEK_SIZE = 64;
+
+    /**
+     * Private constructor.
+     */
+    private CompressionSupport() {
+    }
+
+    /**
+     * Returns true if the given bytes start with the gzip magic bytes and
+     * the deflate compression method.
+     *
+     * @param bytes  the first bytes of the input
+     * @param length the number of bytes
+     * @return true if the bytes are the start of a gzip stream
+     */
+    public static boolean isGzip(byte[] bytes, int length) {
+        return length >= 3 && (bytes[0] & 0xff) == 0x1f &&
+               (bytes[1] & 0xff) == 0x8b && bytes[2] == 8;
+    }
+
+    /**
+     * Returns true if the given bytes start with a zlib header (deflate
+     * method, valid window size and check bits, no preset dictionary) and
+     * can be inflated without error.
+     *
+     * @param bytes  the first bytes of the input
+     * @param length the number of bytes
+     * @return true if the bytes are the start of a zlib stream
+     */
+    public static boolean isZlib(byte[] bytes, int length) {
+        if (length < 2) {
+            return false;
+        }
+        int cmf = bytes[0] & 0xff;
+        int flg = bytes[1] & 0xff;
+        if ((cmf & 0x0f) != 8 || (cmf >>> 4) > 7 || (flg & 0x20) != 0 ||
+            ((cmf << 8) | flg) % 31 != 0) {
+            return false;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 0, length);
+            byte[] output = new byte[PEEK_SIZE];
+            while (!inflater.needsInput() && !inflater.finished()) {
+                if (inflater.inflate(output) == 0) {
+                    break;
+                }
+            }
+            return !inflater.needsDictionary();
+        } catch (DataFormatException ex) {
+            return false;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns an input stream that decompresses the given input if it is in
+     * the gzip or zlib format, or that reads it unchanged otherwise. Closing
+     * the returned stream closes the input.
+     *
+     * @param input      the input
+     * @param bufferSize the size, in bytes, of the decompression buffer
+     * @return the decompressed input
+     * @throws IOException if an I/O exception occurred while reading the
+     *                     first bytes
+     */
+    public static InputStream decompress(InputStream input, int bufferSize)
+            throws
+            IOException {
+        PushbackInputStream pushback =
+                new PushbackInputStream(input, PEEK_SIZE);
+        byte[] header = new byte[PEEK_SIZE];
+        int length = 0;
+        int count;
+        while (length < PEEK_SIZE &&
+               (count = pushback.read(header, length, PEEK_SIZE - length))
+               > 0) {
+            length += count;
+        }
+        pushback.unread(header, 0, length);
+        if (isGzip(header, length)) {
+            return new GZIPInputStream(pushback, bufferSize);
+        }
+        if (isZlib(header, length)) {
+            return new InflaterInputStream(pushback, new Inflater(),
+                                           bufferSize) {
+                @Override
+                public void close()
+                        throws
+                        IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inf.end();
+                    }
+                }
+            };
+        }
+        return pushback;
+    }
+
+    /**
+     * Like {@link #decompress(InputStream, int)} with the default buffer
+     * size.
+     *
+     * @param input the input
+     * @return the decompressed input
+     * @throws IOException if an I/O exception occurred while reading the
+     *                     first bytes
+     */
+    public static InputStream decompress(InputStream input)
+            throws
+            IOException {
+        return decompress(input, DEFAULT_BUFFER_SIZE);
+    }
+
+}
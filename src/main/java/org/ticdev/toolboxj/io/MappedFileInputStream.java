@@ -0,0 +1,203 @@
+package org.ticdev.toolboxj.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An {@link InputStream} implementation that reads a range of a file by
+ * memory-mapping consecutive windows of the range.
+ * <p>
+ * Only one window is mapped at a time, so ranges larger than what a single
+ * {@link MappedByteBuffer} can hold are supported. Closing the stream does not
+ * close the channel.
+ * </p>
+ * <p>
+ * Mark related operations are not supported.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class MappedFileInputStream
+        extends
+        InputStream {
+
+    /**
+     * Default size of the mapped window.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * the file channel
+     */
+    private final FileChannel channel;
+
+    /**
+     * the window size
+     */
+    private final int windowSize;
+
+    /**
+     * the end of the range (exclusive)
+     */
+    private final long end;
+
+    /**
+     * the file position of the start of the current window
+     */
+    private long windowStart;
+
+    /**
+     * the current window, null if not mapped yet
+     */
+    private MappedByteBuffer window = null;
+
+    /**
+     * Class constructor.
+     *
+     * @param channel    the file channel
+     * @param start      the start of the range
+     * @param end        the end of the range (exclusive)
+     * @param windowSize the size of the mapped window
+     * @throws NullPointerException     if the channel is null
+     * @throws IllegalArgumentException if the range or the window size are
+     *                                  not valid
+     */
+    public MappedFileInputStream(
+            FileChannel channel, long start, long end, int windowSize)
+            throws
+            NullPointerException,
+            IllegalArgumentException {
+        if (channel == null) {
+            throw new NullPointerException("Channel cannot be null.");
+        }
+        if (start < 0 || end < start || windowSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Start: %d. End: %d. Window size: %d", start, end,
+                    windowSize));
+        }
+        this.channel = channel;
+        this.windowStart = start;
+        this.end = end;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Class constructor using a window of {@link #DEFAULT_WINDOW_SIZE}
+     * bytes.
+     *
+     * @param channel the file channel
+     * @param start   the start of the range
+     * @param end     the end of the range (exclusive)
+     * @throws NullPointerException     if the channel is null
+     * @throws IllegalArgumentException if the range is not valid
+     */
+    public MappedFileInputStream(
+            FileChannel channel, long start, long end)
+            throws
+            NullPointerException,
+            IllegalArgumentException {
+        this(channel, start, end, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Makes sure the current window has remaining bytes, mapping the next
+     * window if needed.
+     *
+     * @return false if the end of the range was reached and true otherwise
+     * @throws IOException if the mapping fails
+     */
+    private boolean ensure_window_()
+            throws
+            IOException {
+        if (window != null) {
+            if (window.hasRemaining()) {
+                return true;
+            }
+            windowStart += window.capacity();
+            window = null;
+        }
+        if (windowStart >= end) {
+            return false;
+        }
+        long size = Math.min(windowSize, end - windowStart);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                             size);
+        return true;
+    }
+
+    @Override
+    public int read()
+            throws
+            IOException {
+        return ensure_window_() ? 0xff & window.get() : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+            throws
+            IOException {
+        if (off < 0 || len < 0 || b.length - len < off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensure_window_()) {
+            return -1;
+        }
+        len = Math.min(len, window.remaining());
+        window.get(b, off, len);
+        return len;
+    }
+
+    @Override
+    public long skip(long n)
+            throws
+            IOException {
+        long remaining = available_();
+        if (n <= 0 || remaining == 0) {
+            return 0;
+        }
+        if (n > remaining) {
+            n = remaining;
+        }
+        long position = (window == null ? windowStart :
+                windowStart + window.position()) + n;
+        window = null;
+        windowStart = position;
+        return n;
+    }
+
+    /**
+     * Returns the number of bytes left in the range.
+     *
+     * @return the number of bytes left in the range
+     */
+    private long available_() {
+        return end - (window == null ? windowStart :
+                windowStart + window.position());
+    }
+
+    @Override
+    public int available()
+            throws
+            IOException {
+        return (int) Math.min(Integer.MAX_VALUE, available_());
+    }
+
+    @Override
+    public void close()
+            throws
+            IOException {
+        window = null;
+        windowStart = end;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+}
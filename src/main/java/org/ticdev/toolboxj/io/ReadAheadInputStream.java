@@ -0,0 +1,274 @@
+package org.ticdev.toolboxj.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream that reads its source on a separate thread, ahead of the
+ * reader.
+ * <p>
+ * The source is read in blocks into a bounded queue of reusable byte arrays,
+ * so any work done by the source, such as the decompression of a
+ * {@link java.util.zip.GZIPInputStream}, overlaps with the processing of the
+ * bytes already read, without using more memory than the blocks. The
+ * exceptions of the source are thrown by the read methods, in order.
+ * </p>
+ * <p>
+ * {@link #close()} interrupts the thread and closes the source, without
+ * waiting for the thread: an interrupt does not end a blocked read of the
+ * source, but closing the source ends it, or makes it fail, and the thread,
+ * a daemon thread, then stops without reading again. Instances are not
+ * thread safe.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class ReadAheadInputStream
+        extends
+        InputStream {
+
+    /**
+     * Default size, in bytes, of a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    /**
+     * Default number of blocks read ahead.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    /**
+     * the source
+     */
+    private final InputStream source;
+
+    /**
+     * the blocks that can be filled
+     */
+    private final BlockingQueue<Block> freeBlocks;
+
+    /**
+     * the blocks waiting to be read
+     */
+    private final BlockingQueue<Block> fullBlocks;
+
+    /**
+     * the thread reading the source
+     */
+    private final Thread thread;
+
+    /**
+     * the current block
+     */
+    private Block block = null;
+
+    /**
+     * the position in the current block
+     */
+    private int position = 0;
+
+    /**
+     * true after the end of the source
+     */
+    private boolean eof = false;
+
+    /**
+     * true after close
+     */
+    private boolean closed = false;
+
+    /**
+     * Class constructor. The thread reading the source is started.
+     *
+     * @param source        the source
+     * @param blockSize     the size, in bytes, of a block
+     * @param queueCapacity the number of blocks read ahead
+     * @throws IllegalArgumentException if the size or the capacity is not
+     *                                  positive
+     */
+    public ReadAheadInputStream(
+            InputStream source, int blockSize, int queueCapacity)
+            throws
+            IllegalArgumentException {
+        if (blockSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Sizes must be positive: block %d, queue %d",
+                    blockSize, queueCapacity));
+        }
+        this.source = source;
+        /* one more for the block being filled, and one more for the one
+           being read */
+        int count = queueCapacity + 2;
+        freeBlocks = new ArrayBlockingQueue<>(count);
+        fullBlocks = new ArrayBlockingQueue<>(count);
+        for (int i = 0; i < count; i++) {
+            freeBlocks.add(new Block(blockSize));
+        }
+        thread = new Thread(this::read_ahead_, "read-ahead");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Class constructor using the default sizes.
+     *
+     * @param source the source
+     */
+    public ReadAheadInputStream(InputStream source) {
+        this(source, DEFAULT_BLOCK_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Reads the source into blocks, on the thread of the stream.
+     */
+    private void read_ahead_() {
+        try {
+            while (true) {
+                Block block = freeBlocks.take();
+                try {
+                    block.length = source.read(block.bytes);
+                } catch (IOException ex) {
+                    block.length = -1;
+                    block.error = ex;
+                } catch (RuntimeException ex) {
+                    block.length = -1;
+                    block.error = new IOException(ex);
+                } catch (Error ex) {
+                    block.length = -1;
+                    block.error = ex;
+                }
+                fullBlocks.put(block);
+                if (block.length < 0) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            /* closed */
+        }
+    }
+
+    /**
+     * Makes sure there are bytes available in the current block.
+     *
+     * @return false at the end of the source
+     * @throws IOException if the source failed, the stream is closed or the
+     *                     thread was interrupted; an {@link Error} of the
+     *                     source is thrown as it is
+     */
+    private boolean next_()
+            throws
+            IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+        while (!eof && (block == null || position == block.length)) {
+            try {
+                if (block != null) {
+                    freeBlocks.put(block);
+                    block = null;
+                }
+                block = fullBlocks.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            position = 0;
+            if (block.length < 0) {
+                eof = true;
+                if (block.error instanceof IOException) {
+                    throw (IOException) block.error;
+                }
+                if (block.error instanceof Error) {
+                    throw (Error) block.error;
+                }
+            }
+        }
+        return !eof;
+    }
+
+    @Override
+    public int read()
+            throws
+            IOException {
+        if (!next_()) {
+            return -1;
+        }
+        return block.bytes[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+            throws
+            IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!next_()) {
+            return -1;
+        }
+        int count = Math.min(len, block.length - position);
+        System.arraycopy(block.bytes, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available()
+            throws
+            IOException {
+        if (closed || eof || block == null) {
+            return 0;
+        }
+        return block.length - position;
+    }
+
+    @Override
+    public void close()
+            throws
+            IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        /* the interrupt stops the thread when it waits for a free block, and
+           closing the source ends a blocked read */
+        thread.interrupt();
+        source.close();
+    }
+
+    /**
+     * A block of bytes read from the source.
+     */
+    private static final class Block {
+
+        /**
+         * the bytes
+         */
+        final byte[] bytes;
+
+        /**
+         * the number of valid bytes, -1 at the end of the source
+         */
+        int length = 0;
+
+        /**
+         * the exception of the source, if any: an {@link IOException},
+         * wrapping a {@link RuntimeException}, or an {@link Error}
+         */
+        Throwable error = null;
+
+        /**
+         * Class constructor.
+         *
+         * @param size the size of the block
+         */
+        Block(int size) {
+            bytes = new byte[size];
+        }
+
+    }
+
+}
@@ -0,0 +1,307 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.io.csv.impl.CSVStructuralScanner;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * {@link CSVParserInputHelper} implementation that reads blocks of characters
+ * from the reader into an internal buffer and serves the characters, the
+ * end-of-line detection and the unget operation from that buffer.
+ * <p>
+ * The end-of-line patterns and the line numbering are the same as the ones of
+ * {@link DefaultCSVParserInputHelper}: \r, \n, \r\n, \n\r. Any other sequence
+ * is treated as separate lines.
+ * </p>
+ * <p>
+ * Since characters are read ahead, the reader should not be used by any other
+ * code while the helper is in use. If a different reader is passed to
+ * {@link #next(Reader)} then the characters that were read ahead from the
+ * previous reader are discarded.
+ * </p>
+ * <p>
+ * Besides the character by character interface, the helper lets a parser
+ * locate a run of plain characters directly in the buffer
+ * ({@link #plainRunLength(Reader, CSVStructuralScanner)}), copy it from
+ * {@link #buffer()} and {@link #consume(int)} it in one step.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class BufferedCSVParserInputHelper
+        implements
+        CSVParserInputHelper {
+
+    /**
+     * Default size of the character buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * the character buffer
+     */
+    private final char[] buffer;
+
+    /**
+     * the position of the next character in the buffer
+     */
+    private int position = 0;
+
+    /**
+     * the number of valid characters in the buffer
+     */
+    private int limit = 0;
+
+    /**
+     * the reader the buffered characters were read from
+     */
+    private Reader source = null;
+
+    /**
+     * if next is line-feed, skip it
+     */
+    private boolean skipLF = false;
+
+    /**
+     * if next is carriage-return, skip it
+     */
+    private boolean skipCR = false;
+
+    /**
+     * Current line number.
+     */
+    private long lineNumber = 1;
+
+    /**
+     * the next character is available in unget as it was put back
+     */
+    private boolean hasUnget = false;
+
+    /**
+     * if a character was put back then it will be stored here
+     */
+    private int unget = EOL;
+
+    /**
+     * the offset in the input of the first character of the buffer
+     */
+    private long bufferOffset = 0;
+
+    /**
+     * Class constructor using a buffer of {@link #DEFAULT_BUFFER_SIZE}
+     * characters.
+     */
+    public BufferedCSVParserInputHelper() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param bufferSize the size of the character buffer
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    public BufferedCSVParserInputHelper(int bufferSize)
+            throws
+            IllegalArgumentException {
+        this(bufferSize, 1);
+    }
+
+    /**
+     * Class constructor for input that does not start on the first line,
+     * such as a range of a file that starts at a record boundary.
+     *
+     * @param bufferSize the size of the character buffer
+     * @param lineNumber the line number of the first character
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    public BufferedCSVParserInputHelper(int bufferSize, long lineNumber)
+            throws
+            IllegalArgumentException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Buffer size must be positive: " + bufferSize);
+        }
+        buffer = new char[bufferSize];
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Class constructor for a reader positioned at the offset of a
+     * checkpoint.
+     *
+     * @param bufferSize the size of the character buffer
+     * @param start      the checkpoint
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    public BufferedCSVParserInputHelper(int bufferSize, CSVCheckpoint start)
+            throws
+            IllegalArgumentException {
+        this(bufferSize, start.lineNumber());
+        bufferOffset = start.offset();
+        skipLF = start.pendingEOL() == '\n';
+        skipCR = start.pendingEOL() == '\r';
+    }
+
+    /**
+     * Fills the buffer with the next block of characters from the reader.
+     *
+     * @param reader the reader
+     * @return true if characters are available and false on end-of-file
+     * @throws IOException if an exception occurred when reading
+     */
+    private boolean fill(Reader reader)
+            throws
+            IOException {
+        int count;
+        do {
+            count = reader.read(buffer, 0, buffer.length);
+        } while (count == 0);
+        bufferOffset += limit;
+        position = 0;
+        limit = count < 0 ? 0 : count;
+        return count > 0;
+    }
+
+    @Override
+    public int next(Reader reader)
+            throws
+            IOException {
+        if (hasUnget) {
+            hasUnget = false;
+            if (unget == EOL) {
+                lineNumber++;
+            }
+            return unget;
+        }
+        if (reader != source) {
+            source = reader;
+            bufferOffset += position;
+            position = 0;
+            limit = 0;
+        }
+        while (true) {
+            if (position == limit && !fill(reader)) {
+                return EOF;
+            }
+            char next = buffer[position++];
+            if (next > '\r') {
+                skipLF = false;
+                skipCR = false;
+                return next;
+            }
+            switch (next) {
+                case '\r':
+                    if (!skipCR) {
+                        lineNumber++;
+                        skipLF = true;
+                        return EOL;
+                    }
+                    skipCR = false;
+                    break;
+                case '\n':
+                    if (!skipLF) {
+                        lineNumber++;
+                        skipCR = true;
+                        return EOL;
+                    }
+                    skipLF = false;
+                    break;
+                default:
+                    skipLF = false;
+                    skipCR = false;
+                    return next;
+            }
+        }
+    }
+
+    @Override
+    public void unget(int character)
+            throws
+            RuntimeException {
+        if (hasUnget) {
+            throw new RuntimeException(
+                    "Cannot unget more than once between two reads.");
+        }
+        hasUnget = true;
+        unget = character;
+        if (unget == EOL) {
+            lineNumber--;
+        }
+    }
+
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public CSVCheckpoint checkpoint() {
+        long offset = bufferOffset + position;
+        return new CSVCheckpoint(
+                hasUnget && unget != EOF ? offset - 1 : offset, lineNumber,
+                skipLF ? '\n' : skipCR ? '\r' : -1);
+    }
+
+    /**
+     * Returns the number of plain characters (no end-of-line or other
+     * structural character) that are available in the buffer starting with
+     * the next character. No characters are read from the reader, and 0 is
+     * returned if a character was put back.
+     *
+     * @param reader  the reader
+     * @param scanner the scanner that locates the structural characters
+     * @return the number of plain characters available in the buffer
+     */
+    public int plainRunLength(Reader reader, CSVStructuralScanner scanner) {
+        if (hasUnget || reader != source || position == limit) {
+            return 0;
+        }
+        return scanner.indexOf(buffer, position, limit) - position;
+    }
+
+    /**
+     * Returns the character buffer. The next character is at
+     * {@link #bufferPosition()}.
+     *
+     * @return the character buffer
+     */
+    public char[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the position of the next character in the buffer.
+     *
+     * @return the position of the next character in the buffer
+     */
+    public int bufferPosition() {
+        return position;
+    }
+
+    /**
+     * Consumes plain characters from the buffer, as if they were returned
+     * by {@link #next(Reader)}. The count must not be larger than the value
+     * returned by {@link #plainRunLength(Reader, CSVStructuralScanner)}.
+     *
+     * @param count the number of characters to consume
+     */
+    public void consume(int count) {
+        if (count > 0) {
+            position += count;
+            skipLF = false;
+            skipCR = false;
+        }
+    }
+
+    /**
+     * Returns the size of the character buffer.
+     *
+     * @return the size of the character buffer.
+     */
+    public int bufferSize() {
+        return buffer.length;
+    }
+
+}
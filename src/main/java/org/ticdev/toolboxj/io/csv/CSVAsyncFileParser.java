@@ -0,0 +1,395 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.io.ByteBufferInputStream;
+import org.ticdev.toolboxj.io.ByteBufferPool;
+import org.ticdev.toolboxj.io.csv.impl.CSVRecordBoundaryScanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Parser of CSV files that reads with an {@link AsynchronousFileChannel},
+ * so many files can be ingested concurrently without a thread per file.
+ * <p>
+ * Each file is read in blocks into direct buffers taken from a
+ * {@link ByteBufferPool}. When a read completes, the complete records of the
+ * block, found with a {@link CSVRecordBoundaryScanner}, are parsed by the
+ * file's {@link CSVByteParser} and pushed to the consumer as one batch, the
+ * partial record at the end of the block is moved to the start of the
+ * buffer, and the next read is started. The parsing and the consumer run on
+ * the threads of the channel: the ones of the given executor, or the ones of
+ * the default group. The batches of one file are delivered in order, one at
+ * a time, but the batches of different files are delivered concurrently.
+ * </p>
+ * <p>
+ * The character set must be ASCII compatible and the structural characters
+ * ASCII, as for {@link CSVByteParser}. A record larger than a buffer is
+ * accumulated in a larger, temporary buffer.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVAsyncFileParser {
+
+    /**
+     * Default size, in bytes, of the buffers.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Default number of buffers kept by the pool.
+     */
+    public static final int DEFAULT_POOL_CAPACITY = 64;
+
+    /**
+     * the parser configuration
+     */
+    private final CSVParserConfiguration configuration;
+
+    /**
+     * the character set of the files
+     */
+    private final Charset charset;
+
+    /**
+     * the pool of buffers
+     */
+    private final ByteBufferPool pool;
+
+    /**
+     * the executor of the channels, null for the default group
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Class constructor.
+     *
+     * @param configuration the parser configuration
+     * @param charset       the character set, which must be ASCII compatible
+     * @param pool          the pool of buffers
+     * @param executor      the executor running the reads, the parsing and
+     *                      the consumers, or null for the default thread
+     *                      pool of the asynchronous channels
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or if the text delimiter
+     *                                  or the escape character are not ASCII
+     */
+    public CSVAsyncFileParser(
+            CSVParserConfiguration configuration,
+            Charset charset,
+            ByteBufferPool pool,
+            ExecutorService executor)
+            throws
+            IllegalArgumentException {
+        this.configuration = CSVParserConfiguration.of(configuration);
+        this.charset = charset;
+        this.pool = pool;
+        this.executor = executor;
+        /* validates the character set and the structural characters */
+        new CSVRecordBoundaryScanner(this.configuration);
+        CSVParserBuilder.createByteParser(this.configuration, charset);
+    }
+
+    /**
+     * Class constructor using a pool of {@link #DEFAULT_POOL_CAPACITY}
+     * buffers of {@link #DEFAULT_BUFFER_SIZE} bytes and the default thread
+     * pool of the asynchronous channels.
+     *
+     * @param configuration the parser configuration
+     * @param charset       the character set, which must be ASCII compatible
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or if the text delimiter
+     *                                  or the escape character are not ASCII
+     */
+    public CSVAsyncFileParser(
+            CSVParserConfiguration configuration,
+            Charset charset)
+            throws
+            IllegalArgumentException {
+        this(configuration, charset,
+             new ByteBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_POOL_CAPACITY),
+             null);
+    }
+
+    /**
+     * Starts parsing the given file, pushing the records to the consumer in
+     * batches, one per block read.
+     * <p>
+     * The returned future completes with the number of records when the
+     * whole file was parsed, or exceptionally with the exception of the
+     * channel, the parser or the consumer. The records of a block parsed
+     * before an exception of the parser are delivered before the future
+     * completes. Cancelling the future stops the parsing after the current
+     * block.
+     * </p>
+     *
+     * @param file     the file
+     * @param consumer the consumer of the batches of records
+     * @return the future number of records
+     */
+    public CompletableFuture<Long> parseBatches(
+            Path file, Consumer<? super List<List<String>>> consumer) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        AsynchronousFileChannel channel;
+        try {
+            channel = executor == null ?
+                    AsynchronousFileChannel.open(
+                            file, StandardOpenOption.READ) :
+                    AsynchronousFileChannel.open(
+                            file,
+                            Collections.singleton(StandardOpenOption.READ),
+                            executor);
+        } catch (IOException | RuntimeException ex) {
+            future.completeExceptionally(ex);
+            return future;
+        }
+        new Ingestion(channel, consumer, future).read_();
+        return future;
+    }
+
+    /**
+     * Like {@link #parseBatches(Path, Consumer)}, pushing the records one
+     * by one.
+     *
+     * @param file     the file
+     * @param consumer the consumer of the records
+     * @return the future number of records
+     */
+    public CompletableFuture<Long> parse(
+            Path file, Consumer<? super List<String>> consumer) {
+        return parseBatches(file, batch -> batch.forEach(consumer));
+    }
+
+    /**
+     * The state of the parsing of one file, which is also the handler of its
+     * reads. The reads are sequential, so the state is only used by one
+     * thread at a time.
+     */
+    private final class Ingestion
+            implements
+            CompletionHandler<Integer, Void> {
+
+        /**
+         * the file channel
+         */
+        private final AsynchronousFileChannel channel;
+
+        /**
+         * the consumer of the batches
+         */
+        private final Consumer<? super List<List<String>>> consumer;
+
+        /**
+         * the future number of records
+         */
+        private final CompletableFuture<Long> future;
+
+        /**
+         * the parser of the file
+         */
+        private final CSVByteParser parser =
+                CSVParserBuilder.createByteParser(configuration, charset);
+
+        /**
+         * the scanner of the record boundaries
+         */
+        private final CSVRecordBoundaryScanner scanner =
+                new CSVRecordBoundaryScanner(configuration);
+
+        /**
+         * the maximum size, in bytes, of the partial record: the record
+         * limit, taken as characters of up to the maximum number of bytes
+         * per character of the character set, followed by the end-of-line;
+         * the byte parser enforces the limit itself, this only stops the
+         * buffer from growing past any record the parser can accept
+         */
+        private final long maxPartialSize = (long) Math.ceil(
+                charset.newEncoder().maxBytesPerChar() *
+                (double) configuration.maxRecordCharSize()) + 2;
+
+        /**
+         * the buffer, holding the partial record followed by the last block
+         */
+        private ByteBuffer buffer = pool.acquire();
+
+        /**
+         * the number of bytes of the buffer already scanned
+         */
+        private int scanned = 0;
+
+        /**
+         * the position in the file of the next read
+         */
+        private long filePosition = 0;
+
+        /**
+         * the number of records parsed
+         */
+        private long records = 0;
+
+        /**
+         * Class constructor.
+         *
+         * @param channel  the file channel
+         * @param consumer the consumer of the batches
+         * @param future   the future number of records
+         */
+        Ingestion(
+                AsynchronousFileChannel channel,
+                Consumer<? super List<List<String>>> consumer,
+                CompletableFuture<Long> future) {
+            this.channel = channel;
+            this.consumer = consumer;
+            this.future = future;
+        }
+
+        /**
+         * Starts the next read.
+         */
+        private void read_() {
+            try {
+                channel.read(buffer, filePosition, null, this);
+            } catch (RuntimeException ex) {
+                failed(ex, null);
+            }
+        }
+
+        /**
+         * Parses all the records of the first bytes of the buffer. When the
+         * parser fails, the records parsed before the exception are
+         * delivered before it is thrown.
+         *
+         * @param length the number of bytes
+         * @return the records
+         * @throws Exception if the parser or the consumer failed
+         */
+        private List<List<String>> parse_(int length)
+                throws
+                Exception {
+            ByteBuffer view = buffer.duplicate();
+            view.limit(length);
+            view.position(0);
+            /* a new stream is parsed as the continuation of the last one */
+            InputStream input = ByteBufferInputStream.newInstance(view);
+            List<List<String>> batch = new ArrayList<>();
+            List<String> record;
+            try {
+                while ((record = parser.parseRecord(input, null)) != null) {
+                    batch.add(record);
+                }
+            } catch (Exception ex) {
+                deliver_(batch);
+                throw ex;
+            }
+            return batch;
+        }
+
+        /**
+         * Delivers a batch of records to the consumer.
+         *
+         * @param batch the batch
+         */
+        private void deliver_(List<List<String>> batch) {
+            if (!batch.isEmpty()) {
+                records += batch.size();
+                consumer.accept(batch);
+            }
+        }
+
+        @Override
+        public void completed(Integer count, Void attachment) {
+            try {
+                if (future.isDone()) {
+                    close_();
+                    return;
+                }
+                if (count < 0) {
+                    deliver_(parse_(buffer.position()));
+                    close_();
+                    future.complete(records);
+                    return;
+                }
+                filePosition += count;
+                int limit = buffer.position();
+                int boundary = -1;
+                int position = scanned;
+                while ((position = scanner.nextBoundary(buffer, position,
+                                                        limit)) >= 0) {
+                    boundary = position;
+                }
+                scanned = limit;
+                List<List<String>> batch = Collections.emptyList();
+                if (boundary > 0) {
+                    batch = parse_(boundary);
+                    buffer.limit(limit);
+                    buffer.position(boundary);
+                    buffer.compact();
+                    scanned = limit - boundary;
+                } else if (!buffer.hasRemaining()) {
+                    grow_();
+                }
+                deliver_(batch);
+                read_();
+            } catch (Throwable ex) {
+                failed(ex, attachment);
+            }
+        }
+
+        /**
+         * Moves the partial record to a buffer twice as large.
+         *
+         * @throws CSVParserLineTooLongException if the partial record is too
+         *                                       large for the configuration
+         */
+        private void grow_()
+                throws
+                CSVParserLineTooLongException {
+            int size = buffer.capacity();
+            if (size > maxPartialSize || size > Integer.MAX_VALUE / 2) {
+                throw new CSVParserLineTooLongException(
+                        configuration.maxRecordCharSize(),
+                        parser.lineNumber());
+            }
+            ByteBuffer larger = ByteBuffer.allocateDirect(size * 2);
+            buffer.flip();
+            larger.put(buffer);
+            pool.release(buffer);
+            buffer = larger;
+        }
+
+        /**
+         * Closes the channel and releases the buffer.
+         */
+        private void close_() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                /* nothing was written */
+            }
+            if (buffer != null) {
+                pool.release(buffer);
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void failed(Throwable ex, Void attachment) {
+            close_();
+            future.completeExceptionally(ex);
+        }
+
+    }
+
+}
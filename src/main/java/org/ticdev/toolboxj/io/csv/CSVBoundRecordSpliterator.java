@@ -0,0 +1,152 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Spliterator to be used with a stream that provides the records of a CSV
+ * parser mapped into objects with a {@link CSVHeaderBinding}.
+ * <p>
+ * The first record is the header: it is read on the first advance and
+ * resolved against the binding, and the following records are mapped with
+ * the resulting {@link CSVRecordMapper}. The same {@link CSVRecord} is
+ * reused to read all the records.
+ * </p>
+ * <p>
+ * With a projection configured, only the selected columns of the header
+ * are visible to the binding, and they are resolved to their index in the
+ * input, where the mapper reads them, see
+ * {@link CSVHeaderBinding#bind(List, int[])}.
+ * </p>
+ * <p>
+ * The spliterator provides the {@link #close()} method that can be
+ * registered with {@link Stream#onClose(Runnable)} method to close the
+ * reader automatically when the stream is closed.
+ * </p>
+ * <p>
+ * When the parser has {@link CSVParser#metrics()}, the time spent in the
+ * action is added to their downstream time.
+ * </p>
+ *
+ * @param <T> the type of the mapped objects
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVBoundRecordSpliterator<T>
+        implements
+        Spliterator<T>,
+        AutoCloseable {
+
+    /**
+     * the reader
+     */
+    private final Reader reader;
+
+    /**
+     * the parser
+     */
+    private final CSVParser parser;
+
+    /**
+     * the binding
+     */
+    private final CSVHeaderBinding<T> binding;
+
+    /**
+     * the record reused for all the records
+     */
+    private final CSVRecord record = new CSVRecord();
+
+    /**
+     * the metrics of the parser, null if disabled
+     */
+    private final CSVParserMetrics metrics;
+
+    /**
+     * the mapper, null until the header is read
+     */
+    private CSVRecordMapper<T> mapper = null;
+
+    /**
+     * Class constructor.
+     *
+     * @param parser  the parser
+     * @param reader  the reader
+     * @param binding the binding
+     */
+    public CSVBoundRecordSpliterator(
+            CSVParser parser,
+            Reader reader,
+            CSVHeaderBinding<T> binding) {
+        this.reader = reader;
+        this.parser = parser;
+        this.binding = binding;
+        this.metrics = parser.metrics();
+    }
+
+    /**
+     * Returns the mapper, null until the header is read.
+     *
+     * @return the mapper
+     */
+    public CSVRecordMapper<T> mapper() {
+        return mapper;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+            if (mapper == null) {
+                List<String> header = parser.parseRecord(reader, null);
+                if (header == null) {
+                    return false;
+                }
+                mapper = binding.bind(header, parser.selectedColumns());
+            }
+            T value = mapper.mapNext(parser, reader, record);
+            if (value == null) {
+                return false;
+            }
+            if (metrics == null) {
+                action.accept(value);
+            } else {
+                long start = System.nanoTime();
+                try {
+                    action.accept(value);
+                } finally {
+                    metrics.downstreamTime(System.nanoTime() - start);
+                }
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.NONNULL | Spliterator.ORDERED;
+    }
+
+    @Override
+    public void close()
+            throws
+            Exception {
+        reader.close();
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Interface for a CSV parser that works directly on the bytes of an ASCII
+ * compatible encoding, such as UTF-8 or ISO-8859-1.
+ * <p>
+ * The structural characters (delimiters, text delimiter, escape character and
+ * end-of-line) are found on the raw bytes, so no character decoding takes
+ * place while scanning. The fields are decoded only when they are returned as
+ * strings, and not at all when read into a {@link CSVByteRecord}. The limits
+ * of the configuration are applied to the number of bytes instead of the
+ * number of characters.
+ * </p>
+ * <p>
+ * The parser reads ahead from the input stream, so the stream should not be
+ * used by any other code while the parser is in use. A
+ * {@link java.nio.ByteBuffer} can be parsed through a
+ * {@link org.ticdev.toolboxj.io.ByteBufferInputStream}.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public interface CSVByteParser {
+
+    /**
+     * Reads the next record from the given input stream and places the
+     * decoded fields of that record in the given destination list.
+     * <p>
+     * A new list is created, used, and returned if the destination list is
+     * null.
+     * </p>
+     * <p>
+     * null is returned if the end-of-file has been reached on the input
+     * stream.
+     * </p>
+     *
+     * @param input       the input stream used to read the next record.
+     * @param destination the destination list for the fields of the record. If null, a
+     *                    new list will be created.
+     * @return null if there are no more records to read and the list of fields
+     * for the currently read record otherwise.
+     * @throws CSVParserException              if a parser exception occurred
+     * @throws CSVParserLineTooLongException   if a restriction on the line length has occurred
+     * @throws CSVParserTooManyFieldsException if a restriction on the number of fields in a record has
+     *                                         occurred
+     * @throws IOException                     if an IO exception has occurred while reading the record
+     * @throws CSVParserFieldTooLargeException if a restriction on the field size has occurred
+     */
+    List<String>
+    parseRecord(InputStream input, List<String> destination)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            CSVParserFieldTooLargeException;
+
+    /**
+     * Reads the next record from the given input stream into the given
+     * reusable record, without decoding the fields. The previous content of
+     * the record is discarded.
+     *
+     * @param input       the input stream used to read the next record.
+     * @param destination the destination record
+     * @return false if there are no more records to read and true otherwise.
+     * @throws CSVParserException              if a parser exception occurred
+     * @throws CSVParserLineTooLongException   if a restriction on the line length has occurred
+     * @throws CSVParserTooManyFieldsException if a restriction on the number of fields in a record has
+     *                                         occurred
+     * @throws IOException                     if an IO exception has occurred while reading the record
+     * @throws CSVParserFieldTooLargeException if a restriction on the field size has occurred
+     */
+    boolean
+    readRecord(InputStream input, CSVByteRecord destination)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            CSVParserFieldTooLargeException;
+
+    /**
+     * Returns the current line number.
+     *
+     * @return the current line number.
+     */
+    long lineNumber();
+
+    /**
+     * Returns the position, in bytes, of the parser in its input after the
+     * last record that was read, from which a new parser can resume, or
+     * null if the parser does not track it.
+     * <p>
+     * The default implementation returns null.
+     * </p>
+     *
+     * @return the checkpoint or null.
+     */
+    default CSVCheckpoint checkpoint() {
+        return null;
+    }
+
+    /**
+     * Resets the parser to parse a new input from the given checkpoint, as
+     * a new parser resuming at the checkpoint would. The buffered input is
+     * discarded, so the same parser can be reused for many inputs.
+     *
+     * @param start the checkpoint, {@link CSVCheckpoint#START} for the
+     *              start of an input
+     */
+    void reset(CSVCheckpoint start);
+
+}
@@ -0,0 +1,257 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reusable CSV record that keeps the raw (encoded) bytes of all its fields in
+ * one byte buffer.
+ * <p>
+ * This is the byte counterpart of {@link CSVRecord}, used by
+ * {@link CSVByteParser}. The fields are not decoded unless
+ * {@link #getString(int, Charset)} is called. The content of the record is
+ * only valid until the record is used to read the next record.
+ * </p>
+ * <p>
+ * The mutator methods ({@link #clear()}, the append methods,
+ * {@link #endField()} and {@link #removeLastField()}) are meant to be used
+ * by {@link CSVByteParser} implementations.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVByteRecord {
+
+    /**
+     * the bytes of all the fields
+     */
+    private byte[] bytes;
+
+    /**
+     * the number of bytes used in the buffer
+     */
+    private int length = 0;
+
+    /**
+     * the end offset of each field
+     */
+    private int[] fieldEnds;
+
+    /**
+     * the number of fields
+     */
+    private int fieldCount = 0;
+
+    /**
+     * the start offset of the current field
+     */
+    private int fieldStart = 0;
+
+    /**
+     * Default constructor.
+     */
+    public CSVByteRecord() {
+        this(256, 16);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param initialByteCapacity  the initial capacity of the byte buffer
+     * @param initialFieldCapacity the initial capacity for the fields
+     * @throws IllegalArgumentException if any of the capacities is not
+     *                                  positive
+     */
+    public CSVByteRecord(int initialByteCapacity, int initialFieldCapacity)
+            throws
+            IllegalArgumentException {
+        if (initialByteCapacity <= 0 || initialFieldCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Capacities must be positive.");
+        }
+        bytes = new byte[initialByteCapacity];
+        fieldEnds = new int[initialFieldCapacity];
+    }
+
+    /**
+     * Returns the number of fields in the record.
+     *
+     * @return the number of fields in the record.
+     */
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the start offset of the field in the buffer returned by
+     * {@link #bytes()}.
+     *
+     * @param index the index of the field
+     * @return the start offset of the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public int start(int index)
+            throws
+            IndexOutOfBoundsException {
+        check_index_(index);
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+
+    /**
+     * Returns the end offset (exclusive) of the field in the buffer returned
+     * by {@link #bytes()}.
+     *
+     * @param index the index of the field
+     * @return the end offset of the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public int end(int index)
+            throws
+            IndexOutOfBoundsException {
+        check_index_(index);
+        return fieldEnds[index];
+    }
+
+    /**
+     * Returns the number of bytes in the field.
+     *
+     * @param index the index of the field
+     * @return the number of bytes in the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public int length(int index)
+            throws
+            IndexOutOfBoundsException {
+        return end(index) - start(index);
+    }
+
+    /**
+     * Returns the byte buffer backing this record. The buffer is only valid
+     * until the record is modified.
+     *
+     * @return the byte buffer
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Decodes the field with the given character set.
+     *
+     * @param index   the index of the field
+     * @param charset the character set
+     * @return the decoded field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public String getString(int index, Charset charset)
+            throws
+            IndexOutOfBoundsException {
+        int start = start(index);
+        return new String(bytes, start, fieldEnds[index] - start, charset);
+    }
+
+    /**
+     * Clears the record.
+     */
+    public void clear() {
+        length = 0;
+        fieldCount = 0;
+        fieldStart = 0;
+    }
+
+    /**
+     * Returns the number of bytes in the current field.
+     *
+     * @return the number of bytes in the current field
+     */
+    public int fieldLength() {
+        return length - fieldStart;
+    }
+
+    /**
+     * Appends a byte to the current field.
+     *
+     * @param b the byte
+     */
+    public void append(byte b) {
+        if (length == bytes.length) {
+            grow_(length + 1);
+        }
+        bytes[length++] = b;
+    }
+
+    /**
+     * Appends bytes to the current field.
+     *
+     * @param source the source of the bytes
+     * @param offset the offset of the first byte in the source
+     * @param count  the number of bytes to append
+     */
+    public void append(byte[] source, int offset, int count) {
+        if (bytes.length - count < length) {
+            grow_(length + count);
+        }
+        System.arraycopy(source, offset, bytes, length, count);
+        length += count;
+    }
+
+    /**
+     * Ends the current field and adds it to the record.
+     */
+    public void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount << 1);
+        }
+        fieldEnds[fieldCount++] = length;
+        fieldStart = length;
+    }
+
+    /**
+     * Removes the last field of the record, and the bytes of the current
+     * field, if any.
+     *
+     * @throws IllegalStateException if the record has no fields
+     */
+    public void removeLastField()
+            throws
+            IllegalStateException {
+        if (fieldCount == 0) {
+            throw new IllegalStateException("The record has no fields.");
+        }
+        fieldCount--;
+        length = fieldCount == 0 ? 0 : fieldEnds[fieldCount - 1];
+        fieldStart = length;
+    }
+
+    /**
+     * Grows the byte buffer to hold at least the given number of bytes.
+     *
+     * @param minCapacity the minimum capacity
+     */
+    private void grow_(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Record too large.");
+        }
+        int capacity = bytes.length << 1;
+        if (capacity - minCapacity < 0) {
+            capacity = minCapacity;
+        }
+        bytes = Arrays.copyOf(bytes, capacity);
+    }
+
+    /**
+     * Checks the field index.
+     *
+     * @param index the field index
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    private void check_index_(int index)
+            throws
+            IndexOutOfBoundsException {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ". Size: " + fieldCount);
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.Serializable;
+
+/**
+ * Position of a parser at a record boundary, from which parsing can resume.
+ * <p>
+ * The offset counts the units of the parser's input: characters for a
+ * {@link CSVParser}, so a reader can be positioned with
+ * {@link java.io.Reader#skip(long)}, and bytes for a {@link CSVByteParser},
+ * so a file can be positioned with
+ * {@link java.nio.channels.FileChannel#position(long)}, see
+ * {@link CSVSupport#newInputStream(java.nio.file.Path, CSVCheckpoint)}.
+ * </p>
+ * <p>
+ * As "\r\n" and "\n\r" are a single end-of-line, the second character of
+ * such a pair may not have been read yet when the record ends. It is then
+ * recorded as the pending end-of-line, which is skipped if it is the first
+ * character at the offset, exactly as the original parser would have.
+ * </p>
+ * <p>
+ * A range of an input can be handed to a parser by resuming it at a
+ * checkpoint and reading records until the offset of its checkpoint reaches
+ * the end of the range.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVCheckpoint
+        implements
+        Serializable {
+
+    /**
+     * default serial version
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The start of an input.
+     */
+    public static final CSVCheckpoint START = new CSVCheckpoint(0, 1, -1);
+
+    /**
+     * the offset of the next record
+     */
+    private final long offset;
+
+    /**
+     * the line number of the next record
+     */
+    private final long lineNumber;
+
+    /**
+     * the pending end-of-line character or -1
+     */
+    private final int pendingEOL;
+
+    /**
+     * Class constructor.
+     *
+     * @param offset     the offset of the next record in the input
+     * @param lineNumber the line number of the next record
+     * @param pendingEOL the end-of-line character, '\r' or '\n', that is
+     *                   skipped if it is the first character at the offset,
+     *                   or -1
+     * @throws IllegalArgumentException if the offset is negative or the
+     *                                  pending end-of-line is not valid
+     */
+    public CSVCheckpoint(long offset, long lineNumber, int pendingEOL)
+            throws
+            IllegalArgumentException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Negative offset: " + offset);
+        }
+        if (pendingEOL != -1 && pendingEOL != '\r' && pendingEOL != '\n') {
+            throw new IllegalArgumentException(
+                    "Invalid pending end-of-line: " + pendingEOL);
+        }
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.pendingEOL = pendingEOL;
+    }
+
+    /**
+     * Returns the offset of the next record in the input.
+     *
+     * @return the offset of the next record
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Returns the line number of the next record.
+     *
+     * @return the line number of the next record
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the end-of-line character, '\r' or '\n', that is skipped if it
+     * is the first character at the offset, or -1.
+     *
+     * @return the pending end-of-line character or -1
+     */
+    public int pendingEOL() {
+        return pendingEOL;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(offset) * 31 * 31 +
+               Long.hashCode(lineNumber) * 31 + pendingEOL;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CSVCheckpoint)) {
+            return false;
+        }
+        CSVCheckpoint other = (CSVCheckpoint) obj;
+        return offset == other.offset && lineNumber == other.lineNumber &&
+               pendingEOL == other.pendingEOL;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CSVCheckpoint[offset=%d, line=%d, eol=%d]",
+                             offset, lineNumber, pendingEOL);
+    }
+
+}
@@ -0,0 +1,405 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.util.Arrays;
+
+/**
+ * Fixed capacity, reusable batch of decoded CSV rows, stored by column.
+ * <p>
+ * Each column is held in one array sized to the capacity of the batch:
+ * </p>
+ * <ul>
+ * <li>{@link CSVColumnType#INT}: an int[], see {@link #intColumn(int)}</li>
+ * <li>{@link CSVColumnType#LONG} and {@link CSVColumnType#DATE} (days since
+ * 1970-01-01): a long[], see {@link #longColumn(int)}</li>
+ * <li>{@link CSVColumnType#DOUBLE}: a double[], see
+ * {@link #doubleColumn(int)}</li>
+ * <li>{@link CSVColumnType#BOOLEAN}: a boolean[], see
+ * {@link #booleanColumn(int)}</li>
+ * <li>{@link CSVColumnType#STRING}: the characters of all the values in one
+ * char[] and an int[] of capacity + 1 offsets, the value of row i being
+ * between offsets i and i + 1, see {@link #stringChars(int)} and
+ * {@link #stringOffsets(int)}</li>
+ * <li>{@link CSVColumnType#SKIP}: nothing</li>
+ * </ul>
+ * <p>
+ * The values are decoded from a {@link CSVRecord} without intermediate
+ * strings, with {@link CSVValues}. Only the first {@link #size()} entries of
+ * each column are valid, and the arrays are reused after {@link #clear()}.
+ * The arrays of the string columns may be replaced by larger ones when
+ * rows are added.
+ * </p>
+ * <p>
+ * Instances are not thread safe.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVColumnBatch {
+
+    /**
+     * Default number of rows in a batch.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * the types of the columns
+     */
+    private final CSVColumnType[] types;
+
+    /**
+     * the value arrays of the columns, the offsets for the string columns
+     */
+    private final Object[] columns;
+
+    /**
+     * the characters of the string columns
+     */
+    private final char[][] stringChars;
+
+    /**
+     * true for the columns that are decoded
+     */
+    private final boolean[] selection;
+
+    /**
+     * the maximum number of rows
+     */
+    private final int capacity;
+
+    /**
+     * the number of rows
+     */
+    private int size = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param capacity the maximum number of rows in the batch
+     * @param types    the types of the columns, in the order of the fields
+     * @throws IllegalArgumentException if the capacity is not positive
+     * @throws NullPointerException     if a type is null
+     */
+    public CSVColumnBatch(int capacity, CSVColumnType... types)
+            throws
+            IllegalArgumentException,
+            NullPointerException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.types = types.clone();
+        columns = new Object[types.length];
+        stringChars = new char[types.length][];
+        selection = new boolean[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (this.types[i] == null) {
+                throw new NullPointerException("Column type cannot be null.");
+            }
+            selection[i] = this.types[i] != CSVColumnType.SKIP;
+            switch (this.types[i]) {
+                case INT:
+                    columns[i] = new int[capacity];
+                    break;
+                case LONG:
+                case DATE:
+                    columns[i] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    columns[i] = new double[capacity];
+                    break;
+                case BOOLEAN:
+                    columns[i] = new boolean[capacity];
+                    break;
+                case STRING:
+                    columns[i] = new int[capacity + 1];
+                    stringChars[i] = new char[capacity * 8];
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum number of rows in the batch.
+     *
+     * @return the capacity of the batch
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of rows in the batch.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the batch cannot hold more rows.
+     *
+     * @return true if the batch is full
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Removes all the rows, keeping the arrays.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int columnCount() {
+        return types.length;
+    }
+
+    /**
+     * Returns the type of the given column.
+     *
+     * @param column the index of the column
+     * @return the type of the column
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public CSVColumnType columnType(int column)
+            throws
+            IndexOutOfBoundsException {
+        return types[column];
+    }
+
+    /**
+     * Returns the selection of the decoded columns, in the format of
+     * {@link CSVParser#readRecord(java.io.Reader, CSVRecord, boolean[])}.
+     *
+     * @return a copy of the selection
+     */
+    public boolean[] selection() {
+        return selection.clone();
+    }
+
+    /**
+     * Returns the array of the given column after checking its type.
+     *
+     * @param column the index of the column
+     * @param type   the expected type
+     * @param other  another accepted type
+     * @return the array of the column
+     * @throws IllegalArgumentException if the column has a different type
+     */
+    private Object column_(int column, CSVColumnType type, CSVColumnType other)
+            throws
+            IllegalArgumentException {
+        if (types[column] != type && types[column] != other) {
+            throw new IllegalArgumentException(
+                    "Column " + column + " is " + types[column]);
+        }
+        return columns[column];
+    }
+
+    /**
+     * Returns the values of an {@link CSVColumnType#INT} column.
+     *
+     * @param column the index of the column
+     * @return the values, valid up to {@link #size()}
+     * @throws IllegalArgumentException if the column has a different type
+     */
+    public int[] intColumn(int column)
+            throws
+            IllegalArgumentException {
+        return (int[]) column_(column, CSVColumnType.INT, CSVColumnType.INT);
+    }
+
+    /**
+     * Returns the values of a {@link CSVColumnType#LONG} or
+     * {@link CSVColumnType#DATE} column.
+     *
+     * @param column the index of the column
+     * @return the values, valid up to {@link #size()}
+     * @throws IllegalArgumentException if the column has a different type
+     */
+    public long[] longColumn(int column)
+            throws
+            IllegalArgumentException {
+        return (long[]) column_(column, CSVColumnType.LONG,
+                                CSVColumnType.DATE);
+    }
+
+    /**
+     * Returns the values of a {@link CSVColumnType#DOUBLE} column.
+     *
+     * @param column the index of the column
+     * @return the values, valid up to {@link #size()}
+     * @throws IllegalArgumentException if the column has a different type
+     */
+    public double[] doubleColumn(int column)
+            throws
+            IllegalArgumentException {
+        return (double[]) column_(column, CSVColumnType.DOUBLE,
+                                  CSVColumnType.DOUBLE);
+    }
+
+    /**
+     * Returns the values of a {@link CSVColumnType#BOOLEAN} column.
+     *
+     * @param column the index of the column
+     * @return the values, valid up to {@link #size()}
+     * @throws IllegalArgumentException if the column has a different type
+     */
+    public boolean[] booleanColumn(int column)
+            throws
+            IllegalArgumentException {
+        return (boolean[]) column_(column, CSVColumnType.BOOLEAN,
+                                   CSVColumnType.BOOLEAN);
+    }
+
+    /**
+     * Returns the offsets of the values of a {@link CSVColumnType#STRING}
+     * column in {@link #stringChars(int)}. The value of row i is between
+     * offsets i (inclusive) and i + 1 (exclusive).
+     *
+     * @param column the index of the column
+     * @return the offsets, valid up to {@link #size()} + 1
+     * @throws IllegalArgumentException if the column has a different type
+     */
+    public int[] stringOffsets(int column)
+            throws
+            IllegalArgumentException {
+        return (int[]) column_(column, CSVColumnType.STRING,
+                               CSVColumnType.STRING);
+    }
+
+    /**
+     * Returns the characters of the values of a
+     * {@link CSVColumnType#STRING} column.
+     *
+     * @param column the index of the column
+     * @return the characters, see {@link #stringOffsets(int)}
+     * @throws IllegalArgumentException if the column has a different type
+     */
+    public char[] stringChars(int column)
+            throws
+            IllegalArgumentException {
+        column_(column, CSVColumnType.STRING, CSVColumnType.STRING);
+        return stringChars[column];
+    }
+
+    /**
+     * Returns the value of a {@link CSVColumnType#STRING} column as a new
+     * string.
+     *
+     * @param column the index of the column
+     * @param row    the index of the row
+     * @return the value
+     * @throws IllegalArgumentException  if the column has a different type
+     * @throws IndexOutOfBoundsException if the row is not valid
+     */
+    public String getString(int column, int row)
+            throws
+            IllegalArgumentException,
+            IndexOutOfBoundsException {
+        int[] offsets = stringOffsets(column);
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Row: " + row + ", size: " + size);
+        }
+        return new String(stringChars[column], offsets[row],
+                          offsets[row + 1] - offsets[row]);
+    }
+
+    /**
+     * Decodes the given record into a new row.
+     * <p>
+     * If a field cannot be decoded, the row is not added and the batch is
+     * left unchanged.
+     * </p>
+     *
+     * @param record     the record
+     * @param lineNumber the line number of the record, used in exceptions
+     * @throws CSVParserException    if the record has fewer fields than the
+     *                               batch has columns or if a field cannot be
+     *                               decoded
+     * @throws IllegalStateException if the batch is full
+     */
+    public void add(CSVRecord record, long lineNumber)
+            throws
+            CSVParserException,
+            IllegalStateException {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full.");
+        }
+        final CSVColumnType[] types = this.types;
+        CSVFieldDecoder.checkFieldCount(record, types.length, lineNumber);
+        final int row = size;
+        for (int column = 0; column < types.length; column++) {
+            switch (types[column]) {
+                case INT:
+                    ((int[]) columns[column])[row] = CSVFieldDecoder
+                            .decodeInt(record, column, null, column,
+                                       lineNumber);
+                    break;
+                case LONG:
+                    ((long[]) columns[column])[row] = CSVFieldDecoder
+                            .decodeLong(record, column, null, column,
+                                        lineNumber);
+                    break;
+                case DOUBLE:
+                    ((double[]) columns[column])[row] = CSVFieldDecoder
+                            .decodeDouble(record, column, null, column,
+                                          lineNumber);
+                    break;
+                case BOOLEAN:
+                    ((boolean[]) columns[column])[row] = CSVFieldDecoder
+                            .decodeBoolean(record, column, null, column,
+                                           lineNumber);
+                    break;
+                case DATE:
+                    ((long[]) columns[column])[row] = CSVFieldDecoder
+                            .decodeEpochDay(record, column, null, column,
+                                            lineNumber);
+                    break;
+                case STRING:
+                    add_string_(column, row, record.chars(),
+                                record.start(column), record.end(column));
+                    break;
+                default:
+                    break;
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Appends the value of a string column.
+     *
+     * @param column the index of the column
+     * @param row    the index of the row
+     * @param chars  the characters of the record
+     * @param start  the start of the value
+     * @param end    the end of the value (exclusive)
+     */
+    private void add_string_(
+            int column, int row, char[] chars, int start, int end) {
+        int[] offsets = (int[]) columns[column];
+        int offset = offsets[row];
+        int length = end - start;
+        char[] destination = stringChars[column];
+        if (destination.length - offset < length) {
+            destination = Arrays.copyOf(destination, Math.max(
+                    offset + length, destination.length * 2));
+            stringChars[column] = destination;
+        }
+        System.arraycopy(chars, start, destination, offset, length);
+        offsets[row + 1] = offset + length;
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.ticdev.toolboxj.io.csv;
+
+/**
+ * Type of a column decoded by a {@link CSVRecordDecoder}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public enum CSVColumnType {
+
+    /**
+     * decimal int, see {@link CSVValues#parseInt(char[], int, int)}
+     */
+    INT,
+
+    /**
+     * decimal long, see {@link CSVValues#parseLong(char[], int, int)}
+     */
+    LONG,
+
+    /**
+     * double, see {@link CSVValues#parseDouble(char[], int, int)}
+     */
+    DOUBLE,
+
+    /**
+     * true or false, see {@link CSVValues#parseBoolean(char[], int, int)}
+     */
+    BOOLEAN,
+
+    /**
+     * yyyy-MM-dd date as the number of days since 1970-01-01, see
+     * {@link CSVValues#parseEpochDay(char[], int, int)}
+     */
+    DATE,
+
+    /**
+     * the field as a string
+     */
+    STRING,
+
+    /**
+     * the field is parsed but not copied or decoded
+     */
+    SKIP
+
+}
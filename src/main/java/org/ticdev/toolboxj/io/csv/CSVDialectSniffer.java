@@ -0,0 +1,370 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.io.CompressionSupport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detector of the delimiter, text delimiter and escape character of CSV
+ * content, from a sample of its first characters.
+ * <p>
+ * Each combination of the candidate characters is parsed over the sample
+ * with the parser of the library, and is scored by the number of records
+ * having the most common number of fields, which must be at least two. A
+ * wrong delimiter splits the records inconsistently, and a wrong text
+ * delimiter or escape character merges records or fails, so the right
+ * combination has the most consistent records. Ties are broken by the
+ * order of the candidates, the absence of an escape character being
+ * preferred.
+ * </p>
+ * <p>
+ * The result is a builder with a single delimiter, which selects the fast
+ * paths of the parsers, and the default limits, which can be changed before
+ * building the parsers. When no combination splits the records, the result
+ * has the first candidate delimiter and text delimiter.
+ * </p>
+ * <p>
+ * The sample is read without consuming the input: the readers and streams
+ * must support marks, e.g. {@link java.io.BufferedReader} and
+ * {@link java.io.BufferedInputStream}. The last record of a sample that
+ * does not hold the whole input is ignored, as it may be incomplete.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVDialectSniffer {
+
+    /**
+     * Default maximum number of characters, or bytes, in the sample.
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * Default candidate delimiters, in the order of preference.
+     */
+    public static final String DEFAULT_DELIMITERS = ",;\t|";
+
+    /**
+     * Default candidate text delimiters, in the order of preference. No text
+     * delimiter is the last candidate.
+     */
+    public static final String DEFAULT_TEXT_DELIMITERS = "\"'";
+
+    /**
+     * Default candidate escape characters, in the order of preference. No
+     * escape character is the first candidate.
+     */
+    public static final String DEFAULT_ESCAPE_CHARACTERS = "\\";
+
+    /**
+     * the maximum size of the sample
+     */
+    private final int sampleSize;
+
+    /**
+     * the candidate delimiters
+     */
+    private final String delimiters;
+
+    /**
+     * the candidate text delimiters, null for none
+     */
+    private final Character[] textDelimiters;
+
+    /**
+     * the candidate escape characters, null for none
+     */
+    private final Character[] escapeCharacters;
+
+    /**
+     * Class constructor.
+     *
+     * @param sampleSize       the maximum number of characters, or bytes,
+     *                         in the sample
+     * @param delimiters       the candidate delimiters, in the order of
+     *                         preference
+     * @param textDelimiters   the candidate text delimiters, in the order of
+     *                         preference, tried before no text delimiter
+     * @param escapeCharacters the candidate escape characters, in the order
+     *                         of preference, tried after no escape character
+     * @throws IllegalArgumentException if the sample size is not positive or
+     *                                  if there are no candidate delimiters
+     */
+    public CSVDialectSniffer(
+            int sampleSize,
+            String delimiters,
+            String textDelimiters,
+            String escapeCharacters)
+            throws
+            IllegalArgumentException {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Sample size must be positive: " + sampleSize);
+        }
+        if (delimiters.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "There must be at least one candidate delimiter.");
+        }
+        this.sampleSize = sampleSize;
+        this.delimiters = delimiters;
+        this.textDelimiters = new Character[textDelimiters.length() + 1];
+        for (int i = 0; i < textDelimiters.length(); i++) {
+            this.textDelimiters[i] = textDelimiters.charAt(i);
+        }
+        this.escapeCharacters = new Character[escapeCharacters.length() + 1];
+        for (int i = 0; i < escapeCharacters.length(); i++) {
+            this.escapeCharacters[i + 1] = escapeCharacters.charAt(i);
+        }
+    }
+
+    /**
+     * Class constructor with the default sample size and candidates.
+     */
+    public CSVDialectSniffer() {
+        this(DEFAULT_SAMPLE_SIZE, DEFAULT_DELIMITERS,
+             DEFAULT_TEXT_DELIMITERS, DEFAULT_ESCAPE_CHARACTERS);
+    }
+
+    /**
+     * Detects the dialect of the given sample, which holds the whole input.
+     *
+     * @param sample the sample
+     * @return a new builder with the detected dialect
+     * @throws InterruptedException if the thread was interrupted
+     */
+    public CSVParserBuilder sniff(CharSequence sample)
+            throws
+            InterruptedException {
+        return sniff_(sample.toString(), true);
+    }
+
+    /**
+     * Detects the dialect of the first characters of the given reader,
+     * which is reset to its current position afterwards.
+     *
+     * @param reader the reader, which must support marks
+     * @return a new builder with the detected dialect
+     * @throws IllegalArgumentException if the reader does not support marks
+     * @throws InterruptedException     if the thread was interrupted
+     * @throws IOException              if an {@link IOException} occurred
+     */
+    public CSVParserBuilder sniff(Reader reader)
+            throws
+            IllegalArgumentException,
+            InterruptedException,
+            IOException {
+        if (!reader.markSupported()) {
+            throw new IllegalArgumentException(
+                    "The reader must support marks.");
+        }
+        char[] sample = new char[sampleSize];
+        int length = 0;
+        int count = 0;
+        reader.mark(sampleSize + 1);
+        try {
+            while (length < sampleSize &&
+                   (count = reader.read(sample, length, sampleSize - length))
+                   >= 0) {
+                length += count;
+            }
+            if (count >= 0 && reader.read() < 0) {
+                count = -1;
+            }
+        } finally {
+            reader.reset();
+        }
+        return sniff_(new String(sample, 0, length), count < 0);
+    }
+
+    /**
+     * Detects the dialect of the first bytes of the given stream, decoded
+     * with the given character set. The stream is reset to its current
+     * position afterwards.
+     *
+     * @param input   the stream, which must support marks
+     * @param charset the character set
+     * @return a new builder with the detected dialect
+     * @throws IllegalArgumentException if the stream does not support marks
+     * @throws InterruptedException     if the thread was interrupted
+     * @throws IOException              if an {@link IOException} occurred
+     */
+    public CSVParserBuilder sniff(InputStream input, Charset charset)
+            throws
+            IllegalArgumentException,
+            InterruptedException,
+            IOException {
+        if (!input.markSupported()) {
+            throw new IllegalArgumentException(
+                    "The stream must support marks.");
+        }
+        input.mark(sampleSize + 1);
+        try {
+            return sniff_bytes_(input, charset);
+        } finally {
+            input.reset();
+        }
+    }
+
+    /**
+     * Detects the dialect of the first bytes of the given file, which may be
+     * gzip or zlib (deflate) compressed, see {@link CompressionSupport}.
+     *
+     * @param file    the file
+     * @param charset the character set of the, decompressed, content
+     * @return a new builder with the detected dialect
+     * @throws InterruptedException if the thread was interrupted
+     * @throws IOException          if an {@link IOException} occurred
+     */
+    public CSVParserBuilder sniff(Path file, Charset charset)
+            throws
+            InterruptedException,
+            IOException {
+        try (InputStream input = Files.newInputStream(file);
+             InputStream content = CompressionSupport.decompress(input)) {
+            return sniff_bytes_(content, charset);
+        }
+    }
+
+    /**
+     * Reads the sample of a stream and detects its dialect.
+     *
+     * @param input   the stream
+     * @param charset the character set
+     * @return a new builder with the detected dialect
+     * @throws InterruptedException if the thread was interrupted
+     * @throws IOException          if an {@link IOException} occurred
+     */
+    private CSVParserBuilder sniff_bytes_(InputStream input, Charset charset)
+            throws
+            InterruptedException,
+            IOException {
+        byte[] sample = new byte[sampleSize];
+        int length = 0;
+        int count = 0;
+        while (length < sampleSize &&
+               (count = input.read(sample, length, sampleSize - length))
+               >= 0) {
+            length += count;
+        }
+        if (count >= 0 && input.read() < 0) {
+            count = -1;
+        }
+        /* a character cut at the end of the sample is in the ignored
+           last record */
+        return sniff_(new String(sample, 0, length, charset), count < 0);
+    }
+
+    /**
+     * Detects the dialect of a sample.
+     *
+     * @param sample   the sample
+     * @param complete true if the sample holds the whole input
+     * @return a new builder with the detected dialect
+     * @throws InterruptedException if the thread was interrupted
+     */
+    private CSVParserBuilder sniff_(String sample, boolean complete)
+            throws
+            InterruptedException {
+        CSVParserBuilder best = null;
+        int bestScore = 0;
+        for (int d = 0; d < delimiters.length(); d++) {
+            char delimiter = delimiters.charAt(d);
+            if (sample.indexOf(delimiter) < 0) {
+                continue;
+            }
+            for (Character textDelimiter : textDelimiters) {
+                for (Character escapeCharacter : escapeCharacters) {
+                    if (escapeCharacter != null &&
+                        (escapeCharacter == delimiter ||
+                         escapeCharacter.equals(textDelimiter) ||
+                         sample.indexOf(escapeCharacter) < 0)) {
+                        continue;
+                    }
+                    if (textDelimiter != null && textDelimiter == delimiter) {
+                        continue;
+                    }
+                    CSVParserBuilder candidate =
+                            CSVParserBuilder.newInstance()
+                                            .addDelimiter(delimiter)
+                                            .textDelimiter(textDelimiter)
+                                            .escapeCharacter(escapeCharacter);
+                    int score = score_(candidate, sample, complete);
+                    if (score > bestScore) {
+                        best = candidate;
+                        bestScore = score;
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            best = CSVParserBuilder.newInstance()
+                                   .addDelimiter(delimiters.charAt(0))
+                                   .textDelimiter(textDelimiters[0]);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of records of the sample having the most common
+     * number of fields, or 0 if that number is less than two or if the
+     * sample cannot be parsed.
+     *
+     * @param candidate the candidate configuration
+     * @param sample    the sample
+     * @param complete  true if the sample holds the whole input
+     * @return the score of the candidate
+     * @throws InterruptedException if the thread was interrupted
+     */
+    private static int score_(
+            CSVParserBuilder candidate,
+            String sample,
+            boolean complete)
+            throws
+            InterruptedException {
+        CSVParser parser =
+                candidate.build(new BufferedCSVParserInputHelper());
+        StringReader reader = new StringReader(sample);
+        Map<Integer, Integer> counts = new HashMap<>();
+        int last = -1;
+        try {
+            List<String> record;
+            while ((record = parser.parseRecord(reader, null)) != null) {
+                if (last >= 0) {
+                    counts.merge(last, 1, Integer::sum);
+                }
+                last = record.size();
+            }
+        } catch (CSVParserException |
+                CSVParserLineTooLongException |
+                CSVParserTooManyFieldsException |
+                CSVParserFieldTooLargeException |
+                IOException ex) {
+            if (complete) {
+                return 0;
+            }
+            /* the failing record is the cut one */
+        }
+        if (complete && last >= 0) {
+            counts.merge(last, 1, Integer::sum);
+        }
+        int fields = 0;
+        int score = 0;
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > score) {
+                fields = entry.getKey();
+                score = entry.getValue();
+            }
+        }
+        return fields >= 2 ? score : 0;
+    }
+
+}
@@ -0,0 +1,411 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Bounded dictionary of the values of a low-cardinality CSV column, such as
+ * a country code or a status, that maps the characters (or bytes) of a
+ * field directly from the parser's buffer to a canonical {@link String} or
+ * to an int code, without allocating for values that were already seen.
+ * <p>
+ * The codes are assigned in the order the values are first seen, starting
+ * at 0. The dictionary holds at most {@link #maxSize()} values; when it is
+ * full, new values get no code and a new string, while the values already
+ * in the dictionary are still found. If most values then miss, the column
+ * is not low-cardinality and the dictionary stops looking the values up at
+ * all, see {@link #isDisabled()}.
+ * </p>
+ * <p>
+ * The storage starts small and grows with the values, so a dictionary
+ * costs little until its column proves to have many values. The maximum
+ * size is at most {@link #MAX_SIZE}.
+ * </p>
+ * <p>
+ * A dictionary must be used either with characters or with bytes, not
+ * both. Instances are not thread safe.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVDictionary {
+
+    /**
+     * The largest maximum size of a dictionary.
+     */
+    public static final int MAX_SIZE = 1 << 16;
+
+    /**
+     * the initial number of values the storage holds
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * number of misses, once full, after which the hit ratio is checked
+     */
+    private static final int MIN_MISSES = 1024;
+
+    /**
+     * the maximum number of values
+     */
+    private final int maxSize;
+
+    /**
+     * the values by code
+     */
+    private String[] values;
+
+    /**
+     * the bytes of the values by code, when used with bytes
+     */
+    private byte[][] byteKeys;
+
+    /**
+     * the hashes of the values by code
+     */
+    private int[] hashes;
+
+    /**
+     * the hash table of code + 1, 0 for empty slots
+     */
+    private int[] table;
+
+    /**
+     * the number of values
+     */
+    private int size = 0;
+
+    /**
+     * lookups that found a value since the dictionary is full
+     */
+    private long hits = 0;
+
+    /**
+     * lookups that did not find a value since the dictionary is full
+     */
+    private long misses = 0;
+
+    /**
+     * true if the lookups are disabled
+     */
+    private boolean disabled = false;
+
+    /**
+     * Class constructor.
+     *
+     * @param maxSize the maximum number of values
+     * @throws IllegalArgumentException if the maximum size is not positive
+     *                                  or larger than {@link #MAX_SIZE}
+     */
+    public CSVDictionary(int maxSize)
+            throws
+            IllegalArgumentException {
+        if (maxSize <= 0 || maxSize > MAX_SIZE) {
+            throw new IllegalArgumentException(
+                    "Invalid dictionary size: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        int capacity = Math.min(maxSize, INITIAL_CAPACITY);
+        values = new String[capacity];
+        byteKeys = new byte[capacity][];
+        hashes = new int[capacity];
+        table = new int[table_size_(capacity)];
+    }
+
+    /**
+     * Returns the size of the hash table for the given number of values,
+     * for a load factor of at most 0.5.
+     *
+     * @param capacity the number of values
+     * @return the size of the hash table
+     */
+    private static int table_size_(int capacity) {
+        return Integer.highestOneBit(capacity) << 2;
+    }
+
+    /**
+     * Returns the maximum number of values.
+     *
+     * @return the maximum number of values
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the dictionary is full.
+     *
+     * @return true if the dictionary is full
+     */
+    public boolean isFull() {
+        return size == maxSize;
+    }
+
+    /**
+     * Returns true if the dictionary stopped looking the values up because
+     * most of them were not in the full dictionary.
+     *
+     * @return true if the lookups are disabled
+     */
+    public boolean isDisabled() {
+        return disabled;
+    }
+
+    /**
+     * Returns the value of the given code.
+     *
+     * @param code the code
+     * @return the value
+     * @throws IndexOutOfBoundsException if the code is not valid
+     */
+    public String value(int code)
+            throws
+            IndexOutOfBoundsException {
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Code: " + code + ", size: " + size);
+        }
+        return values[code];
+    }
+
+    /**
+     * Removes all the values and enables the lookups.
+     */
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(byteKeys, 0, size, null);
+        Arrays.fill(table, 0);
+        size = 0;
+        hits = 0;
+        misses = 0;
+        disabled = false;
+    }
+
+    /**
+     * Returns the code of the given characters, adding them if they are not
+     * in the dictionary and it is not full.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the code or -1 if the value is not in the dictionary and
+     * cannot be added
+     */
+    public int code(char[] chars, int start, int end) {
+        if (disabled) {
+            return -1;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = table.length - 1;
+        int length = end - start;
+        for (int slot = spread_(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (entry < 0) {
+                if (!add_(slot, hash)) {
+                    return -1;
+                }
+                values[size] = new String(chars, start, length);
+                return size++;
+            }
+            String value = values[entry];
+            if (hashes[entry] == hash && value.length() == length &&
+                matches_(value, chars, start)) {
+                return hit_(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the canonical string of the given characters, or a new string
+     * if they are not in the dictionary and cannot be added.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the value
+     */
+    public String intern(char[] chars, int start, int end) {
+        int code = code(chars, start, end);
+        return code < 0 ? new String(chars, start, end - start) :
+                values[code];
+    }
+
+    /**
+     * Returns the code of the given bytes, adding them, decoded with the
+     * given character set, if they are not in the dictionary and it is not
+     * full.
+     *
+     * @param bytes   the bytes
+     * @param start   the start of the value
+     * @param end     the end of the value (exclusive)
+     * @param charset the character set of the bytes
+     * @return the code or -1 if the value is not in the dictionary and
+     * cannot be added
+     */
+    public int code(byte[] bytes, int start, int end, Charset charset) {
+        if (disabled) {
+            return -1;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = table.length - 1;
+        int length = end - start;
+        for (int slot = spread_(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (entry < 0) {
+                if (!add_(slot, hash)) {
+                    return -1;
+                }
+                byteKeys[size] = Arrays.copyOfRange(bytes, start, end);
+                values[size] = new String(bytes, start, length, charset);
+                return size++;
+            }
+            byte[] key = byteKeys[entry];
+            if (hashes[entry] == hash && key.length == length &&
+                matches_(key, bytes, start)) {
+                return hit_(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the canonical string of the given bytes, or a new string if
+     * they are not in the dictionary and cannot be added.
+     *
+     * @param bytes   the bytes
+     * @param start   the start of the value
+     * @param end     the end of the value (exclusive)
+     * @param charset the character set of the bytes
+     * @return the value
+     */
+    public String intern(byte[] bytes, int start, int end, Charset charset) {
+        int code = code(bytes, start, end, charset);
+        return code < 0 ? new String(bytes, start, end - start, charset) :
+                values[code];
+    }
+
+    /**
+     * Spreads the bits of a hash, as the low bits select the slot.
+     *
+     * @param hash the hash
+     * @return the spread hash
+     */
+    private static int spread_(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Reserves the given empty slot for a new value, growing the storage if
+     * needed, unless the dictionary is full, in which case it counts a miss.
+     *
+     * @param slot the slot
+     * @param hash the hash of the value
+     * @return true if the value can be added
+     */
+    private boolean add_(int slot, int hash) {
+        if (size == maxSize) {
+            if (++misses >= MIN_MISSES && misses > hits) {
+                disabled = true;
+            }
+            return false;
+        }
+        if (size == values.length) {
+            grow_();
+            /* the slots moved, the value is still not in the table */
+            int mask = table.length - 1;
+            slot = spread_(hash) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        table[slot] = size + 1;
+        hashes[size] = hash;
+        return true;
+    }
+
+    /**
+     * Doubles the storage, up to the maximum size, and rehashes the values
+     * when the hash table would be more than half full.
+     */
+    private void grow_() {
+        int capacity = (int) Math.min(maxSize, 2L * values.length);
+        values = Arrays.copyOf(values, capacity);
+        byteKeys = Arrays.copyOf(byteKeys, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        int tableSize = table_size_(capacity);
+        if (tableSize == table.length) {
+            return;
+        }
+        table = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = spread_(hashes[entry]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry + 1;
+        }
+    }
+
+    /**
+     * Counts a hit once the dictionary is full.
+     *
+     * @param entry the code of the value
+     * @return the code of the value
+     */
+    private int hit_(int entry) {
+        if (size == maxSize) {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Compares a value with characters.
+     *
+     * @param value the value
+     * @param chars the characters
+     * @param start the start of the characters
+     * @return true if the characters match the value
+     */
+    private static boolean matches_(String value, char[] chars, int start) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares a key with bytes.
+     *
+     * @param key   the key
+     * @param bytes the bytes
+     * @param start the start of the bytes
+     * @return true if the bytes match the key
+     */
+    private static boolean matches_(byte[] key, byte[] bytes, int start) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
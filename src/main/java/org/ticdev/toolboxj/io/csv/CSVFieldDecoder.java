@@ -0,0 +1,182 @@
+package org.ticdev.toolboxj.io.csv;
+
+/**
+ * Decodes single fields of a {@link CSVRecord} into typed values with
+ * {@link CSVValues}, turning a value that cannot be decoded into a
+ * {@link CSVParserException} that gives the column and the line of the
+ * record.
+ * <p>
+ * Shared by {@link CSVRecordDecoder}, {@link CSVColumnBatch} and
+ * {@link CSVRecordMapper}. The column is named in the exceptions by its
+ * name, when the names are given, or by its index.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+final class CSVFieldDecoder {
+
+    /**
+     * Private constructor.
+     */
+    private CSVFieldDecoder() {
+    }
+
+    /**
+     * Checks that the record has at least the given number of fields.
+     *
+     * @param record     the record
+     * @param count      the minimum number of fields
+     * @param lineNumber the line number of the record
+     * @throws CSVParserException if the record has fewer fields
+     */
+    static void checkFieldCount(CSVRecord record, int count, long lineNumber)
+            throws
+            CSVParserException {
+        if (record.size() < count) {
+            throw new CSVParserException(
+                    String.format("Expected at least %d fields, found %d",
+                                  count, record.size()),
+                    lineNumber);
+        }
+    }
+
+    /**
+     * Returns the exception for a field that cannot be decoded.
+     *
+     * @param names      the names of the columns, null to use the index
+     * @param column     the index of the column
+     * @param ex         the parsing exception
+     * @param lineNumber the line number of the record
+     * @return the exception
+     */
+    static CSVParserException error(
+            String[] names, int column, IllegalArgumentException ex,
+            long lineNumber) {
+        return new CSVParserException(
+                String.format("Column %s: %s",
+                              names == null ? column : names[column],
+                              ex.getMessage()),
+                lineNumber);
+    }
+
+    /**
+     * Decodes an {@link CSVColumnType#INT} field.
+     *
+     * @param record     the record
+     * @param field      the index of the field
+     * @param names      the names of the columns, null to use the index
+     * @param column     the index of the column
+     * @param lineNumber the line number of the record
+     * @return the value
+     * @throws CSVParserException if the field cannot be decoded
+     */
+    static int decodeInt(
+            CSVRecord record, int field, String[] names, int column,
+            long lineNumber)
+            throws
+            CSVParserException {
+        try {
+            return CSVValues.parseInt(
+                    record.chars(), record.start(field), record.end(field));
+        } catch (NumberFormatException ex) {
+            throw error(names, column, ex, lineNumber);
+        }
+    }
+
+    /**
+     * Decodes a {@link CSVColumnType#LONG} field.
+     *
+     * @param record     the record
+     * @param field      the index of the field
+     * @param names      the names of the columns, null to use the index
+     * @param column     the index of the column
+     * @param lineNumber the line number of the record
+     * @return the value
+     * @throws CSVParserException if the field cannot be decoded
+     */
+    static long decodeLong(
+            CSVRecord record, int field, String[] names, int column,
+            long lineNumber)
+            throws
+            CSVParserException {
+        try {
+            return CSVValues.parseLong(
+                    record.chars(), record.start(field), record.end(field));
+        } catch (NumberFormatException ex) {
+            throw error(names, column, ex, lineNumber);
+        }
+    }
+
+    /**
+     * Decodes a {@link CSVColumnType#DOUBLE} field.
+     *
+     * @param record     the record
+     * @param field      the index of the field
+     * @param names      the names of the columns, null to use the index
+     * @param column     the index of the column
+     * @param lineNumber the line number of the record
+     * @return the value
+     * @throws CSVParserException if the field cannot be decoded
+     */
+    static double decodeDouble(
+            CSVRecord record, int field, String[] names, int column,
+            long lineNumber)
+            throws
+            CSVParserException {
+        try {
+            return CSVValues.parseDouble(
+                    record.chars(), record.start(field), record.end(field));
+        } catch (NumberFormatException ex) {
+            throw error(names, column, ex, lineNumber);
+        }
+    }
+
+    /**
+     * Decodes a {@link CSVColumnType#BOOLEAN} field.
+     *
+     * @param record     the record
+     * @param field      the index of the field
+     * @param names      the names of the columns, null to use the index
+     * @param column     the index of the column
+     * @param lineNumber the line number of the record
+     * @return the value
+     * @throws CSVParserException if the field cannot be decoded
+     */
+    static boolean decodeBoolean(
+            CSVRecord record, int field, String[] names, int column,
+            long lineNumber)
+            throws
+            CSVParserException {
+        try {
+            return CSVValues.parseBoolean(
+                    record.chars(), record.start(field), record.end(field));
+        } catch (IllegalArgumentException ex) {
+            throw error(names, column, ex, lineNumber);
+        }
+    }
+
+    /**
+     * Decodes a {@link CSVColumnType#DATE} field into an epoch day.
+     *
+     * @param record     the record
+     * @param field      the index of the field
+     * @param names      the names of the columns, null to use the index
+     * @param column     the index of the column
+     * @param lineNumber the line number of the record
+     * @return the epoch day
+     * @throws CSVParserException if the field cannot be decoded
+     */
+    static long decodeEpochDay(
+            CSVRecord record, int field, String[] names, int column,
+            long lineNumber)
+            throws
+            CSVParserException {
+        try {
+            return CSVValues.parseEpochDay(
+                    record.chars(), record.start(field), record.end(field));
+        } catch (IllegalArgumentException ex) {
+            throw error(names, column, ex, lineNumber);
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Array-backed list of the fields of a CSV record, meant to be reused for
+ * multiple records.
+ * <p>
+ * {@link #clear()} keeps the array, so a list reused for all the records of
+ * an input grows to the widest record once and then no longer allocates.
+ * The list supports all the optional operations of {@link java.util.List}
+ * and accepts null elements.
+ * </p>
+ * <p>
+ * Instances are not thread safe.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVFieldList
+        extends
+        AbstractList<String>
+        implements
+        RandomAccess {
+
+    /**
+     * the fields
+     */
+    private String[] fields;
+
+    /**
+     * the number of fields
+     */
+    private int size = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param initialCapacity the initial number of fields the list can hold
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public CSVFieldList(int initialCapacity)
+            throws
+            IllegalArgumentException {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException(
+                    "Negative capacity: " + initialCapacity);
+        }
+        fields = new String[initialCapacity];
+    }
+
+    /**
+     * Class constructor with an initial capacity of 16 fields.
+     */
+    public CSVFieldList() {
+        this(16);
+    }
+
+    /**
+     * Returns the number of fields the list can hold without growing.
+     *
+     * @return the capacity of the list
+     */
+    public int capacity() {
+        return fields.length;
+    }
+
+    /**
+     * Replaces the content of the list with the fields of the given record.
+     *
+     * @param record the record
+     * @return this list
+     */
+    public CSVFieldList setAll(CSVRecord record) {
+        int count = record.size();
+        clear();
+        grow_(count);
+        for (int i = 0; i < count; i++) {
+            fields[i] = record.getString(i);
+        }
+        size = count;
+        return this;
+    }
+
+    /**
+     * Makes sure the list can hold the given number of fields.
+     *
+     * @param capacity the number of fields
+     */
+    private void grow_(int capacity) {
+        if (capacity > fields.length) {
+            fields = Arrays.copyOf(
+                    fields, Math.max(capacity, fields.length * 2));
+        }
+    }
+
+    /**
+     * Checks an index.
+     *
+     * @param index the index
+     * @param limit the exclusive limit of the index
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    private void check_index_(int index, int limit)
+            throws
+            IndexOutOfBoundsException {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", size: " + size);
+        }
+    }
+
+    @Override
+    public String get(int index) {
+        check_index_(index, size);
+        return fields[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String set(int index, String element) {
+        check_index_(index, size);
+        String previous = fields[index];
+        fields[index] = element;
+        return previous;
+    }
+
+    @Override
+    public boolean add(String element) {
+        grow_(size + 1);
+        fields[size++] = element;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, String element) {
+        check_index_(index, size + 1);
+        grow_(size + 1);
+        System.arraycopy(fields, index, fields, index + 1, size - index);
+        fields[index] = element;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public String remove(int index) {
+        check_index_(index, size);
+        String previous = fields[index];
+        System.arraycopy(fields, index + 1, fields, index, size - index - 1);
+        fields[--size] = null;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(fields, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+}
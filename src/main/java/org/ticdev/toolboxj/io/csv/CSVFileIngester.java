@@ -0,0 +1,850 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.functions.TernaryConsumer;
+import org.ticdev.toolboxj.io.CompressionSupport;
+import org.ticdev.toolboxj.io.MappedFileInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parser of many CSV files in parallel, on the work-stealing threads of a
+ * {@link ForkJoinPool}.
+ * <p>
+ * The files are the units of work, except the uncompressed files larger
+ * than the range size, which are split in ranges at record boundaries with
+ * a {@link CSVRecordIndex} and parsed in parallel, with the same line
+ * numbers as when parsing the whole file. The compressed (gzip or zlib)
+ * files are decompressed, see {@link CompressionSupport}. The units are
+ * split recursively into tasks, so idle workers steal the remaining units
+ * of the busy ones.
+ * </p>
+ * <p>
+ * Each worker thread parses all its units with one {@link CSVByteParser},
+ * reset for each unit. The records are either passed to a per-worker
+ * accumulator, see {@link #ingest(Collection, Supplier, TernaryConsumer)},
+ * or merged into a parallel stream, see
+ * {@link #newStream(Collection, BiConsumer)}.
+ * </p>
+ * <p>
+ * An exception while parsing a file only stops that file: it is reported
+ * with the file, and the other files are parsed. The other ranges of the
+ * file stop before their next record, and the ranges not yet started are
+ * skipped. The records of the file read before the exception are not
+ * removed.
+ * </p>
+ * <p>
+ * The character set must be ASCII compatible and the structural characters
+ * ASCII, as for {@link CSVByteParser}.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVFileIngester {
+
+    /**
+     * Default size, in bytes, above which an uncompressed file is split in
+     * ranges.
+     */
+    public static final long DEFAULT_RANGE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * the number of bytes read to detect compressed files
+     */
+    private static final int PEEK_SIZE = 64;
+
+    /**
+     * the parser configuration
+     */
+    private final CSVParserConfiguration configuration;
+
+    /**
+     * the character set of the files
+     */
+    private final Charset charset;
+
+    /**
+     * the pool running the tasks
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * the size above which an uncompressed file is split in ranges
+     */
+    private final long rangeSize;
+
+    /**
+     * Class constructor.
+     *
+     * @param configuration the parser configuration
+     * @param charset       the character set, which must be ASCII compatible
+     * @param pool          the pool running the tasks
+     * @param rangeSize     the size, in bytes, above which an uncompressed
+     *                      file is split in ranges of about that size
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible, if the text delimiter or
+     *                                  the escape character are not ASCII,
+     *                                  or if the range size is not positive
+     */
+    public CSVFileIngester(
+            CSVParserConfiguration configuration,
+            Charset charset,
+            ForkJoinPool pool,
+            long rangeSize)
+            throws
+            IllegalArgumentException {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Range size must be positive: " + rangeSize);
+        }
+        this.configuration = CSVParserConfiguration.of(configuration);
+        this.charset = charset;
+        this.pool = pool;
+        this.rangeSize = rangeSize;
+        /* validates the character set and the structural characters */
+        CSVParserBuilder.createByteParser(this.configuration, charset);
+    }
+
+    /**
+     * Class constructor using the common pool and ranges of
+     * {@link #DEFAULT_RANGE_SIZE} bytes.
+     *
+     * @param configuration the parser configuration
+     * @param charset       the character set, which must be ASCII compatible
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or if the text delimiter
+     *                                  or the escape character are not ASCII
+     */
+    public CSVFileIngester(
+            CSVParserConfiguration configuration,
+            Charset charset)
+            throws
+            IllegalArgumentException {
+        this(configuration, charset, ForkJoinPool.commonPool(),
+             DEFAULT_RANGE_SIZE);
+    }
+
+    /**
+     * Returns the regular files of a directory and of its sub-directories
+     * whose path, relative to the directory, matches the given glob
+     * pattern, e.g. "*.csv" or "**&#47;*.csv.gz", in sorted order.
+     *
+     * @param directory the directory
+     * @param glob      the glob pattern, see
+     *                  {@link java.nio.file.FileSystem#getPathMatcher(String)}
+     * @return the files
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> files(Path directory, String glob)
+            throws
+            IOException {
+        PathMatcher matcher =
+                directory.getFileSystem().getPathMatcher("glob:" + glob);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(path -> Files.isRegularFile(path) &&
+                                        matcher.matches(
+                                                directory.relativize(path)))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Parses the given files, passing the records to one accumulator per
+     * worker thread, and waits for the end of the parsing.
+     * <p>
+     * An accumulator is only used by its worker, so it does not need to be
+     * thread-safe. The records passed to the sink are new lists, which the
+     * accumulators can keep. The records of a unit are passed in order, but
+     * the units of a file can be parsed by different workers.
+     * </p>
+     *
+     * @param files       the files
+     * @param accumulator the factory of the accumulators
+     * @param sink        the sink of the records, called with the
+     *                    accumulator of the worker, the file and the record;
+     *                    an exception of the sink stops the file
+     * @param <A>         the type of the accumulators
+     * @return the accumulators, the number of records and the exceptions
+     */
+    public <A> Result<A> ingest(
+            Collection<Path> files,
+            Supplier<? extends A> accumulator,
+            TernaryConsumer<? super A, Path, List<String>> sink) {
+        Map<Thread, Worker<A>> workers = new ConcurrentHashMap<>();
+        Map<Path, Exception> errors = new ConcurrentHashMap<>();
+        LongAdder records = new LongAdder();
+        List<Unit> units = units_(files);
+        if (!units.isEmpty()) {
+            pool.invoke(new IngestionTask<>(
+                    units, workers, accumulator, sink, errors, records));
+        }
+        List<A> accumulators = new ArrayList<>(workers.size());
+        for (Worker<A> worker : workers.values()) {
+            accumulators.add(worker.accumulator);
+        }
+        return new Result<>(accumulators, records.sum(), errors);
+    }
+
+    /**
+     * Returns a new parallel stream of the records of the given files.
+     * <p>
+     * The stream splits the units among the threads of the pool that runs
+     * its terminal operation: the common pool, unless the operation is
+     * called from a task of another pool. Closing the stream closes the files
+     * left open by all its splits, e.g. after a short-circuiting operation.
+     * The order of the records is the order of the files.
+     * </p>
+     *
+     * @param files        the files
+     * @param errorHandler called with the file and the first exception when
+     *                     a file cannot be parsed, from the thread that
+     *                     parsed it
+     * @return the new stream
+     */
+    public Stream<List<String>> newStream(
+            Collection<Path> files,
+            BiConsumer<Path, Exception> errorHandler) {
+        Inputs inputs = new Inputs();
+        UnitSpliterator spliterator = new UnitSpliterator(
+                units_(files), errorHandler, inputs,
+                ConcurrentHashMap.newKeySet());
+        return StreamSupport.stream(spliterator, true)
+                            .onClose(inputs::close);
+    }
+
+    /**
+     * Closes an input.
+     *
+     * @param input the input
+     */
+    private static void close_(InputStream input) {
+        try {
+            input.close();
+        } catch (IOException ex) {
+            /* nothing was written */
+        }
+    }
+
+    /**
+     * Returns a unit for each file.
+     *
+     * @param files the files
+     * @return the units
+     */
+    private static List<Unit> units_(Collection<Path> files) {
+        List<Unit> units = new ArrayList<>(files.size());
+        for (Path file : files) {
+            units.add(new Unit(file, null, null));
+        }
+        return units;
+    }
+
+    /**
+     * Returns the ranges of a large uncompressed file.
+     *
+     * @param unit the unit of the whole file
+     * @return the units of the ranges, or the given unit if it is not split
+     * @throws IOException if the file cannot be read
+     */
+    private List<Unit> ranges_(Unit unit)
+            throws
+            IOException {
+        if (unit.start != null) {
+            return Collections.singletonList(unit);
+        }
+        try (FileChannel channel =
+                     FileChannel.open(unit.file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= rangeSize) {
+                return Collections.singletonList(unit);
+            }
+            ByteBuffer peek = ByteBuffer.allocate(PEEK_SIZE);
+            while (peek.hasRemaining() && channel.read(peek) > 0) {
+                /* fills the buffer */
+            }
+            if (CompressionSupport.isGzip(peek.array(), peek.position()) ||
+                CompressionSupport.isZlib(peek.array(), peek.position())) {
+                return Collections.singletonList(unit);
+            }
+        }
+        CSVRecordIndex index = CSVRecordIndex.build(unit.file, configuration);
+        int count = (int) Math.min(Integer.MAX_VALUE / 2,
+                                   (index.fileSize() + rangeSize - 1) /
+                                   rangeSize);
+        List<CSVCheckpoint> boundaries = index.split(count);
+        List<Unit> ranges = new ArrayList<>(boundaries.size() - 1);
+        for (int i = 0; i + 1 < boundaries.size(); i++) {
+            ranges.add(new Unit(unit.file, boundaries.get(i),
+                                boundaries.get(i + 1)));
+        }
+        return ranges;
+    }
+
+    /**
+     * Opens a unit and resets the parser to its start.
+     *
+     * @param unit   the unit
+     * @param parser the parser
+     * @return the input of the unit
+     * @throws IOException if the file cannot be opened
+     */
+    private static InputStream open_(Unit unit, CSVByteParser parser)
+            throws
+            IOException {
+        if (unit.start == null) {
+            parser.reset(CSVCheckpoint.START);
+            InputStream input = Files.newInputStream(unit.file);
+            try {
+                return CompressionSupport.decompress(input);
+            } catch (IOException | RuntimeException ex) {
+                input.close();
+                throw ex;
+            }
+        }
+        parser.reset(unit.start);
+        FileChannel channel =
+                FileChannel.open(unit.file, StandardOpenOption.READ);
+        return new MappedFileInputStream(
+                channel, unit.start.offset(), unit.end.offset()) {
+            @Override
+            public void close()
+                    throws
+                    IOException {
+                try {
+                    super.close();
+                } finally {
+                    channel.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * A file or a range of a file.
+     */
+    private static final class Unit {
+
+        /**
+         * the file
+         */
+        final Path file;
+
+        /**
+         * the start of the range, null for the whole file
+         */
+        final CSVCheckpoint start;
+
+        /**
+         * the end of the range, null for the whole file
+         */
+        final CSVCheckpoint end;
+
+        /**
+         * Class constructor.
+         *
+         * @param file  the file
+         * @param start the start of the range, null for the whole file
+         * @param end   the end of the range, null for the whole file
+         */
+        Unit(Path file, CSVCheckpoint start, CSVCheckpoint end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+
+    }
+
+    /**
+     * The open inputs of the spliterators of a stream, closed with the
+     * stream, including those of the splits still running after a
+     * short-circuiting operation.
+     */
+    private static final class Inputs {
+
+        /**
+         * the open inputs
+         */
+        private final Set<InputStream> open = new HashSet<>();
+
+        /**
+         * true once the stream is closed
+         */
+        private volatile boolean closed = false;
+
+        /**
+         * Adds an opened input.
+         *
+         * @param input the input
+         * @return false if the stream is closed, in which case the input is
+         * not added
+         */
+        synchronized boolean add(InputStream input) {
+            if (closed) {
+                return false;
+            }
+            open.add(input);
+            return true;
+        }
+
+        /**
+         * Removes a closed input.
+         *
+         * @param input the input
+         */
+        synchronized void remove(InputStream input) {
+            open.remove(input);
+        }
+
+        /**
+         * Returns true if the stream is closed.
+         *
+         * @return true if the stream is closed
+         */
+        boolean closed() {
+            return closed;
+        }
+
+        /**
+         * Closes the open inputs. The inputs opened afterwards are not
+         * added.
+         */
+        synchronized void close() {
+            closed = true;
+            for (InputStream input : open) {
+                close_(input);
+            }
+            open.clear();
+        }
+
+    }
+
+    /**
+     * The parser and the accumulator of a worker thread.
+     *
+     * @param <A> the type of the accumulator
+     */
+    private static final class Worker<A> {
+
+        /**
+         * the parser
+         */
+        final CSVByteParser parser;
+
+        /**
+         * the accumulator
+         */
+        final A accumulator;
+
+        /**
+         * Class constructor.
+         *
+         * @param parser      the parser
+         * @param accumulator the accumulator
+         */
+        Worker(CSVByteParser parser, A accumulator) {
+            this.parser = parser;
+            this.accumulator = accumulator;
+        }
+
+    }
+
+    /**
+     * Task parsing a list of units, split in halves until one unit is left.
+     *
+     * @param <A> the type of the accumulators
+     */
+    private final class IngestionTask<A>
+            extends
+            RecursiveAction {
+
+        /**
+         * serial version
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * the units
+         */
+        private final List<Unit> units;
+
+        /**
+         * the workers by thread
+         */
+        private final Map<Thread, Worker<A>> workers;
+
+        /**
+         * the factory of the accumulators
+         */
+        private final Supplier<? extends A> accumulator;
+
+        /**
+         * the sink of the records
+         */
+        private final TernaryConsumer<? super A, Path, List<String>> sink;
+
+        /**
+         * the exceptions by file, which also stop the other ranges of the
+         * files
+         */
+        private final Map<Path, Exception> errors;
+
+        /**
+         * the number of records
+         */
+        private final LongAdder records;
+
+        /**
+         * Class constructor.
+         *
+         * @param units       the units
+         * @param workers     the workers by thread
+         * @param accumulator the factory of the accumulators
+         * @param sink        the sink of the records
+         * @param errors      the exceptions by file
+         * @param records     the number of records
+         */
+        IngestionTask(
+                List<Unit> units,
+                Map<Thread, Worker<A>> workers,
+                Supplier<? extends A> accumulator,
+                TernaryConsumer<? super A, Path, List<String>> sink,
+                Map<Path, Exception> errors,
+                LongAdder records) {
+            this.units = units;
+            this.workers = workers;
+            this.accumulator = accumulator;
+            this.sink = sink;
+            this.errors = errors;
+            this.records = records;
+        }
+
+        /**
+         * Returns a task for some of the units.
+         *
+         * @param subset the units
+         * @return the task
+         */
+        private IngestionTask<A> subtask_(List<Unit> subset) {
+            return new IngestionTask<>(
+                    subset, workers, accumulator, sink, errors, records);
+        }
+
+        @Override
+        protected void compute() {
+            if (units.size() > 1) {
+                int middle = units.size() / 2;
+                invokeAll(subtask_(units.subList(0, middle)),
+                          subtask_(units.subList(middle, units.size())));
+                return;
+            }
+            Unit unit = units.get(0);
+            List<Unit> ranges;
+            try {
+                ranges = ranges_(unit);
+            } catch (IOException | RuntimeException ex) {
+                errors.putIfAbsent(unit.file, ex);
+                return;
+            }
+            if (ranges.size() > 1) {
+                subtask_(ranges).compute();
+                return;
+            }
+            if (errors.containsKey(unit.file)) {
+                return;
+            }
+            Worker<A> worker = workers.computeIfAbsent(
+                    Thread.currentThread(),
+                    thread -> new Worker<>(
+                            CSVParserBuilder.createByteParser(
+                                    configuration, charset),
+                            accumulator.get()));
+            long count = 0;
+            try (InputStream input = open_(unit, worker.parser)) {
+                List<String> record;
+                while ((record = worker.parser.parseRecord(input, null))
+                       != null && !errors.containsKey(unit.file)) {
+                    sink.accept(worker.accumulator, unit.file, record);
+                    count++;
+                }
+            } catch (Exception ex) {
+                errors.putIfAbsent(unit.file, ex);
+            } finally {
+                records.add(count);
+            }
+        }
+
+    }
+
+    /**
+     * Spliterator of the records of a list of units, split at the units,
+     * and at the ranges of a large file when one unit is left.
+     */
+    private final class UnitSpliterator
+            implements
+            Spliterator<List<String>>,
+            AutoCloseable {
+
+        /**
+         * the units
+         */
+        private List<Unit> units;
+
+        /**
+         * the handler of the exceptions
+         */
+        private final BiConsumer<Path, Exception> errorHandler;
+
+        /**
+         * the open inputs of the spliterator and of its splits
+         */
+        private final Inputs inputs;
+
+        /**
+         * the files that failed, shared with the splits
+         */
+        private final Set<Path> failed;
+
+        /**
+         * the index of the next unit
+         */
+        private int next = 0;
+
+        /**
+         * the parser, created with the first unit
+         */
+        private CSVByteParser parser = null;
+
+        /**
+         * the current unit
+         */
+        private Unit unit = null;
+
+        /**
+         * the input of the current unit, null between units
+         */
+        private InputStream input = null;
+
+        /**
+         * Class constructor.
+         *
+         * @param units        the units
+         * @param errorHandler the handler of the exceptions
+         * @param inputs       the open inputs of the spliterator and of its
+         *                     splits
+         * @param failed       the files that failed, shared with the splits
+         */
+        UnitSpliterator(
+                List<Unit> units,
+                BiConsumer<Path, Exception> errorHandler,
+                Inputs inputs,
+                Set<Path> failed) {
+            this.units = units;
+            this.errorHandler = errorHandler;
+            this.inputs = inputs;
+            this.failed = failed;
+        }
+
+        /**
+         * Closes the current unit and reports its exception, unless its file
+         * already failed. Nothing is reported once the stream is closed, as
+         * closing the inputs fails the units being parsed.
+         *
+         * @param ex the exception
+         */
+        private void failed_(Exception ex) {
+            close();
+            if (!inputs.closed() && failed.add(unit.file)) {
+                errorHandler.accept(unit.file, ex);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<String>> action) {
+            while (true) {
+                if (input == null) {
+                    if (next >= units.size() || inputs.closed()) {
+                        return false;
+                    }
+                    unit = units.get(next++);
+                    if (failed.contains(unit.file)) {
+                        continue;
+                    }
+                    try {
+                        if (parser == null) {
+                            parser = CSVParserBuilder.createByteParser(
+                                    configuration, charset);
+                        }
+                        input = open_(unit, parser);
+                    } catch (IOException | RuntimeException ex) {
+                        failed_(ex);
+                        continue;
+                    }
+                    if (!inputs.add(input)) {
+                        close_(input);
+                        input = null;
+                        return false;
+                    }
+                }
+                List<String> record;
+                try {
+                    record = parser.parseRecord(input, null);
+                } catch (Exception ex) {
+                    failed_(ex);
+                    continue;
+                }
+                if (record == null || failed.contains(unit.file)) {
+                    close();
+                    continue;
+                }
+                action.accept(record);
+                return true;
+            }
+        }
+
+        @Override
+        public Spliterator<List<String>> trySplit() {
+            if (input != null) {
+                return null;
+            }
+            int remaining = units.size() - next;
+            if (remaining == 1) {
+                try {
+                    units = ranges_(units.get(next));
+                } catch (IOException | RuntimeException ex) {
+                    unit = units.get(next++);
+                    if (failed.add(unit.file)) {
+                        errorHandler.accept(unit.file, ex);
+                    }
+                    return null;
+                }
+                next = 0;
+                remaining = units.size();
+            }
+            if (remaining < 2) {
+                return null;
+            }
+            int middle = next + remaining / 2;
+            UnitSpliterator prefix = new UnitSpliterator(
+                    units.subList(next, middle), errorHandler, inputs,
+                    failed);
+            next = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return units.size() - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.NONNULL | Spliterator.ORDERED;
+        }
+
+        @Override
+        public void close() {
+            if (input != null) {
+                inputs.remove(input);
+                close_(input);
+                input = null;
+            }
+        }
+
+    }
+
+    /**
+     * The result of {@link #ingest(Collection, Supplier, TernaryConsumer)}.
+     *
+     * @param <A> the type of the accumulators
+     */
+    public static final class Result<A> {
+
+        /**
+         * the accumulators of the workers
+         */
+        private final List<A> accumulators;
+
+        /**
+         * the number of records
+         */
+        private final long recordCount;
+
+        /**
+         * the exceptions by file
+         */
+        private final Map<Path, Exception> errors;
+
+        /**
+         * Class constructor.
+         *
+         * @param accumulators the accumulators of the workers
+         * @param recordCount  the number of records
+         * @param errors       the exceptions by file
+         */
+        Result(
+                List<A> accumulators,
+                long recordCount,
+                Map<Path, Exception> errors) {
+            this.accumulators = Collections.unmodifiableList(accumulators);
+            this.recordCount = recordCount;
+            this.errors = Collections.unmodifiableMap(errors);
+        }
+
+        /**
+         * Returns the accumulators of the workers, one per worker that
+         * parsed at least one unit.
+         *
+         * @return the accumulators
+         */
+        public List<A> accumulators() {
+            return accumulators;
+        }
+
+        /**
+         * Returns the number of records passed to the accumulators.
+         *
+         * @return the number of records
+         */
+        public long recordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Returns the first exception of each file that could not be
+         * parsed completely.
+         *
+         * @return the exceptions by file
+         */
+        public Map<Path, Exception> errors() {
+            return errors;
+        }
+
+    }
+
+}
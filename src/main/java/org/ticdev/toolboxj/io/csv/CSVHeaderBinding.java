@@ -0,0 +1,684 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Schema mapping the named columns of CSV records to the properties of a
+ * class.
+ * <p>
+ * A binding is created once per class, either from the public setters of
+ * the class, see {@link #of(Class)}, or from explicit setters, see
+ * {@link #newBuilder(Supplier)}. The constructor and the setters found by
+ * reflection are compiled once, with {@link LambdaMetafactory}, into
+ * functional interfaces, so mapping a record costs about as much as
+ * hand-written code. The classes that the class loader of the library
+ * cannot see, e.g. loaded by a child class loader, are called through
+ * method handles instead, a little slower.
+ * </p>
+ * <p>
+ * The binding is resolved against the header record of each input with
+ * {@link #bind(List)}, which gives a {@link CSVRecordMapper} with the index
+ * of each column. The names of the columns and of the properties are
+ * compared ignoring case and the characters other than letters and digits,
+ * so the "First Name" and "first_name" columns both match the
+ * {@code setFirstName} setter.
+ * </p>
+ * <p>
+ * The values are decoded as the types of {@link CSVColumnType}, directly
+ * from the buffer of a {@link CSVRecord}. Instances are immutable.
+ * </p>
+ *
+ * @param <T> the type of the mapped objects
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVHeaderBinding<T> {
+
+    /**
+     * the lookup used to compile the constructors and the setters
+     */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * the factory of the mapped objects
+     */
+    private final Supplier<? extends T> factory;
+
+    /**
+     * the columns by normalized name
+     */
+    private final Map<String, Column> columns;
+
+    /**
+     * Class constructor.
+     *
+     * @param builder the builder
+     */
+    private CSVHeaderBinding(Builder<T> builder) {
+        factory = builder.factory;
+        columns = new LinkedHashMap<>(builder.columns);
+    }
+
+    /**
+     * Returns a new builder for a binding creating objects with the given
+     * factory.
+     *
+     * @param factory the factory of the mapped objects
+     * @param <T>     the type of the mapped objects
+     * @return a new builder
+     * @throws NullPointerException if the factory is null
+     */
+    public static <T> Builder<T> newBuilder(Supplier<? extends T> factory)
+            throws
+            NullPointerException {
+        if (factory == null) {
+            throw new NullPointerException("Factory cannot be null.");
+        }
+        return new Builder<>(factory);
+    }
+
+    /**
+     * Returns a new builder for a binding of the given class, holding the
+     * optional columns of its public setters.
+     * <p>
+     * The class must be public, with a public constructor without
+     * parameters. Each public method named set<i>Name</i>, with one
+     * parameter and no result, is bound to the column <i>Name</i> when the
+     * parameter is a String, an int, a long, a double, a boolean, their
+     * wrappers, or a {@link LocalDate}. The other methods are ignored.
+     * </p>
+     *
+     * @param type the class
+     * @param <T>  the type of the mapped objects
+     * @return a new builder
+     * @throws IllegalArgumentException if the class or its constructor are
+     *                                  not accessible
+     */
+    public static <T> Builder<T> newBuilder(Class<T> type)
+            throws
+            IllegalArgumentException {
+        Builder<T> builder = new Builder<>(constructor_(type));
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (Modifier.isStatic(method.getModifiers()) ||
+                name.length() <= 3 || !name.startsWith("set") ||
+                method.getParameterCount() != 1 ||
+                method.getReturnType() != void.class) {
+                continue;
+            }
+            Column column = setter_(type, name.substring(3), method);
+            if (column != null) {
+                builder.columns.putIfAbsent(column.key, column);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Returns the binding of the public setters of the given class, see
+     * {@link #newBuilder(Class)}.
+     *
+     * @param type the class
+     * @param <T>  the type of the mapped objects
+     * @return the binding
+     * @throws IllegalArgumentException if the class or its constructor are
+     *                                  not accessible
+     */
+    public static <T> CSVHeaderBinding<T> of(Class<T> type)
+            throws
+            IllegalArgumentException {
+        return newBuilder(type).build();
+    }
+
+    /**
+     * Returns the normalized name of a column or of a property, made of its
+     * letters and digits in lower case.
+     *
+     * @param name the name
+     * @return the normalized name
+     */
+    static String normalize_(CharSequence name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns true if the given class is the one its name resolves to from
+     * the class loader of the library. The classes compiled with
+     * {@link LambdaMetafactory} are defined there, so they can only call
+     * the methods of the visible classes.
+     *
+     * @param type the class
+     * @return true if the class is visible from the library
+     */
+    private static boolean visible_(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false,
+                                 CSVHeaderBinding.class.getClassLoader())
+                   == type;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the exception to throw for an exception of a method handle.
+     *
+     * @param ex the exception
+     * @return the unchecked exception
+     */
+    private static RuntimeException unchecked_(Throwable ex) {
+        if (ex instanceof Error) {
+            throw (Error) ex;
+        }
+        if (ex instanceof RuntimeException) {
+            return (RuntimeException) ex;
+        }
+        return new RuntimeException(ex);
+    }
+
+    /**
+     * Compiles the public constructor without parameters of a class. The
+     * constructor of a class that is not visible from the library is called
+     * through its method handle.
+     *
+     * @param type the class
+     * @param <T>  the type of the objects
+     * @return the factory of objects
+     * @throws IllegalArgumentException if the constructor is not accessible
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> constructor_(Class<T> type)
+            throws
+            IllegalArgumentException {
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(
+                    type, MethodType.methodType(void.class));
+            if (!visible_(type)) {
+                MethodHandle generic =
+                        handle.asType(MethodType.methodType(Object.class));
+                return () -> {
+                    try {
+                        return (T) (Object) generic.invokeExact();
+                    } catch (Throwable ex) {
+                        throw unchecked_(ex);
+                    }
+                };
+            }
+            CallSite site = LambdaMetafactory.metafactory(
+                    LOOKUP, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle,
+                    MethodType.methodType(type));
+            return (Supplier<T>) site.getTarget().invoke();
+        } catch (Throwable ex) {
+            throw new IllegalArgumentException(
+                    "No accessible constructor without parameters: " +
+                    type.getName(), ex);
+        }
+    }
+
+    /**
+     * Returns an instance of a functional interface calling a method handle
+     * of the erased type of the interface.
+     *
+     * @param handle         the method handle
+     * @param functionalType the functional interface
+     * @return the functional interface instance
+     */
+    private static Object invoker_(
+            MethodHandle handle,
+            Class<?> functionalType) {
+        if (functionalType == ObjIntConsumer.class) {
+            return (ObjIntConsumer<Object>) (target, value) -> {
+                try {
+                    handle.invokeExact(target, value);
+                } catch (Throwable ex) {
+                    throw unchecked_(ex);
+                }
+            };
+        }
+        if (functionalType == ObjLongConsumer.class) {
+            return (ObjLongConsumer<Object>) (target, value) -> {
+                try {
+                    handle.invokeExact(target, value);
+                } catch (Throwable ex) {
+                    throw unchecked_(ex);
+                }
+            };
+        }
+        if (functionalType == ObjDoubleConsumer.class) {
+            return (ObjDoubleConsumer<Object>) (target, value) -> {
+                try {
+                    handle.invokeExact(target, value);
+                } catch (Throwable ex) {
+                    throw unchecked_(ex);
+                }
+            };
+        }
+        return (BiConsumer<Object, Object>) (target, value) -> {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable ex) {
+                throw unchecked_(ex);
+            }
+        };
+    }
+
+    /**
+     * Compiles a setter into an instance of a functional interface. The
+     * setter of a class that is not visible from the library is called
+     * through its method handle.
+     *
+     * @param type           the class
+     * @param method         the setter
+     * @param functionalType the functional interface
+     * @param erasedType     the type of the method of the interface
+     * @param valueType      the type of the values passed to the setter
+     * @return the functional interface instance
+     * @throws IllegalArgumentException if the setter is not accessible
+     */
+    private static Object compile_(
+            Class<?> type,
+            Method method,
+            Class<?> functionalType,
+            MethodType erasedType,
+            Class<?> valueType)
+            throws
+            IllegalArgumentException {
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            if (!visible_(type)) {
+                return invoker_(handle.asType(erasedType), functionalType);
+            }
+            CallSite site = LambdaMetafactory.metafactory(
+                    LOOKUP, "accept", MethodType.methodType(functionalType),
+                    erasedType, handle,
+                    MethodType.methodType(void.class, type, valueType));
+            return site.getTarget().invoke();
+        } catch (Throwable ex) {
+            throw new IllegalArgumentException(
+                    "Setter not accessible: " + method, ex);
+        }
+    }
+
+    /**
+     * Returns the optional column of a setter.
+     *
+     * @param type   the class
+     * @param name   the name of the property
+     * @param method the setter
+     * @return the column, null if the type of the setter is not supported
+     * @throws IllegalArgumentException if the setter is not accessible
+     */
+    @SuppressWarnings("unchecked")
+    private static Column setter_(Class<?> type, String name, Method method)
+            throws
+            IllegalArgumentException {
+        Class<?> parameter = method.getParameterTypes()[0];
+        if (parameter == int.class || parameter == Integer.class) {
+            return new Column(name, CSVColumnType.INT, compile_(
+                    type, method, ObjIntConsumer.class,
+                    MethodType.methodType(void.class, Object.class,
+                                          int.class), int.class), false);
+        }
+        if (parameter == long.class || parameter == Long.class) {
+            return new Column(name, CSVColumnType.LONG, compile_(
+                    type, method, ObjLongConsumer.class,
+                    MethodType.methodType(void.class, Object.class,
+                                          long.class), long.class), false);
+        }
+        if (parameter == double.class || parameter == Double.class) {
+            return new Column(name, CSVColumnType.DOUBLE, compile_(
+                    type, method, ObjDoubleConsumer.class,
+                    MethodType.methodType(void.class, Object.class,
+                                          double.class), double.class),
+                              false);
+        }
+        MethodType biConsumer = MethodType.methodType(
+                void.class, Object.class, Object.class);
+        if (parameter == boolean.class || parameter == Boolean.class) {
+            return new Column(name, CSVColumnType.BOOLEAN, compile_(
+                    type, method, BiConsumer.class, biConsumer,
+                    Boolean.class), false);
+        }
+        if (parameter == String.class) {
+            return new Column(name, CSVColumnType.STRING, compile_(
+                    type, method, BiConsumer.class, biConsumer,
+                    String.class), false);
+        }
+        if (parameter == LocalDate.class) {
+            BiConsumer<Object, LocalDate> setter =
+                    (BiConsumer<Object, LocalDate>) compile_(
+                            type, method, BiConsumer.class, biConsumer,
+                            LocalDate.class);
+            ObjLongConsumer<Object> epochDaySetter =
+                    (target, epochDay) -> setter.accept(
+                            target, LocalDate.ofEpochDay(epochDay));
+            return new Column(name, CSVColumnType.DATE, epochDaySetter,
+                              false);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of the columns of the binding.
+     *
+     * @return the names of the columns
+     */
+    public List<String> columnNames() {
+        List<String> names = new ArrayList<>(columns.size());
+        for (Column column : columns.values()) {
+            names.add(column.name);
+        }
+        return names;
+    }
+
+    /**
+     * Resolves the columns of the binding against the given header record.
+     * When a name appears several times in the header, the first column is
+     * used.
+     *
+     * @param header the names of the columns of the records
+     * @return the mapper of the records
+     * @throws IllegalArgumentException if a required column is missing
+     */
+    public CSVRecordMapper<T> bind(List<? extends CharSequence> header)
+            throws
+            IllegalArgumentException {
+        return bind(header, null);
+    }
+
+    /**
+     * Resolves the columns of the binding against the given header record,
+     * read with a projection. The mapper reads the records without the
+     * projection (see {@link CSVRecordMapper#selection()}), so each name of
+     * the header is resolved to the index of its column in the input, not
+     * to its index in the header.
+     *
+     * @param header       the names of the columns of the records
+     * @param inputColumns the index in the input of each field of the
+     *                     header, see {@link CSVParser#selectedColumns()},
+     *                     or null if the header holds all the columns
+     * @return the mapper of the records
+     * @throws IllegalArgumentException if a required column is missing or
+     *                                  if the header has more fields than
+     *                                  the projection
+     */
+    public CSVRecordMapper<T> bind(
+            List<? extends CharSequence> header,
+            int[] inputColumns)
+            throws
+            IllegalArgumentException {
+        if (inputColumns != null && header.size() > inputColumns.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Header of %d fields for a projection of %d columns",
+                    header.size(), inputColumns.length));
+        }
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = header.size() - 1; i >= 0; i--) {
+            indexes.put(normalize_(header.get(i)),
+                        inputColumns == null ? i : inputColumns[i]);
+        }
+        List<String> names = new ArrayList<>();
+        List<Integer> fields = new ArrayList<>();
+        List<CSVColumnType> types = new ArrayList<>();
+        List<Object> setters = new ArrayList<>();
+        for (Column column : columns.values()) {
+            Integer index = indexes.get(column.key);
+            if (index == null) {
+                if (column.required) {
+                    throw new IllegalArgumentException(
+                            "Missing column: " + column.name);
+                }
+                continue;
+            }
+            names.add(column.name);
+            fields.add(index);
+            types.add(column.type);
+            setters.add(column.setter);
+        }
+        int[] fieldArray = new int[fields.size()];
+        for (int i = 0; i < fieldArray.length; i++) {
+            fieldArray[i] = fields.get(i);
+        }
+        return new CSVRecordMapper<>(
+                factory, names.toArray(new String[0]), fieldArray,
+                types.toArray(new CSVColumnType[0]), setters.toArray());
+    }
+
+    /**
+     * A column bound to a setter.
+     */
+    private static final class Column {
+
+        /**
+         * the name
+         */
+        final String name;
+
+        /**
+         * the normalized name
+         */
+        final String key;
+
+        /**
+         * the type of the values
+         */
+        final CSVColumnType type;
+
+        /**
+         * the setter
+         */
+        final Object setter;
+
+        /**
+         * true if the header must have the column
+         */
+        final boolean required;
+
+        /**
+         * Class constructor.
+         *
+         * @param name     the name
+         * @param type     the type of the values
+         * @param setter   the setter
+         * @param required true if the header must have the column
+         */
+        Column(
+                String name,
+                CSVColumnType type,
+                Object setter,
+                boolean required) {
+            this.name = name;
+            this.key = normalize_(name);
+            this.type = type;
+            this.setter = setter;
+            this.required = required;
+        }
+
+    }
+
+    /**
+     * Builder for a {@link CSVHeaderBinding}. The columns added with the
+     * methods of the builder are required, and replace the columns with the
+     * same name.
+     *
+     * @param <T> the type of the mapped objects
+     */
+    public static final class Builder<T> {
+
+        /**
+         * the factory of the mapped objects
+         */
+        private final Supplier<? extends T> factory;
+
+        /**
+         * the columns by normalized name
+         */
+        private final Map<String, Column> columns = new LinkedHashMap<>();
+
+        /**
+         * Class constructor.
+         *
+         * @param factory the factory of the mapped objects
+         */
+        private Builder(Supplier<? extends T> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Adds a required column.
+         *
+         * @param name   the name of the column
+         * @param type   the type of the values
+         * @param setter the setter
+         * @return this builder
+         * @throws NullPointerException if the name or the setter is null
+         */
+        private Builder<T> add_(
+                String name,
+                CSVColumnType type,
+                Object setter)
+                throws
+                NullPointerException {
+            if (name == null || setter == null) {
+                throw new NullPointerException(
+                        "Name and setter cannot be null.");
+            }
+            Column column = new Column(name, type, setter, true);
+            columns.remove(column.key);
+            columns.put(column.key, column);
+            return this;
+        }
+
+        /**
+         * Adds an int column.
+         *
+         * @param name   the name of the column
+         * @param setter the setter of the values
+         * @return this builder
+         * @throws NullPointerException if the name or the setter is null
+         */
+        public Builder<T> intColumn(
+                String name,
+                ObjIntConsumer<? super T> setter)
+                throws
+                NullPointerException {
+            return add_(name, CSVColumnType.INT, setter);
+        }
+
+        /**
+         * Adds a long column.
+         *
+         * @param name   the name of the column
+         * @param setter the setter of the values
+         * @return this builder
+         * @throws NullPointerException if the name or the setter is null
+         */
+        public Builder<T> longColumn(
+                String name,
+                ObjLongConsumer<? super T> setter)
+                throws
+                NullPointerException {
+            return add_(name, CSVColumnType.LONG, setter);
+        }
+
+        /**
+         * Adds a double column.
+         *
+         * @param name   the name of the column
+         * @param setter the setter of the values
+         * @return this builder
+         * @throws NullPointerException if the name or the setter is null
+         */
+        public Builder<T> doubleColumn(
+                String name,
+                ObjDoubleConsumer<? super T> setter)
+                throws
+                NullPointerException {
+            return add_(name, CSVColumnType.DOUBLE, setter);
+        }
+
+        /**
+         * Adds a boolean column.
+         *
+         * @param name   the name of the column
+         * @param setter the setter of the values
+         * @return this builder
+         * @throws NullPointerException if the name or the setter is null
+         */
+        public Builder<T> booleanColumn(
+                String name,
+                BiConsumer<? super T, Boolean> setter)
+                throws
+                NullPointerException {
+            return add_(name, CSVColumnType.BOOLEAN, setter);
+        }
+
+        /**
+         * Adds a yyyy-MM-dd date column, whose values are passed as the
+         * number of days since 1970-01-01.
+         *
+         * @param name   the name of the column
+         * @param setter the setter of the values
+         * @return this builder
+         * @throws NullPointerException if the name or the setter is null
+         */
+        public Builder<T> dateColumn(
+                String name,
+                ObjLongConsumer<? super T> setter)
+                throws
+                NullPointerException {
+            return add_(name, CSVColumnType.DATE, setter);
+        }
+
+        /**
+         * Adds a string column.
+         *
+         * @param name   the name of the column
+         * @param setter the setter of the values
+         * @return this builder
+         * @throws NullPointerException if the name or the setter is null
+         */
+        public Builder<T> stringColumn(
+                String name,
+                BiConsumer<? super T, String> setter)
+                throws
+                NullPointerException {
+            return add_(name, CSVColumnType.STRING, setter);
+        }
+
+        /**
+         * Builds the binding.
+         *
+         * @return the binding
+         */
+        public CSVHeaderBinding<T> build() {
+            return new CSVHeaderBinding<>(this);
+        }
+
+    }
+
+}
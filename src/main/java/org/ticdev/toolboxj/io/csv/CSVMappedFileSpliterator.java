@@ -0,0 +1,426 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.io.MappedFileInputStream;
+import org.ticdev.toolboxj.io.csv.impl.CSVRecordBoundaryScanner;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splittable spliterator that provides the records of a memory-mapped file.
+ * <p>
+ * The file is split in byte ranges at record boundaries, found with a
+ * {@link CSVRecordBoundaryScanner} so text delimited fields that span multiple
+ * lines are never cut, and each range is parsed with its own parser. The
+ * records of each range have the same line numbers (in exceptions) as when
+ * parsing the whole file.
+ * </p>
+ * <p>
+ * The split points are found once, by the first split, in a single scan of
+ * the file that keeps a record boundary about every half minimum split size,
+ * and they are shared by all the spliterators split from it, so each split
+ * is a binary search. The scan is skipped when the split points are taken
+ * from a {@link CSVRecordIndex} of the file.
+ * </p>
+ * <p>
+ * The character set must be ASCII compatible (e.g. UTF-8, ISO-8859-1) and the
+ * text delimiter and escape character must be ASCII characters, so record
+ * boundaries can be found on the raw bytes.
+ * </p>
+ * <p>
+ * The size is an estimate based on the average record size in a sample from
+ * the start of the file, as the exact number of records is only known after
+ * the whole file is scanned.
+ * </p>
+ * <p>
+ * The file channel is shared by the spliterator and all the spliterators
+ * split from it, and it is closed by {@link #close()}.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVMappedFileSpliterator
+        implements
+        Spliterator<List<String>>,
+        AutoCloseable {
+
+    /**
+     * Default minimum size, in bytes, of a range resulting from a split.
+     */
+    public static final long DEFAULT_MIN_SPLIT_SIZE = 1024 * 1024;
+
+    /**
+     * the size of the windows mapped while scanning for split points
+     */
+    private static final int SCAN_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * the size of the sample used to estimate the record size
+     */
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * the file channel
+     */
+    private final FileChannel channel;
+
+    /**
+     * the parser configuration
+     */
+    private final CSVParserConfiguration configuration;
+
+    /**
+     * the character set of the file
+     */
+    private final Charset charset;
+
+    /**
+     * the minimum size of a range resulting from a split
+     */
+    private final long minSplitSize;
+
+    /**
+     * the estimated number of bytes per record
+     */
+    private final double bytesPerRecord;
+
+    /**
+     * the start of the range
+     */
+    private long start;
+
+    /**
+     * the end of the range (exclusive)
+     */
+    private final long end;
+
+    /**
+     * the line number at the start of the range
+     */
+    private long lineNumber;
+
+    /**
+     * the number of records provided so far
+     */
+    private long recordCount = 0;
+
+    /**
+     * the reader for the range, null until the first record is requested
+     */
+    private Reader reader = null;
+
+    /**
+     * the parser for the range
+     */
+    private CSVParser parser = null;
+
+    /**
+     * the offsets of the split points, in ascending order, shared with the
+     * spliterators split from it, null until the first split
+     */
+    private long[] splitOffsets;
+
+    /**
+     * the line numbers of the split points
+     */
+    private long[] splitLineNumbers;
+
+    /**
+     * Class constructor.
+     *
+     * @param channel       the file channel
+     * @param configuration the parser configuration
+     * @param charset       the character set of the file
+     * @param minSplitSize  the minimum size, in bytes, of a range resulting
+     *                      from a split
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or the text delimiter or
+     *                                  escape character are not ASCII, or if
+     *                                  the minimum split size is not positive
+     * @throws IOException              if an exception occurred while reading
+     *                                  the sample
+     */
+    public CSVMappedFileSpliterator(
+            FileChannel channel,
+            CSVParserConfiguration configuration,
+            Charset charset,
+            long minSplitSize)
+            throws
+            IllegalArgumentException,
+            IOException {
+        if (!Arrays.equals(new byte[]{'\r', '\n'},
+                           "\r\n".getBytes(charset))) {
+            throw new IllegalArgumentException(
+                    "Character set is not ASCII compatible: " + charset);
+        }
+        if (minSplitSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Minimum split size must be positive: " + minSplitSize);
+        }
+        this.channel = channel;
+        this.configuration = CSVParserConfiguration.of(configuration);
+        this.charset = charset;
+        this.minSplitSize = minSplitSize;
+        this.start = 0;
+        this.end = channel.size();
+        this.lineNumber = 1;
+        this.bytesPerRecord = estimate_bytes_per_record_();
+        this.splitOffsets = null;
+        this.splitLineNumbers = null;
+    }
+
+    /**
+     * Class constructor that splits the file at the entries of its index,
+     * without scanning it.
+     *
+     * @param channel       the file channel
+     * @param configuration the parser configuration used for the index
+     * @param charset       the character set of the file
+     * @param minSplitSize  the minimum size, in bytes, of a range resulting
+     *                      from a split
+     * @param index         the index of the file
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or the text delimiter or
+     *                                  escape character are not ASCII, if
+     *                                  the minimum split size is not
+     *                                  positive, or if the size of the
+     *                                  indexed file is not the size of the
+     *                                  file
+     * @throws IOException              if an exception occurred while reading
+     *                                  the sample
+     */
+    public CSVMappedFileSpliterator(
+            FileChannel channel,
+            CSVParserConfiguration configuration,
+            Charset charset,
+            long minSplitSize,
+            CSVRecordIndex index)
+            throws
+            IllegalArgumentException,
+            IOException {
+        this(channel, configuration, charset, minSplitSize);
+        if (index.fileSize() != end) {
+            throw new IllegalArgumentException(String.format(
+                    "Indexed file size %d is not the file size %d",
+                    index.fileSize(), end));
+        }
+        int size = index.size();
+        long[] offsets = new long[size];
+        long[] lineNumbers = new long[size];
+        for (int i = 0; i < size; i++) {
+            CSVCheckpoint entry = index.entry(i);
+            offsets[i] = entry.offset();
+            lineNumbers[i] = entry.lineNumber();
+        }
+        this.splitOffsets = offsets;
+        this.splitLineNumbers = lineNumbers;
+    }
+
+    /**
+     * Class constructor using {@link #DEFAULT_MIN_SPLIT_SIZE}.
+     *
+     * @param channel       the file channel
+     * @param configuration the parser configuration
+     * @param charset       the character set of the file
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or the text delimiter or
+     *                                  escape character are not ASCII
+     * @throws IOException              if an exception occurred while reading
+     *                                  the sample
+     */
+    public CSVMappedFileSpliterator(
+            FileChannel channel,
+            CSVParserConfiguration configuration,
+            Charset charset)
+            throws
+            IllegalArgumentException,
+            IOException {
+        this(channel, configuration, charset, DEFAULT_MIN_SPLIT_SIZE);
+    }
+
+    /**
+     * Constructor for a range split from a parent spliterator.
+     *
+     * @param parent     the parent spliterator
+     * @param start      the start of the range
+     * @param end        the end of the range (exclusive)
+     * @param lineNumber the line number at the start of the range
+     */
+    private CSVMappedFileSpliterator(
+            CSVMappedFileSpliterator parent,
+            long start,
+            long end,
+            long lineNumber) {
+        this.channel = parent.channel;
+        this.configuration = parent.configuration;
+        this.charset = parent.charset;
+        this.minSplitSize = parent.minSplitSize;
+        this.bytesPerRecord = parent.bytesPerRecord;
+        this.splitOffsets = parent.splitOffsets;
+        this.splitLineNumbers = parent.splitLineNumbers;
+        this.start = start;
+        this.end = end;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Estimates the number of bytes per record from a sample at the start of
+     * the file.
+     *
+     * @return the estimated number of bytes per record
+     * @throws IOException if an exception occurred while reading the sample
+     */
+    private double estimate_bytes_per_record_()
+            throws
+            IOException {
+        int size = (int) Math.min(SAMPLE_SIZE, end);
+        if (size == 0) {
+            return 1;
+        }
+        MappedByteBuffer sample =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CSVRecordBoundaryScanner scanner =
+                new CSVRecordBoundaryScanner(configuration);
+        int records = 0;
+        int position = 0;
+        while ((position = scanner.nextBoundary(sample, position, size))
+               >= 0) {
+            records++;
+        }
+        if (scanner.atBoundary() || size == end) {
+            records++;
+        }
+        return records == 0 ? end : (double) size / records;
+    }
+
+    /**
+     * Scans the range from its start, which must be the start of the file,
+     * and keeps the first record boundary after every half minimum split
+     * size as a split point.
+     *
+     * @throws IOException if an exception occurred while mapping the file
+     */
+    private void scan_split_points_()
+            throws
+            IOException {
+        long granularity = Math.max(1, minSplitSize / 2);
+        CSVRecordBoundaryScanner scanner =
+                new CSVRecordBoundaryScanner(configuration);
+        long[] offsets = new long[16];
+        long[] lineNumbers = new long[16];
+        int count = 0;
+        long next = start + granularity;
+        long windowStart = start;
+        while (windowStart < end) {
+            int size = (int) Math.min(SCAN_WINDOW_SIZE, end - windowStart);
+            MappedByteBuffer window = channel.map(
+                    FileChannel.MapMode.READ_ONLY, windowStart, size);
+            int position = 0;
+            while ((position = scanner.nextBoundary(window, position, size))
+                   >= 0) {
+                long boundary = windowStart + position;
+                if (boundary < next) {
+                    continue;
+                }
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                    lineNumbers = Arrays.copyOf(lineNumbers, count * 2);
+                }
+                offsets[count] = boundary;
+                lineNumbers[count] = lineNumber + scanner.eolCount();
+                count++;
+                next = boundary + granularity;
+            }
+            windowStart += size;
+        }
+        splitOffsets = Arrays.copyOf(offsets, count);
+        splitLineNumbers = Arrays.copyOf(lineNumbers, count);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super List<String>> action) {
+        try {
+            if (reader == null) {
+                reader = new InputStreamReader(
+                        new MappedFileInputStream(channel, start, end),
+                        charset.newDecoder());
+                parser = CSVParserBuilder.createParser(
+                        configuration,
+                        new BufferedCSVParserInputHelper(
+                                BufferedCSVParserInputHelper
+                                        .DEFAULT_BUFFER_SIZE,
+                                lineNumber));
+            }
+            List<String> record = parser.parseRecord(reader, null);
+            if (record == null) {
+                return false;
+            }
+            recordCount++;
+            action.accept(record);
+            return true;
+        } catch (NullPointerException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public Spliterator<List<String>> trySplit() {
+        if (reader != null || end - start < 2 * minSplitSize) {
+            return null;
+        }
+        if (splitOffsets == null) {
+            try {
+                scan_split_points_();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        /* the first split point at or after the middle of the range */
+        int point = Arrays.binarySearch(splitOffsets,
+                                        start + (end - start) / 2);
+        if (point < 0) {
+            point = -point - 1;
+        }
+        if (point == splitOffsets.length || splitOffsets[point] >= end) {
+            return null;
+        }
+        long boundary = splitOffsets[point];
+        CSVMappedFileSpliterator prefix =
+                new CSVMappedFileSpliterator(this, start, boundary,
+                                             lineNumber);
+        start = boundary;
+        lineNumber = splitLineNumbers[point];
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        long estimate = (long) Math.ceil((end - start) / bytesPerRecord);
+        return Math.max(0, estimate - recordCount);
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.IMMUTABLE | Spliterator.NONNULL
+               | Spliterator.ORDERED;
+    }
+
+    @Override
+    public void close()
+            throws
+            Exception {
+        channel.close();
+    }
+
+}
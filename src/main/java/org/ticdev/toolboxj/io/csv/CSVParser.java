@@ -45,9 +45,170 @@ public interface CSVParser {
             InterruptedException,
             CSVParserFieldTooLargeException;
 
+    /**
+     * Reads the next record from the given reader into the given reusable
+     * record. The previous content of the record is discarded.
+     * <p>
+     * The default implementation copies the fields returned by
+     * {@link #parseRecord(Reader, List)}. Implementations should override it
+     * to fill the record without creating a string per field.
+     * </p>
+     *
+     * @param reader      the reader used to read the fields for the next record.
+     * @param destination the destination record
+     * @return false if there are no more records to read and true otherwise.
+     * @throws CSVParserException              if a parser exception occurred
+     * @throws CSVParserLineTooLongException   if a restriction on the line length has occurred
+     * @throws CSVParserTooManyFieldsException if a restriction on the number of fields in a record has
+     *                                         occurred
+     * @throws IOException                     if an IO exception has occurred while reading the record
+     * @throws InterruptedException            if the thread is interrupted during parsing
+     * @throws CSVParserFieldTooLargeException if a restriction on the field size has occurred
+     */
+    default boolean
+    readRecord(Reader reader, CSVRecord destination)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            InterruptedException,
+            CSVParserFieldTooLargeException {
+        List<String> fields = parseRecord(reader, null);
+        destination.clear();
+        if (fields == null) {
+            return false;
+        }
+        for (String field : fields) {
+            destination.append(field);
+            destination.endField();
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next record from the given reader into the given reusable
+     * record, copying only the selected fields. The previous content of the
+     * record is discarded.
+     * <p>
+     * The fields that are not selected are still parsed, and the limits of
+     * the parser still apply to them, but their content may not be copied,
+     * in which case they are empty in the destination record. The number of
+     * fields in the record is always the number of fields in the input.
+     * </p>
+     * <p>
+     * The default implementation copies all the fields with
+     * {@link #readRecord(Reader, CSVRecord)}.
+     * </p>
+     *
+     * @param reader      the reader used to read the fields for the next record.
+     * @param destination the destination record
+     * @param selection   true for the indexes of the fields to copy; the
+     *                    fields past the end of the array are not selected.
+     *                    It replaces the
+     *                    {@link CSVParserConfiguration#selectedColumns()} of
+     *                    the parser. If null, the record is read as with
+     *                    {@link #readRecord(Reader, CSVRecord)}.
+     * @return false if there are no more records to read and true otherwise.
+     * @throws CSVParserException              if a parser exception occurred
+     * @throws CSVParserLineTooLongException   if a restriction on the line length has occurred
+     * @throws CSVParserTooManyFieldsException if a restriction on the number of fields in a record has
+     *                                         occurred
+     * @throws IOException                     if an IO exception has occurred while reading the record
+     * @throws InterruptedException            if the thread is interrupted during parsing
+     * @throws CSVParserFieldTooLargeException if a restriction on the field size has occurred
+     */
+    default boolean
+    readRecord(Reader reader, CSVRecord destination, boolean[] selection)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            InterruptedException,
+            CSVParserFieldTooLargeException {
+        return readRecord(reader, destination);
+    }
+
+    /**
+     * Returns the current line number of the parser's input, or -1 if the
+     * parser does not track it.
+     * <p>
+     * The default implementation returns -1.
+     * </p>
+     *
+     * @return the current line number or -1.
+     */
+    default long lineNumber() {
+        return -1;
+    }
+
+    /**
+     * Returns the indexes, in increasing order, of the columns returned by
+     * {@link #parseRecord(Reader, List)} and
+     * {@link #readRecord(Reader, CSVRecord)}, or null if they return all the
+     * columns, see {@link CSVParserConfiguration#selectedColumns()}. Field i
+     * of a projected record is the column at index i of the result.
+     * <p>
+     * The default implementation returns null.
+     * </p>
+     *
+     * @return the selected columns or null for all the columns.
+     */
+    default int[] selectedColumns() {
+        return null;
+    }
+
+    /**
+     * Returns the line number where the last record that was read started,
+     * or -1 if the parser does not track it. Unlike {@link #lineNumber()},
+     * it is not affected by the end-of-line of the record, or by the records
+     * skipped before it.
+     * <p>
+     * The default implementation returns -1.
+     * </p>
+     *
+     * @return the line number of the last record or -1.
+     */
+    default long recordLineNumber() {
+        return -1;
+    }
+
+    /**
+     * Returns the position of the parser in its input after the last record
+     * that was read, from which a new parser can resume, or null if the
+     * parser does not track it.
+     * <p>
+     * The default implementation returns null.
+     * </p>
+     *
+     * @return the checkpoint or null.
+     * @see CSVParserInputHelper#checkpoint()
+     */
+    default CSVCheckpoint checkpoint() {
+        return null;
+    }
+
+    /**
+     * Returns the metrics updated by the parser, or null if it does not
+     * measure anything.
+     * <p>
+     * The default implementation returns null.
+     * </p>
+     *
+     * @return the metrics or null.
+     */
+    default CSVParserMetrics metrics() {
+        return null;
+    }
+
     /**
      * Given a list of fields in a CSV record, this method will build the string
      * object following the configuration of this parser.
+     * <p>
+     * To write many records, use a {@link CSVWriter}, which quotes only the
+     * fields that need it and writes directly to the output.
+     * </p>
      *
      * @param fields      all the fields of the record
      * @param destination the destination {@link StringBuilder} to which the string is
@@ -1,11 +1,14 @@
 package org.ticdev.toolboxj.io.csv;
 
+import org.ticdev.toolboxj.io.csv.impl.DefaultCSVByteParser;
 import org.ticdev.toolboxj.io.csv.impl.DefaultCSVParser;
 
 import java.io.BufferedReader;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * CSV configuration builder.
@@ -77,6 +80,27 @@ public class CSVParserBuilder
      */
     private boolean isEOLEscaped = true;
 
+    /**
+     * selected columns, null for all
+     */
+    private int[] selectedColumns = null;
+
+    /**
+     * column filters
+     */
+    private final Map<Integer, Predicate<CharSequence>> columnFilters =
+            new HashMap<>();
+
+    /**
+     * dictionary sizes
+     */
+    private final Map<Integer, Integer> dictionaryColumns = new HashMap<>();
+
+    /**
+     * metrics
+     */
+    private CSVParserMetrics metrics = null;
+
     /**
      * Default constructor
      */
@@ -263,6 +287,129 @@ public class CSVParserBuilder
         return escapeCharacterExpansion;
     }
 
+    /**
+     * Selects the columns returned by the parsers, see
+     * {@link CSVParserConfiguration#selectedColumns()}. The indexes are
+     * sorted and duplicates are removed. If the argument is null it selects
+     * all the columns.
+     *
+     * @param columns the indexes of the columns, starting at 0
+     * @return this instance
+     * @throws IllegalArgumentException if an index is negative
+     */
+    public CSVParserBuilder selectColumns(int... columns)
+            throws
+            IllegalArgumentException {
+        if (columns == null) {
+            selectedColumns = null;
+            return this;
+        }
+        int[] sorted = columns.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int column : sorted) {
+            if (column < 0) {
+                throw new IllegalArgumentException(
+                        "Negative column index: " + column);
+            }
+            if (count == 0 || sorted[count - 1] != column) {
+                sorted[count++] = column;
+            }
+        }
+        selectedColumns = Arrays.copyOf(sorted, count);
+        return this;
+    }
+
+    @Override
+    public int[] selectedColumns() {
+        return selectedColumns == null ? null : selectedColumns.clone();
+    }
+
+    /**
+     * Adds a filter on a column, see
+     * {@link CSVParserConfiguration#columnFilters()}. The filters added for
+     * the same column must all accept the field.
+     * <p>
+     * The field is passed as a view that is only valid during the call.
+     * </p>
+     *
+     * @param column the index of the column, starting at 0
+     * @param filter the filter, true to keep the record
+     * @return this instance
+     * @throws IllegalArgumentException if the index is negative
+     * @throws NullPointerException     if the filter is null
+     */
+    public CSVParserBuilder filterColumn(
+            int column, Predicate<? super CharSequence> filter)
+            throws
+            IllegalArgumentException,
+            NullPointerException {
+        if (column < 0) {
+            throw new IllegalArgumentException(
+                    "Negative column index: " + column);
+        }
+        if (filter == null) {
+            throw new NullPointerException("Filter cannot be null.");
+        }
+        Predicate<CharSequence> added = filter::test;
+        columnFilters.merge(column, added, Predicate::and);
+        return this;
+    }
+
+    @Override
+    public Map<Integer, Predicate<CharSequence>> columnFilters() {
+        return columnFilters;
+    }
+
+    /**
+     * Sets a dictionary on a column, see
+     * {@link CSVParserConfiguration#dictionaryColumns()}.
+     *
+     * @param column  the index of the column, starting at 0
+     * @param maxSize the maximum number of values in the dictionary
+     * @return this instance
+     * @throws IllegalArgumentException if the index is negative or the size
+     *                                  is not positive or larger than
+     *                                  {@link CSVDictionary#MAX_SIZE}
+     */
+    public CSVParserBuilder dictionaryColumn(int column, int maxSize)
+            throws
+            IllegalArgumentException {
+        if (column < 0) {
+            throw new IllegalArgumentException(
+                    "Negative column index: " + column);
+        }
+        if (maxSize <= 0 || maxSize > CSVDictionary.MAX_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "Dictionary size must be between 1 and %d: %d",
+                    CSVDictionary.MAX_SIZE, maxSize));
+        }
+        dictionaryColumns.put(column, maxSize);
+        return this;
+    }
+
+    @Override
+    public Map<Integer, Integer> dictionaryColumns() {
+        return dictionaryColumns;
+    }
+
+    /**
+     * Sets the metrics updated by the parsers, see
+     * {@link CSVParserConfiguration#metrics()}.
+     *
+     * @param metrics the metrics, null to disable them
+     * @return this instance
+     */
+    public CSVParserBuilder metrics(CSVParserMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    @Override
+    public CSVParserMetrics metrics() {
+        return metrics;
+    }
+
     /**
      * Returns a new parser matching the configuration of this builder and
      * using the given input helper to read characters.
@@ -315,6 +462,62 @@ public class CSVParserBuilder
                                     new DefaultCSVParserInputHelper());
     }
 
+    /**
+     * Returns a new byte parser matching the configuration of this builder
+     * and decoding the fields with the given character set.
+     *
+     * @param charset the character set, which must be ASCII compatible
+     * @return the new byte parser
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or if a structural
+     *                                  character is not ASCII
+     */
+    public CSVByteParser buildByteParser(Charset charset)
+            throws
+            IllegalArgumentException {
+        return new DefaultCSVByteParser(CSVParserConfiguration.of(this),
+                                        charset);
+    }
+
+    /**
+     * Returns a new byte parser matching the configuration of this builder,
+     * decoding the fields with the given character set, for an input stream
+     * positioned at the offset of the given checkpoint.
+     *
+     * @param charset the character set, which must be ASCII compatible
+     * @param start   the checkpoint
+     * @return the new byte parser
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or if a structural
+     *                                  character is not ASCII
+     */
+    public CSVByteParser buildByteParser(Charset charset, CSVCheckpoint start)
+            throws
+            IllegalArgumentException {
+        return new DefaultCSVByteParser(
+                CSVParserConfiguration.of(this), charset,
+                DefaultCSVByteParser.DEFAULT_BUFFER_SIZE, start);
+    }
+
+    /**
+     * Returns a new byte parser matching the given configuration and
+     * decoding the fields with the given character set.
+     *
+     * @param configuration the parser configuration
+     * @param charset       the character set, which must be ASCII compatible
+     * @return the new byte parser
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or if a structural
+     *                                  character is not ASCII
+     */
+    public static CSVByteParser createByteParser(
+            CSVParserConfiguration configuration,
+            Charset charset)
+            throws
+            IllegalArgumentException {
+        return new DefaultCSVByteParser(configuration, charset);
+    }
+
     public static void main(String[] args)
             throws
             Exception {
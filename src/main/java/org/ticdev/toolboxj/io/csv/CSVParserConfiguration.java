@@ -1,6 +1,7 @@
 package org.ticdev.toolboxj.io.csv;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * CSV parser configuration interface.
@@ -80,7 +81,8 @@ public interface CSVParserConfiguration {
     boolean textDelimiterEscapesItself();
 
     /**
-     * Returns the expansion for a multi-line EOL delimiter.
+     * Returns the expansion for a multi-line EOL delimiter. If it is null,
+     * a record spanning several lines is a parsing error.
      *
      * @return the expansion for a multi-line EOL delimiter.
      */
@@ -109,6 +111,68 @@ public interface CSVParserConfiguration {
      */
     Map<Character, String> escapedCharacterExpansion();
 
+    /**
+     * Returns the indexes, in increasing order, of the columns the parsers
+     * return, or null if they return all the columns.
+     * <p>
+     * The other columns are parsed, respecting the text delimiters and
+     * escapes to find the field boundaries and enforcing the size limits,
+     * but their characters are not copied and they are left out of the
+     * records, so the records only hold the selected columns, in order. The
+     * limit on the number of fields applies to all the columns.
+     * </p>
+     *
+     * @return the selected columns or null for all the columns.
+     */
+    default int[] selectedColumns() {
+        return null;
+    }
+
+    /**
+     * Returns the record filters, by column index.
+     * <p>
+     * The filter of a column is evaluated as soon as the field of the column
+     * is parsed, whether the column is selected or not. If it rejects the
+     * field, the rest of the record is parsed without copying the fields,
+     * only to find the end of the record and enforce the limits, and the
+     * parsers go on with the next record: rejected records are never
+     * returned. The filters of the columns past the end of a record are not
+     * evaluated.
+     * </p>
+     *
+     * @return the filters, by column index, never null.
+     */
+    default Map<Integer, Predicate<CharSequence>> columnFilters() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the maximum sizes of the dictionaries, by column index.
+     * <p>
+     * Each parser keeps a {@link CSVDictionary} of the given maximum size,
+     * at most {@link CSVDictionary#MAX_SIZE}, for each of these columns, and
+     * the fields of the columns that are returned as strings are the
+     * canonical strings of the dictionary, so a value that was already seen
+     * is not allocated again.
+     * </p>
+     *
+     * @return the dictionary sizes, by column index, never null.
+     */
+    default Map<Integer, Integer> dictionaryColumns() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the metrics updated by the parsers, or null if the parsers do
+     * not measure anything. The instance is shared, not copied, by the
+     * parsers built from the configuration.
+     *
+     * @return the metrics or null
+     */
+    default CSVParserMetrics metrics() {
+        return null;
+    }
+
     /**
      * Returns an unmodifiable CSVParserConfiguration object that is
      * a copy of the given configuration.
@@ -141,6 +205,19 @@ public interface CSVParserConfiguration {
                     escexpansion == null ? new HashMap<>() :
                             Collections.unmodifiableMap(escexpansion);
             this.isEOLEscaped = config.isEOLEscaped();
+            int[] selection = config.selectedColumns();
+            this.selectedColumns = selection == null ? null :
+                    selection.clone();
+            Map<Integer, Predicate<CharSequence>> filters =
+                    config.columnFilters();
+            this.columnFilters = filters == null ? Collections.emptyMap() :
+                    Collections.unmodifiableMap(new HashMap<>(filters));
+            Map<Integer, Integer> dictionaries = config.dictionaryColumns();
+            this.dictionaryColumns =
+                    dictionaries == null ? Collections.emptyMap() :
+                            Collections.unmodifiableMap(
+                                    new HashMap<>(dictionaries));
+            this.metrics = config.metrics();
         }
 
         /**
@@ -237,6 +314,46 @@ public interface CSVParserConfiguration {
          * escaped EOL
          */
         private final boolean isEOLEscaped;
+
+        /**
+         * selected columns, null for all
+         */
+        private final int[] selectedColumns;
+
+        @Override
+        public int[] selectedColumns() {
+            return selectedColumns == null ? null : selectedColumns.clone();
+        }
+
+        /**
+         * column filters
+         */
+        private final Map<Integer, Predicate<CharSequence>> columnFilters;
+
+        @Override
+        public Map<Integer, Predicate<CharSequence>> columnFilters() {
+            return columnFilters;
+        }
+
+        /**
+         * dictionary sizes
+         */
+        private final Map<Integer, Integer> dictionaryColumns;
+
+        @Override
+        public Map<Integer, Integer> dictionaryColumns() {
+            return dictionaryColumns;
+        }
+
+        /**
+         * metrics
+         */
+        private final CSVParserMetrics metrics;
+
+        @Override
+        public CSVParserMetrics metrics() {
+            return metrics;
+        }
     }
 
 }
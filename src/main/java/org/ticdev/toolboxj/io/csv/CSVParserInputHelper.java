@@ -17,7 +17,9 @@ import java.io.Reader;
  * <p>
  * It's always better to use a {@link BufferedReader} with this method as the
  * default {#link {@link Reader#read()} implementation can add huge overhead
- * (currently, it allocates an array to read one char).
+ * (currently, it allocates an array to read one char), or an implementation
+ * that reads blocks of characters, such as
+ * {@link BufferedCSVParserInputHelper}.
  * </p>
  *
  * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
@@ -63,4 +65,19 @@ public interface CSVParserInputHelper {
      */
     long lineNumber();
 
+    /**
+     * Returns the position of the helper in its input, from which a new
+     * helper can resume, or null if the helper does not track it. The
+     * checkpoint is only meaningful at a record boundary, between two
+     * records read by a parser.
+     * <p>
+     * The default implementation returns null.
+     * </p>
+     *
+     * @return the checkpoint or null.
+     */
+    default CSVCheckpoint checkpoint() {
+        return null;
+    }
+
 }
@@ -0,0 +1,471 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in counters of the work done by CSV parsers, to tell whether the
+ * ingestion is bound by the input, the parsing or the consumer of the
+ * records.
+ * <p>
+ * The metrics are enabled by setting an instance on the parser
+ * configuration, see {@link CSVParserBuilder#metrics(CSVParserMetrics)};
+ * parsers without metrics do not count anything. The counters are
+ * {@link LongAdder}s, so the same instance can be shared by the parsers of
+ * several threads, and each parser updates them once per record.
+ * </p>
+ * <p>
+ * The following is measured:
+ * </p>
+ * <ul>
+ * <li>the records, the fields, and the histogram of the number of fields
+ * per record;</li>
+ * <li>the quoted (text delimited) fields and the escape expansions;</li>
+ * <li>the characters read from the readers, and the time blocked in the
+ * block reads of the readers;</li>
+ * <li>the time spent in the parser, without the time blocked in the
+ * block reads of the readers;</li>
+ * <li>the time spent by the consumers of the records of a stream, see
+ * {@link CSVParserStreamSpliterator};</li>
+ * <li>the limit exceptions thrown by the parsers.</li>
+ * </ul>
+ * <p>
+ * Only the reads of blocks of characters are timed, such as the fills of a
+ * {@link BufferedCSVParserInputHelper}: timing the reads of single
+ * characters, as done by {@link DefaultCSVParserInputHelper}, would mostly
+ * measure the timer. These are counted without being timed, so their time
+ * is part of the parsing time.
+ * </p>
+ * <p>
+ * The rates are computed over the time elapsed since the creation of the
+ * instance or the last {@link #reset()}.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVParserMetrics {
+
+    /**
+     * Number of buckets of the histogram of the number of fields per record.
+     */
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    /**
+     * the records
+     */
+    private final LongAdder records = new LongAdder();
+
+    /**
+     * the fields
+     */
+    private final LongAdder fields = new LongAdder();
+
+    /**
+     * the quoted fields
+     */
+    private final LongAdder quotedFields = new LongAdder();
+
+    /**
+     * the escape expansions
+     */
+    private final LongAdder escapeExpansions = new LongAdder();
+
+    /**
+     * the characters read
+     */
+    private final LongAdder characters = new LongAdder();
+
+    /**
+     * the time blocked in the readers
+     */
+    private final LongAdder readNanos = new LongAdder();
+
+    /**
+     * the time spent in the parsers, reading included
+     */
+    private final LongAdder parserNanos = new LongAdder();
+
+    /**
+     * the time spent by the consumers
+     */
+    private final LongAdder downstreamNanos = new LongAdder();
+
+    /**
+     * the field too large exceptions
+     */
+    private final LongAdder fieldTooLarge = new LongAdder();
+
+    /**
+     * the line too long exceptions
+     */
+    private final LongAdder lineTooLong = new LongAdder();
+
+    /**
+     * the too many fields exceptions
+     */
+    private final LongAdder tooManyFields = new LongAdder();
+
+    /**
+     * the histogram of the number of fields per record
+     */
+    private final LongAdder[] histogram = new LongAdder[HISTOGRAM_BUCKETS];
+
+    /**
+     * the start of the measurement
+     */
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * Class constructor.
+     */
+    public CSVParserMetrics() {
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the histogram bucket of a number of fields.
+     *
+     * @param fields the number of fields
+     * @return the bucket
+     */
+    private static int bucket_(int fields) {
+        return fields <= 1 ? 0 :
+                Math.min(HISTOGRAM_BUCKETS - 1,
+                         32 - Integer.numberOfLeadingZeros(fields - 1));
+    }
+
+    /**
+     * Counts a parsed record. Used by the parsers.
+     *
+     * @param fieldCount       the number of fields of the record
+     * @param quotedFieldCount the number of quoted fields of the record
+     * @param expansionCount   the number of escape expansions of the record
+     */
+    public void recordParsed(
+            int fieldCount, int quotedFieldCount, int expansionCount) {
+        records.increment();
+        fields.add(fieldCount);
+        histogram[bucket_(fieldCount)].increment();
+        if (quotedFieldCount > 0) {
+            quotedFields.add(quotedFieldCount);
+        }
+        if (expansionCount > 0) {
+            escapeExpansions.add(expansionCount);
+        }
+    }
+
+    /**
+     * Counts a limit exception. Used by the parsers.
+     *
+     * @param ex the exception
+     */
+    public void limitExceeded(Exception ex) {
+        if (ex instanceof CSVParserFieldTooLargeException) {
+            fieldTooLarge.increment();
+        } else if (ex instanceof CSVParserLineTooLongException) {
+            lineTooLong.increment();
+        } else if (ex instanceof CSVParserTooManyFieldsException) {
+            tooManyFields.increment();
+        }
+    }
+
+    /**
+     * Adds time spent in a parser, reading included. Used by the parsers.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void parserTime(long nanos) {
+        parserNanos.add(nanos);
+    }
+
+    /**
+     * Adds time spent by a consumer of the records.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void downstreamTime(long nanos) {
+        downstreamNanos.add(nanos);
+    }
+
+    /**
+     * Returns a reader that counts the characters read from the given reader
+     * and the time blocked in its block reads. The characters read one at a
+     * time are added to the counters by
+     * {@link #countCharacters(Reader)}.
+     *
+     * @param reader the reader
+     * @return the counting reader
+     */
+    public Reader reader(Reader reader) {
+        return new MeasuredReader(reader);
+    }
+
+    /**
+     * Adds to the counters the characters read one at a time from a reader
+     * returned by {@link #reader(Reader)} since the last call. Used by the
+     * parsers, once per record.
+     *
+     * @param reader the counting reader
+     */
+    public void countCharacters(Reader reader) {
+        MeasuredReader measured = (MeasuredReader) reader;
+        if (measured.pending > 0) {
+            characters.add(measured.pending);
+            measured.pending = 0;
+        }
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the number of records
+     */
+    public long records() {
+        return records.sum();
+    }
+
+    /**
+     * Returns the number of fields.
+     *
+     * @return the number of fields
+     */
+    public long fields() {
+        return fields.sum();
+    }
+
+    /**
+     * Returns the number of quoted fields.
+     *
+     * @return the number of quoted fields
+     */
+    public long quotedFields() {
+        return quotedFields.sum();
+    }
+
+    /**
+     * Returns the ratio of quoted fields, 0 if there are no fields.
+     *
+     * @return the ratio of quoted fields
+     */
+    public double quotedFieldRatio() {
+        long count = fields.sum();
+        return count == 0 ? 0 : (double) quotedFields.sum() / count;
+    }
+
+    /**
+     * Returns the number of escape expansions, including the escaped
+     * end-of-lines.
+     *
+     * @return the number of escape expansions
+     */
+    public long escapeExpansions() {
+        return escapeExpansions.sum();
+    }
+
+    /**
+     * Returns the number of characters read.
+     *
+     * @return the number of characters read
+     */
+    public long characters() {
+        return characters.sum();
+    }
+
+    /**
+     * Returns the time blocked in the block reads of the readers.
+     *
+     * @return the time in nanoseconds
+     */
+    public long readNanos() {
+        return readNanos.sum();
+    }
+
+    /**
+     * Returns the time spent parsing, without the time blocked in the block
+     * reads of the readers.
+     *
+     * @return the time in nanoseconds
+     */
+    public long parsingNanos() {
+        return Math.max(0, parserNanos.sum() - readNanos.sum());
+    }
+
+    /**
+     * Returns the time spent by the consumers of the records.
+     *
+     * @return the time in nanoseconds
+     */
+    public long downstreamNanos() {
+        return downstreamNanos.sum();
+    }
+
+    /**
+     * Returns the number of {@link CSVParserFieldTooLargeException}s.
+     *
+     * @return the number of exceptions
+     */
+    public long fieldTooLargeCount() {
+        return fieldTooLarge.sum();
+    }
+
+    /**
+     * Returns the number of {@link CSVParserLineTooLongException}s.
+     *
+     * @return the number of exceptions
+     */
+    public long lineTooLongCount() {
+        return lineTooLong.sum();
+    }
+
+    /**
+     * Returns the number of {@link CSVParserTooManyFieldsException}s.
+     *
+     * @return the number of exceptions
+     */
+    public long tooManyFieldsCount() {
+        return tooManyFields.sum();
+    }
+
+    /**
+     * Returns the histogram of the number of fields per record. Bucket 0
+     * counts the records with at most one field, and bucket i &gt; 0 the
+     * records with 2<sup>i-1</sup> + 1 to 2<sup>i</sup> fields. The last
+     * bucket also counts the larger records.
+     *
+     * @return the histogram
+     */
+    public long[] fieldsPerRecordHistogram() {
+        long[] result = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            result[i] = histogram[i].sum();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the time elapsed since the creation or the last reset.
+     *
+     * @return the time in nanoseconds
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Returns the number of records per second.
+     *
+     * @return the number of records per second
+     */
+    public double recordsPerSecond() {
+        return rate_(records.sum());
+    }
+
+    /**
+     * Returns the number of characters read per second.
+     *
+     * @return the number of characters per second
+     */
+    public double charactersPerSecond() {
+        return rate_(characters.sum());
+    }
+
+    /**
+     * Returns a count per second of elapsed time.
+     *
+     * @param count the count
+     * @return the rate
+     */
+    private double rate_(long count) {
+        long elapsed = elapsedNanos();
+        return elapsed <= 0 ? 0 : count * 1e9 / elapsed;
+    }
+
+    /**
+     * Resets the counters and the start of the measurement. The counts
+     * made during the reset may be partially lost.
+     */
+    public void reset() {
+        records.reset();
+        fields.reset();
+        quotedFields.reset();
+        escapeExpansions.reset();
+        characters.reset();
+        readNanos.reset();
+        parserNanos.reset();
+        downstreamNanos.reset();
+        fieldTooLarge.reset();
+        lineTooLong.reset();
+        tooManyFields.reset();
+        for (LongAdder bucket : histogram) {
+            bucket.reset();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "records=%d (%.1f/s), characters=%d (%.1f/s), fields=%d, " +
+                "quoted=%.3f, expansions=%d, read=%dms, parsing=%dms, " +
+                "downstream=%dms, limits=%d/%d/%d",
+                records(), recordsPerSecond(), characters(),
+                charactersPerSecond(), fields(), quotedFieldRatio(),
+                escapeExpansions(), readNanos() / 1000000,
+                parsingNanos() / 1000000, downstreamNanos() / 1000000,
+                fieldTooLargeCount(), lineTooLongCount(),
+                tooManyFieldsCount());
+    }
+
+    /**
+     * Reader counting the characters read and the time blocked in block
+     * reads.
+     */
+    private final class MeasuredReader
+            extends
+            FilterReader {
+
+        /**
+         * the characters read one at a time, not yet in the counters
+         */
+        long pending = 0;
+
+        /**
+         * Class constructor.
+         *
+         * @param in the reader
+         */
+        MeasuredReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read()
+                throws
+                IOException {
+            int c = in.read();
+            if (c >= 0) {
+                pending++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len)
+                throws
+                IOException {
+            long start = System.nanoTime();
+            int count = in.read(cbuf, off, len);
+            readNanos.add(System.nanoTime() - start);
+            if (count > 0) {
+                characters.add(count);
+            }
+            return count;
+        }
+
+    }
+
+}
@@ -1,7 +1,6 @@
 package org.ticdev.toolboxj.io.csv;
 
 import java.io.Reader;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Spliterator;
 import java.util.function.Consumer;
@@ -15,6 +14,15 @@ import java.util.stream.Stream;
  * with {@link Stream#onClose(Runnable)} method to close the reader
  * automatically when the stream is closed.
  * </p>
+ * <p>
+ * Optionally, the same {@link CSVFieldList} is reused for all the records,
+ * in which case a record is only valid during the call to the action of
+ * {@link #tryAdvance(Consumer)}.
+ * </p>
+ * <p>
+ * When the parser has {@link CSVParser#metrics()}, the time spent in the
+ * action is added to their downstream time.
+ * </p>
  * 
  * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
  *
@@ -34,6 +42,16 @@ public class CSVParserStreamSpliterator
      */
     private final CSVParser parser;
 
+    /**
+     * The record reused for all the records, null if not reused
+     */
+    private final CSVFieldList reusedRecord;
+
+    /**
+     * The metrics of the parser, null if disabled
+     */
+    private final CSVParserMetrics metrics;
+
     /**
      * Class constructor.
      * 
@@ -45,19 +63,50 @@ public class CSVParserStreamSpliterator
     public CSVParserStreamSpliterator(
         CSVParser parser,
         Reader reader) {
+        this(parser, reader, false);
+    }
+
+    /**
+     * Class constructor.
+     * 
+     * @param parser
+     *            the parser
+     * @param reader
+     *            the reader
+     * @param reuseRecords
+     *            true to reuse the same list for all the records, which
+     *            are then only valid during the call to the action
+     */
+    public CSVParserStreamSpliterator(
+        CSVParser parser,
+        Reader reader,
+        boolean reuseRecords) {
         this.reader = reader;
         this.parser = parser;
+        this.reusedRecord = reuseRecords ? new CSVFieldList() : null;
+        this.metrics = parser.metrics();
     }
 
     @Override
     public boolean tryAdvance(Consumer<? super List<String>> action) {
         try {
-            List<String> record =
-                parser.parseRecord(reader, new LinkedList<>());
+            if (reusedRecord != null) {
+                reusedRecord.clear();
+            }
+            List<String> record = parser.parseRecord(reader, reusedRecord);
             if (record == null) {
                 return false;
             }
-            action.accept(record);
+            if (metrics == null) {
+                action.accept(record);
+            } else {
+                long start = System.nanoTime();
+                try {
+                    action.accept(record);
+                } finally {
+                    metrics.downstreamTime(System.nanoTime() - start);
+                }
+            }
             return true;
         } catch (NullPointerException ex) {
             throw ex;
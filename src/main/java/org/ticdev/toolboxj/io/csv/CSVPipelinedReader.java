@@ -0,0 +1,555 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.functions.UnaryConsumer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads CSV records from an input stream with three stages running in
+ * parallel: an I/O thread reads blocks of raw bytes, a parser thread decodes
+ * and parses them into batches of records, and the calling thread passes
+ * the records to the consumer.
+ * <p>
+ * The stages hand off through bounded queues of reusable byte blocks and
+ * record batches, so a slow consumer blocks the parser, and a slow parser
+ * blocks the I/O thread, without using more memory. Any processing of the
+ * input stream itself, such as the decompression of a
+ * {@link java.util.zip.GZIPInputStream}, runs on the I/O thread.
+ * </p>
+ * <p>
+ * The record passed to the consumer is reused: it is only valid during the
+ * call. An exception of the parser (with the line number of the record), of
+ * the input stream, or of the consumer ends the parsing, stops the threads
+ * and is thrown by {@link #parse(InputStream, UnaryConsumer)}. Interrupting
+ * the calling thread cancels the parsing with an
+ * {@link InterruptedException}.
+ * </p>
+ * <p>
+ * The I/O thread is a daemon thread that is interrupted, but not waited for,
+ * when the parsing ends early: an interrupt does not unblock a read of the
+ * input stream, which may never return for a stalled pipe or socket. The
+ * I/O thread ends when that read returns, or fails because the caller
+ * closed the input stream, without reading it again.
+ * </p>
+ * <p>
+ * Instances hold only the configuration and can be used by multiple
+ * threads, each call creating its own threads and buffers.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVPipelinedReader {
+
+    /**
+     * Default size, in bytes, of a block read by the I/O thread.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    /**
+     * Default number of records in a batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    /**
+     * Default number of blocks and batches waiting in each queue.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    /**
+     * the parser configuration
+     */
+    private final CSVParserConfiguration configuration;
+
+    /**
+     * the character set of the input
+     */
+    private final Charset charset;
+
+    /**
+     * the size of a block
+     */
+    private final int blockSize;
+
+    /**
+     * the number of records in a batch
+     */
+    private final int batchSize;
+
+    /**
+     * the capacity of the queues
+     */
+    private final int queueCapacity;
+
+    /**
+     * Class constructor.
+     *
+     * @param configuration the parser configuration
+     * @param charset       the character set of the input
+     * @param blockSize     the size, in bytes, of a block read by the I/O
+     *                      thread
+     * @param batchSize     the number of records in a batch
+     * @param queueCapacity the number of blocks and batches waiting in each
+     *                      queue
+     * @throws IllegalArgumentException if a size or the capacity is not
+     *                                  positive
+     */
+    public CSVPipelinedReader(
+            CSVParserConfiguration configuration,
+            Charset charset,
+            int blockSize,
+            int batchSize,
+            int queueCapacity)
+            throws
+            IllegalArgumentException {
+        if (blockSize <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Sizes must be positive: block %d, batch %d, queue %d",
+                    blockSize, batchSize, queueCapacity));
+        }
+        this.configuration = CSVParserConfiguration.of(configuration);
+        this.charset = charset;
+        this.blockSize = blockSize;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Class constructor using the default sizes.
+     *
+     * @param configuration the parser configuration
+     * @param charset       the character set of the input
+     */
+    public CSVPipelinedReader(
+            CSVParserConfiguration configuration,
+            Charset charset) {
+        this(configuration, charset, DEFAULT_BLOCK_SIZE, DEFAULT_BATCH_SIZE,
+             DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Parses all the records of the input stream and passes them to the
+     * consumer, in order. The method returns after the parser thread has
+     * stopped, and, unless the parsing ended early, after the I/O thread has
+     * stopped. The input stream is not closed.
+     *
+     * @param input    the input stream
+     * @param consumer the consumer of the records; the record is only valid
+     *                 during the call
+     * @return the number of records
+     * @throws InterruptedException            if the calling thread was
+     *                                         interrupted
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserException              if a parsing exception occurred
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    public long parse(InputStream input, UnaryConsumer<CSVRecord> consumer)
+            throws
+            InterruptedException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            CSVParserLineTooLongException,
+            CSVParserException,
+            IOException {
+        Pipeline pipeline = new Pipeline(input);
+        Thread ioThread = new Thread(pipeline::read_, "csv-io");
+        Thread parserThread = new Thread(pipeline::parse_, "csv-parser");
+        ioThread.setDaemon(true);
+        parserThread.setDaemon(true);
+        ioThread.start();
+        parserThread.start();
+        try {
+            long count = 0;
+            while (true) {
+                Batch batch = pipeline.fullBatches.take();
+                for (int i = 0; i < batch.size; i++) {
+                    consumer.accept(batch.records[i]);
+                }
+                count += batch.size;
+                if (batch.error != null) {
+                    throw_(batch.error);
+                }
+                if (batch.last) {
+                    return count;
+                }
+                batch.size = 0;
+                pipeline.freeBatches.put(batch);
+            }
+        } finally {
+            stop_(ioThread, parserThread);
+        }
+    }
+
+    /**
+     * Interrupts the threads and waits for the parser thread to stop,
+     * preserving the interrupted status of the calling thread. The I/O
+     * thread is not waited for, since it may be blocked in a read of the
+     * input stream that an interrupt does not end; after the end of the
+     * input, it has already stopped.
+     *
+     * @param ioThread     the I/O thread
+     * @param parserThread the parser thread
+     */
+    private static void stop_(Thread ioThread, Thread parserThread) {
+        boolean interrupted = false;
+        ioThread.interrupt();
+        parserThread.interrupt();
+        while (parserThread.isAlive()) {
+            try {
+                parserThread.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Throws the exception of the pipeline in the calling thread.
+     *
+     * @param error the exception
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserException              if a parsing exception occurred
+     * @throws IOException                     if an I/O exception occurred
+     * @throws InterruptedException            if it's an interruption
+     */
+    private static void throw_(Throwable error)
+            throws
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            CSVParserLineTooLongException,
+            CSVParserException,
+            IOException,
+            InterruptedException {
+        if (error instanceof CSVParserFieldTooLargeException) {
+            throw (CSVParserFieldTooLargeException) error;
+        }
+        if (error instanceof CSVParserTooManyFieldsException) {
+            throw (CSVParserTooManyFieldsException) error;
+        }
+        if (error instanceof CSVParserLineTooLongException) {
+            throw (CSVParserLineTooLongException) error;
+        }
+        if (error instanceof CSVParserException) {
+            throw (CSVParserException) error;
+        }
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        if (error instanceof InterruptedException) {
+            throw (InterruptedException) error;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        throw new RuntimeException(error);
+    }
+
+    /**
+     * A block of raw bytes read by the I/O thread.
+     */
+    private static final class Block {
+
+        /**
+         * the bytes
+         */
+        final byte[] bytes;
+
+        /**
+         * the number of valid bytes, -1 at the end of the input
+         */
+        int length = 0;
+
+        /**
+         * the exception of the I/O thread, if any: an {@link IOException},
+         * a {@link RuntimeException} or an {@link Error}
+         */
+        Throwable error = null;
+
+        /**
+         * Class constructor.
+         *
+         * @param size the size of the block
+         */
+        Block(int size) {
+            bytes = new byte[size];
+        }
+
+    }
+
+    /**
+     * A batch of records parsed by the parser thread.
+     */
+    private static final class Batch {
+
+        /**
+         * the records
+         */
+        final CSVRecord[] records;
+
+        /**
+         * the number of valid records
+         */
+        int size = 0;
+
+        /**
+         * true if it's the last batch
+         */
+        boolean last = false;
+
+        /**
+         * the exception that ended the parsing, if any
+         */
+        Throwable error = null;
+
+        /**
+         * Class constructor.
+         *
+         * @param size the number of records
+         */
+        Batch(int size) {
+            records = new CSVRecord[size];
+            for (int i = 0; i < size; i++) {
+                records[i] = new CSVRecord();
+            }
+        }
+
+    }
+
+    /**
+     * The queues and stages of one call to
+     * {@link #parse(InputStream, UnaryConsumer)}.
+     */
+    private final class Pipeline {
+
+        /**
+         * the input stream
+         */
+        final InputStream input;
+
+        /**
+         * the blocks that can be filled
+         */
+        final BlockingQueue<Block> freeBlocks;
+
+        /**
+         * the blocks waiting to be parsed
+         */
+        final BlockingQueue<Block> fullBlocks;
+
+        /**
+         * the batches that can be filled
+         */
+        final BlockingQueue<Batch> freeBatches;
+
+        /**
+         * the batches waiting to be consumed
+         */
+        final BlockingQueue<Batch> fullBatches;
+
+        /**
+         * Class constructor.
+         *
+         * @param input the input stream
+         */
+        Pipeline(InputStream input) {
+            this.input = input;
+            /* one more than the queue for the one being filled, and one more
+               for the one being consumed */
+            int count = queueCapacity + 2;
+            freeBlocks = new ArrayBlockingQueue<>(count);
+            fullBlocks = new ArrayBlockingQueue<>(count);
+            freeBatches = new ArrayBlockingQueue<>(count);
+            fullBatches = new ArrayBlockingQueue<>(count);
+            for (int i = 0; i < count; i++) {
+                freeBlocks.add(new Block(blockSize));
+                freeBatches.add(new Batch(batchSize));
+            }
+        }
+
+        /**
+         * The I/O stage: reads the input stream into blocks.
+         */
+        void read_() {
+            try {
+                while (true) {
+                    Block block = freeBlocks.take();
+                    try {
+                        block.length = input.read(block.bytes);
+                    } catch (IOException | RuntimeException | Error ex) {
+                        block.length = -1;
+                        block.error = ex;
+                    }
+                    fullBlocks.put(block);
+                    if (block.length < 0) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException ex) {
+                /* cancelled */
+            }
+        }
+
+        /**
+         * The parser stage: parses the blocks into batches.
+         */
+        void parse_() {
+            CSVParser parser = CSVParserBuilder.createParser(
+                    configuration, new BufferedCSVParserInputHelper());
+            InputStreamReader reader = new InputStreamReader(
+                    new BlockInputStream(this), charset.newDecoder());
+            Batch batch = null;
+            try {
+                while (true) {
+                    batch = freeBatches.take();
+                    while (batch.size < batch.records.length) {
+                        if (!parser.readRecord(
+                                reader, batch.records[batch.size])) {
+                            batch.last = true;
+                            break;
+                        }
+                        batch.size++;
+                    }
+                    Batch full = batch;
+                    batch = null;
+                    fullBatches.put(full);
+                    if (full.last) {
+                        return;
+                    }
+                    if (Thread.interrupted()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException ex) {
+                /* cancelled */
+            } catch (Throwable ex) {
+                if (batch == null) {
+                    batch = new Batch(0);
+                }
+                batch.last = true;
+                batch.error = ex;
+                fullBatches.offer(batch);
+            }
+        }
+
+    }
+
+    /**
+     * Input stream over the blocks of the I/O thread, used by the parser
+     * thread.
+     */
+    private static final class BlockInputStream
+            extends
+            InputStream {
+
+        /**
+         * the pipeline
+         */
+        private final Pipeline pipeline;
+
+        /**
+         * the current block
+         */
+        private Block block = null;
+
+        /**
+         * the position in the current block
+         */
+        private int position = 0;
+
+        /**
+         * true after the end of the input
+         */
+        private boolean eof = false;
+
+        /**
+         * Class constructor.
+         *
+         * @param pipeline the pipeline
+         */
+        BlockInputStream(Pipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        /**
+         * Makes sure there are bytes available in the current block.
+         *
+         * @return false at the end of the input
+         * @throws IOException if the I/O thread failed or the parser thread
+         *                     was interrupted; the unchecked exceptions of the
+         *                     I/O thread are thrown as they are
+         */
+        private boolean next_()
+                throws
+                IOException {
+            while (!eof && (block == null || position == block.length)) {
+                try {
+                    if (block != null) {
+                        pipeline.freeBlocks.put(block);
+                        block = null;
+                    }
+                    block = pipeline.fullBlocks.take();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+                position = 0;
+                if (block.length < 0) {
+                    eof = true;
+                    if (block.error instanceof IOException) {
+                        throw (IOException) block.error;
+                    }
+                    if (block.error instanceof RuntimeException) {
+                        throw (RuntimeException) block.error;
+                    }
+                    if (block.error instanceof Error) {
+                        throw (Error) block.error;
+                    }
+                }
+            }
+            return !eof;
+        }
+
+        @Override
+        public int read()
+                throws
+                IOException {
+            if (!next_()) {
+                return -1;
+            }
+            return block.bytes[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+                throws
+                IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!next_()) {
+                return -1;
+            }
+            int count = Math.min(len, block.length - position);
+            System.arraycopy(block.bytes, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+    }
+
+}
@@ -0,0 +1,364 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.util.Arrays;
+
+/**
+ * Reusable CSV record that keeps the characters of all its fields in one
+ * character buffer.
+ * <p>
+ * The fields are exposed as {@link CharSequence} views (offset and length)
+ * into the buffer, so reading a record does not allocate a {@link String} per
+ * field. A {@link String} is only created when {@link #getString(int)} or
+ * {@link CharSequence#toString()} on a view is called. The content of the
+ * record and of its views is only valid until the record is used to read the
+ * next record.
+ * </p>
+ * <p>
+ * The mutator methods ({@link #clear()}, the append methods,
+ * {@link #endField()} and {@link #removeLastField()}) are meant to be used
+ * by {@link CSVParser} implementations. The current field is the field that
+ * is being appended to and it becomes part of the record when
+ * {@link #endField()} is called.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVRecord {
+
+    /**
+     * the characters of all the fields
+     */
+    private char[] chars;
+
+    /**
+     * the number of characters used in the buffer
+     */
+    private int length = 0;
+
+    /**
+     * the end offset of each field
+     */
+    private int[] fieldEnds;
+
+    /**
+     * the number of fields
+     */
+    private int fieldCount = 0;
+
+    /**
+     * the start offset of the current field
+     */
+    private int fieldStart = 0;
+
+    /**
+     * the field views, created on demand and reused
+     */
+    private Field[] views = new Field[0];
+
+    /**
+     * Default constructor.
+     */
+    public CSVRecord() {
+        this(256, 16);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param initialCharCapacity  the initial capacity of the character buffer
+     * @param initialFieldCapacity the initial capacity for the fields
+     * @throws IllegalArgumentException if any of the capacities is not
+     *                                  positive
+     */
+    public CSVRecord(int initialCharCapacity, int initialFieldCapacity)
+            throws
+            IllegalArgumentException {
+        if (initialCharCapacity <= 0 || initialFieldCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Capacities must be positive.");
+        }
+        chars = new char[initialCharCapacity];
+        fieldEnds = new int[initialFieldCapacity];
+    }
+
+    /**
+     * Returns the number of fields in the record.
+     *
+     * @return the number of fields in the record.
+     */
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the start offset of the field in the buffer returned by
+     * {@link #chars()}.
+     *
+     * @param index the index of the field
+     * @return the start offset of the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public int start(int index)
+            throws
+            IndexOutOfBoundsException {
+        check_index_(index);
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+
+    /**
+     * Returns the end offset (exclusive) of the field in the buffer returned
+     * by {@link #chars()}.
+     *
+     * @param index the index of the field
+     * @return the end offset of the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public int end(int index)
+            throws
+            IndexOutOfBoundsException {
+        check_index_(index);
+        return fieldEnds[index];
+    }
+
+    /**
+     * Returns the number of characters in the field.
+     *
+     * @param index the index of the field
+     * @return the number of characters in the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public int length(int index)
+            throws
+            IndexOutOfBoundsException {
+        return end(index) - start(index);
+    }
+
+    /**
+     * Returns the character buffer backing this record. The buffer is only
+     * valid until the record is modified.
+     *
+     * @return the character buffer
+     */
+    public char[] chars() {
+        return chars;
+    }
+
+    /**
+     * Returns a view of the field. The same view instance is returned for the
+     * same index, and the view is only valid until the record is modified.
+     *
+     * @param index the index of the field
+     * @return the view of the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public CharSequence get(int index)
+            throws
+            IndexOutOfBoundsException {
+        check_index_(index);
+        if (index >= views.length) {
+            int oldLength = views.length;
+            views = Arrays.copyOf(views, Math.max(index + 1, fieldCount));
+            for (int i = oldLength; i < views.length; i++) {
+                views[i] = new Field(i);
+            }
+        }
+        return views[index];
+    }
+
+    /**
+     * Returns a new string with the content of the field.
+     *
+     * @param index the index of the field
+     * @return a new string with the content of the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public String getString(int index)
+            throws
+            IndexOutOfBoundsException {
+        int start = start(index);
+        return new String(chars, start, fieldEnds[index] - start);
+    }
+
+    /**
+     * Clears the record.
+     */
+    public void clear() {
+        length = 0;
+        fieldCount = 0;
+        fieldStart = 0;
+    }
+
+    /**
+     * Returns the number of characters in the current field.
+     *
+     * @return the number of characters in the current field
+     */
+    public int fieldLength() {
+        return length - fieldStart;
+    }
+
+    /**
+     * Appends a character to the current field.
+     *
+     * @param c the character
+     */
+    public void append(char c) {
+        if (length == chars.length) {
+            grow_(length + 1);
+        }
+        chars[length++] = c;
+    }
+
+    /**
+     * Appends characters to the current field.
+     *
+     * @param source the source of the characters
+     * @param offset the offset of the first character in the source
+     * @param count  the number of characters to append
+     */
+    public void append(char[] source, int offset, int count) {
+        if (chars.length - count < length) {
+            grow_(length + count);
+        }
+        System.arraycopy(source, offset, chars, length, count);
+        length += count;
+    }
+
+    /**
+     * Appends a string to the current field.
+     *
+     * @param s the string
+     */
+    public void append(String s) {
+        int count = s.length();
+        if (chars.length - count < length) {
+            grow_(length + count);
+        }
+        s.getChars(0, count, chars, length);
+        length += count;
+    }
+
+    /**
+     * Ends the current field and adds it to the record.
+     */
+    public void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount << 1);
+        }
+        fieldEnds[fieldCount++] = length;
+        fieldStart = length;
+    }
+
+    /**
+     * Removes the last field of the record, and the characters of the current
+     * field, if any.
+     *
+     * @throws IllegalStateException if the record has no fields
+     */
+    public void removeLastField()
+            throws
+            IllegalStateException {
+        if (fieldCount == 0) {
+            throw new IllegalStateException("The record has no fields.");
+        }
+        fieldCount--;
+        length = fieldCount == 0 ? 0 : fieldEnds[fieldCount - 1];
+        fieldStart = length;
+    }
+
+    /**
+     * Grows the character buffer to hold at least the given number of
+     * characters.
+     *
+     * @param minCapacity the minimum capacity
+     */
+    private void grow_(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Record too large.");
+        }
+        int capacity = chars.length << 1;
+        if (capacity - minCapacity < 0) {
+            capacity = minCapacity;
+        }
+        chars = Arrays.copyOf(chars, capacity);
+    }
+
+    /**
+     * Checks the field index.
+     *
+     * @param index the field index
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    private void check_index_(int index)
+            throws
+            IndexOutOfBoundsException {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ". Size: " + fieldCount);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('[');
+        for (int i = 0; i < fieldCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(chars, start(i), length(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * View of one field of the record.
+     */
+    private final class Field
+            implements
+            CharSequence {
+
+        /**
+         * the index of the field
+         */
+        private final int index;
+
+        /**
+         * Class constructor.
+         *
+         * @param index the index of the field
+         */
+        private Field(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int length() {
+            return CSVRecord.this.length(index);
+        }
+
+        @Override
+        public char charAt(int i) {
+            int start = start(index);
+            if (i < 0 || i >= fieldEnds[index] - start) {
+                throw new IndexOutOfBoundsException("Index: " + i);
+            }
+            return chars[start + i];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            int start = start(index);
+            if (from < 0 || from > to || to > fieldEnds[index] - start) {
+                throw new IndexOutOfBoundsException(
+                        "From: " + from + ". To: " + to);
+            }
+            return new String(chars, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return getString(index);
+        }
+    }
+
+}
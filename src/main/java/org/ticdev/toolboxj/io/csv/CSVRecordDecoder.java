@@ -0,0 +1,398 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.functions.UnaryConsumer;
+import org.ticdev.toolboxj.functions.UnaryConsumerBoolean;
+import org.ticdev.toolboxj.functions.UnaryConsumerDouble;
+import org.ticdev.toolboxj.functions.UnaryConsumerInt;
+import org.ticdev.toolboxj.functions.UnaryConsumerLong;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the fields of CSV records into typed values, following a schema
+ * of column types, and hands the values to one sink per column.
+ * <p>
+ * The numeric, boolean and date values are parsed directly from the
+ * character buffer of a {@link CSVRecord} with {@link CSVValues}, so no
+ * string is created for them, and the primitive sinks receive them without
+ * boxing. Only the {@link CSVColumnType#STRING} columns create a string.
+ * </p>
+ * <p>
+ * When reading from a {@link CSVParser}, only the columns that are decoded
+ * are copied into the record (see
+ * {@link CSVParser#readRecord(Reader, CSVRecord, boolean[])}): the
+ * {@link CSVColumnType#SKIP} columns and the columns past the end of the
+ * schema are parsed, to find the field boundaries, but never copied.
+ * </p>
+ * <p>
+ * A record with fewer fields than the schema, or a value that cannot be
+ * decoded, results in a {@link CSVParserException} that gives the column
+ * and the line of the record.
+ * </p>
+ * <p>
+ * Instances are immutable, but the sinks are called from the thread that
+ * decodes the records.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVRecordDecoder {
+
+    /**
+     * the types of the columns
+     */
+    private final CSVColumnType[] types;
+
+    /**
+     * the sinks of the columns, null for skipped columns
+     */
+    private final Object[] sinks;
+
+    /**
+     * true for the columns that are decoded
+     */
+    private final boolean[] selection;
+
+    /**
+     * Class constructor.
+     *
+     * @param builder the builder
+     */
+    private CSVRecordDecoder(Builder builder) {
+        int count = builder.types.size();
+        types = builder.types.toArray(new CSVColumnType[count]);
+        sinks = builder.sinks.toArray(new Object[count]);
+        selection = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            selection[i] = types[i] != CSVColumnType.SKIP;
+        }
+    }
+
+    /**
+     * Returns a new builder for a decoder.
+     *
+     * @return a new builder
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the number of columns in the schema.
+     *
+     * @return the number of columns
+     */
+    public int columnCount() {
+        return types.length;
+    }
+
+    /**
+     * Returns the type of the given column.
+     *
+     * @param index the index of the column
+     * @return the type of the column
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public CSVColumnType columnType(int index)
+            throws
+            IndexOutOfBoundsException {
+        return types[index];
+    }
+
+    /**
+     * Returns the selection of the decoded columns, true for the columns
+     * that are not {@link CSVColumnType#SKIP}, in the format of
+     * {@link CSVParser#readRecord(Reader, CSVRecord, boolean[])}.
+     *
+     * @return a copy of the selection
+     */
+    public boolean[] selection() {
+        return selection.clone();
+    }
+
+    /**
+     * Decodes the given record and passes the values to the sinks of the
+     * columns, in order.
+     *
+     * @param record     the record
+     * @param lineNumber the line number of the record, used in exceptions
+     * @throws CSVParserException if the record has fewer fields than the
+     *                            schema or if a field cannot be decoded
+     */
+    @SuppressWarnings("unchecked")
+    public void decode(CSVRecord record, long lineNumber)
+            throws
+            CSVParserException {
+        final CSVColumnType[] types = this.types;
+        CSVFieldDecoder.checkFieldCount(record, types.length, lineNumber);
+        for (int column = 0; column < types.length; column++) {
+            switch (types[column]) {
+                case INT:
+                    ((UnaryConsumerInt) sinks[column]).acceptInt(
+                            CSVFieldDecoder.decodeInt(
+                                    record, column, null, column,
+                                    lineNumber));
+                    break;
+                case LONG:
+                    ((UnaryConsumerLong) sinks[column]).acceptLong(
+                            CSVFieldDecoder.decodeLong(
+                                    record, column, null, column,
+                                    lineNumber));
+                    break;
+                case DOUBLE:
+                    ((UnaryConsumerDouble) sinks[column]).acceptDouble(
+                            CSVFieldDecoder.decodeDouble(
+                                    record, column, null, column,
+                                    lineNumber));
+                    break;
+                case BOOLEAN:
+                    ((UnaryConsumerBoolean) sinks[column]).acceptBoolean(
+                            CSVFieldDecoder.decodeBoolean(
+                                    record, column, null, column,
+                                    lineNumber));
+                    break;
+                case DATE:
+                    ((UnaryConsumerLong) sinks[column]).acceptLong(
+                            CSVFieldDecoder.decodeEpochDay(
+                                    record, column, null, column,
+                                    lineNumber));
+                    break;
+                case STRING:
+                    ((UnaryConsumer<String>) sinks[column])
+                            .accept(record.getString(column));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads the next record from the given reader into the given record,
+     * copying only the decoded columns, and decodes it.
+     *
+     * @param parser the parser
+     * @param reader the reader
+     * @param record the record used to hold the fields
+     * @return false if there are no more records to read and true otherwise.
+     * @throws CSVParserException              if a parser exception occurred
+     *                                         or if the record cannot be
+     *                                         decoded
+     * @throws CSVParserLineTooLongException   if a restriction on the line length has occurred
+     * @throws CSVParserTooManyFieldsException if a restriction on the number of fields in a record has
+     *                                         occurred
+     * @throws IOException                     if an IO exception has occurred while reading the record
+     * @throws InterruptedException            if the thread is interrupted during parsing
+     * @throws CSVParserFieldTooLargeException if a restriction on the field size has occurred
+     */
+    public boolean decodeNext(CSVParser parser, Reader reader, CSVRecord record)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            InterruptedException,
+            CSVParserFieldTooLargeException {
+        if (!parser.readRecord(reader, record, selection)) {
+            return false;
+        }
+        decode(record, parser.recordLineNumber());
+        return true;
+    }
+
+    /**
+     * Reads and decodes all the remaining records from the given reader.
+     *
+     * @param parser the parser
+     * @param reader the reader
+     * @return the number of records decoded
+     * @throws CSVParserException              if a parser exception occurred
+     *                                         or if a record cannot be
+     *                                         decoded
+     * @throws CSVParserLineTooLongException   if a restriction on the line length has occurred
+     * @throws CSVParserTooManyFieldsException if a restriction on the number of fields in a record has
+     *                                         occurred
+     * @throws IOException                     if an IO exception has occurred while reading the record
+     * @throws InterruptedException            if the thread is interrupted during parsing
+     * @throws CSVParserFieldTooLargeException if a restriction on the field size has occurred
+     */
+    public long decodeAll(CSVParser parser, Reader reader)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            InterruptedException,
+            CSVParserFieldTooLargeException {
+        CSVRecord record = new CSVRecord();
+        long count = 0;
+        while (decodeNext(parser, reader, record)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Builder for a {@link CSVRecordDecoder}. The columns are added in
+     * order, starting from the first field of the record.
+     */
+    public static final class Builder {
+
+        /**
+         * the types of the columns
+         */
+        private final List<CSVColumnType> types = new ArrayList<>();
+
+        /**
+         * the sinks of the columns
+         */
+        private final List<Object> sinks = new ArrayList<>();
+
+        /**
+         * Class constructor.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Adds a column.
+         *
+         * @param type the type of the column
+         * @param sink the sink of the column
+         * @return this builder
+         * @throws NullPointerException if the sink is null
+         */
+        private Builder add_(CSVColumnType type, Object sink)
+                throws
+                NullPointerException {
+            if (sink == null && type != CSVColumnType.SKIP) {
+                throw new NullPointerException("Sink cannot be null.");
+            }
+            types.add(type);
+            sinks.add(sink);
+            return this;
+        }
+
+        /**
+         * Adds an int column.
+         *
+         * @param sink the sink for the values
+         * @return this builder
+         * @throws NullPointerException if the sink is null
+         */
+        public Builder intColumn(UnaryConsumerInt sink)
+                throws
+                NullPointerException {
+            return add_(CSVColumnType.INT, sink);
+        }
+
+        /**
+         * Adds a long column.
+         *
+         * @param sink the sink for the values
+         * @return this builder
+         * @throws NullPointerException if the sink is null
+         */
+        public Builder longColumn(UnaryConsumerLong sink)
+                throws
+                NullPointerException {
+            return add_(CSVColumnType.LONG, sink);
+        }
+
+        /**
+         * Adds a double column.
+         *
+         * @param sink the sink for the values
+         * @return this builder
+         * @throws NullPointerException if the sink is null
+         */
+        public Builder doubleColumn(UnaryConsumerDouble sink)
+                throws
+                NullPointerException {
+            return add_(CSVColumnType.DOUBLE, sink);
+        }
+
+        /**
+         * Adds a boolean column.
+         *
+         * @param sink the sink for the values
+         * @return this builder
+         * @throws NullPointerException if the sink is null
+         */
+        public Builder booleanColumn(UnaryConsumerBoolean sink)
+                throws
+                NullPointerException {
+            return add_(CSVColumnType.BOOLEAN, sink);
+        }
+
+        /**
+         * Adds a yyyy-MM-dd date column, whose values are passed as the
+         * number of days since 1970-01-01.
+         *
+         * @param sink the sink for the values
+         * @return this builder
+         * @throws NullPointerException if the sink is null
+         */
+        public Builder dateColumn(UnaryConsumerLong sink)
+                throws
+                NullPointerException {
+            return add_(CSVColumnType.DATE, sink);
+        }
+
+        /**
+         * Adds a string column.
+         *
+         * @param sink the sink for the values
+         * @return this builder
+         * @throws NullPointerException if the sink is null
+         */
+        public Builder stringColumn(UnaryConsumer<String> sink)
+                throws
+                NullPointerException {
+            return add_(CSVColumnType.STRING, sink);
+        }
+
+        /**
+         * Adds a column that is not decoded.
+         *
+         * @return this builder
+         */
+        public Builder skipColumn() {
+            return add_(CSVColumnType.SKIP, null);
+        }
+
+        /**
+         * Adds the given number of columns that are not decoded.
+         *
+         * @param count the number of columns
+         * @return this builder
+         * @throws IllegalArgumentException if the count is negative
+         */
+        public Builder skipColumns(int count)
+                throws
+                IllegalArgumentException {
+            if (count < 0) {
+                throw new IllegalArgumentException(
+                        "Negative column count: " + count);
+            }
+            for (int i = 0; i < count; i++) {
+                skipColumn();
+            }
+            return this;
+        }
+
+        /**
+         * Builds the decoder.
+         *
+         * @return the decoder
+         */
+        public CSVRecordDecoder build() {
+            return new CSVRecordDecoder(this);
+        }
+
+    }
+
+}
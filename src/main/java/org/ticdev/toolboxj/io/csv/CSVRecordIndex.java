@@ -0,0 +1,499 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.io.csv.impl.CSVRecordBoundaryScanner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Sparse index of the record boundaries of a CSV file, for random access
+ * and parallel parsing.
+ * <p>
+ * The index is built in one pass over the file with a
+ * {@link CSVRecordBoundaryScanner}, which follows the rules of the parser
+ * configuration, so text delimited fields spanning multiple lines are
+ * handled as the parser does. It holds the byte offset and the line number
+ * of every {@link #interval()}-th record, and it can be saved to a compact
+ * sidecar file, where the entries are delta encoded as variable length
+ * integers.
+ * </p>
+ * <p>
+ * The record boundaries are returned as {@link CSVCheckpoint}s, from which
+ * a {@link CSVByteParser} can resume, see
+ * {@link CSVParserBuilder#buildByteParser(java.nio.charset.Charset,
+ * CSVCheckpoint)} and
+ * {@link CSVSupport#newInputStream(Path, CSVCheckpoint)}. The character set
+ * of the file must be ASCII compatible and the text delimiter and escape
+ * character must be ASCII characters. The index does not detect changes to
+ * the file, besides its size, see {@link #fileSize()}.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVRecordIndex {
+
+    /**
+     * Default number of records between two entries of the index.
+     */
+    public static final int DEFAULT_INTERVAL = 1024;
+
+    /**
+     * the magic number of the index files, "CSVI"
+     */
+    private static final int MAGIC = 0x43535649;
+
+    /**
+     * the version of the index file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * the size of the buffer used to scan the file
+     */
+    private static final int SCAN_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * the number of records between two entries
+     */
+    private final int interval;
+
+    /**
+     * the number of records in the file
+     */
+    private final long recordCount;
+
+    /**
+     * the size of the file
+     */
+    private final long fileSize;
+
+    /**
+     * the line number at the end of the file
+     */
+    private final long endLineNumber;
+
+    /**
+     * the offsets of the indexed records
+     */
+    private final long[] offsets;
+
+    /**
+     * the line numbers of the indexed records
+     */
+    private final long[] lineNumbers;
+
+    /**
+     * Class constructor.
+     *
+     * @param interval      the number of records between two entries
+     * @param recordCount   the number of records
+     * @param fileSize      the size of the file
+     * @param endLineNumber the line number at the end of the file
+     * @param offsets       the offsets of the indexed records
+     * @param lineNumbers   the line numbers of the indexed records
+     */
+    private CSVRecordIndex(
+            int interval, long recordCount, long fileSize,
+            long endLineNumber, long[] offsets, long[] lineNumbers) {
+        this.interval = interval;
+        this.recordCount = recordCount;
+        this.fileSize = fileSize;
+        this.endLineNumber = endLineNumber;
+        this.offsets = offsets;
+        this.lineNumbers = lineNumbers;
+    }
+
+    /**
+     * Scans the file from the given checkpoint, which must be a record
+     * boundary, and calls the consumer with the offset of each following
+     * record boundary until it returns false. The scanner holds the number
+     * of end-of-line sequences since the checkpoint.
+     *
+     * @param channel  the file channel
+     * @param start    the checkpoint
+     * @param scanner  the scanner, reset
+     * @param consumer the consumer of the boundaries
+     * @return false if the consumer stopped the scan
+     * @throws IOException if an exception occurred while reading the file
+     */
+    private static boolean scan_(
+            FileChannel channel, CSVCheckpoint start,
+            CSVRecordBoundaryScanner scanner, LongPredicate consumer)
+            throws
+            IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long bufferOffset = start.offset();
+        channel.position(bufferOffset);
+        int count;
+        while ((count = channel.read(buffer)) >= 0) {
+            if (count == 0) {
+                continue;
+            }
+            int limit = buffer.position();
+            int position = 0;
+            while ((position = scanner.nextBoundary(buffer, position, limit))
+                   >= 0) {
+                if (!consumer.test(bufferOffset + position)) {
+                    return false;
+                }
+            }
+            bufferOffset += limit;
+            buffer.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Builds the index of a file.
+     *
+     * @param file          the file
+     * @param configuration the parser configuration
+     * @param interval      the number of records between two entries
+     * @return the index
+     * @throws IllegalArgumentException if the interval is not positive or if
+     *                                  the text delimiter or the escape
+     *                                  character are not ASCII
+     * @throws IOException              if an exception occurred while
+     *                                  reading the file
+     */
+    public static CSVRecordIndex build(
+            Path file, CSVParserConfiguration configuration, int interval)
+            throws
+            IllegalArgumentException,
+            IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException(
+                    "Interval must be positive: " + interval);
+        }
+        CSVRecordBoundaryScanner scanner =
+                new CSVRecordBoundaryScanner(configuration);
+        try (FileChannel channel =
+                     FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long[][] entries = {new long[16], new long[16]};
+            long[] counts = {0, 0};
+            if (fileSize > 0) {
+                entries[0][0] = 0;
+                entries[1][0] = 1;
+                counts[0] = 1;
+                counts[1] = 1;
+            }
+            scan_(channel, CSVCheckpoint.START, scanner, boundary -> {
+                if (counts[0]++ % interval == 0) {
+                    int entry = (int) counts[1]++;
+                    if (entry == entries[0].length) {
+                        entries[0] = Arrays.copyOf(entries[0], entry * 2);
+                        entries[1] = Arrays.copyOf(entries[1], entry * 2);
+                    }
+                    entries[0][entry] = boundary;
+                    entries[1][entry] = 1 + scanner.eolCount();
+                }
+                return true;
+            });
+            int size = (int) counts[1];
+            return new CSVRecordIndex(
+                    interval, counts[0], fileSize, 1 + scanner.eolCount(),
+                    Arrays.copyOf(entries[0], size),
+                    Arrays.copyOf(entries[1], size));
+        }
+    }
+
+    /**
+     * Builds the index of a file with an entry every
+     * {@link #DEFAULT_INTERVAL} records.
+     *
+     * @param file          the file
+     * @param configuration the parser configuration
+     * @return the index
+     * @throws IllegalArgumentException if the text delimiter or the escape
+     *                                  character are not ASCII
+     * @throws IOException              if an exception occurred while
+     *                                  reading the file
+     */
+    public static CSVRecordIndex build(
+            Path file, CSVParserConfiguration configuration)
+            throws
+            IllegalArgumentException,
+            IOException {
+        return build(file, configuration, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Writes a non-negative value as a variable length integer.
+     *
+     * @param out   the output
+     * @param value the value
+     * @throws IOException if an exception occurred while writing
+     */
+    private static void write_varint_(DataOutputStream out, long value)
+            throws
+            IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a variable length integer.
+     *
+     * @param in the input
+     * @return the value
+     * @throws IOException if an exception occurred while reading or if the
+     *                     value is too long
+     */
+    private static long read_varint_(DataInputStream in)
+            throws
+            IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed index value.");
+    }
+
+    /**
+     * Writes the index to the given file.
+     *
+     * @param indexFile the index file
+     * @throws IOException if an exception occurred while writing
+     */
+    public void write(Path indexFile)
+            throws
+            IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            write_varint_(out, interval);
+            write_varint_(out, recordCount);
+            write_varint_(out, fileSize);
+            write_varint_(out, endLineNumber);
+            write_varint_(out, offsets.length);
+            long offset = 0;
+            long lineNumber = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                write_varint_(out, offsets[i] - offset);
+                write_varint_(out, lineNumbers[i] - lineNumber);
+                offset = offsets[i];
+                lineNumber = lineNumbers[i];
+            }
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #write(Path)}.
+     *
+     * @param indexFile the index file
+     * @return the index
+     * @throws IOException if an exception occurred while reading or if the
+     *                     file is not a valid index
+     */
+    public static CSVRecordIndex read(Path indexFile)
+            throws
+            IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                throw new IOException(
+                        "Not a CSV record index: " + indexFile);
+            }
+            long interval = read_varint_(in);
+            long recordCount = read_varint_(in);
+            long fileSize = read_varint_(in);
+            long endLineNumber = read_varint_(in);
+            long size = read_varint_(in);
+            if (interval <= 0 || interval > Integer.MAX_VALUE ||
+                size != (recordCount + interval - 1) / interval) {
+                throw new IOException(
+                        "Not a CSV record index: " + indexFile);
+            }
+            long[] offsets = new long[(int) size];
+            long[] lineNumbers = new long[(int) size];
+            long offset = 0;
+            long lineNumber = 0;
+            for (int i = 0; i < size; i++) {
+                offset += read_varint_(in);
+                lineNumber += read_varint_(in);
+                offsets[i] = offset;
+                lineNumbers[i] = lineNumber;
+            }
+            return new CSVRecordIndex(
+                    (int) interval, recordCount, fileSize, endLineNumber,
+                    offsets, lineNumbers);
+        }
+    }
+
+    /**
+     * Returns the number of records between two entries of the index.
+     *
+     * @return the interval
+     */
+    public int interval() {
+        return interval;
+    }
+
+    /**
+     * Returns the number of records in the file.
+     *
+     * @return the number of records
+     */
+    public long recordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the size, in bytes, of the indexed file, which can be
+     * compared with the size of the file to detect a stale index.
+     *
+     * @return the size of the file
+     */
+    public long fileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Returns the checkpoint of an entry of the index, which is the start
+     * of the record <code>entry * interval()</code>.
+     *
+     * @param entry the entry
+     * @return the checkpoint
+     * @throws IndexOutOfBoundsException if the entry is not valid
+     */
+    public CSVCheckpoint entry(int entry)
+            throws
+            IndexOutOfBoundsException {
+        return new CSVCheckpoint(offsets[entry], lineNumbers[entry], -1);
+    }
+
+    /**
+     * Returns the checkpoint of the end of the file.
+     *
+     * @return the checkpoint of the end of the file
+     */
+    public CSVCheckpoint end() {
+        return new CSVCheckpoint(fileSize, endLineNumber, -1);
+    }
+
+    /**
+     * Returns the checkpoint of the start of the given record, scanning the
+     * file from the closest entry of the index. The record count is the
+     * end of the file.
+     *
+     * @param file          the indexed file
+     * @param configuration the parser configuration used for the index
+     * @param record        the index of the record, starting at 0
+     * @return the checkpoint of the record
+     * @throws IndexOutOfBoundsException if the record is negative or after
+     *                                   the record count
+     * @throws IOException               if an exception occurred while
+     *                                   reading the file, or if the file
+     *                                   ended before the record
+     */
+    public CSVCheckpoint seek(
+            Path file, CSVParserConfiguration configuration, long record)
+            throws
+            IndexOutOfBoundsException,
+            IOException {
+        if (record < 0 || record > recordCount) {
+            throw new IndexOutOfBoundsException(
+                    "Record: " + record + ", count: " + recordCount);
+        }
+        if (record == recordCount) {
+            return end();
+        }
+        CSVCheckpoint start = entry((int) (record / interval));
+        int skip = (int) (record % interval);
+        if (skip == 0) {
+            return start;
+        }
+        CSVRecordBoundaryScanner scanner =
+                new CSVRecordBoundaryScanner(configuration);
+        long[] boundary = {-1};
+        int[] remaining = {skip};
+        try (FileChannel channel =
+                     FileChannel.open(file, StandardOpenOption.READ)) {
+            scan_(channel, start, scanner, offset -> {
+                if (--remaining[0] > 0) {
+                    return true;
+                }
+                boundary[0] = offset;
+                return false;
+            });
+        }
+        if (boundary[0] < 0) {
+            throw new IOException("The file changed since it was indexed.");
+        }
+        return new CSVCheckpoint(
+                boundary[0], start.lineNumber() + scanner.eolCount(), -1);
+    }
+
+    /**
+     * Splits the file in at most the given number of ranges of similar
+     * sizes, at indexed record boundaries.
+     * <p>
+     * The returned list holds the start of each range followed by the end
+     * of the file, so range i goes from element i to element i + 1. A range
+     * can be parsed by a {@link CSVByteParser} resuming at its start, reading
+     * from an input stream bounded by the range, such as a
+     * {@link org.ticdev.toolboxj.io.MappedFileInputStream}.
+     * </p>
+     *
+     * @param ranges the maximum number of ranges
+     * @return the boundaries of the ranges
+     * @throws IllegalArgumentException if the number of ranges is not
+     *                                  positive
+     */
+    public List<CSVCheckpoint> split(int ranges)
+            throws
+            IllegalArgumentException {
+        if (ranges <= 0) {
+            throw new IllegalArgumentException(
+                    "The number of ranges must be positive: " + ranges);
+        }
+        List<CSVCheckpoint> boundaries = new ArrayList<>(ranges + 1);
+        boundaries.add(CSVCheckpoint.START);
+        int last = 0;
+        for (int i = 1; i < ranges; i++) {
+            long target = (long) (fileSize * ((double) i / ranges));
+            int entry = Arrays.binarySearch(offsets, target);
+            if (entry < 0) {
+                /* the last entry before the target */
+                entry = -entry - 2;
+            }
+            if (entry > last) {
+                boundaries.add(entry(entry));
+                last = entry;
+            }
+        }
+        boundaries.add(end());
+        return boundaries;
+    }
+
+}
@@ -0,0 +1,250 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Maps CSV records into objects, with a {@link CSVHeaderBinding} resolved
+ * against a header: the index of each column is known, so a record is
+ * mapped by a fixed sequence of decodes and setter calls, without looking up
+ * the columns.
+ * <p>
+ * The values are decoded directly from the character buffer of a
+ * {@link CSVRecord} with {@link CSVValues}, so only the string columns
+ * create a string, and the int, long and double setters receive the values
+ * without boxing. When reading from a {@link CSVParser}, only the mapped
+ * columns are copied into the record (see {@link #selection()}).
+ * </p>
+ * <p>
+ * A record with fewer fields than the mapped columns need, or a value that
+ * cannot be decoded, results in a {@link CSVParserException} that gives the
+ * name of the column and the line of the record.
+ * </p>
+ * <p>
+ * Instances are immutable; the objects are created and the setters called
+ * from the thread that maps the records.
+ * </p>
+ *
+ * @param <T> the type of the mapped objects
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVRecordMapper<T> {
+
+    /**
+     * the factory of the mapped objects
+     */
+    private final Supplier<? extends T> factory;
+
+    /**
+     * the names of the mapped columns
+     */
+    private final String[] names;
+
+    /**
+     * the field index of each mapped column
+     */
+    private final int[] fields;
+
+    /**
+     * the types of the mapped columns
+     */
+    private final CSVColumnType[] types;
+
+    /**
+     * the setters of the mapped columns
+     */
+    private final Object[] setters;
+
+    /**
+     * the minimum number of fields of a record
+     */
+    private final int fieldCount;
+
+    /**
+     * true for the fields that are mapped
+     */
+    private final boolean[] selection;
+
+    /**
+     * Class constructor.
+     *
+     * @param factory the factory of the mapped objects
+     * @param names   the names of the mapped columns
+     * @param fields  the field index of each mapped column
+     * @param types   the types of the mapped columns
+     * @param setters the setters of the mapped columns
+     */
+    CSVRecordMapper(
+            Supplier<? extends T> factory,
+            String[] names,
+            int[] fields,
+            CSVColumnType[] types,
+            Object[] setters) {
+        this.factory = factory;
+        this.names = names;
+        this.fields = fields;
+        this.types = types;
+        this.setters = setters;
+        int count = 0;
+        for (int field : fields) {
+            count = Math.max(count, field + 1);
+        }
+        fieldCount = count;
+        selection = new boolean[count];
+        for (int field : fields) {
+            selection[field] = true;
+        }
+    }
+
+    /**
+     * Returns the number of mapped columns.
+     *
+     * @return the number of mapped columns
+     */
+    public int columnCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of a mapped column.
+     *
+     * @param index the index of the mapped column
+     * @return the name of the column
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public String columnName(int index)
+            throws
+            IndexOutOfBoundsException {
+        return names[index];
+    }
+
+    /**
+     * Returns the index in the records of a mapped column.
+     *
+     * @param index the index of the mapped column
+     * @return the index of the field
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public int fieldIndex(int index)
+            throws
+            IndexOutOfBoundsException {
+        return fields[index];
+    }
+
+    /**
+     * Returns the selection of the mapped fields, in the format of
+     * {@link CSVParser#readRecord(Reader, CSVRecord, boolean[])}.
+     *
+     * @return a copy of the selection
+     */
+    public boolean[] selection() {
+        return selection.clone();
+    }
+
+    /**
+     * Maps the given record into a new object.
+     *
+     * @param record     the record
+     * @param lineNumber the line number of the record, used in exceptions
+     * @return the new object
+     * @throws CSVParserException if the record has fewer fields than the
+     *                            mapped columns need or if a field cannot be
+     *                            decoded
+     */
+    @SuppressWarnings("unchecked")
+    public T map(CSVRecord record, long lineNumber)
+            throws
+            CSVParserException {
+        CSVFieldDecoder.checkFieldCount(record, fieldCount, lineNumber);
+        final String[] names = this.names;
+        final int[] fields = this.fields;
+        final CSVColumnType[] types = this.types;
+        final Object[] setters = this.setters;
+        T target = factory.get();
+        for (int column = 0; column < fields.length; column++) {
+            int field = fields[column];
+            switch (types[column]) {
+                case INT:
+                    ((ObjIntConsumer<? super T>) setters[column]).accept(
+                            target, CSVFieldDecoder.decodeInt(
+                                    record, field, names, column,
+                                    lineNumber));
+                    break;
+                case LONG:
+                    ((ObjLongConsumer<? super T>) setters[column]).accept(
+                            target, CSVFieldDecoder.decodeLong(
+                                    record, field, names, column,
+                                    lineNumber));
+                    break;
+                case DOUBLE:
+                    ((ObjDoubleConsumer<? super T>) setters[column]).accept(
+                            target, CSVFieldDecoder.decodeDouble(
+                                    record, field, names, column,
+                                    lineNumber));
+                    break;
+                case BOOLEAN:
+                    ((BiConsumer<? super T, Boolean>) setters[column]).accept(
+                            target, CSVFieldDecoder.decodeBoolean(
+                                    record, field, names, column,
+                                    lineNumber));
+                    break;
+                case DATE:
+                    ((ObjLongConsumer<? super T>) setters[column]).accept(
+                            target, CSVFieldDecoder.decodeEpochDay(
+                                    record, field, names, column,
+                                    lineNumber));
+                    break;
+                case STRING:
+                    ((BiConsumer<? super T, String>) setters[column])
+                            .accept(target, record.getString(field));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Reads the next record from the given reader into the given record,
+     * copying only the mapped columns, and maps it into a new object.
+     * <p>
+     * The selection of the mapper replaces the projection of the parser, so
+     * a header read with a projection must be resolved with
+     * {@link CSVHeaderBinding#bind(java.util.List, int[])}.
+     * </p>
+     *
+     * @param parser the parser
+     * @param reader the reader
+     * @param record the record used to hold the fields
+     * @return the new object, or null if there are no more records to read
+     * @throws CSVParserException              if a parser exception occurred
+     *                                         or if the record cannot be
+     *                                         mapped
+     * @throws CSVParserLineTooLongException   if a restriction on the line length has occurred
+     * @throws CSVParserTooManyFieldsException if a restriction on the number of fields in a record has
+     *                                         occurred
+     * @throws IOException                     if an IO exception has occurred while reading the record
+     * @throws InterruptedException            if the thread is interrupted during parsing
+     * @throws CSVParserFieldTooLargeException if a restriction on the field size has occurred
+     */
+    public T mapNext(CSVParser parser, Reader reader, CSVRecord record)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            InterruptedException,
+            CSVParserFieldTooLargeException {
+        if (!parser.readRecord(reader, record, selection)) {
+            return null;
+        }
+        return map(record, parser.recordLineNumber());
+    }
+
+}
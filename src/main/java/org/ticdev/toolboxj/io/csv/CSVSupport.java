@@ -1,16 +1,24 @@
 package org.ticdev.toolboxj.io.csv;
 
+import org.ticdev.toolboxj.functions.UnaryConsumer;
+import org.ticdev.toolboxj.io.CompressionSupport;
+import org.ticdev.toolboxj.io.ReadAheadInputStream;
 import org.ticdev.toolboxj.io.csv.impl.DefaultCSVParser;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedList;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -35,8 +43,33 @@ public class CSVSupport {
             final CSVParser parser,
             final Reader reader) {
 
+        return newStream(parser, reader, false);
+
+    }
+
+    /**
+     * Returns a new stream that provides records using the given parser and
+     * reader, optionally reusing the same list for all the records.
+     * <p>
+     * When the records are reused, each record is only valid until the
+     * stream moves to the next one: it must be consumed, or copied, by the
+     * operation receiving it, and must not be collected or buffered, e.g. by
+     * {@link Stream#sorted()}. In exchange, no list is allocated per record.
+     * </p>
+     *
+     * @param parser       the parser
+     * @param reader       the reader
+     * @param reuseRecords true to reuse the same list for all the records
+     * @return the new stream
+     */
+    public static Stream<List<String>>
+    newStream(
+            final CSVParser parser,
+            final Reader reader,
+            final boolean reuseRecords) {
+
         CSVParserStreamSpliterator spliterator =
-                new CSVParserStreamSpliterator(parser, reader);
+                new CSVParserStreamSpliterator(parser, reader, reuseRecords);
 
         return StreamSupport.stream(spliterator, false).onClose(() -> {
             try {
@@ -51,6 +84,85 @@ public class CSVSupport {
 
     }
 
+    /**
+     * Returns a new stream that provides the records of the given reader
+     * mapped into objects with the given binding. The first record is the
+     * header, which is resolved against the binding, see
+     * {@link CSVBoundRecordSpliterator}.
+     *
+     * @param parser  the parser
+     * @param reader  the reader
+     * @param binding the binding
+     * @param <T>     the type of the mapped objects
+     * @return the new stream
+     */
+    public static <T> Stream<T>
+    newStream(
+            final CSVParser parser,
+            final Reader reader,
+            final CSVHeaderBinding<T> binding) {
+
+        CSVBoundRecordSpliterator<T> spliterator =
+                new CSVBoundRecordSpliterator<>(parser, reader, binding);
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                spliterator.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } catch (Exception ex) {
+                throw new UncheckedIOException(
+                        new IOException(ex.toString()));
+            }
+        });
+
+    }
+
+    /**
+     * Returns a new parallel stream that provides the records of the given
+     * file. The file is memory-mapped and split in ranges at record
+     * boundaries that are parsed independently, see
+     * {@link CSVMappedFileSpliterator}. The file is closed when the stream
+     * is closed.
+     *
+     * @param file          the file
+     * @param charset       the character set of the file, which must be
+     *                      ASCII compatible
+     * @param configuration the parser configuration
+     * @return the new stream
+     * @throws IOException if the file cannot be opened
+     */
+    public static Stream<List<String>>
+    newParallelStream(
+            final Path file,
+            final Charset charset,
+            final CSVParserConfiguration configuration)
+            throws
+            IOException {
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        CSVMappedFileSpliterator spliterator;
+        try {
+            spliterator = new CSVMappedFileSpliterator(channel, configuration,
+                                                       charset);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+
+        return StreamSupport.stream(spliterator, true).onClose(() -> {
+            try {
+                spliterator.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } catch (Exception ex) {
+                throw new UncheckedIOException(
+                        new IOException(ex.toString()));
+            }
+        });
+
+    }
+
     /**
      * Read all the records from the given reader.
      *
@@ -77,7 +189,7 @@ public class CSVSupport {
             CSVParserException {
         CSVParser parser =
                 CSVParserBuilder.createParser(configuration, inputHelper);
-        List<List<String>> result = new LinkedList<>();
+        List<List<String>> result = new ArrayList<>();
         List<String> record;
         while ((record = parser.parseRecord(reader, null)) != null) {
             result.add(record);
@@ -87,7 +199,8 @@ public class CSVSupport {
 
     /**
      * Like {@link #parseReader(Reader, CSVParserConfiguration, CSVParserInputHelper)}
-     * but uses a default input helper.
+     * but uses a {@link BufferedCSVParserInputHelper} as all the records are
+     * read from the reader anyway.
      *
      * @param reader        the reader
      * @param configuration the parser configuration
@@ -109,7 +222,254 @@ public class CSVSupport {
             CSVParserException,
             IOException {
         return parseReader(reader, configuration,
-                           new DefaultCSVParserInputHelper());
+                           new BufferedCSVParserInputHelper());
+    }
+
+    /**
+     * Reads all the records from the given reader into columnar batches and
+     * passes each batch to the consumer when it is full, and at the end of
+     * the input if it is not empty.
+     * <p>
+     * A single batch is used: it is cleared and refilled after the consumer
+     * returns, so the consumer must not keep references to the batch or its
+     * arrays. Only the columns that are decoded are copied from the input,
+     * see {@link CSVColumnBatch#selection()}.
+     * </p>
+     *
+     * @param reader        the reader
+     * @param configuration the parser configuration
+     * @param batchSize     the number of rows in a batch
+     * @param consumer      the consumer of the batches
+     * @param types         the types of the columns
+     * @return the number of rows read
+     * @throws InterruptedException            if the process was interrupted
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserException              if a parsing exception occurred
+     *                                         or if a field cannot be decoded
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    public static long parseBatches(
+            Reader reader, CSVParserConfiguration configuration,
+            int batchSize, UnaryConsumer<CSVColumnBatch> consumer,
+            CSVColumnType... types)
+            throws
+            InterruptedException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            CSVParserLineTooLongException,
+            CSVParserException,
+            IOException {
+        CSVParser parser = CSVParserBuilder.createParser(
+                configuration, new BufferedCSVParserInputHelper());
+        CSVColumnBatch batch = new CSVColumnBatch(batchSize, types);
+        boolean[] selection = batch.selection();
+        CSVRecord record = new CSVRecord();
+        long count = 0;
+        while (true) {
+            if (!parser.readRecord(reader, record, selection)) {
+                break;
+            }
+            batch.add(record, parser.recordLineNumber());
+            count++;
+            if (batch.isFull()) {
+                consumer.accept(batch);
+                batch.clear();
+            }
+        }
+        if (batch.size() > 0) {
+            consumer.accept(batch);
+            batch.clear();
+        }
+        return count;
+    }
+
+    /**
+     * Parses all the records of the input stream with a
+     * {@link CSVPipelinedReader} using the default sizes: the input stream is
+     * read on one thread, the records are parsed on another, and the
+     * consumer is called on the calling thread.
+     *
+     * @param input         the input stream, which is not closed
+     * @param charset       the character set
+     * @param configuration the parser configuration
+     * @param consumer      the consumer of the records; the record is only
+     *                      valid during the call
+     * @return the number of records
+     * @throws InterruptedException            if the process was interrupted
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserException              if a parsing exception occurred
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    public static long parsePipelined(
+            InputStream input, Charset charset,
+            CSVParserConfiguration configuration,
+            UnaryConsumer<CSVRecord> consumer)
+            throws
+            InterruptedException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            CSVParserLineTooLongException,
+            CSVParserException,
+            IOException {
+        return new CSVPipelinedReader(configuration, charset)
+                .parse(input, consumer);
+    }
+
+    /**
+     * Like {@link #parsePipelined(InputStream, Charset, CSVParserConfiguration, UnaryConsumer)}
+     * but reading from a file.
+     *
+     * @param file          the file
+     * @param charset       the character set
+     * @param configuration the parser configuration
+     * @param consumer      the consumer of the records; the record is only
+     *                      valid during the call
+     * @return the number of records
+     * @throws InterruptedException            if the process was interrupted
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserException              if a parsing exception occurred
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    public static long parsePipelined(
+            Path file, Charset charset,
+            CSVParserConfiguration configuration,
+            UnaryConsumer<CSVRecord> consumer)
+            throws
+            InterruptedException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            CSVParserLineTooLongException,
+            CSVParserException,
+            IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return parsePipelined(input, charset, configuration, consumer);
+        }
+    }
+
+    /**
+     * Opens the given file for parsing: a gzip or zlib (deflate) file,
+     * detected by its first bytes, is decompressed with large buffers, and
+     * the file is read, and decompressed, on a separate thread, ahead of
+     * the parser, see {@link CompressionSupport} and
+     * {@link ReadAheadInputStream}. Closing the returned stream stops the
+     * thread and closes the file.
+     *
+     * @param file the file
+     * @return the input stream of the, decompressed, content of the file
+     * @throws IOException if the file cannot be opened or read
+     */
+    public static InputStream newInputStream(Path file)
+            throws
+            IOException {
+        InputStream input = Files.newInputStream(file);
+        try {
+            return new ReadAheadInputStream(
+                    CompressionSupport.decompress(input));
+        } catch (IOException | RuntimeException ex) {
+            input.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens the given, uncompressed, file for parsing from the byte offset
+     * of the given checkpoint, which the file channel is positioned at. The
+     * file is read on a separate thread, ahead of the parser, see
+     * {@link ReadAheadInputStream}. Closing the returned stream stops the
+     * thread and closes the file.
+     * <p>
+     * The stream is meant to be parsed by a {@link CSVByteParser} resuming
+     * at the same checkpoint, see
+     * {@link CSVParserBuilder#buildByteParser(Charset, CSVCheckpoint)}.
+     * </p>
+     *
+     * @param file  the file
+     * @param start the checkpoint
+     * @return the input stream of the content of the file from the offset
+     * @throws IOException if the file cannot be opened or positioned
+     */
+    public static InputStream newInputStream(Path file, CSVCheckpoint start)
+            throws
+            IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            channel.position(start.offset());
+            return new ReadAheadInputStream(Channels.newInputStream(channel));
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns a new stream that provides the records of the given file,
+     * which may be gzip or zlib (deflate) compressed. The file is read and
+     * decompressed on a separate thread, see {@link #newInputStream(Path)},
+     * and the decoded characters are parsed without intermediate buffering.
+     * The file is closed when the stream is closed.
+     *
+     * @param file          the file
+     * @param charset       the character set of the, decompressed, content
+     * @param configuration the parser configuration
+     * @return the new stream
+     * @throws IOException if the file cannot be opened or read
+     */
+    public static Stream<List<String>>
+    newStream(
+            final Path file,
+            final Charset charset,
+            final CSVParserConfiguration configuration)
+            throws
+            IOException {
+        CSVParser parser = CSVParserBuilder.createParser(
+                configuration, new BufferedCSVParserInputHelper());
+        InputStream input = newInputStream(file);
+        try {
+            return newStream(
+                    parser, new InputStreamReader(input, charset.newDecoder()));
+        } catch (RuntimeException ex) {
+            input.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Parses an entire file, which may be gzip or zlib (deflate)
+     * compressed, and returns a list of all the records found. The file is
+     * read and decompressed on a separate thread, see
+     * {@link #newInputStream(Path)}, while the records are parsed.
+     *
+     * @param file          the file
+     * @param charset       the character set of the, decompressed, content
+     * @param configuration the parser configuration
+     * @return the list of all records found in the file
+     * @throws InterruptedException            if the process was interrupted
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserException              if a parser exception occurred
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    public static List<List<String>> parseFile(
+            Path file, Charset charset,
+            CSVParserConfiguration configuration)
+            throws
+            InterruptedException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            CSVParserLineTooLongException,
+            CSVParserException,
+            IOException {
+        try (Reader reader = new InputStreamReader(newInputStream(file),
+                                                   charset.newDecoder())) {
+            return parseReader(reader, configuration);
+        }
     }
 
     /**
@@ -154,7 +514,8 @@ public class CSVSupport {
 
     /**
      * Like {@link #parseReader(Reader, char, Character, String, CSVParserInputHelper)}
-     * but uses a default input helper.
+     * but uses a {@link BufferedCSVParserInputHelper} as all the records are
+     * read from the reader anyway.
      *
      * @param reader         the reader
      * @param fieldDelimiter the field delimiter
@@ -180,7 +541,7 @@ public class CSVSupport {
             IOException {
         return parseReader(reader, fieldDelimiter, textDelimiter,
                            multiLineEOL,
-                           new DefaultCSVParserInputHelper());
+                           new BufferedCSVParserInputHelper());
     }
 
     /**
@@ -0,0 +1,401 @@
+package org.ticdev.toolboxj.io.csv;
+
+/**
+ * Parsing of field values directly from a range of a character buffer, such
+ * as the buffer of a {@link CSVRecord}, without creating a string for the
+ * field.
+ * <p>
+ * The ints and longs are an optional '+' or '-' sign followed by ASCII
+ * digits '0' to '9' only: unlike {@link Integer#parseInt(String)} and
+ * {@link Long#parseLong(String)}, other Unicode digits are rejected. The
+ * doubles have the format of {@link Double#parseDouble(String)}. The
+ * common decimal forms of a double are converted without allocation when
+ * the result is exact; the others are handed to
+ * {@link Double#parseDouble(String)}, which creates a string for the
+ * value. Otherwise, strings are only created to report errors.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVValues {
+
+    /**
+     * the powers of 10 that are exact doubles
+     */
+    private static final double[] POWERS_OF_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * maximum number of significant digits of an exact double mantissa
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /**
+     * days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar
+     */
+    private static final long DAYS_0000_TO_1970 = 719468;
+
+    /**
+     * Private constructor.
+     */
+    private CSVValues() {
+    }
+
+    /**
+     * Returns the exception for an invalid number.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the exception
+     */
+    private static NumberFormatException number_format_(
+            char[] chars, int start, int end) {
+        return new NumberFormatException(
+                "For input string: \"" + new String(chars, start, end - start)
+                + "\"");
+    }
+
+    /**
+     * Parses a decimal int, with an optional sign and ASCII digits.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the int value
+     * @throws NumberFormatException if the value is not a valid int
+     */
+    public static int parseInt(char[] chars, int start, int end)
+            throws
+            NumberFormatException {
+        int i = start;
+        if (i >= end) {
+            throw number_format_(chars, start, end);
+        }
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        char first = chars[i];
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            } else if (first != '+') {
+                throw number_format_(chars, start, end);
+            }
+            if (++i == end) {
+                throw number_format_(chars, start, end);
+            }
+        }
+        int multmin = limit / 10;
+        int result = 0;
+        while (i < end) {
+            int digit = chars[i++] - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                throw number_format_(chars, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw number_format_(chars, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a decimal long, with an optional sign and ASCII digits.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the long value
+     * @throws NumberFormatException if the value is not a valid long
+     */
+    public static long parseLong(char[] chars, int start, int end)
+            throws
+            NumberFormatException {
+        int i = start;
+        if (i >= end) {
+            throw number_format_(chars, start, end);
+        }
+        boolean negative = false;
+        long limit = -Long.MAX_VALUE;
+        char first = chars[i];
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Long.MIN_VALUE;
+            } else if (first != '+') {
+                throw number_format_(chars, start, end);
+            }
+            if (++i == end) {
+                throw number_format_(chars, start, end);
+            }
+        }
+        long multmin = limit / 10;
+        long result = 0;
+        while (i < end) {
+            int digit = chars[i++] - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                throw number_format_(chars, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw number_format_(chars, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a double.
+     * <p>
+     * Values with at most 15 significant digits and a decimal exponent of at
+     * most 22 in absolute value are computed with a single, correctly
+     * rounded, multiplication or division. The others are parsed with
+     * {@link Double#parseDouble(String)}.
+     * </p>
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the double value
+     * @throws NumberFormatException if the value is not a valid double
+     */
+    public static double parseDouble(char[] chars, int start, int end)
+            throws
+            NumberFormatException {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            anyDigit = true;
+            if (mantissa != 0 || digit != 0) {
+                if (++digits > MAX_EXACT_DIGITS) {
+                    return parse_double_slow_(chars, start, end);
+                }
+                mantissa = mantissa * 10 + digit;
+            }
+        }
+        if (i < end && chars[i] == '.') {
+            for (i++; i < end; i++) {
+                int digit = chars[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                anyDigit = true;
+                if (mantissa != 0 || digit != 0) {
+                    if (++digits > MAX_EXACT_DIGITS) {
+                        return parse_double_slow_(chars, start, end);
+                    }
+                    mantissa = mantissa * 10 + digit;
+                }
+                exponent--;
+            }
+        }
+        if (!anyDigit) {
+            return parse_double_slow_(chars, start, end);
+        }
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            if (i == end) {
+                throw number_format_(chars, start, end);
+            }
+            int value = 0;
+            for (; i < end; i++) {
+                int digit = chars[i] - '0';
+                if (digit < 0 || digit > 9 || value > 1000) {
+                    return parse_double_slow_(chars, start, end);
+                }
+                value = value * 10 + digit;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end) {
+            return parse_double_slow_(chars, start, end);
+        }
+        double result;
+        if (mantissa == 0) {
+            result = 0.0;
+        } else if (exponent < 0 && exponent >= -22) {
+            result = mantissa / POWERS_OF_10[-exponent];
+        } else if (exponent >= 0 && exponent <= 22) {
+            result = mantissa * POWERS_OF_10[exponent];
+        } else {
+            return parse_double_slow_(chars, start, end);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a double with {@link Double#parseDouble(String)}, creating a
+     * string for the value.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the double value
+     * @throws NumberFormatException if the value is not a valid double
+     */
+    private static double parse_double_slow_(
+            char[] chars, int start, int end)
+            throws
+            NumberFormatException {
+        return Double.parseDouble(new String(chars, start, end - start));
+    }
+
+    /**
+     * Parses a boolean, "true" or "false", ignoring case.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the boolean value
+     * @throws IllegalArgumentException if the value is not a boolean
+     */
+    public static boolean parseBoolean(char[] chars, int start, int end)
+            throws
+            IllegalArgumentException {
+        int length = end - start;
+        if (length == 4 && matches_(chars, start, "true")) {
+            return true;
+        }
+        if (length == 5 && matches_(chars, start, "false")) {
+            return false;
+        }
+        throw new IllegalArgumentException(
+                "Not a boolean: \"" + new String(chars, start, length) + "\"");
+    }
+
+    /**
+     * Returns true if the characters match the given lower case word,
+     * ignoring case.
+     *
+     * @param chars the characters
+     * @param start the start of the characters
+     * @param word  the lower case word
+     * @return true if the characters match the word
+     */
+    private static boolean matches_(char[] chars, int start, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(chars[start + i]) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses an ISO-8601 date, yyyy-MM-dd, into the number of days since
+     * 1970-01-01, the same value as
+     * {@link java.time.LocalDate#toEpochDay()}.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the number of days since 1970-01-01
+     * @throws IllegalArgumentException if the value is not a valid date
+     */
+    public static long parseEpochDay(char[] chars, int start, int end)
+            throws
+            IllegalArgumentException {
+        if (end - start != 10 || chars[start + 4] != '-' ||
+            chars[start + 7] != '-') {
+            throw invalid_date_(chars, start, end);
+        }
+        int year = digits_(chars, start, 4);
+        int month = digits_(chars, start + 5, 2);
+        int day = digits_(chars, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 ||
+            day > days_in_month_(year, month)) {
+            throw invalid_date_(chars, start, end);
+        }
+        /* years starting in march, so the leap day is the last day */
+        long y = month > 2 ? year : year - 1;
+        long m = month > 2 ? month - 3 : month + 9;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * m + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+                        + dayOfYear;
+        return era * 146097 + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Returns the exception for an invalid date.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return the exception
+     */
+    private static IllegalArgumentException invalid_date_(
+            char[] chars, int start, int end) {
+        return new IllegalArgumentException(
+                "Not a yyyy-MM-dd date: \"" +
+                new String(chars, start, end - start) + "\"");
+    }
+
+    /**
+     * Parses a fixed number of decimal digits.
+     *
+     * @param chars the characters
+     * @param start the start of the digits
+     * @param count the number of digits
+     * @return the value or -1 if there is a character that is not a digit
+     */
+    private static int digits_(char[] chars, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of days in the given month.
+     *
+     * @param year  the year
+     * @param month the month, 1 to 12
+     * @return the number of days in the month
+     */
+    private static int days_in_month_(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) ||
+                               year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+}
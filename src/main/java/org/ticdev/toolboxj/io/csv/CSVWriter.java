@@ -0,0 +1,778 @@
+package org.ticdev.toolboxj.io.csv;
+
+import org.ticdev.toolboxj.io.csv.impl.CSVStructuralScanner;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.List;
+
+/**
+ * Streaming CSV writer, the counterpart of {@link CSVParser} for large
+ * outputs.
+ * <p>
+ * The records are written field by field into one character buffer that
+ * is reused for the whole output and handed to a {@link Writer}, or encoded
+ * into one reusable byte buffer and written to a
+ * {@link WritableByteChannel} (e.g. a {@link java.nio.channels.FileChannel})
+ * or an {@link OutputStream}, only when it is full.
+ * </p>
+ * <p>
+ * A field is copied in bulk after it is scanned for structural characters
+ * (delimiters, text delimiter, escape character, carriage-return and
+ * line-feed) with the scanner of the parser. Only the fields that contain
+ * one are quoted with the text delimiter, the text delimiters inside them
+ * being escaped with the escape character or doubled, according to the
+ * configuration. Without a text delimiter, the structural characters are
+ * escaped with the escape character. A field that cannot be represented in
+ * the configuration results in an {@link IllegalArgumentException}. The
+ * fields are separated by the first delimiter of the configuration.
+ * </p>
+ * <p>
+ * The numeric and boolean values are formatted without boxing.
+ * </p>
+ * <p>
+ * Instances are not thread safe.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVWriter
+        implements
+        Closeable,
+        Flushable {
+
+    /**
+     * Default size, in characters, of the buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * minimum size of the buffer, enough for any number
+     */
+    private static final int MIN_BUFFER_SIZE = 32;
+
+    /**
+     * the writer, null when writing to a channel
+     */
+    private final Writer writer;
+
+    /**
+     * the channel, null when writing to a writer
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * the output stream under the channel, flushed with the writer, null
+     * when not writing to an output stream
+     */
+    private final OutputStream output;
+
+    /**
+     * the encoder, null when writing to a writer
+     */
+    private final CharsetEncoder encoder;
+
+    /**
+     * the encoded bytes, null when writing to a writer
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * the scanner for the structural characters
+     */
+    private final CSVStructuralScanner scanner;
+
+    /**
+     * the field delimiter
+     */
+    private final char delimiter;
+
+    /**
+     * the text delimiter, -1 if none
+     */
+    private final int textDelimiter;
+
+    /**
+     * the escape character, -1 if none
+     */
+    private final int escapeCharacter;
+
+    /**
+     * true if the text delimiter can be doubled in text delimited fields
+     */
+    private final boolean textDelimiterEscapesItself;
+
+    /**
+     * true if the escape character can escape an end-of-line
+     */
+    private final boolean eolEscaped;
+
+    /**
+     * the record separator
+     */
+    private final char[] lineSeparator;
+
+    /**
+     * the output buffer
+     */
+    private final char[] buffer;
+
+    /**
+     * the number of characters in the output buffer
+     */
+    private int position = 0;
+
+    /**
+     * copy of the field being escaped, and the digits of numbers
+     */
+    private char[] scratch = new char[MIN_BUFFER_SIZE];
+
+    /**
+     * the number of fields written in the current record
+     */
+    private int fieldCount = 0;
+
+    /**
+     * closed flag
+     */
+    private boolean closed = false;
+
+    /**
+     * Class constructor.
+     *
+     * @param writer        the writer, null if writing to a channel
+     * @param channel       the channel, null if writing to a writer
+     * @param output        the output stream under the channel, null if not
+     *                      writing to an output stream
+     * @param charset       the character set of the channel
+     * @param configuration the configuration
+     * @param lineSeparator the record separator
+     * @param bufferSize    the size of the buffer
+     * @throws IllegalArgumentException if the configuration has no
+     *                                  delimiter or the buffer size is too
+     *                                  small
+     */
+    private CSVWriter(
+            Writer writer,
+            WritableByteChannel channel,
+            OutputStream output,
+            Charset charset,
+            CSVParserConfiguration configuration,
+            String lineSeparator,
+            int bufferSize)
+            throws
+            IllegalArgumentException {
+        if (configuration.delimiters() == null ||
+            configuration.delimiters().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "The configuration has no delimiter.");
+        }
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException(
+                    "Buffer size must be at least " + MIN_BUFFER_SIZE + ": " +
+                    bufferSize);
+        }
+        this.writer = writer;
+        this.channel = channel;
+        this.output = output;
+        if (channel != null) {
+            encoder = charset.newEncoder();
+            bytes = ByteBuffer.allocate(bufferSize);
+        } else {
+            encoder = null;
+            bytes = null;
+        }
+        scanner = new CSVStructuralScanner(configuration);
+        delimiter = configuration.delimiters().get(0);
+        Character text = configuration.textDelimiter();
+        textDelimiter = text == null ? -1 : text;
+        Character escape = configuration.escapeCharacter();
+        escapeCharacter = escape == null ? -1 : escape;
+        textDelimiterEscapesItself =
+                configuration.textDelimiterEscapesItself();
+        eolEscaped = configuration.isEOLEscaped();
+        this.lineSeparator = lineSeparator.toCharArray();
+        buffer = new char[bufferSize];
+    }
+
+    /**
+     * Class constructor for writing to a writer.
+     *
+     * @param writer        the writer
+     * @param configuration the configuration, whose first delimiter separates
+     *                      the fields
+     * @param lineSeparator the record separator
+     * @param bufferSize    the size, in characters, of the buffer
+     * @throws IllegalArgumentException if the configuration has no
+     *                                  delimiter or the buffer size is less
+     *                                  than 32
+     */
+    public CSVWriter(
+            Writer writer,
+            CSVParserConfiguration configuration,
+            String lineSeparator,
+            int bufferSize)
+            throws
+            IllegalArgumentException {
+        this(writer, null, null, null, configuration, lineSeparator,
+             bufferSize);
+    }
+
+    /**
+     * Class constructor for writing to a writer, with the system line
+     * separator and the default buffer size.
+     *
+     * @param writer        the writer
+     * @param configuration the configuration, whose first delimiter separates
+     *                      the fields
+     * @throws IllegalArgumentException if the configuration has no delimiter
+     */
+    public CSVWriter(Writer writer, CSVParserConfiguration configuration)
+            throws
+            IllegalArgumentException {
+        this(writer, configuration, System.lineSeparator(),
+             DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Class constructor for writing to a channel, such as a
+     * {@link java.nio.channels.FileChannel}.
+     *
+     * @param channel       the channel
+     * @param charset       the character set of the output
+     * @param configuration the configuration, whose first delimiter separates
+     *                      the fields
+     * @param lineSeparator the record separator
+     * @param bufferSize    the size, in characters, of the buffer and, in
+     *                      bytes, of the encoded buffer
+     * @throws IllegalArgumentException if the configuration has no
+     *                                  delimiter or the buffer size is less
+     *                                  than 32
+     */
+    public CSVWriter(
+            WritableByteChannel channel,
+            Charset charset,
+            CSVParserConfiguration configuration,
+            String lineSeparator,
+            int bufferSize)
+            throws
+            IllegalArgumentException {
+        this(null, channel, null, charset, configuration, lineSeparator,
+             bufferSize);
+    }
+
+    /**
+     * Class constructor for writing to a channel, with the system line
+     * separator and the default buffer size.
+     *
+     * @param channel       the channel
+     * @param charset       the character set of the output
+     * @param configuration the configuration, whose first delimiter separates
+     *                      the fields
+     * @throws IllegalArgumentException if the configuration has no delimiter
+     */
+    public CSVWriter(
+            WritableByteChannel channel,
+            Charset charset,
+            CSVParserConfiguration configuration)
+            throws
+            IllegalArgumentException {
+        this(channel, charset, configuration, System.lineSeparator(),
+             DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Class constructor for writing to an output stream, with the system
+     * line separator and the default buffer size.
+     *
+     * @param output        the output stream
+     * @param charset       the character set of the output
+     * @param configuration the configuration, whose first delimiter separates
+     *                      the fields
+     * @throws IllegalArgumentException if the configuration has no delimiter
+     */
+    public CSVWriter(
+            OutputStream output,
+            Charset charset,
+            CSVParserConfiguration configuration)
+            throws
+            IllegalArgumentException {
+        this(null, Channels.newChannel(output), output, charset,
+             configuration, System.lineSeparator(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a field.
+     *
+     * @param value the value, null being written as an empty field
+     * @return this writer
+     * @throws IOException              if an I/O exception occurred
+     * @throws IllegalArgumentException if the value cannot be written with
+     *                                  the configuration
+     */
+    public CSVWriter writeField(CharSequence value)
+            throws
+            IOException,
+            IllegalArgumentException {
+        start_field_();
+        if (value == null) {
+            return this;
+        }
+        int length = value.length();
+        if (value instanceof String && length <= buffer.length - position) {
+            /* copy in place and scan the copy */
+            int start = position;
+            ((String) value).getChars(0, length, buffer, start);
+            if (scanner.indexOf(buffer, start, start + length) ==
+                start + length) {
+                position = start + length;
+                return this;
+            }
+            char[] chars = scratch_(length);
+            System.arraycopy(buffer, start, chars, 0, length);
+            write_escaped_(chars, 0, length);
+            return this;
+        }
+        char[] chars = scratch_(length);
+        if (value instanceof String) {
+            ((String) value).getChars(0, length, chars, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = value.charAt(i);
+            }
+        }
+        write_chars_(chars, 0, length);
+        return this;
+    }
+
+    /**
+     * Writes a field from a range of characters.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @return this writer
+     * @throws IOException              if an I/O exception occurred
+     * @throws IllegalArgumentException if the value cannot be written with
+     *                                  the configuration
+     */
+    public CSVWriter writeField(char[] chars, int start, int end)
+            throws
+            IOException,
+            IllegalArgumentException {
+        start_field_();
+        write_chars_(chars, start, end);
+        return this;
+    }
+
+    /**
+     * Writes an int field.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if an I/O exception occurred
+     */
+    public CSVWriter writeInt(int value)
+            throws
+            IOException {
+        return writeLong(value);
+    }
+
+    /**
+     * Writes a long field.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if an I/O exception occurred
+     */
+    public CSVWriter writeLong(long value)
+            throws
+            IOException {
+        start_field_();
+        char[] digits = scratch_(MIN_BUFFER_SIZE);
+        int end = MIN_BUFFER_SIZE;
+        int i = end;
+        /* negative values cover Long.MIN_VALUE */
+        long remaining = value < 0 ? value : -value;
+        do {
+            digits[--i] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--i] = '-';
+        }
+        write_chars_(digits, i, end);
+        return this;
+    }
+
+    /**
+     * Writes a double field, in the format of {@link Double#toString(double)}.
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if an I/O exception occurred
+     */
+    public CSVWriter writeDouble(double value)
+            throws
+            IOException {
+        return writeField(Double.toString(value));
+    }
+
+    /**
+     * Writes a boolean field, "true" or "false".
+     *
+     * @param value the value
+     * @return this writer
+     * @throws IOException if an I/O exception occurred
+     */
+    public CSVWriter writeBoolean(boolean value)
+            throws
+            IOException {
+        return writeField(value ? "true" : "false");
+    }
+
+    /**
+     * Ends the current record by writing the line separator.
+     *
+     * @return this writer
+     * @throws IOException if an I/O exception occurred
+     */
+    public CSVWriter endRecord()
+            throws
+            IOException {
+        check_open_();
+        append_(lineSeparator, 0, lineSeparator.length);
+        fieldCount = 0;
+        return this;
+    }
+
+    /**
+     * Writes all the given fields as a record, including the line separator.
+     *
+     * @param fields the fields
+     * @return this writer
+     * @throws IOException              if an I/O exception occurred
+     * @throws IllegalArgumentException if a field cannot be written with the
+     *                                  configuration
+     */
+    public CSVWriter writeRecord(List<? extends CharSequence> fields)
+            throws
+            IOException,
+            IllegalArgumentException {
+        for (CharSequence field : fields) {
+            writeField(field);
+        }
+        return endRecord();
+    }
+
+    /**
+     * Writes all the fields of the given record, including the line
+     * separator, directly from the buffer of the record.
+     *
+     * @param record the record
+     * @return this writer
+     * @throws IOException              if an I/O exception occurred
+     * @throws IllegalArgumentException if a field cannot be written with the
+     *                                  configuration
+     */
+    public CSVWriter writeRecord(CSVRecord record)
+            throws
+            IOException,
+            IllegalArgumentException {
+        char[] chars = record.chars();
+        int size = record.size();
+        for (int i = 0; i < size; i++) {
+            writeField(chars, record.start(i), record.end(i));
+        }
+        return endRecord();
+    }
+
+    /**
+     * Writes the buffered characters and flushes the output.
+     *
+     * @throws IOException if an I/O exception occurred
+     */
+    @Override
+    public void flush()
+            throws
+            IOException {
+        check_open_();
+        flush_buffer_(false);
+        if (writer != null) {
+            writer.flush();
+        } else if (output != null) {
+            output.flush();
+        }
+    }
+
+    /**
+     * Writes the buffered characters and closes the output. It does not end
+     * the current record.
+     *
+     * @throws IOException if an I/O exception occurred
+     */
+    @Override
+    public void close()
+            throws
+            IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush_buffer_(true);
+        } finally {
+            closed = true;
+            if (writer != null) {
+                writer.close();
+            } else {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Checks that the writer is not closed.
+     *
+     * @throws IOException if the writer is closed
+     */
+    private void check_open_()
+            throws
+            IOException {
+        if (closed) {
+            throw new IOException("Writer closed.");
+        }
+    }
+
+    /**
+     * Writes the delimiter before all the fields but the first.
+     *
+     * @throws IOException if an I/O exception occurred
+     */
+    private void start_field_()
+            throws
+            IOException {
+        check_open_();
+        if (fieldCount++ > 0) {
+            append_(delimiter);
+        }
+    }
+
+    /**
+     * Returns the scratch array, grown to the given size if needed.
+     *
+     * @param size the size
+     * @return the scratch array
+     */
+    private char[] scratch_(int size) {
+        if (scratch.length < size) {
+            scratch = new char[Math.max(size, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    /**
+     * Writes the value of a field, escaped if needed.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @throws IOException              if an I/O exception occurred
+     * @throws IllegalArgumentException if the value cannot be written with
+     *                                  the configuration
+     */
+    private void write_chars_(char[] chars, int start, int end)
+            throws
+            IOException,
+            IllegalArgumentException {
+        if (scanner.indexOf(chars, start, end) == end) {
+            append_(chars, start, end - start);
+        } else {
+            write_escaped_(chars, start, end);
+        }
+    }
+
+    /**
+     * Writes the value of a field that contains structural characters,
+     * between text delimiters if there is one, or with the structural
+     * characters escaped otherwise.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @throws IOException              if an I/O exception occurred
+     * @throws IllegalArgumentException if the value cannot be written with
+     *                                  the configuration
+     */
+    private void write_escaped_(char[] chars, int start, int end)
+            throws
+            IOException,
+            IllegalArgumentException {
+        if (textDelimiter < 0) {
+            write_unquoted_escaped_(chars, start, end);
+            return;
+        }
+        /* the escape character is not special when it is the text
+           delimiter */
+        int escape = escapeCharacter == textDelimiter ? -1 : escapeCharacter;
+        append_((char) textDelimiter);
+        int run = start;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c != textDelimiter && c != escape) {
+                continue;
+            }
+            append_(chars, run, i - run);
+            run = i + 1;
+            if (escape >= 0) {
+                append_((char) escape);
+            } else if (!textDelimiterEscapesItself) {
+                throw new IllegalArgumentException(
+                        "The text delimiter cannot be escaped: \"" +
+                        new String(chars, start, end - start) + "\"");
+            } else {
+                append_(c);
+            }
+            append_(c);
+        }
+        append_(chars, run, end - run);
+        append_((char) textDelimiter);
+    }
+
+    /**
+     * Writes the value of a field with its structural characters preceded
+     * by the escape character.
+     *
+     * @param chars the characters
+     * @param start the start of the value
+     * @param end   the end of the value (exclusive)
+     * @throws IOException              if an I/O exception occurred
+     * @throws IllegalArgumentException if the value cannot be written with
+     *                                  the configuration
+     */
+    private void write_unquoted_escaped_(char[] chars, int start, int end)
+            throws
+            IOException,
+            IllegalArgumentException {
+        int run = start;
+        int i;
+        while ((i = scanner.indexOf(chars, run, end)) < end) {
+            char c = chars[i];
+            boolean eol = c == '\r' || c == '\n';
+            if (escapeCharacter < 0 || (eol && !eolEscaped)) {
+                throw new IllegalArgumentException(
+                        "The field cannot be written without a text " +
+                        "delimiter: \"" +
+                        new String(chars, start, end - start) + "\"");
+            }
+            append_(chars, run, i - run);
+            append_((char) escapeCharacter);
+            append_(c);
+            run = i + 1;
+            if (c == '\r' && run < end && chars[run] == '\n') {
+                /* one end-of-line */
+                append_('\n');
+                run++;
+            }
+        }
+        append_(chars, run, end - run);
+    }
+
+    /**
+     * Appends a character to the buffer.
+     *
+     * @param c the character
+     * @throws IOException if an I/O exception occurred
+     */
+    private void append_(char c)
+            throws
+            IOException {
+        if (position == buffer.length) {
+            flush_buffer_(false);
+        }
+        buffer[position++] = c;
+    }
+
+    /**
+     * Appends characters to the buffer, flushing it when it is full.
+     *
+     * @param chars  the characters
+     * @param offset the offset of the first character
+     * @param count  the number of characters
+     * @throws IOException if an I/O exception occurred
+     */
+    private void append_(char[] chars, int offset, int count)
+            throws
+            IOException {
+        while (count > 0) {
+            if (position == buffer.length) {
+                flush_buffer_(false);
+            }
+            int length = Math.min(count, buffer.length - position);
+            System.arraycopy(chars, offset, buffer, position, length);
+            position += length;
+            offset += length;
+            count -= length;
+        }
+    }
+
+    /**
+     * Writes the buffer to the output. When encoding, a trailing high
+     * surrogate is kept in the buffer unless it's the end of the input.
+     *
+     * @param endOfInput true if no more characters will be written
+     * @throws IOException if an I/O exception occurred
+     */
+    private void flush_buffer_(boolean endOfInput)
+            throws
+            IOException {
+        if (writer != null) {
+            writer.write(buffer, 0, position);
+            position = 0;
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(buffer, 0, position);
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            write_bytes_();
+        } while (result.isOverflow());
+        if (endOfInput) {
+            do {
+                result = encoder.flush(bytes);
+                write_bytes_();
+            } while (result.isOverflow());
+        }
+        int remaining = chars.remaining();
+        System.arraycopy(buffer, chars.position(), buffer, 0, remaining);
+        position = remaining;
+    }
+
+    /**
+     * Writes the encoded bytes to the channel.
+     *
+     * @throws IOException if an I/O exception occurred
+     */
+    private void write_bytes_()
+            throws
+            IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+}
@@ -41,6 +41,30 @@ public class DefaultCSVParserInputHelper
      */
     private int unget = EOL;
 
+    /**
+     * the number of characters read from the reader, with the start offset
+     */
+    private long offset = 0;
+
+    /**
+     * Class constructor.
+     */
+    public DefaultCSVParserInputHelper() {
+    }
+
+    /**
+     * Class constructor for a reader positioned at the offset of a
+     * checkpoint.
+     *
+     * @param start the checkpoint
+     */
+    public DefaultCSVParserInputHelper(CSVCheckpoint start) {
+        offset = start.offset();
+        lineNumber = start.lineNumber();
+        skipLF = start.pendingEOL() == '\n';
+        skipCR = start.pendingEOL() == '\r';
+    }
+
     @Override
     public int next(Reader reader)
             throws
@@ -54,6 +78,9 @@ public class DefaultCSVParserInputHelper
         }
         while (true) {
             int next = reader.read();
+            if (next >= 0) {
+                offset++;
+            }
             switch (next) {
                 case '\r':
                     if (!skipCR) {
@@ -101,4 +128,11 @@ public class DefaultCSVParserInputHelper
         return lineNumber;
     }
 
+    @Override
+    public CSVCheckpoint checkpoint() {
+        return new CSVCheckpoint(
+                hasUnget && unget != EOF ? offset - 1 : offset, lineNumber,
+                skipLF ? '\n' : skipCR ? '\r' : -1);
+    }
+
 }
@@ -0,0 +1,174 @@
+package org.ticdev.toolboxj.io.csv.impl;
+
+import org.ticdev.toolboxj.io.csv.CSVParserConfiguration;
+import org.ticdev.toolboxj.io.csv.CSVParserInputHelper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Precomputed classification of the parser tokens (characters,
+ * {@link CSVParserInputHelper#EOL} and {@link CSVParserInputHelper#EOF})
+ * into the structural classes of a {@link CSVParserConfiguration}.
+ * <p>
+ * The tokens in the Latin-1 range, and EOL and EOF, are classified with a
+ * single array load. The other characters are looked up in the short list
+ * of the non Latin-1 structural characters, if any.
+ * </p>
+ * <p>
+ * When a character belongs to more than one class, the class is the one the
+ * parser checks first: the text delimiter, then the escape character, then
+ * the delimiters. Carriage-return and line-feed are always
+ * {@link #EOL}.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVCharacterClasses {
+
+    /**
+     * Class of the characters with no special meaning.
+     */
+    public static final int PLAIN = 0;
+
+    /**
+     * Class of the field delimiters.
+     */
+    public static final int DELIMITER = 1;
+
+    /**
+     * Class of the text delimiter.
+     */
+    public static final int TEXT = 2;
+
+    /**
+     * Class of the escape character.
+     */
+    public static final int ESCAPE = 3;
+
+    /**
+     * Class of the end-of-line token and of the end-of-line characters.
+     */
+    public static final int EOL = 4;
+
+    /**
+     * Class of the end-of-file token.
+     */
+    public static final int EOF = 5;
+
+    /**
+     * the first character not in the table
+     */
+    private static final int TABLE_LIMIT = 256;
+
+    /**
+     * offset of the tokens in the table, so EOL and EOF fit before the
+     * characters
+     */
+    private static final int OFFSET = 2;
+
+    /**
+     * the classes of EOL, EOF and the Latin-1 characters
+     */
+    private final byte[] table = new byte[TABLE_LIMIT + OFFSET];
+
+    /**
+     * the structural characters outside the table
+     */
+    private final char[] otherChars;
+
+    /**
+     * the classes of the structural characters outside the table
+     */
+    private final byte[] otherClasses;
+
+    /**
+     * Class constructor.
+     *
+     * @param config the parser configuration
+     */
+    public CSVCharacterClasses(CSVParserConfiguration config) {
+        /* lowest priority first, so the higher priorities overwrite */
+        Map<Character, Integer> classes = new LinkedHashMap<>();
+        if (config.delimiters() != null) {
+            for (Character delimiter : config.delimiters()) {
+                classes.put(delimiter, DELIMITER);
+            }
+        }
+        if (config.escapeCharacter() != null) {
+            classes.put(config.escapeCharacter(), ESCAPE);
+        }
+        if (config.textDelimiter() != null) {
+            classes.put(config.textDelimiter(), TEXT);
+        }
+        classes.put('\r', EOL);
+        classes.put('\n', EOL);
+        int others = 0;
+        for (Map.Entry<Character, Integer> entry : classes.entrySet()) {
+            char c = entry.getKey();
+            if (c < TABLE_LIMIT) {
+                table[c + OFFSET] = entry.getValue().byteValue();
+            } else {
+                others++;
+            }
+        }
+        otherChars = new char[others];
+        otherClasses = new byte[others];
+        others = 0;
+        for (Map.Entry<Character, Integer> entry : classes.entrySet()) {
+            char c = entry.getKey();
+            if (c >= TABLE_LIMIT) {
+                otherChars[others] = c;
+                otherClasses[others] = entry.getValue().byteValue();
+                others++;
+            }
+        }
+        table[CSVParserInputHelper.EOL + OFFSET] = EOL;
+        table[CSVParserInputHelper.EOF + OFFSET] = EOF;
+    }
+
+    /**
+     * Returns the class of the given token.
+     *
+     * @param token a character, {@link CSVParserInputHelper#EOL} or
+     *              {@link CSVParserInputHelper#EOF}
+     * @return the class of the token
+     */
+    public int classOf(int token) {
+        if (token < TABLE_LIMIT) {
+            return table[token + OFFSET];
+        }
+        return other_(token);
+    }
+
+    /**
+     * Returns true if the given character is a structural character, i.e.
+     * not {@link #PLAIN}.
+     *
+     * @param c the character
+     * @return true if the character is structural and false otherwise
+     */
+    public boolean isStructural(char c) {
+        if (c < TABLE_LIMIT) {
+            return table[c + OFFSET] != PLAIN;
+        }
+        return other_(c) != PLAIN;
+    }
+
+    /**
+     * Looks up a character outside the table.
+     *
+     * @param c the character
+     * @return the class of the character
+     */
+    private int other_(int c) {
+        final char[] chars = otherChars;
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return otherClasses[i];
+            }
+        }
+        return PLAIN;
+    }
+
+}
@@ -0,0 +1,263 @@
+package org.ticdev.toolboxj.io.csv.impl;
+
+import org.ticdev.toolboxj.io.csv.CSVParserConfiguration;
+import org.ticdev.toolboxj.io.csv.CSVParserInputHelper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Finds record boundaries in CSV content encoded with an ASCII compatible
+ * character set (such as UTF-8 or ISO-8859-1) without parsing the fields.
+ * <p>
+ * The scanner follows the same text delimiter, escape character and
+ * end-of-line rules as {@link DefaultCSVParser} used with the default input
+ * helper, so a boundary found by the scanner is the exact position where the
+ * parser would start reading the next record. Quoted or escaped end-of-line
+ * sequences are not record boundaries.
+ * </p>
+ * <p>
+ * The scanner is incremental: the state is kept between calls so the content
+ * can be provided in consecutive blocks. It also counts the end-of-line
+ * sequences it has seen (quoted or not), which is how the parser counts lines.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVRecordBoundaryScanner {
+
+    /**
+     * outside a text delimited section
+     */
+    private static final int CLEAN = 0;
+
+    /**
+     * inside a text delimited section
+     */
+    private static final int QUOTED = 1;
+
+    /**
+     * text delimiter seen in a text delimited section that escapes itself
+     */
+    private static final int PENDING_EXIT = 2;
+
+    /**
+     * escape character seen outside a text delimited section
+     */
+    private static final int ESCAPED_CLEAN = 3;
+
+    /**
+     * escape character seen inside a text delimited section
+     */
+    private static final int ESCAPED_QUOTED = 4;
+
+    /**
+     * the text delimiter or -1
+     */
+    private final int textDelimiter;
+
+    /**
+     * the escape character or -1
+     */
+    private final int escapeCharacter;
+
+    /**
+     * text delimiter escapes itself
+     */
+    private final boolean textDelimiterEscapesItself;
+
+    /**
+     * escaped EOL
+     */
+    private final boolean isEOLEscaped;
+
+    /**
+     * the parser state
+     */
+    private int state = CLEAN;
+
+    /**
+     * if next is line-feed, skip it
+     */
+    private boolean skipLF = false;
+
+    /**
+     * if next is carriage-return, skip it
+     */
+    private boolean skipCR = false;
+
+    /**
+     * a record ended on the last end-of-line
+     */
+    private boolean pendingBoundary = false;
+
+    /**
+     * the number of end-of-line sequences seen
+     */
+    private long eolCount = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param config the parser configuration
+     * @throws IllegalArgumentException if the text delimiter or the escape
+     *                                  character are not ASCII characters
+     */
+    public CSVRecordBoundaryScanner(CSVParserConfiguration config)
+            throws
+            IllegalArgumentException {
+        textDelimiter = ascii_(config.textDelimiter());
+        escapeCharacter = ascii_(config.escapeCharacter());
+        textDelimiterEscapesItself = config.textDelimiterEscapesItself();
+        isEOLEscaped = config.isEOLEscaped();
+    }
+
+    /**
+     * Returns the character as an int, or -1 if it's null.
+     *
+     * @param c the character
+     * @return the character as an int or -1
+     * @throws IllegalArgumentException if the character is not ASCII
+     */
+    private static int ascii_(Character c)
+            throws
+            IllegalArgumentException {
+        if (c == null) {
+            return -1;
+        }
+        if (c > 0x7f) {
+            throw new IllegalArgumentException(
+                    "Structural character is not ASCII: " + c);
+        }
+        return c;
+    }
+
+    /**
+     * Resets the scanner to the start of a record.
+     */
+    public void reset() {
+        state = CLEAN;
+        skipLF = false;
+        skipCR = false;
+        pendingBoundary = false;
+        eolCount = 0;
+    }
+
+    /**
+     * Returns the number of end-of-line sequences seen since the last reset.
+     *
+     * @return the number of end-of-line sequences
+     */
+    public long eolCount() {
+        return eolCount;
+    }
+
+    /**
+     * Returns true if the content scanned so far ends exactly at a record
+     * boundary, i.e. the next byte, if any, would start a new record.
+     *
+     * @return true if the scanned content ends at a record boundary.
+     */
+    public boolean atBoundary() {
+        return pendingBoundary;
+    }
+
+    /**
+     * Scans the buffer between the given absolute positions (the buffer
+     * position and limit are not used or changed) and returns the position of
+     * the first byte of the first record starting in that range.
+     * <p>
+     * A record that ends with the last byte of the range is only reported
+     * on the next call, because the byte that follows may still be part of
+     * the same end-of-line sequence. When there is no following content the
+     * boundary is the end of the content, see {@link #atBoundary()}.
+     * </p>
+     * <p>
+     * The byte at the returned position is not scanned, so scanning
+     * continues from the returned position.
+     * </p>
+     *
+     * @param buffer the buffer
+     * @param from   the first position to scan
+     * @param to     the position after the last position to scan
+     * @return the position of the next record start or -1 if no record
+     * starts in the range
+     */
+    public int nextBoundary(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int b = buffer.get(i) & 0xff;
+            if (b == '\r' && skipCR) {
+                skipCR = false;
+                continue;
+            }
+            if (b == '\n' && skipLF) {
+                skipLF = false;
+                continue;
+            }
+            if (pendingBoundary) {
+                pendingBoundary = false;
+                return i;
+            }
+            int token;
+            if (b == '\r') {
+                skipLF = true;
+                token = CSVParserInputHelper.EOL;
+                eolCount++;
+            } else if (b == '\n') {
+                skipCR = true;
+                token = CSVParserInputHelper.EOL;
+                eolCount++;
+            } else {
+                skipLF = false;
+                skipCR = false;
+                token = b;
+            }
+            on_token_(token);
+        }
+        return -1;
+    }
+
+    /**
+     * Advances the parser state with one token.
+     *
+     * @param token the token
+     */
+    private void on_token_(int token) {
+        boolean eol = token == CSVParserInputHelper.EOL;
+        switch (state) {
+            case PENDING_EXIT:
+                if (token == textDelimiter) {
+                    state = QUOTED;
+                    return;
+                }
+                state = CLEAN;
+                /* the token is processed again outside the text */
+            case CLEAN:
+                if (token == textDelimiter) {
+                    state = QUOTED;
+                } else if (token == escapeCharacter) {
+                    state = ESCAPED_CLEAN;
+                } else if (eol) {
+                    pendingBoundary = true;
+                }
+                return;
+            case QUOTED:
+                if (token == textDelimiter) {
+                    state = textDelimiterEscapesItself ?
+                            PENDING_EXIT : CLEAN;
+                } else if (token == escapeCharacter) {
+                    state = ESCAPED_QUOTED;
+                }
+                return;
+            case ESCAPED_CLEAN:
+                if (!eol || isEOLEscaped) {
+                    state = CLEAN;
+                }
+                return;
+            default:
+                if (!eol || isEOLEscaped) {
+                    state = QUOTED;
+                }
+        }
+    }
+
+}
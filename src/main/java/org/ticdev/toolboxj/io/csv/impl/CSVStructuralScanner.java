@@ -0,0 +1,269 @@
+package org.ticdev.toolboxj.io.csv.impl;
+
+import org.ticdev.toolboxj.io.csv.CSVParserConfiguration;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Locates the next structural character (delimiter, text delimiter, escape
+ * character, carriage-return or line-feed) in a block of characters or
+ * bytes, so the run of plain characters before it can be copied in bulk.
+ * Inside a text delimited section, the delimiters are plain characters, and
+ * a scanner created for those sections does not stop at them.
+ * <p>
+ * For bytes, the scan is done eight bytes at a time, SWAR (SIMD within a
+ * register) style: each structural byte is broadcast to all the bytes of a
+ * long, XOR-ed with eight input bytes, and the classic "has zero byte" bit
+ * trick flags the matching bytes. The lowest flagged byte is exact, as the
+ * trick only produces false positives above a real match. The longs are read
+ * through a little-endian {@link ByteBuffer} view of the byte array, which
+ * newer JVMs compile to a single unaligned load. This requires all the
+ * structural characters to be ASCII; otherwise the sequential scan is used.
+ * The first bytes of a range are always checked one at a time, as most
+ * fields are short and the table lookup finds their end sooner.
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class CSVStructuralScanner {
+
+    /**
+     * 0x01 in every byte
+     */
+    private static final long ONES = 0x0101010101010101L;
+
+    /**
+     * 0x80 in every byte
+     */
+    private static final long HIGHS = 0x8080808080808080L;
+
+    /**
+     * number of patterns checked by the unrolled SWAR loop, enough for the
+     * end-of-line characters, one delimiter, the text delimiter and the
+     * escape character
+     */
+    private static final int UNROLLED_PATTERNS = 5;
+
+    /**
+     * number of bytes checked one at a time before switching to the SWAR
+     * loop, as short runs are found faster that way
+     */
+    private static final int SEQUENTIAL_PREFIX = 16;
+
+    /**
+     * the classes of the characters
+     */
+    private final CSVCharacterClasses classes;
+
+    /**
+     * true if the delimiters are plain characters
+     */
+    private final boolean textDelimited;
+
+    /**
+     * true for the structural bytes
+     */
+    private final boolean[] structuralBytes = new boolean[256];
+
+    /**
+     * each structural byte broadcast to the 8 bytes of a long, null if
+     * there are non-ASCII structural characters
+     */
+    private final long[] patterns;
+
+    /**
+     * Class constructor.
+     *
+     * @param config the parser configuration
+     */
+    public CSVStructuralScanner(CSVParserConfiguration config) {
+        this(config, false);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param config        the parser configuration
+     * @param textDelimited true to scan inside text delimited sections,
+     *                      where the delimiters are plain characters
+     */
+    public CSVStructuralScanner(
+            CSVParserConfiguration config,
+            boolean textDelimited) {
+        this.textDelimited = textDelimited;
+        Set<Character> chars = new LinkedHashSet<>();
+        chars.add('\r');
+        chars.add('\n');
+        if (config.delimiters() != null && !textDelimited) {
+            chars.addAll(config.delimiters());
+        }
+        if (config.textDelimiter() != null) {
+            chars.add(config.textDelimiter());
+        }
+        if (config.escapeCharacter() != null) {
+            chars.add(config.escapeCharacter());
+        }
+        classes = new CSVCharacterClasses(config);
+        long[] longs = new long[chars.size()];
+        boolean ascii = true;
+        int i = 0;
+        for (char c : chars) {
+            if (c < 0x80) {
+                structuralBytes[c] = true;
+                longs[i] = ONES * c;
+            } else {
+                ascii = false;
+            }
+            i++;
+        }
+        if (ascii && longs.length < UNROLLED_PATTERNS) {
+            /* repeating a pattern does not change the result */
+            long[] padded = Arrays.copyOf(longs, UNROLLED_PATTERNS);
+            Arrays.fill(padded, longs.length, UNROLLED_PATTERNS, longs[0]);
+            longs = padded;
+        }
+        patterns = ascii ? longs : null;
+    }
+
+    /**
+     * Returns a little-endian view of the given array that can be used with
+     * {@link #indexOf(byte[], ByteBuffer, int, int)}.
+     *
+     * @param bytes the array
+     * @return the view of the array
+     */
+    public static ByteBuffer view(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the index of the first structural character in the given
+     * range, or the end of the range if there is none.
+     *
+     * @param chars the characters
+     * @param from  the start of the range
+     * @param to    the end of the range (exclusive)
+     * @return the index of the first structural character or the end of the
+     * range
+     */
+    public int indexOf(char[] chars, int from, int to) {
+        final CSVCharacterClasses stops = classes;
+        if (textDelimited) {
+            for (int i = from; i < to; i++) {
+                int c = stops.classOf(chars[i]);
+                if (c != CSVCharacterClasses.PLAIN &&
+                    c != CSVCharacterClasses.DELIMITER) {
+                    return i;
+                }
+            }
+            return to;
+        }
+        for (int i = from; i < to; i++) {
+            if (stops.isStructural(chars[i])) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Returns the index of the first structural byte in the given range, or
+     * the end of the range if there is none, checking one byte at a time.
+     *
+     * @param bytes the bytes
+     * @param from  the start of the range
+     * @param to    the end of the range (exclusive)
+     * @return the index of the first structural byte or the end of the range
+     */
+    public int indexOfSequential(byte[] bytes, int from, int to) {
+        final boolean[] stops = structuralBytes;
+        for (int i = from; i < to; i++) {
+            if (stops[bytes[i] & 0xff]) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Returns the index of the first structural byte in the given range, or
+     * the end of the range if there is none, checking eight bytes at a time.
+     *
+     * @param bytes the bytes
+     * @param view  the little-endian view of the bytes, see
+     *              {@link #view(byte[])}
+     * @param from  the start of the range
+     * @param to    the end of the range (exclusive)
+     * @return the index of the first structural byte or the end of the range
+     */
+    public int indexOf(byte[] bytes, ByteBuffer view, int from, int to) {
+        final long[] stops = patterns;
+        if (stops == null) {
+            return indexOfSequential(bytes, from, to);
+        }
+        final boolean[] table = structuralBytes;
+        int i = from;
+        for (int head = Math.min(to, from + SEQUENTIAL_PREFIX); i < head;
+             i++) {
+            if (table[bytes[i] & 0xff]) {
+                return i;
+            }
+        }
+        if (stops.length != UNROLLED_PATTERNS) {
+            return indexOf_(bytes, view, i, to);
+        }
+        final long p0 = stops[0];
+        final long p1 = stops[1];
+        final long p2 = stops[2];
+        final long p3 = stops[3];
+        final long p4 = stops[4];
+        for (int last = to - 8; i <= last; i += 8) {
+            long word = view.getLong(i);
+            long x0 = word ^ p0;
+            long x1 = word ^ p1;
+            long x2 = word ^ p2;
+            long x3 = word ^ p3;
+            long x4 = word ^ p4;
+            long found = ((x0 - ONES) & ~x0) | ((x1 - ONES) & ~x1)
+                | ((x2 - ONES) & ~x2) | ((x3 - ONES) & ~x3)
+                | ((x4 - ONES) & ~x4);
+            found &= HIGHS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        return indexOfSequential(bytes, i, to);
+    }
+
+    /**
+     * SWAR scan for any number of structural bytes.
+     *
+     * @param bytes the bytes
+     * @param view  the little-endian view of the bytes
+     * @param from  the start of the range
+     * @param to    the end of the range (exclusive)
+     * @return the index of the first structural byte or the end of the range
+     */
+    private int indexOf_(byte[] bytes, ByteBuffer view, int from, int to) {
+        final long[] stops = patterns;
+        int i = from;
+        for (int last = to - 8; i <= last; i += 8) {
+            long word = view.getLong(i);
+            long found = 0;
+            for (long stop : stops) {
+                long x = word ^ stop;
+                found |= (x - ONES) & ~x;
+            }
+            found &= HIGHS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        return indexOfSequential(bytes, i, to);
+    }
+
+}
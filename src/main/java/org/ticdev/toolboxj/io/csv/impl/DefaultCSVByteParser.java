@@ -0,0 +1,898 @@
+package org.ticdev.toolboxj.io.csv.impl;
+
+import org.ticdev.toolboxj.io.csv.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * {@link CSVByteParser} implementation that uses a
+ * {@link CSVParserConfiguration} to define the parsing rules, the same way
+ * {@link DefaultCSVParser} does.
+ * <p>
+ * The delimiters, the text delimiter, the escape character and the escaped
+ * characters with an expansion must be ASCII characters. The multi-line
+ * end-of-line and the escape expansions are encoded once with the parser's
+ * character set.
+ * </p>
+ * <p>
+ * Runs of plain bytes outside text delimited fields are located with a
+ * {@link CSVStructuralScanner} and copied in bulk.
+ * </p>
+ * <p>
+ * The end-of-line rules are the ones of
+ * {@link DefaultCSVParserInputHelper}: \r, \n, \r\n, \n\r. When a different
+ * input stream is passed to the parser, the bytes read ahead from the
+ * previous one are discarded and the new stream is parsed as the continuation
+ * of the previous one (e.g. the next block of the same file).
+ * </p>
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public final class DefaultCSVByteParser
+        implements CSVByteParser {
+
+    /**
+     * Default size of the input buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * parser configuration
+     */
+    private final CSVParserConfiguration config;
+
+    /**
+     * character set used to decode the fields
+     */
+    private final Charset charset;
+
+    /**
+     * the classes of the input tokens
+     */
+    private final CSVCharacterClasses classes;
+
+    /**
+     * The text delimiter == -1 if none defined
+     */
+    private final int text_delimiter_;
+
+    /**
+     * the encoded multi-line EOL expansion, null if records cannot span
+     * lines
+     */
+    private final byte[] multiLineEOL;
+
+    /**
+     * the encoded expansions of the escaped ASCII characters
+     */
+    private final byte[][] escapeExpansions = new byte[128][];
+
+    /**
+     * the input buffer
+     */
+    private final byte[] buffer;
+
+    /**
+     * little-endian view of the input buffer used by the scanner
+     */
+    private final ByteBuffer bufferView;
+
+    /**
+     * scanner for the runs of plain bytes
+     */
+    private final CSVStructuralScanner scanner;
+
+    /**
+     * scanner for the runs of plain bytes of text delimited sections
+     */
+    private final CSVStructuralScanner textScanner;
+
+    /**
+     * the maximum field size of the configuration
+     */
+    private final int maxFieldSize;
+
+    /**
+     * the maximum record size of the configuration
+     */
+    private final int maxRecordCharSize;
+
+    /**
+     * the maximum number of fields per record of the configuration
+     */
+    private final int maxFieldsPerRecord;
+
+    /**
+     * the position of the next byte in the buffer
+     */
+    private int position = 0;
+
+    /**
+     * the number of valid bytes in the buffer
+     */
+    private int limit = 0;
+
+    /**
+     * the input stream the buffered bytes were read from
+     */
+    private InputStream source = null;
+
+    /**
+     * if next is line-feed, skip it
+     */
+    private boolean skipLF = false;
+
+    /**
+     * if next is carriage-return, skip it
+     */
+    private boolean skipCR = false;
+
+    /**
+     * Current line number.
+     */
+    private long lineNumber = 1;
+
+    /**
+     * the next token is available in unget as it was put back
+     */
+    private boolean hasUnget = false;
+
+    /**
+     * if a token was put back then it will be stored here
+     */
+    private int unget = CSVParserInputHelper.EOL;
+
+    /**
+     * the offset in the input of the first byte of the buffer
+     */
+    private long bufferOffset = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param config     the csv parser configuration
+     * @param charset    the character set, which must be ASCII compatible
+     * @param bufferSize the size of the input buffer
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible, if a structural character
+     *                                  is not ASCII or if the buffer size is
+     *                                  not positive
+     */
+    public DefaultCSVByteParser(
+            CSVParserConfiguration config,
+            Charset charset,
+            int bufferSize)
+            throws
+            IllegalArgumentException {
+        this(config, charset, bufferSize, CSVCheckpoint.START);
+    }
+
+    /**
+     * Class constructor for an input stream positioned at the offset of a
+     * checkpoint.
+     *
+     * @param config     the csv parser configuration
+     * @param charset    the character set, which must be ASCII compatible
+     * @param bufferSize the size of the input buffer
+     * @param start      the checkpoint
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible, if a structural character
+     *                                  is not ASCII or if the buffer size is
+     *                                  not positive
+     */
+    public DefaultCSVByteParser(
+            CSVParserConfiguration config,
+            Charset charset,
+            int bufferSize,
+            CSVCheckpoint start)
+            throws
+            IllegalArgumentException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Buffer size must be positive: " + bufferSize);
+        }
+        if (!Arrays.equals(new byte[]{'\r', '\n'},
+                           "\r\n".getBytes(charset))) {
+            throw new IllegalArgumentException(
+                    "Character set is not ASCII compatible: " + charset);
+        }
+        this.config = CSVParserConfiguration.of(config);
+        this.charset = charset;
+        for (Character delimiter : this.config.delimiters()) {
+            ascii_(delimiter);
+        }
+        text_delimiter_ = config.textDelimiter() == null ?
+                -1 : ascii_(config.textDelimiter());
+        if (config.escapeCharacter() != null) {
+            ascii_(config.escapeCharacter());
+        }
+        classes = new CSVCharacterClasses(this.config);
+        multiLineEOL = this.config.multiLineEOL() == null ?
+                null : this.config.multiLineEOL().getBytes(charset);
+        for (Map.Entry<Character, String> expansion :
+                this.config.escapedCharacterExpansion().entrySet()) {
+            escapeExpansions[ascii_(expansion.getKey())] =
+                    expansion.getValue().getBytes(charset);
+        }
+        buffer = new byte[bufferSize];
+        bufferView = CSVStructuralScanner.view(buffer);
+        scanner = new CSVStructuralScanner(this.config);
+        textScanner = new CSVStructuralScanner(this.config, true);
+        maxFieldSize = this.config.maxFieldSize();
+        maxRecordCharSize = this.config.maxRecordCharSize();
+        maxFieldsPerRecord = this.config.maxFieldsPerRecord();
+        projection =
+                DefaultCSVParser.selection_(this.config.selectedColumns());
+        filters = DefaultCSVParser.filters_(this.config.columnFilters());
+        filterDecoder = filters == null ? null : charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        dictionaries = DefaultCSVParser.dictionaries_(this.config);
+        bufferOffset = start.offset();
+        lineNumber = start.lineNumber();
+        skipLF = start.pendingEOL() == '\n';
+        skipCR = start.pendingEOL() == '\r';
+    }
+
+    /**
+     * Class constructor using an input buffer of
+     * {@link #DEFAULT_BUFFER_SIZE} bytes.
+     *
+     * @param config  the csv parser configuration
+     * @param charset the character set, which must be ASCII compatible
+     * @throws IllegalArgumentException if the character set is not ASCII
+     *                                  compatible or if a structural
+     *                                  character is not ASCII
+     */
+    public DefaultCSVByteParser(
+            CSVParserConfiguration config,
+            Charset charset)
+            throws
+            IllegalArgumentException {
+        this(config, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Returns the character as an int if it's an ASCII character.
+     *
+     * @param c the character
+     * @return the character as an int
+     * @throws IllegalArgumentException if the character is not ASCII
+     */
+    private static int ascii_(char c)
+            throws
+            IllegalArgumentException {
+        if (c > 0x7f) {
+            throw new IllegalArgumentException(
+                    "Structural character is not ASCII: " + c);
+        }
+        return c;
+    }
+
+    /**
+     * Fills the buffer with the next block of bytes from the input stream.
+     *
+     * @param input the input stream
+     * @return true if bytes are available and false on end-of-file
+     * @throws IOException if an exception occurred when reading
+     */
+    private boolean fill_(InputStream input)
+            throws
+            IOException {
+        int count;
+        do {
+            count = input.read(buffer, 0, buffer.length);
+        } while (count == 0);
+        bufferOffset += limit;
+        position = 0;
+        limit = count < 0 ? 0 : count;
+        return count > 0;
+    }
+
+    /**
+     * Returns the next token: a byte value, EOL or EOF.
+     *
+     * @param input the input stream
+     * @return the next token
+     * @throws IOException if an exception occurred when reading
+     */
+    private int next_(InputStream input)
+            throws
+            IOException {
+        if (hasUnget) {
+            hasUnget = false;
+            if (unget == CSVParserInputHelper.EOL) {
+                lineNumber++;
+            }
+            return unget;
+        }
+        while (true) {
+            if (position == limit && !fill_(input)) {
+                return CSVParserInputHelper.EOF;
+            }
+            int next = buffer[position++] & 0xff;
+            if (next > '\r') {
+                skipLF = false;
+                skipCR = false;
+                return next;
+            }
+            switch (next) {
+                case '\r':
+                    if (!skipCR) {
+                        lineNumber++;
+                        skipLF = true;
+                        return CSVParserInputHelper.EOL;
+                    }
+                    skipCR = false;
+                    break;
+                case '\n':
+                    if (!skipLF) {
+                        lineNumber++;
+                        skipCR = true;
+                        return CSVParserInputHelper.EOL;
+                    }
+                    skipLF = false;
+                    break;
+                default:
+                    skipLF = false;
+                    skipCR = false;
+                    return next;
+            }
+        }
+    }
+
+    /**
+     * Returns one token to the input.
+     *
+     * @param token the token
+     */
+    private void unget_(int token) {
+        hasUnget = true;
+        unget = token;
+        if (unget == CSVParserInputHelper.EOL) {
+            lineNumber--;
+        }
+    }
+
+    /**
+     * Tracker for the current record size in bytes
+     */
+    private int recordByteSize = 0;
+
+    /**
+     * the selected columns of the configuration, null for all
+     */
+    private final boolean[] projection;
+
+    /**
+     * the filters of the configuration by column, null if there are none;
+     * the fields are decoded into {@link #filterChars} to be filtered
+     */
+    private final Predicate<CharSequence>[] filters;
+
+    /**
+     * the decoder of the filtered fields, null if there are no filters
+     */
+    private final CharsetDecoder filterDecoder;
+
+    /**
+     * the bytes of the record wrapped for the decoder, rewrapped when the
+     * record grows
+     */
+    private ByteBuffer filterBytes = null;
+
+    /**
+     * the decoded characters of the filtered field, reused
+     */
+    private CharBuffer filterChars = null;
+
+    /**
+     * the dictionaries by field, null if there are none
+     */
+    private final CSVDictionary[] dictionaries;
+
+    /**
+     * true if the current field is parsed without being copied
+     */
+    private boolean skipField = false;
+
+    /**
+     * number of bytes of the current field that were not copied
+     */
+    private int skippedBytes = 0;
+
+    /**
+     * Adds a byte to the partial field as long as it stays within the
+     * bounds.
+     *
+     * @param b      the byte
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   the line is too long
+     * @throws CSVParserFieldTooLargeException the field is too large
+     */
+    private void add_byte_(int b, CSVByteRecord record)
+            throws
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException {
+        if (maxFieldSize == record.fieldLength() + skippedBytes) {
+            throw new CSVParserFieldTooLargeException(
+                    maxFieldSize, lineNumber);
+        }
+        if (maxRecordCharSize <= recordByteSize) {
+            throw new CSVParserLineTooLongException(
+                    maxRecordCharSize, lineNumber);
+        }
+        recordByteSize++;
+        if (skipField) {
+            skippedBytes++;
+        } else {
+            record.append((byte) b);
+        }
+    }
+
+    /**
+     * Adds a run of plain bytes from the input buffer to the partial field,
+     * checking the bounds once for the whole run. The exception is the one
+     * that adding the bytes one by one would throw.
+     *
+     * @param offset the offset of the run in the input buffer
+     * @param count  the number of bytes in the run
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   the line is too long
+     * @throws CSVParserFieldTooLargeException the field is too large
+     */
+    private void add_run_(int offset, int count, CSVByteRecord record)
+            throws
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException {
+        int fieldRoom =
+                maxFieldSize - record.fieldLength() - skippedBytes;
+        int recordRoom =
+                Math.max(0, maxRecordCharSize - recordByteSize);
+        if (count > fieldRoom || count > recordRoom) {
+            if (fieldRoom <= recordRoom) {
+                throw new CSVParserFieldTooLargeException(
+                        maxFieldSize, lineNumber);
+            }
+            throw new CSVParserLineTooLongException(
+                    maxRecordCharSize, lineNumber);
+        }
+        recordByteSize += count;
+        if (skipField) {
+            skippedBytes += count;
+        } else {
+            record.append(buffer, offset, count);
+        }
+    }
+
+    /**
+     * Adds the encoded multi-line EOL expansion to the partial field.
+     *
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   the line is too long
+     * @throws CSVParserFieldTooLargeException the field is too large
+     * @throws CSVParserException              if there is no expansion
+     */
+    private void add_eol_(CSVByteRecord record)
+            throws
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserException {
+        if (multiLineEOL == null) {
+            throw new CSVParserException(
+                    "Multi-line field without a multi-line EOL expansion.",
+                    lineNumber);
+        }
+        add_bytes_(multiLineEOL, record);
+    }
+
+    /**
+     * Adds bytes to the partial field as long as it stays within the
+     * bounds.
+     *
+     * @param bytes  the bytes to add
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   the line is too long
+     * @throws CSVParserFieldTooLargeException the field is too large
+     */
+    private void add_bytes_(byte[] bytes, CSVByteRecord record)
+            throws
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException {
+        int sz = bytes.length;
+        int fz = record.fieldLength() + skippedBytes;
+        if (sz >= maxRecordCharSize ||
+            maxRecordCharSize - sz < fz) {
+            throw new CSVParserLineTooLongException(
+                    maxRecordCharSize, lineNumber);
+        }
+        if (sz >= maxFieldSize ||
+            maxFieldSize - sz < fz) {
+            throw new CSVParserFieldTooLargeException(
+                    maxFieldSize, lineNumber);
+        }
+        recordByteSize += sz;
+        if (skipField) {
+            skippedBytes += sz;
+        } else {
+            record.append(bytes, 0, sz);
+        }
+    }
+
+    /**
+     * Parses a text delimited field.
+     *
+     * @param input  the input stream
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserFieldTooLargeException if the field if too large
+     * @throws CSVParserException              if a parsing exception occurred
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    private void parse_text_delimited_(
+            InputStream input,
+            CSVByteRecord record)
+            throws
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserException,
+            IOException {
+
+        boolean pendingExit = false;
+
+        while (true) {
+            if (!pendingExit && !hasUnget && position < limit) {
+                int run = textScanner.indexOf(buffer, bufferView, position,
+                                              limit) - position;
+                if (run > 0) {
+                    add_run_(position, run, record);
+                    position += run;
+                    skipLF = false;
+                    skipCR = false;
+                    currentRecordParsedBytes += run;
+                }
+            }
+            int token = next_(input);
+            currentRecordParsedBytes++;
+            int tokenClass = classes.classOf(token);
+            if (tokenClass == CSVCharacterClasses.EOF) {
+                if (pendingExit) {
+                    return;
+                }
+                throw new CSVParserException("Unexpected end of file.",
+                                             lineNumber);
+            }
+            if (tokenClass == CSVCharacterClasses.TEXT) {
+                if (pendingExit) {
+                    add_byte_(text_delimiter_, record);
+                    pendingExit = false;
+                } else if (config.textDelimiterEscapesItself()) {
+                    pendingExit = true;
+                } else {
+                    return;
+                }
+            } else if (pendingExit) {
+                unget_(token);
+                currentRecordParsedBytes--;
+                return;
+            } else {
+                switch (tokenClass) {
+                    case CSVCharacterClasses.ESCAPE:
+                        parse_escaped_character_(input, record);
+                        break;
+                    case CSVCharacterClasses.EOL:
+                        add_eol_(record);
+                        break;
+                    default:
+                        add_byte_(token, record);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Parses an escaped character
+     *
+     * @param input  the input stream
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserException              if a parsing exception occurred
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    private void parse_escaped_character_(
+            InputStream input,
+            CSVByteRecord record)
+            throws
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserException,
+            IOException {
+
+        while (true) {
+            int token = next_(input);
+            currentRecordParsedBytes++;
+            switch (token) {
+                case CSVParserInputHelper.EOF:
+                    throw new CSVParserException("Unexpected end of file",
+                                                 lineNumber);
+                case CSVParserInputHelper.EOL:
+                    if (config.isEOLEscaped()) {
+                        add_eol_(record);
+                        return;
+                    }
+                    break;
+                default:
+                    byte[] expansion =
+                            token < 128 ? escapeExpansions[token] : null;
+                    if (expansion != null) {
+                        add_bytes_(expansion, record);
+                    } else {
+                        add_byte_(token, record);
+                    }
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Parses a field.
+     *
+     * @param input  the input stream
+     * @param record the record holding the partial field
+     * @return true if end-of-record, false otherwise
+     * @throws CSVParserFieldTooLargeException the field is too large
+     * @throws CSVParserLineTooLongException   the line is too long
+     * @throws CSVParserException              if a parser exception occurs
+     * @throws IOException                     if an {@link IOException} occurred.
+     */
+    private boolean parse_clean_field_(
+            InputStream input,
+            CSVByteRecord record)
+            throws
+            CSVParserFieldTooLargeException,
+            CSVParserLineTooLongException,
+            CSVParserException,
+            IOException {
+
+        while (true) {
+            if (!hasUnget && position < limit) {
+                int run = scanner.indexOf(buffer, bufferView, position,
+                                          limit) - position;
+                if (run > 0) {
+                    add_run_(position, run, record);
+                    position += run;
+                    skipLF = false;
+                    skipCR = false;
+                    currentRecordParsedBytes += run;
+                }
+            }
+            int token = next_(input);
+            currentRecordParsedBytes++;
+            switch (classes.classOf(token)) {
+                case CSVCharacterClasses.EOF:
+                    currentRecordParsedBytes--;
+                    unget_(token);
+                    eof = true;
+                case CSVCharacterClasses.EOL:
+                    return true;
+                case CSVCharacterClasses.TEXT:
+                    parse_text_delimited_(input, record);
+                    break;
+                case CSVCharacterClasses.ESCAPE:
+                    parse_escaped_character_(input, record);
+                    break;
+                case CSVCharacterClasses.DELIMITER:
+                    return false;
+                default:
+                    add_byte_(token, record);
+            }
+        }
+
+    }
+
+    /**
+     * holds the fields of the record when parsing into a list
+     */
+    private final CSVByteRecord recordBuffer = new CSVByteRecord();
+
+    /**
+     * number of bytes parsed for current record
+     */
+    private int currentRecordParsedBytes = 0;
+
+    /**
+     * end-of-file flag
+     */
+    private boolean eof = false;
+
+    /**
+     * Decodes the last field of the record into the reused characters of
+     * the filters, without allocating once they are large enough.
+     *
+     * @param record the record
+     * @return the characters of the field, valid until the next call
+     */
+    private CharSequence filter_field_(CSVByteRecord record) {
+        int index = record.size() - 1;
+        int start = record.start(index);
+        int end = record.end(index);
+        byte[] bytes = record.bytes();
+        if (filterBytes == null || filterBytes.array() != bytes) {
+            filterBytes = ByteBuffer.wrap(bytes);
+        }
+        filterBytes.limit(end);
+        filterBytes.position(start);
+        int capacity = (int) Math.ceil(
+                (end - start) * (double) filterDecoder.maxCharsPerByte());
+        if (filterChars == null || filterChars.capacity() < capacity) {
+            filterChars = CharBuffer.allocate(Math.max(capacity, 64));
+        }
+        filterChars.clear();
+        filterDecoder.reset();
+        filterDecoder.decode(filterBytes, filterChars, true);
+        filterDecoder.flush(filterChars);
+        filterChars.flip();
+        return filterChars;
+    }
+
+    /**
+     * Parses the next record into the given record.
+     *
+     * @param input  the input stream
+     * @param record the destination record
+     * @return false if the end-of-file was reached before the record and
+     * true otherwise.
+     * @throws CSVParserException              if a parser exception occurred
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    private boolean parse_record_(InputStream input, CSVByteRecord record)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            IOException {
+        if (input != source) {
+            source = input;
+            bufferOffset += position;
+            position = 0;
+            limit = 0;
+            if (hasUnget && unget == CSVParserInputHelper.EOF) {
+                hasUnget = false;
+            }
+        }
+        while (true) {
+            record.clear();
+            recordByteSize = 0;
+            skippedBytes = 0;
+            int index = 0;
+            boolean rejected = false;
+            boolean endrecord = false;
+            while (!endrecord) {
+                currentRecordParsedBytes = 0;
+                eof = false;
+                if (index >= maxFieldsPerRecord) {
+                    throw new CSVParserTooManyFieldsException(
+                            maxFieldsPerRecord, lineNumber);
+                }
+                boolean selected = projection == null ||
+                                   (index < projection.length &&
+                                    projection[index]);
+                Predicate<CharSequence> filter =
+                        filters == null || rejected ||
+                        index >= filters.length ? null : filters[index];
+                skipField = rejected || (!selected && filter == null);
+                skippedBytes = 0;
+                endrecord = parse_clean_field_(input, record);
+                if (endrecord && eof && currentRecordParsedBytes == 0 &&
+                    index == 0) {
+                    return false;
+                }
+                if (!skipField) {
+                    record.endField();
+                    if (filter != null && !filter.test(filter_field_(record))) {
+                        /* fast-forward to the end of the record */
+                        rejected = true;
+                    }
+                    if (!selected) {
+                        /* copied only for the filter */
+                        record.removeLastField();
+                    }
+                }
+                index++;
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public List<String> parseRecord(
+            InputStream input, List<String> destination)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            IOException {
+        if (!parse_record_(input, recordBuffer)) {
+            if (destination == null || destination.isEmpty()) {
+                return null;
+            }
+            destination.add("");
+            return destination;
+        }
+        int size = recordBuffer.size();
+        if (destination == null) {
+            destination = new ArrayList<>(size);
+        }
+        final CSVDictionary[] dictionaries = this.dictionaries;
+        for (int i = 0; i < size; i++) {
+            if (dictionaries != null && i < dictionaries.length &&
+                dictionaries[i] != null) {
+                destination.add(dictionaries[i].intern(
+                        recordBuffer.bytes(), recordBuffer.start(i),
+                        recordBuffer.end(i), charset));
+            } else {
+                destination.add(recordBuffer.getString(i, charset));
+            }
+        }
+        return destination;
+    }
+
+    @Override
+    public boolean readRecord(InputStream input, CSVByteRecord destination)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            IOException {
+        return parse_record_(input, destination);
+    }
+
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public CSVCheckpoint checkpoint() {
+        long offset = bufferOffset + position;
+        return new CSVCheckpoint(
+                hasUnget && unget != CSVParserInputHelper.EOF ?
+                        offset - 1 : offset, lineNumber,
+                skipLF ? '\n' : skipCR ? '\r' : -1);
+    }
+
+    @Override
+    public void reset(CSVCheckpoint start) {
+        source = null;
+        position = 0;
+        limit = 0;
+        hasUnget = false;
+        unget = CSVParserInputHelper.EOL;
+        bufferOffset = start.offset();
+        lineNumber = start.lineNumber();
+        skipLF = start.pendingEOL() == '\n';
+        skipCR = start.pendingEOL() == '\r';
+    }
+
+}
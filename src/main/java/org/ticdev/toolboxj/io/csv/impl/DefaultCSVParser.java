@@ -4,12 +4,20 @@ import org.ticdev.toolboxj.io.csv.*;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * {@link CSVParser} implementation that uses a {@link CSVParserConfiguration}
  * to define the parsing rules.
+ * <p>
+ * When the input helper is a {@link BufferedCSVParserInputHelper}, runs of
+ * plain characters outside text delimited fields are located in the helper's
+ * buffer with a {@link CSVStructuralScanner} and copied in bulk. The other
+ * tokens are dispatched on their {@link CSVCharacterClasses} class.
+ * </p>
  *
  * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
  */
@@ -31,15 +39,46 @@ public final class DefaultCSVParser
      */
     private final DelimiterPredicate delimiterPredicate;
 
+    /**
+     * the classes of the input tokens
+     */
+    private final CSVCharacterClasses classes;
+
     /**
      * The text delimiter == -1 if none defined
      */
     private final int text_delimiter_;
 
     /**
-     * the escape character == -1 if none defined
+     * the input helper if it can provide runs of plain characters, null
+     * otherwise
+     */
+    private final BufferedCSVParserInputHelper bufferedHelper;
+
+    /**
+     * scanner for the runs of plain characters
+     */
+    private final CSVStructuralScanner scanner;
+
+    /**
+     * scanner for the runs of plain characters of text delimited sections
      */
-    private final int escape_character_;
+    private final CSVStructuralScanner textScanner;
+
+    /**
+     * the maximum field size of the configuration
+     */
+    private final int maxFieldSize;
+
+    /**
+     * the maximum record size of the configuration
+     */
+    private final int maxRecordCharSize;
+
+    /**
+     * the maximum number of fields per record of the configuration
+     */
+    private final int maxFieldsPerRecord;
 
     /**
      * Class constructor.
@@ -53,69 +92,333 @@ public final class DefaultCSVParser
         this.config = CSVParserConfiguration.of(config);
         this.inputHelper = inputHelper;
         delimiterPredicate = DelimiterPredicate.of(config.delimiters());
+        classes = new CSVCharacterClasses(this.config);
         text_delimiter_ = config.textDelimiter() == null ?
                 -1 : config.textDelimiter();
-        escape_character_ = config.escapeCharacter() == null ?
-                -1 : config.escapeCharacter();
+        bufferedHelper = inputHelper instanceof BufferedCSVParserInputHelper ?
+                (BufferedCSVParserInputHelper) inputHelper : null;
+        scanner = new CSVStructuralScanner(this.config);
+        textScanner = new CSVStructuralScanner(this.config, true);
+        maxFieldSize = this.config.maxFieldSize();
+        maxRecordCharSize = this.config.maxRecordCharSize();
+        maxFieldsPerRecord = this.config.maxFieldsPerRecord();
+        projection = selection_(this.config.selectedColumns());
+        filters = filters_(this.config.columnFilters());
+        dictionaries = dictionaries_(this.config);
+        metrics = this.config.metrics();
+        expansions = expansions_(this.config.escapedCharacterExpansion());
+        multiLineEOL = this.config.multiLineEOL() == null ?
+                null : this.config.multiLineEOL().toCharArray();
+    }
+
+    /**
+     * Returns the escape character expansions in an array indexed by the
+     * escaped character, as long as the largest escaped character.
+     *
+     * @param expansionMap the expansions by escaped character
+     * @return the expansions by escaped character, null if there are none
+     */
+    static char[][] expansions_(Map<Character, String> expansionMap) {
+        if (expansionMap.isEmpty()) {
+            return null;
+        }
+        int length = 0;
+        for (char c : expansionMap.keySet()) {
+            length = Math.max(length, c + 1);
+        }
+        char[][] expansions = new char[length][];
+        for (Map.Entry<Character, String> entry : expansionMap.entrySet()) {
+            expansions[entry.getKey()] = entry.getValue().toCharArray();
+        }
+        return expansions;
+    }
+
+    /**
+     * Returns the dictionaries of the configuration in an array indexed by
+     * field in the records, which differs from the column with a projection.
+     *
+     * @param config the configuration
+     * @return the dictionaries by field, null if there are none
+     */
+    static CSVDictionary[] dictionaries_(CSVParserConfiguration config) {
+        Map<Integer, Integer> sizes = config.dictionaryColumns();
+        if (sizes.isEmpty()) {
+            return null;
+        }
+        int[] columns = config.selectedColumns();
+        if (columns == null) {
+            int length = 0;
+            for (int column : sizes.keySet()) {
+                length = Math.max(length, column + 1);
+            }
+            columns = new int[length];
+            for (int i = 0; i < length; i++) {
+                columns[i] = i;
+            }
+        }
+        CSVDictionary[] dictionaries = new CSVDictionary[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Integer size = sizes.get(columns[i]);
+            if (size != null) {
+                dictionaries[i] = new CSVDictionary(size);
+            }
+        }
+        return dictionaries;
     }
 
+    /**
+     * Returns the given filters in an array indexed by column.
+     *
+     * @param columnFilters the filters by column
+     * @return the filters by column, null if there are none
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Predicate<CharSequence>[] filters_(
+            Map<Integer, Predicate<CharSequence>> columnFilters) {
+        if (columnFilters.isEmpty()) {
+            return null;
+        }
+        int length = 0;
+        for (int column : columnFilters.keySet()) {
+            length = Math.max(length, column + 1);
+        }
+        Predicate<CharSequence>[] filters = new Predicate[length];
+        for (Map.Entry<Integer, Predicate<CharSequence>> entry :
+                columnFilters.entrySet()) {
+            filters[entry.getKey()] = entry.getValue();
+        }
+        return filters;
+    }
+
+    /**
+     * Returns the selection of the given columns.
+     *
+     * @param columns the indexes of the columns, null for all
+     * @return true for the selected indexes, null for all
+     */
+    static boolean[] selection_(int[] columns) {
+        if (columns == null) {
+            return null;
+        }
+        int length = 0;
+        for (int column : columns) {
+            length = Math.max(length, column + 1);
+        }
+        boolean[] selection = new boolean[length];
+        for (int column : columns) {
+            selection[column] = true;
+        }
+        return selection;
+    }
+
+    /**
+     * the line number where the current record started
+     */
+    private long recordLineNumber = -1;
+
     /**
      * Tracker for the current record size in characters
      */
     private int recordCharSize = 0;
 
-    private void add_char_(char c, StringBuilder sb)
+    /**
+     * the selected columns of the configuration, null for all
+     */
+    private final boolean[] projection;
+
+    /**
+     * the filters of the configuration by column, null if there are none
+     */
+    private final Predicate<CharSequence>[] filters;
+
+    /**
+     * the dictionaries by field, null if there are none
+     */
+    private final CSVDictionary[] dictionaries;
+
+    /**
+     * the metrics, null if disabled
+     */
+    private final CSVParserMetrics metrics;
+
+    /**
+     * the escape character expansions by escaped character, null if there
+     * are none
+     */
+    private final char[][] expansions;
+
+    /**
+     * the multi-line end-of-line, null if records cannot span lines
+     */
+    private final char[] multiLineEOL;
+
+    /**
+     * the last reader measured for the metrics
+     */
+    private Reader measuredSource = null;
+
+    /**
+     * the measuring reader of the last reader
+     */
+    private Reader measuredReader = null;
+
+    /**
+     * the number of fields of the last record
+     */
+    private int recordFields = 0;
+
+    /**
+     * the number of quoted fields of the current record
+     */
+    private int recordQuotedFields = 0;
+
+    /**
+     * the number of escape expansions of the current record
+     */
+    private int recordExpansions = 0;
+
+    /**
+     * true if the current field has a text delimited section
+     */
+    private boolean fieldQuoted = false;
+
+    /**
+     * true if the current field is parsed without being copied
+     */
+    private boolean skipField = false;
+
+    /**
+     * number of characters of the current field that were not copied
+     */
+    private int skippedChars = 0;
+
+    /**
+     * Adds a character to the partial field as long as it stays within the
+     * bounds.
+     *
+     * @param c      the character
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   the line is too long
+     * @throws CSVParserFieldTooLargeException the field is too large
+     */
+    private void add_char_(char c, CSVRecord record)
             throws
             CSVParserLineTooLongException,
             CSVParserFieldTooLargeException {
-        if (config.maxFieldSize() == sb.length()) {
+        if (maxFieldSize == record.fieldLength() + skippedChars) {
             throw new CSVParserFieldTooLargeException(
-                    config.maxFieldSize(), inputHelper.lineNumber());
+                    maxFieldSize, inputHelper.lineNumber());
         }
-        if (config.maxRecordCharSize() <= recordCharSize) {
+        if (maxRecordCharSize <= recordCharSize) {
             throw new CSVParserLineTooLongException(
-                    config.maxRecordCharSize(),
+                    maxRecordCharSize,
                     inputHelper.lineNumber());
         }
         recordCharSize++;
-        sb.append(c);
+        if (skipField) {
+            skippedChars++;
+        } else {
+            record.append(c);
+        }
+    }
+
+    /**
+     * Adds a run of plain characters to the partial field, checking the
+     * bounds once for the whole run. The exception is the one that adding
+     * the characters one by one would throw.
+     *
+     * @param chars  the characters
+     * @param offset the offset of the run
+     * @param count  the number of characters in the run
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   the line is too long
+     * @throws CSVParserFieldTooLargeException the field is too large
+     */
+    private void add_run_(
+            char[] chars, int offset, int count, CSVRecord record)
+            throws
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException {
+        int fieldRoom =
+                maxFieldSize - record.fieldLength() - skippedChars;
+        int recordRoom =
+                Math.max(0, maxRecordCharSize - recordCharSize);
+        if (count > fieldRoom || count > recordRoom) {
+            if (fieldRoom <= recordRoom) {
+                throw new CSVParserFieldTooLargeException(
+                        maxFieldSize, inputHelper.lineNumber());
+            }
+            throw new CSVParserLineTooLongException(
+                    maxRecordCharSize, inputHelper.lineNumber());
+        }
+        recordCharSize += count;
+        if (skipField) {
+            skippedChars += count;
+        } else {
+            record.append(chars, offset, count);
+        }
     }
 
     /**
-     * Adds a string to the partial field as long as it stays
+     * Adds an expansion to the partial field as long as it stays
      * withing the bounds.
      *
-     * @param s  the string to add
-     * @param sb the partial field
+     * @param s      the characters to add
+     * @param record the record holding the partial field
      * @throws CSVParserLineTooLongException   the line is too long
      * @throws CSVParserFieldTooLargeException the field is too large
      */
-    private void add_string_(String s, StringBuilder sb)
+    private void add_chars_(char[] s, CSVRecord record)
             throws
             CSVParserLineTooLongException,
             CSVParserFieldTooLargeException {
-        int sz = s.length();
-        int sbz = sb.length();
-        if (sz >= config.maxRecordCharSize() ||
-            config.maxRecordCharSize() - sz < sbz) {
+        int sz = s.length;
+        int sbz = record.fieldLength() + skippedChars;
+        if (sz >= maxRecordCharSize ||
+            maxRecordCharSize - sz < sbz) {
             throw new CSVParserLineTooLongException(
-                    config.maxRecordCharSize(),
+                    maxRecordCharSize,
                     inputHelper.lineNumber());
         }
-        if (sz >= config.maxFieldSize() ||
-            config.maxFieldSize() - sz < sbz) {
+        if (sz >= maxFieldSize ||
+            maxFieldSize - sz < sbz) {
             throw new CSVParserFieldTooLargeException(
-                    config.maxFieldSize(), inputHelper.lineNumber());
+                    maxFieldSize, inputHelper.lineNumber());
         }
         recordCharSize += sz;
-        sb.append(s);
+        if (skipField) {
+            skippedChars += sz;
+        } else {
+            record.append(s, 0, sz);
+        }
+    }
+
+    /**
+     * Adds the multi-line EOL expansion to the partial field.
+     *
+     * @param record the record holding the partial field
+     * @throws CSVParserLineTooLongException   the line is too long
+     * @throws CSVParserFieldTooLargeException the field is too large
+     * @throws CSVParserException              if there is no expansion
+     */
+    private void add_eol_(CSVRecord record)
+            throws
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserException {
+        if (multiLineEOL == null) {
+            throw new CSVParserException(
+                    "Multi-line field without a multi-line EOL expansion.",
+                    inputHelper.lineNumber());
+        }
+        add_chars_(multiLineEOL, record);
     }
 
     /**
      * Parses a text delimited field.
      *
-     * @param reader        the reader
-     * @param stringBuilder the partial field
+     * @param reader the reader
+     * @param record the record holding the partial field
      * @throws CSVParserLineTooLongException   if the line is too long
      * @throws CSVParserFieldTooLargeException if the field if too large
      * @throws CSVParserException              if a parsing exception occurred
@@ -123,7 +426,7 @@ public final class DefaultCSVParser
      */
     private void parse_text_delimited_(
             Reader reader,
-            StringBuilder stringBuilder)
+            CSVRecord record)
             throws
             CSVParserLineTooLongException,
             CSVParserFieldTooLargeException,
@@ -133,42 +436,50 @@ public final class DefaultCSVParser
         boolean pendingExit = false;
 
         while (true) {
+            if (bufferedHelper != null && !pendingExit) {
+                int run = bufferedHelper.plainRunLength(reader, textScanner);
+                if (run > 0) {
+                    add_run_(bufferedHelper.buffer(),
+                             bufferedHelper.bufferPosition(), run, record);
+                    bufferedHelper.consume(run);
+                    currentRecordParsedChars += run;
+                }
+            }
             int token = inputHelper.next(reader);
             currentRecordParsedChars++;
-            switch (token) {
-                case CSVParserInputHelper.EOF:
-                    if (pendingExit) {
-                        return;
-                    }
-                    throw new CSVParserException("Unexpected end of file.",
-                                                 inputHelper.lineNumber());
-
-                default:
-                    if (token == text_delimiter_) {
-                        if (pendingExit) {
-                            add_char_((char) text_delimiter_,
-                                      stringBuilder);
-                            pendingExit = false;
-                        } else {
-                            if (config.textDelimiterEscapesItself()) {
-                                pendingExit = true;
-                            } else {
-                                return;
-                            }
-
-                        }
-                    } else if (pendingExit) {
-                        inputHelper.unget(token);
-                        currentRecordParsedChars--;
-                        return;
-                    } else if (token == escape_character_) {
-                        parse_escaped_character(reader, stringBuilder);
-                    } else if (token == CSVParserInputHelper.EOL) {
-                        add_string_(config.multiLineEOL(),
-                                    stringBuilder);
-                    } else {
-                        add_char_((char) token, stringBuilder);
-                    }
+            int tokenClass = classes.classOf(token);
+            if (tokenClass == CSVCharacterClasses.EOF) {
+                if (pendingExit) {
+                    return;
+                }
+                throw new CSVParserException("Unexpected end of file.",
+                                             inputHelper.lineNumber());
+            }
+            if (tokenClass == CSVCharacterClasses.TEXT) {
+                if (pendingExit) {
+                    add_char_((char) text_delimiter_,
+                              record);
+                    pendingExit = false;
+                } else if (config.textDelimiterEscapesItself()) {
+                    pendingExit = true;
+                } else {
+                    return;
+                }
+            } else if (pendingExit) {
+                inputHelper.unget(token);
+                currentRecordParsedChars--;
+                return;
+            } else {
+                switch (tokenClass) {
+                    case CSVCharacterClasses.ESCAPE:
+                        parse_escaped_character(reader, record);
+                        break;
+                    case CSVCharacterClasses.EOL:
+                        add_eol_(record);
+                        break;
+                    default:
+                        add_char_((char) token, record);
+                }
             }
 
         }
@@ -178,8 +489,8 @@ public final class DefaultCSVParser
     /**
      * Parses an escaped character
      *
-     * @param reader        the reader
-     * @param stringBuilder the partial field
+     * @param reader the reader
+     * @param record the record holding the partial field
      * @throws CSVParserLineTooLongException   if the line is too long
      * @throws CSVParserFieldTooLargeException if the field is too large
      * @throws CSVParserException              if a parsing exception occurred
@@ -187,7 +498,7 @@ public final class DefaultCSVParser
      */
     private void parse_escaped_character(
             Reader reader,
-            StringBuilder stringBuilder)
+            CSVRecord record)
             throws
             CSVParserLineTooLongException,
             CSVParserFieldTooLargeException,
@@ -203,20 +514,20 @@ public final class DefaultCSVParser
                                                  inputHelper.lineNumber());
                 case CSVParserInputHelper.EOL:
                     if (config.isEOLEscaped()) {
-                        add_string_(config.multiLineEOL(),
-                                    stringBuilder);
+                        add_eol_(record);
+                        recordExpansions++;
                         return;
                     }
                     break;
                 default:
-                    Character ctoken = (char) token;
-                    String expansion =
-                            config.escapedCharacterExpansion()
-                                  .get(ctoken);
+                    char[] expansion =
+                            expansions != null && token < expansions.length ?
+                                    expansions[token] : null;
                     if (expansion != null) {
-                        add_string_(expansion, stringBuilder);
+                        add_chars_(expansion, record);
+                        recordExpansions++;
                     } else {
-                        add_char_(ctoken, stringBuilder);
+                        add_char_((char) token, record);
                     }
                     return;
             }
@@ -226,8 +537,8 @@ public final class DefaultCSVParser
     /**
      * Parses a field.
      *
-     * @param reader        the reader
-     * @param stringBuilder the partial field
+     * @param reader the reader
+     * @param record the record holding the partial field
      * @return true if end-of-record, false otherwise
      * @throws CSVParserFieldTooLargeException the field is too large
      * @throws CSVParserLineTooLongException   the line is too long
@@ -236,7 +547,7 @@ public final class DefaultCSVParser
      */
     private boolean parse_clean_field_(
             Reader reader,
-            StringBuilder stringBuilder)
+            CSVRecord record)
             throws
             CSVParserFieldTooLargeException,
             CSVParserLineTooLongException,
@@ -244,37 +555,44 @@ public final class DefaultCSVParser
             IOException {
 
         while (true) {
+            if (bufferedHelper != null) {
+                int run = bufferedHelper.plainRunLength(reader, scanner);
+                if (run > 0) {
+                    add_run_(bufferedHelper.buffer(),
+                             bufferedHelper.bufferPosition(), run, record);
+                    bufferedHelper.consume(run);
+                    currentRecordParsedChars += run;
+                }
+            }
             int token = inputHelper.next(reader);
             currentRecordParsedChars++;
-            switch (token) {
-                case CSVParserInputHelper.EOF:
+            switch (classes.classOf(token)) {
+                case CSVCharacterClasses.EOF:
                     currentRecordParsedChars--;
                     inputHelper.unget(token);
                     eof = true;
-                case CSVParserInputHelper.EOL:
+                case CSVCharacterClasses.EOL:
                     return true;
+                case CSVCharacterClasses.TEXT:
+                    fieldQuoted = true;
+                    parse_text_delimited_(reader, record);
+                    break;
+                case CSVCharacterClasses.ESCAPE:
+                    parse_escaped_character(reader, record);
+                    break;
+                case CSVCharacterClasses.DELIMITER:
+                    return false;
                 default:
-                    if (token == text_delimiter_) {
-                        parse_text_delimited_(reader, stringBuilder);
-                    } else if (token == escape_character_) {
-                        parse_escaped_character(reader, stringBuilder);
-                    } else {
-                        char ctoken = (char) token;
-                        if (delimiterPredicate.isDelimiter(ctoken)) {
-                            return false;
-                        } else {
-                            add_char_(ctoken, stringBuilder);
-                        }
-                    }
+                    add_char_((char) token, record);
             }
         }
 
     }
 
     /**
-     * holds the partial field
+     * holds the fields of the record when parsing into a list
      */
-    private final StringBuilder sBuilder = new StringBuilder();
+    private final CSVRecord recordBuffer = new CSVRecord();
 
     /**
      * number of characters parsed for current record
@@ -286,6 +604,145 @@ public final class DefaultCSVParser
      */
     private boolean eof = false;
 
+    /**
+     * Parses the next record into the given record.
+     *
+     * @param reader    the reader
+     * @param record    the destination record
+     * @param selection true for the fields to copy, null for the configured
+     *                  projection
+     * @return false if the end-of-file was reached before the record and
+     * true otherwise.
+     * @throws CSVParserException              if a parser exception occurred
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    private boolean parse_record_(
+            Reader reader, CSVRecord record, boolean[] selection)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            IOException {
+        /* the configured projection leaves the skipped fields out */
+        boolean compact = selection == null && projection != null;
+        if (compact) {
+            selection = projection;
+        }
+        while (true) {
+            record.clear();
+            recordLineNumber = inputHelper.lineNumber();
+            recordCharSize = 0;
+            skippedChars = 0;
+            recordQuotedFields = 0;
+            recordExpansions = 0;
+            int index = 0;
+            boolean rejected = false;
+            boolean endrecord = false;
+            while (!endrecord) {
+                currentRecordParsedChars = 0;
+                eof = false;
+                if (index >= maxFieldsPerRecord) {
+                    throw new CSVParserTooManyFieldsException(
+                            maxFieldsPerRecord,
+                            inputHelper.lineNumber());
+                }
+                boolean selected = selection == null ||
+                                   (index < selection.length &&
+                                    selection[index]);
+                Predicate<CharSequence> filter =
+                        filters == null || rejected ||
+                        index >= filters.length ? null : filters[index];
+                skipField = rejected || (!selected && filter == null);
+                skippedChars = 0;
+                fieldQuoted = false;
+                endrecord = parse_clean_field_(reader, record);
+                if (fieldQuoted) {
+                    recordQuotedFields++;
+                }
+                if (endrecord && eof && currentRecordParsedChars == 0 &&
+                    index == 0) {
+                    return false;
+                }
+                if (!skipField) {
+                    record.endField();
+                    if (filter != null &&
+                        !filter.test(record.get(record.size() - 1))) {
+                        /* fast-forward to the end of the record */
+                        rejected = true;
+                    }
+                    if (!selected) {
+                        /* copied only for the filter */
+                        record.removeLastField();
+                        if (!compact) {
+                            record.endField();
+                        }
+                    }
+                } else if (!compact) {
+                    record.endField();
+                }
+                index++;
+            }
+            if (!rejected) {
+                recordFields = index;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Parses the next record into the given record, updating the metrics
+     * if they are enabled.
+     *
+     * @param reader    the reader
+     * @param record    the destination record
+     * @param selection true for the fields to copy, null for the configured
+     *                  projection
+     * @return false if the end-of-file was reached before the record and
+     * true otherwise.
+     * @throws CSVParserException              if a parser exception occurred
+     * @throws CSVParserLineTooLongException   if the line is too long
+     * @throws CSVParserFieldTooLargeException if the field is too large
+     * @throws CSVParserTooManyFieldsException if there are too many fields
+     * @throws IOException                     if an {@link IOException} occurred
+     */
+    private boolean parse_measured_(
+            Reader reader, CSVRecord record, boolean[] selection)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            IOException {
+        if (metrics == null) {
+            return parse_record_(reader, record, selection);
+        }
+        if (reader != measuredSource) {
+            measuredSource = reader;
+            measuredReader = metrics.reader(reader);
+        }
+        long start = System.nanoTime();
+        try {
+            boolean parsed = parse_record_(measuredReader, record, selection);
+            if (parsed) {
+                metrics.recordParsed(recordFields, recordQuotedFields,
+                                     recordExpansions);
+            }
+            return parsed;
+        } catch (CSVParserLineTooLongException |
+                CSVParserFieldTooLargeException |
+                CSVParserTooManyFieldsException ex) {
+            metrics.limitExceeded(ex);
+            throw ex;
+        } finally {
+            metrics.parserTime(System.nanoTime() - start);
+            metrics.countCharacters(measuredReader);
+        }
+    }
+
     @Override
     public List<String> parseRecord(
             Reader reader, List<String> destination)
@@ -296,37 +753,95 @@ public final class DefaultCSVParser
             CSVParserTooManyFieldsException,
             IOException,
             InterruptedException {
+        if (!parse_measured_(reader, recordBuffer, null)) {
+            if (destination == null || destination.isEmpty()) {
+                return null;
+            }
+            destination.add("");
+            return destination;
+        }
+        int size = recordBuffer.size();
         if (destination == null) {
-            destination = new LinkedList<>();
+            destination = new ArrayList<>(size);
         }
-        recordCharSize = 0;
-        int recordCount = 0;
-        while (true) {
-            currentRecordParsedChars = 0;
-            eof = false;
-            sBuilder.delete(0, sBuilder.length());
-            if (recordCount >= config.maxFieldsPerRecord()) {
-                throw new CSVParserTooManyFieldsException(
-                        config.maxFieldsPerRecord(),
-                        inputHelper.lineNumber());
-            }
-            boolean endrecord = parse_clean_field_(reader, sBuilder);
-            recordCount++;
-            if (endrecord) {
-                if (eof) {
-                    if (currentRecordParsedChars > 0 ||
-                        !destination.isEmpty()) {
-                        destination.add(sBuilder.substring(0));
-                    }
-                    return destination.size() == 0 ? null : destination;
-                } else {
-                    destination.add(sBuilder.substring(0));
-                    return destination;
-                }
+        final CSVDictionary[] dictionaries = this.dictionaries;
+        for (int i = 0; i < size; i++) {
+            if (dictionaries != null && i < dictionaries.length &&
+                dictionaries[i] != null) {
+                destination.add(dictionaries[i].intern(
+                        recordBuffer.chars(), recordBuffer.start(i),
+                        recordBuffer.end(i)));
             } else {
-                destination.add(sBuilder.substring(0));
+                destination.add(recordBuffer.getString(i));
             }
         }
+        return destination;
+    }
+
+    @Override
+    public boolean readRecord(Reader reader, CSVRecord destination)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            InterruptedException {
+        return parse_measured_(reader, destination, null);
+    }
+
+    @Override
+    public boolean readRecord(
+            Reader reader, CSVRecord destination, boolean[] selection)
+            throws
+            CSVParserException,
+            CSVParserLineTooLongException,
+            CSVParserFieldTooLargeException,
+            CSVParserTooManyFieldsException,
+            IOException,
+            InterruptedException {
+        return parse_measured_(reader, destination, selection);
+    }
+
+    @Override
+    public long lineNumber() {
+        return inputHelper.lineNumber();
+    }
+
+    @Override
+    public int[] selectedColumns() {
+        if (projection == null) {
+            return null;
+        }
+        int count = 0;
+        for (boolean selected : projection) {
+            if (selected) {
+                count++;
+            }
+        }
+        int[] columns = new int[count];
+        count = 0;
+        for (int i = 0; i < projection.length; i++) {
+            if (projection[i]) {
+                columns[count++] = i;
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public long recordLineNumber() {
+        return recordLineNumber;
+    }
+
+    @Override
+    public CSVCheckpoint checkpoint() {
+        return inputHelper.checkpoint();
+    }
+
+    @Override
+    public CSVParserMetrics metrics() {
+        return metrics;
     }
 
     @Override
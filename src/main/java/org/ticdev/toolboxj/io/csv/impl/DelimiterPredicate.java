@@ -44,7 +44,8 @@ public interface DelimiterPredicate {
 
     /**
      * Returns default, appropriate delimiter predicate based on the
-     * provided delimiters list.
+     * provided delimiters list. Multiple delimiters are checked with a lookup
+     * table for the Latin-1 characters.
      *
      * @param delimiters the list of delimiters
      * @return default predicate appropriate for the given list
@@ -77,20 +78,30 @@ public interface DelimiterPredicate {
                 }
             };
         } else {
-            Character[] charObjects =
-                    delimiters.toArray(new Character[sz]);
-            final char[] chars = new char[charObjects.length];
-            for (int i = 0; i < charObjects.length; i++) {
-                chars[i] = charObjects[i];
+            final boolean[] latin1 = new boolean[256];
+            StringBuilder others = new StringBuilder();
+            for (char delimiter : delimiters) {
+                if (delimiter < latin1.length) {
+                    latin1[delimiter] = true;
+                } else {
+                    others.append(delimiter);
+                }
             }
+            final char[] chars = others.toString().toCharArray();
+            final String first = "" + delimiters.get(0);
             return new DelimiterPredicate() {
 
+                final boolean[] table = latin1;
+
                 final char[] delimiters = chars;
 
-                final String sdelimiter = delimiters[0] + "";
+                final String sdelimiter = first;
 
                 @Override
                 public boolean isDelimiter(char c) {
+                    if (c < table.length) {
+                        return table[c];
+                    }
                     for (char delimiter : delimiters) {
                         if (c == delimiter) {
                             return true;
@@ -0,0 +1,198 @@
+package org.ticdev.toolboxj.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CompressionSupport} and {@link ReadAheadInputStream}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CompressionSupportTest {
+
+    /**
+     * Returns the content used by the tests.
+     *
+     * @return the content
+     */
+    private static byte[] content_() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i).append(",value ").append(i).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the whole stream, and closes it.
+     *
+     * @param input the stream
+     * @return the bytes
+     * @throws IOException if an I/O exception occurred
+     */
+    private static byte[] read_(InputStream input)
+        throws
+        IOException {
+        try (InputStream is = input) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            int count;
+            while ((count = is.read(buffer)) >= 0) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Test the detection and decompression of the formats.
+     */
+    @Test
+    public void test_decompress() {
+        try {
+            byte[] content = content_();
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(gzip)) {
+                out.write(content);
+            }
+            ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+            try (OutputStream out = new DeflaterOutputStream(zlib)) {
+                out.write(content);
+            }
+
+            InputStream input = CompressionSupport.decompress(
+                new ByteArrayInputStream(gzip.toByteArray()));
+            Assert.assertTrue(input instanceof GZIPInputStream);
+            Assert.assertArrayEquals(content, read_(input));
+
+            input = CompressionSupport.decompress(
+                new ByteArrayInputStream(zlib.toByteArray()));
+            Assert.assertTrue(input instanceof InflaterInputStream);
+            Assert.assertArrayEquals(content, read_(input));
+
+            input = CompressionSupport.decompress(
+                new ByteArrayInputStream(content));
+            Assert.assertFalse(input instanceof InflaterInputStream);
+            Assert.assertArrayEquals(content, read_(input));
+
+            /* a valid zlib header followed by text */
+            byte[] text = "x^,y\n1,2\n".getBytes(StandardCharsets.US_ASCII);
+            Assert.assertFalse(
+                CompressionSupport.isZlib(text, text.length));
+            Assert.assertArrayEquals(text, read_(
+                CompressionSupport.decompress(new ByteArrayInputStream(text))));
+
+            Assert.assertArrayEquals(new byte[0], read_(
+                CompressionSupport.decompress(
+                    new ByteArrayInputStream(new byte[0]))));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test reading ahead with small blocks, and the propagation of the
+     * exceptions of the source.
+     */
+    @Test
+    public void test_readAhead() {
+        try {
+            byte[] content = content_();
+            Assert.assertArrayEquals(content, read_(new ReadAheadInputStream(
+                new ByteArrayInputStream(content), 7, 2)));
+
+            InputStream failing = new InputStream() {
+                private int count = 0;
+
+                @Override
+                public int read()
+                    throws
+                    IOException {
+                    if (count++ == 100) {
+                        throw new IOException("failed");
+                    }
+                    return 'a';
+                }
+            };
+            try (ReadAheadInputStream input =
+                     new ReadAheadInputStream(failing, 10, 1)) {
+                read_(input);
+                Assert.fail("Expected IOException");
+            } catch (IOException ex) {
+                Assert.assertEquals("failed", ex.getMessage());
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * An {@link Error} of the source is thrown as it is by the reads.
+     */
+    @Test(timeout = 10000)
+    public void test_readAheadError() {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new InternalError("inflater failed");
+            }
+        };
+        try (ReadAheadInputStream input =
+                 new ReadAheadInputStream(failing, 10, 1)) {
+            input.read();
+            Assert.fail("Expected InternalError");
+        } catch (InternalError ex) {
+            Assert.assertEquals("inflater failed", ex.getMessage());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Closing the stream does not wait for a read of the source that only
+     * ends when the source is closed.
+     */
+    @Test(timeout = 10000)
+    public void test_closeStalled() {
+        CountDownLatch closed = new CountDownLatch(1);
+        InputStream stalled = new InputStream() {
+            @Override
+            public int read()
+                throws
+                IOException {
+                while (true) {
+                    try {
+                        closed.await();
+                        throw new IOException("closed");
+                    } catch (InterruptedException ex) {
+                        /* like a blocking read, ignores interrupts */
+                    }
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+        try {
+            new ReadAheadInputStream(stalled, 10, 1).close();
+            Assert.assertEquals(0, closed.getCount());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link BufferedCSVParserInputHelper}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class BufferedCSVParserInputHelperTest {
+
+    /**
+     * input strings covering all the end-of-line combinations
+     */
+    private static final String[] INPUTS = {
+        "",
+        "a",
+        "ab\r\ncd\n\ref\rgh\n",
+        "\r\r\n\n\r\n\r",
+        "1,2\n\n\r3\r\n\r\n4",
+        "\"1,2\r\n3\",4,\"\n\"\n\"5\"\r"
+    };
+
+    /**
+     * Reads all the tokens from the given input with the given helper and
+     * returns them together with the line number after each token.
+     *
+     * @param input  the input
+     * @param helper the input helper
+     * @return the list of tokens and line numbers
+     * @throws Exception if an exception occurred
+     */
+    private static List<Long> tokens_(
+            String input, CSVParserInputHelper helper)
+            throws
+            Exception {
+        StringReader reader = new StringReader(input);
+        List<Long> result = new ArrayList<>();
+        while (true) {
+            int token = helper.next(reader);
+            result.add((long) token);
+            result.add(helper.lineNumber());
+            if (token == CSVParserInputHelper.EOF) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * The buffered helper must produce the same tokens and line numbers as
+     * the default helper, regardless of the buffer size.
+     */
+    @Test
+    public void test_sameTokensAsDefault() {
+        try {
+            for (String input : INPUTS) {
+                List<Long> expected =
+                    tokens_(input, new DefaultCSVParserInputHelper());
+                for (int size = 1; size <= input.length() + 1; size++) {
+                    Assert.assertEquals(expected, tokens_(input,
+                        new BufferedCSVParserInputHelper(size)));
+                }
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * unget must restore both the character and the line number
+     */
+    @Test
+    public void test_unget() {
+        try {
+            StringReader reader = new StringReader("a\nb");
+            BufferedCSVParserInputHelper helper =
+                new BufferedCSVParserInputHelper(2);
+            Assert.assertEquals('a', helper.next(reader));
+            Assert.assertEquals(CSVParserInputHelper.EOL,
+                helper.next(reader));
+            Assert.assertEquals(2, helper.lineNumber());
+            helper.unget(CSVParserInputHelper.EOL);
+            Assert.assertEquals(1, helper.lineNumber());
+            Assert.assertEquals(CSVParserInputHelper.EOL,
+                helper.next(reader));
+            Assert.assertEquals(2, helper.lineNumber());
+            Assert.assertEquals('b', helper.next(reader));
+            Assert.assertEquals(CSVParserInputHelper.EOF,
+                helper.next(reader));
+            helper.unget(CSVParserInputHelper.EOF);
+            try {
+                helper.unget(CSVParserInputHelper.EOF);
+                Assert.fail("Double unget must fail");
+            } catch (RuntimeException ex) {
+                /* expected */
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test an invalid buffer size
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_invalidBufferSize() {
+        new BufferedCSVParserInputHelper(0);
+    }
+
+    /**
+     * Parsing with the buffered helper must give the same records as
+     * parsing with the default helper.
+     */
+    @Test
+    public void test_parser() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        try {
+            for (String input : INPUTS) {
+                List<List<String>> expected = CSVSupport.parseReader(
+                    new StringReader(input), builder,
+                    new DefaultCSVParserInputHelper());
+                for (int size = 1; size <= input.length() + 1; size++) {
+                    Assert.assertEquals(expected,
+                        CSVSupport.parseReader(new StringReader(input),
+                            builder, new BufferedCSVParserInputHelper(size)));
+                }
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ticdev.toolboxj.io.ByteBufferPool;
+
+/**
+ * Test class for {@link CSVAsyncFileParser}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVAsyncFileParserTest {
+
+    /**
+     * Several files parsed concurrently with small buffers give the same
+     * records as the blocking parser, and the errors complete the futures.
+     */
+    @Test
+    public void test_parse() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Path> files = new ArrayList<>();
+        try {
+            CSVAsyncFileParser asyncParser = new CSVAsyncFileParser(
+                builder, StandardCharsets.UTF_8, new ByteBufferPool(64, 4),
+                executor);
+            List<List<List<String>>> expected = new ArrayList<>();
+            List<List<List<String>>> actual = new ArrayList<>();
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int f = 0; f < 4; f++) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < 500; i++) {
+                    sb.append(i).append(",\"caf\u00e9\r\n").append(f)
+                        .append("\"\r\n");
+                    if (i % 50 == 0) {
+                        sb.append("long,").append(new String(new char[200])
+                            .replace('\0', 'x')).append('\n');
+                    }
+                }
+                sb.append("last,").append(f);
+                Path file = Files.createTempFile("csv", ".csv");
+                files.add(file);
+                Files.write(file,
+                            sb.toString().getBytes(StandardCharsets.UTF_8));
+                expected.add(CSVSupport.parseReader(
+                    new StringReader(sb.toString()), builder));
+                List<List<String>> records =
+                    Collections.synchronizedList(new ArrayList<>());
+                actual.add(records);
+                futures.add(asyncParser.parse(file, records::add));
+            }
+            for (int f = 0; f < futures.size(); f++) {
+                Assert.assertEquals(expected.get(f).size(),
+                                    futures.get(f).get().longValue());
+                Assert.assertEquals(expected.get(f), actual.get(f));
+            }
+
+            Path broken = Files.createTempFile("csv", ".csv");
+            files.add(broken);
+            Files.write(broken, "a,b\nc,\"d\n".getBytes(
+                StandardCharsets.UTF_8));
+            try {
+                asyncParser.parse(broken, record -> {}).get();
+                Assert.fail("Expected ExecutionException");
+            } catch (ExecutionException ex) {
+                Assert.assertTrue(
+                    ex.getCause() instanceof CSVParserException);
+            }
+
+            builder.maxRecordCharSize(100);
+            try {
+                new CSVAsyncFileParser(
+                    builder, StandardCharsets.UTF_8,
+                    new ByteBufferPool(64, 4), executor)
+                    .parse(files.get(0), record -> {}).get();
+                Assert.fail("Expected ExecutionException");
+            } catch (ExecutionException ex) {
+                Assert.assertTrue(ex.getCause()
+                                  instanceof CSVParserLineTooLongException);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (Exception ex) {
+                Assert.fail(ex.toString());
+            }
+        }
+    }
+
+    /**
+     * A record of multi-byte characters within the limits, which the byte
+     * parser applies to bytes, but larger than the buffer, is parsed.
+     */
+    @Test
+    public void test_multiByteRecord() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').maxRecordCharSize(300000)
+            .maxFieldSize(300000);
+        String wide = new String(new char[90000]).replace('\0', '\u4e2d');
+        String content = "a,b\n" + wide + ",c\nd,e\n";
+        try {
+            Path file = Files.createTempFile("csv", ".csv");
+            try {
+                Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+                List<List<String>> records =
+                    Collections.synchronizedList(new ArrayList<>());
+                Assert.assertEquals(3, new CSVAsyncFileParser(
+                    builder, StandardCharsets.UTF_8)
+                    .parse(file, records::add).get().longValue());
+                Assert.assertEquals(CSVSupport.parseReader(
+                    new StringReader(content), builder), records);
+            } finally {
+                Files.delete(file);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ticdev.toolboxj.io.ByteBufferInputStream;
+import org.ticdev.toolboxj.io.csv.impl.DefaultCSVByteParser;
+
+/**
+ * Test class for {@link CSVByteParser}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVByteParserTest {
+
+    /**
+     * Parses all the records with the byte parser.
+     *
+     * @param parser the parser
+     * @param input  the input
+     * @return the records
+     * @throws Exception if an exception occurred
+     */
+    private static List<List<String>> parse_all_(
+            CSVByteParser parser, InputStream input)
+            throws
+            Exception {
+        List<List<String>> result = new ArrayList<>();
+        List<String> record;
+        while ((record = parser.parseRecord(input, null)) != null) {
+            result.add(record);
+        }
+        return result;
+    }
+
+    /**
+     * The byte parser must give the same records and exceptions as the
+     * character parser.
+     */
+    @Test
+    public void test_sameAsCharacterParser() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').addDelimiter(';').textDelimiter('"')
+            .escapeCharacter('\\').textDelimiterEscapesItself(false)
+            .addEscapeCharacterExpansionMapping('t', "\t")
+            .multiLineEOL("\u00e9\n");
+        String alphabet = "ab,;\"\\t\r\n\u00e9\u20ac";
+        Random random = new Random(11);
+        try {
+            for (int i = 0; i < 500; i++) {
+                StringBuilder sb = new StringBuilder();
+                for (int c = 0; c < 30; c++) {
+                    sb.append(alphabet.charAt(
+                        random.nextInt(alphabet.length())));
+                }
+                String content = sb.toString();
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                Object expected;
+                try {
+                    expected = CSVSupport.parseReader(
+                        new StringReader(content), builder);
+                } catch (CSVParserException ex) {
+                    expected = ex.getLineNumber();
+                }
+                for (int size = 1; size < 5; size++) {
+                    Object actual;
+                    try {
+                        actual = parse_all_(
+                            new DefaultCSVByteParser(builder,
+                                StandardCharsets.UTF_8, size),
+                            new ByteArrayInputStream(bytes));
+                    } catch (CSVParserException ex) {
+                        actual = ex.getLineNumber();
+                    }
+                    Assert.assertEquals(content, expected, actual);
+                }
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test reading raw records from a byte buffer
+     */
+    @Test
+    public void test_readRecord() {
+        CSVByteParser parser = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"')
+            .buildByteParser(StandardCharsets.UTF_8);
+        InputStream input = ByteBufferInputStream.newInstance(ByteBuffer
+            .wrap("1,\"\u20ac,2\"\r\n3".getBytes(StandardCharsets.UTF_8)));
+        CSVByteRecord record = new CSVByteRecord(1, 1);
+        try {
+            Assert.assertTrue(parser.readRecord(input, record));
+            Assert.assertEquals(2, record.size());
+            Assert.assertEquals(5, record.length(1));
+            Assert.assertEquals("\u20ac,2",
+                record.getString(1, StandardCharsets.UTF_8));
+            Assert.assertEquals(2, parser.lineNumber());
+            Assert.assertTrue(parser.readRecord(input, record));
+            Assert.assertEquals(1, record.size());
+            Assert.assertEquals('3', record.bytes()[record.start(0)]);
+            Assert.assertFalse(parser.readRecord(input, record));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * The limits are applied to bytes and throw the same exceptions as the
+     * character parser.
+     */
+    @Test
+    public void test_limits() {
+        byte[] bytes = "\u20ac\u20ac,1".getBytes(StandardCharsets.UTF_8);
+        try {
+            CSVParserBuilder.newInstance().addDelimiter(',').maxFieldSize(5)
+                .buildByteParser(StandardCharsets.UTF_8)
+                .parseRecord(new ByteArrayInputStream(bytes), null);
+            Assert.fail("Field limit not detected");
+        } catch (CSVParserFieldTooLargeException ex) {
+            Assert.assertEquals(5, ex.getRestriction());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        try {
+            CSVParserBuilder.newInstance().addDelimiter(',')
+                .maxRecordCharSize(6)
+                .buildByteParser(StandardCharsets.UTF_8)
+                .parseRecord(new ByteArrayInputStream(bytes), null);
+            Assert.fail("Record limit not detected");
+        } catch (CSVParserLineTooLongException ex) {
+            Assert.assertEquals(6, ex.getRestriction());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * The filters test the decoded fields, of any length, and the rejected
+     * records are skipped.
+     */
+    @Test
+    public void test_filterColumn() {
+        StringBuilder content = new StringBuilder();
+        String wide = new String(new char[300]).replace('\0', '\u20ac');
+        content.append("caf\u00e9,1\n").append(wide).append(",2\n")
+            .append("tea,3\n").append(wide).append("x,4\n");
+        List<String> tested = new ArrayList<>();
+        CSVByteParser parser = CSVParserBuilder.newInstance()
+            .addDelimiter(',').selectColumns(1)
+            .filterColumn(0, field -> {
+                tested.add(field.toString());
+                return field.length() == 4 || field.length() == 300;
+            })
+            .buildByteParser(StandardCharsets.UTF_8);
+        try {
+            List<List<String>> records = parse_all_(parser,
+                new ByteArrayInputStream(
+                    content.toString().getBytes(StandardCharsets.UTF_8)));
+            Assert.assertEquals(2, records.size());
+            Assert.assertEquals("1", records.get(0).get(0));
+            Assert.assertEquals("2", records.get(1).get(0));
+            Assert.assertEquals(4, tested.size());
+            Assert.assertEquals("caf\u00e9", tested.get(0));
+            Assert.assertEquals(wide, tested.get(1));
+            Assert.assertEquals(wide + "x", tested.get(3));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Structural characters must be ASCII
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_nonASCIIDelimiter() {
+        CSVParserBuilder.newInstance().addDelimiter('\u00e9')
+            .buildByteParser(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Character sets that are not ASCII compatible are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_nonASCIICharset() {
+        CSVParserBuilder.newInstance().addDelimiter(',')
+            .buildByteParser(StandardCharsets.UTF_16);
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVColumnBatch}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVColumnBatchTest {
+
+    /**
+     * Test reading a reader in batches
+     */
+    @Test
+    public void test_parseBatches() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            sb.append(i).append(",ignored,").append(i * 0.5).append(",\"s")
+              .append(i).append("\",").append(i % 2 == 0).append("\r\n");
+        }
+        List<Integer> sizes = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        long[] sum = {0};
+        double[] doubleSum = {0};
+        try {
+            long count = CSVSupport.parseBatches(
+                new StringReader(sb.toString()),
+                CSVParserBuilder.newInstance().addDelimiter(',')
+                    .textDelimiter('"'),
+                3, batch -> {
+                    sizes.add(batch.size());
+                    for (int row = 0; row < batch.size(); row++) {
+                        sum[0] += batch.intColumn(0)[row];
+                        doubleSum[0] += batch.doubleColumn(2)[row];
+                        values.add(batch.getString(3, row) + "/" +
+                                   batch.booleanColumn(4)[row]);
+                    }
+                },
+                CSVColumnType.INT, CSVColumnType.SKIP, CSVColumnType.DOUBLE,
+                CSVColumnType.STRING, CSVColumnType.BOOLEAN);
+            Assert.assertEquals(8, count);
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        Assert.assertEquals("[3, 3, 2]", sizes.toString());
+        Assert.assertEquals(28, sum[0]);
+        Assert.assertEquals(14.0, doubleSum[0], 0.0);
+        Assert.assertEquals("s7/false", values.get(7));
+        Assert.assertEquals("s0/true", values.get(0));
+    }
+
+    /**
+     * A row that cannot be decoded is not added
+     */
+    @Test
+    public void test_failedRow() {
+        CSVColumnBatch batch = new CSVColumnBatch(
+            2, CSVColumnType.STRING, CSVColumnType.LONG);
+        CSVRecord record = new CSVRecord();
+        record.append("abc");
+        record.endField();
+        record.append("1");
+        record.endField();
+        try {
+            batch.add(record, 1);
+            record.clear();
+            record.append("long value");
+            record.endField();
+            record.append("x");
+            record.endField();
+            batch.add(record, 2);
+            Assert.fail("Decoding error not detected");
+        } catch (CSVParserException ex) {
+            Assert.assertEquals(2, ex.getLineNumber());
+        }
+        Assert.assertEquals(1, batch.size());
+        Assert.assertEquals("abc", batch.getString(0, 0));
+        Assert.assertEquals(3, batch.stringOffsets(0)[1]);
+        Assert.assertEquals(1L, batch.longColumn(1)[0]);
+        try {
+            batch.intColumn(1);
+            Assert.fail("Type mismatch not detected");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+
+    /**
+     * A row that cannot be decoded gives the line of the record, after the
+     * records skipped by a filter
+     */
+    @Test
+    public void test_failedRowLine() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',')
+            .filterColumn(0, value -> !"skip".contentEquals(value));
+        try {
+            CSVSupport.parseBatches(
+                new StringReader("a,1\nskip,0\nskip,0\nb,x\n"), builder, 10,
+                batch -> { }, CSVColumnType.STRING, CSVColumnType.LONG);
+            Assert.fail("Decoding error not detected");
+        } catch (CSVParserException ex) {
+            Assert.assertEquals(4, ex.getLineNumber());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVDialectSniffer}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVDialectSnifferTest {
+
+    /**
+     * Checks the dialect detected in the given content.
+     *
+     * @param content         the content
+     * @param delimiter       the expected delimiter
+     * @param textDelimiter   the expected text delimiter
+     * @param escapeCharacter the expected escape character
+     */
+    private static void check_(
+            String content, char delimiter, Character textDelimiter,
+            Character escapeCharacter) {
+        try {
+            CSVParserBuilder builder = new CSVDialectSniffer().sniff(content);
+            Assert.assertEquals(Collections.singletonList(delimiter),
+                                builder.delimiters());
+            Assert.assertEquals(textDelimiter, builder.textDelimiter());
+            Assert.assertEquals(escapeCharacter, builder.escapeCharacter());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test the detection of the delimiter, text delimiter and escape
+     * character of several dialects.
+     */
+    @Test
+    public void test_dialects() {
+        check_("id;name;amount\n" +
+               "1;\"Doe; Jane\";1,5\n" +
+               "2;\"multi\nline\";2,25\n" +
+               "3;plain;3\n", ';', '"', null);
+        check_("a\tb,c\tx\n" +
+               "d\te\tf,g,h\n" +
+               "i\tj\tk\n", '\t', '"', null);
+        check_("1|'a|b'|x\n" +
+               "2|'c'|y\n" +
+               "3|'d|e|f'|z\n", '|', '\'', null);
+        check_("1,\"a\\\",b\",x\n" +
+               "2,\"p, q\",y\n" +
+               "3,\"r\",z\n", ',', '"', '\\');
+        check_("one\ntwo\nthree\n", ',', '"', null);
+    }
+
+    /**
+     * Test that sniffing a reader or a stream does not consume it, with a
+     * sample that holds only the start of the content.
+     */
+    @Test
+    public void test_notConsumed() {
+        StringBuilder sb = new StringBuilder("id|text|value\n");
+        for (int i = 0; i < 500; i++) {
+            sb.append(i).append("|\"caf\u00e9, ").append(i)
+                .append("\"|").append(i * 7).append('\n');
+        }
+        String content = sb.toString();
+        try {
+            CSVDialectSniffer sniffer = new CSVDialectSniffer(
+                1000, CSVDialectSniffer.DEFAULT_DELIMITERS,
+                CSVDialectSniffer.DEFAULT_TEXT_DELIMITERS,
+                CSVDialectSniffer.DEFAULT_ESCAPE_CHARACTERS);
+            List<List<String>> expected = CSVSupport.parseReader(
+                new StringReader(content), CSVParserBuilder.newInstance()
+                    .addDelimiter('|').textDelimiter('"'));
+
+            BufferedReader reader =
+                new BufferedReader(new StringReader(content));
+            CSVParserBuilder builder = sniffer.sniff(reader);
+            Assert.assertEquals(Collections.singletonList('|'),
+                                builder.delimiters());
+            Assert.assertEquals(Character.valueOf('"'),
+                                builder.textDelimiter());
+            Assert.assertEquals(expected,
+                                CSVSupport.parseReader(reader, builder));
+
+            ByteArrayInputStream input = new ByteArrayInputStream(
+                content.getBytes(StandardCharsets.UTF_8));
+            builder = sniffer.sniff(input, StandardCharsets.UTF_8);
+            Assert.assertEquals(Collections.singletonList('|'),
+                                builder.delimiters());
+            Assert.assertEquals(content.getBytes(StandardCharsets.UTF_8)
+                                    .length, input.available());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * A reader without marks cannot be sniffed.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_noMark()
+            throws
+            Exception {
+        new CSVDialectSniffer().sniff(new InputStreamReader(
+            new ByteArrayInputStream(new byte[]{'a', ',', 'b'}),
+            StandardCharsets.UTF_8));
+    }
+
+}
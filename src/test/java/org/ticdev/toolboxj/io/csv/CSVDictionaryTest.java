@@ -0,0 +1,127 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVDictionary}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVDictionaryTest {
+
+    /**
+     * Test the codes and the canonical strings of characters.
+     */
+    @Test
+    public void test_chars() {
+        CSVDictionary dictionary = new CSVDictionary(4);
+        char[] chars = "xxredbluered".toCharArray();
+        Assert.assertEquals(0, dictionary.code(chars, 2, 5));
+        Assert.assertEquals(1, dictionary.code(chars, 5, 9));
+        Assert.assertEquals(0, dictionary.code(chars, 9, 12));
+        Assert.assertEquals(2, dictionary.code(chars, 0, 0));
+        Assert.assertEquals(3, dictionary.size());
+        Assert.assertEquals("blue", dictionary.value(1));
+        Assert.assertEquals("", dictionary.value(2));
+        String red = dictionary.intern(chars, 9, 12);
+        Assert.assertEquals("red", red);
+        Assert.assertSame(red, dictionary.intern(chars, 2, 5));
+        try {
+            dictionary.value(3);
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException ex) {
+            /* expected */
+        }
+        dictionary.clear();
+        Assert.assertEquals(0, dictionary.size());
+        Assert.assertEquals(0, dictionary.code(chars, 5, 9));
+    }
+
+    /**
+     * Test the codes and the canonical strings of bytes.
+     */
+    @Test
+    public void test_bytes() {
+        CSVDictionary dictionary = new CSVDictionary(2);
+        byte[] bytes = "caf\u00e9,caf\u00e9".getBytes(StandardCharsets.UTF_8);
+        String value = dictionary.intern(bytes, 0, 5, StandardCharsets.UTF_8);
+        Assert.assertEquals("caf\u00e9", value);
+        Assert.assertSame(value,
+            dictionary.intern(bytes, 6, 11, StandardCharsets.UTF_8));
+        Assert.assertEquals(0,
+            dictionary.code(bytes, 6, 11, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A full dictionary still finds its values, and stops the lookups when
+     * most values miss.
+     */
+    @Test
+    public void test_full() {
+        CSVDictionary dictionary = new CSVDictionary(2);
+        Assert.assertEquals(0, code_(dictionary, "a"));
+        Assert.assertEquals(1, code_(dictionary, "b"));
+        Assert.assertTrue(dictionary.isFull());
+        Assert.assertEquals(-1, code_(dictionary, "c"));
+        Assert.assertEquals("c", dictionary.intern("c".toCharArray(), 0, 1));
+        Assert.assertEquals(1, code_(dictionary, "b"));
+        Assert.assertFalse(dictionary.isDisabled());
+        for (int i = 0; i < 2000 && !dictionary.isDisabled(); i++) {
+            Assert.assertEquals(-1, code_(dictionary, "v" + i));
+        }
+        Assert.assertTrue(dictionary.isDisabled());
+        Assert.assertEquals(-1, code_(dictionary, "a"));
+        Assert.assertEquals("a", dictionary.intern("a".toCharArray(), 0, 1));
+        dictionary.clear();
+        Assert.assertFalse(dictionary.isDisabled());
+        Assert.assertEquals(0, code_(dictionary, "c"));
+    }
+
+    /**
+     * The storage grows with the values, keeping their codes, up to the
+     * maximum size, which is bounded.
+     */
+    @Test
+    public void test_growth() {
+        CSVDictionary dictionary = new CSVDictionary(1000);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, code_(dictionary, "v" + i));
+        }
+        Assert.assertTrue(dictionary.isFull());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, code_(dictionary, "v" + i));
+            Assert.assertEquals("v" + i, dictionary.value(i));
+        }
+        Assert.assertEquals(-1, code_(dictionary, "w"));
+        new CSVDictionary(CSVDictionary.MAX_SIZE);
+        try {
+            new CSVDictionary(CSVDictionary.MAX_SIZE + 1);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            /* expected */
+        }
+        try {
+            CSVParserBuilder.newInstance()
+                .dictionaryColumn(0, CSVDictionary.MAX_SIZE + 1);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            /* expected */
+        }
+    }
+
+    /**
+     * Returns the code of a string.
+     *
+     * @param dictionary the dictionary
+     * @param value      the value
+     * @return the code
+     */
+    private static int code_(CSVDictionary dictionary, String value) {
+        char[] chars = value.toCharArray();
+        return dictionary.code(chars, 0, chars.length);
+    }
+
+}
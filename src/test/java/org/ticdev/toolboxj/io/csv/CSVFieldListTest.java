@@ -0,0 +1,103 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVFieldList} and the streams that reuse it.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVFieldListTest {
+
+    /**
+     * Test the list operations.
+     */
+    @Test
+    public void test_list() {
+        CSVFieldList list = new CSVFieldList(1);
+        list.add("b");
+        list.add("d");
+        list.add(0, "a");
+        list.add(2, "c");
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), list);
+        Assert.assertEquals("c", list.set(2, "x"));
+        Assert.assertEquals("a", list.remove(0));
+        Assert.assertEquals(Arrays.asList("b", "x", "d"), list);
+        int capacity = list.capacity();
+        Assert.assertTrue(capacity >= 4);
+        list.clear();
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertEquals(capacity, list.capacity());
+        try {
+            list.get(0);
+            Assert.fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException ex) {
+            /* expected */
+        }
+    }
+
+    /**
+     * Test copying the fields of a record.
+     */
+    @Test
+    public void test_setAll() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"');
+        try {
+            CSVParser parser = builder.build();
+            StringReader reader = new StringReader("1,\"2,3\",4\n5\n");
+            CSVRecord record = new CSVRecord();
+            CSVFieldList list = new CSVFieldList(0);
+            Assert.assertTrue(parser.readRecord(reader, record));
+            Assert.assertEquals(Arrays.asList("1", "2,3", "4"),
+                                list.setAll(record));
+            Assert.assertTrue(parser.readRecord(reader, record));
+            Assert.assertEquals(Arrays.asList("5"), list.setAll(record));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * A stream reusing the records must give the same fields, in the same
+     * list, as a stream creating them.
+     */
+    @Test
+    public void test_reused_stream() {
+        String str = "a,b,c\n\nd\ne,\"f\"\n";
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"');
+        try {
+            List<List<String>> expected;
+            try (Stream<List<String>> stream = CSVSupport.newStream(
+                builder.build(), new StringReader(str))) {
+                expected = stream.collect(Collectors.toList());
+            }
+            List<List<String>> actual = new ArrayList<>();
+            List<List<String>> instances = new ArrayList<>();
+            try (Stream<List<String>> stream = CSVSupport.newStream(
+                builder.build(), new StringReader(str), true)) {
+                stream.forEach(record -> {
+                    actual.add(new ArrayList<>(record));
+                    instances.add(record);
+                });
+            }
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(4, instances.size());
+            for (List<String> record : instances) {
+                Assert.assertSame(instances.get(0), record);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+}
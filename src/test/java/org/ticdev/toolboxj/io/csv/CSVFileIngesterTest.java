@@ -0,0 +1,299 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVFileIngester}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVFileIngesterTest {
+
+    /**
+     * Writes records numbered from 0 to count - 1, with a quoted field
+     * holding a line break.
+     *
+     * @param out   the destination
+     * @param name  the name of the file, in the first field
+     * @param count the number of records
+     * @throws IOException if an I/O exception occurred
+     */
+    private static void write_records_(OutputStream out, String name,
+                                       int count)
+            throws
+            IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(name).append(',').append(i).append(",\"caf\u00e9\n")
+                .append(i).append("\"\n");
+        }
+        out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes a directory and its files.
+     *
+     * @param directory the directory
+     * @throws IOException if an I/O exception occurred
+     */
+    private static void delete_(Path directory)
+            throws
+            IOException {
+        List<Path> paths;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            paths = stream.sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Ingests a directory with small files, a compressed file, a file split
+     * in ranges and a malformed file, with accumulators and with a stream.
+     */
+    @Test
+    public void test_ingest() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+            .maxFieldSize(64);
+        Path directory = null;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            directory = Files.createTempDirectory("csv");
+            Files.createDirectory(directory.resolve("sub"));
+            int expected = 0;
+            for (int i = 0; i < 10; i++) {
+                try (OutputStream out = Files.newOutputStream(
+                    directory.resolve("sub").resolve("small" + i + ".csv"))) {
+                    write_records_(out, "small" + i, 10 + i);
+                }
+                expected += 10 + i;
+            }
+            try (OutputStream out = new GZIPOutputStream(
+                Files.newOutputStream(directory.resolve("packed.csv.gz")))) {
+                write_records_(out, "packed", 3000);
+            }
+            expected += 3000;
+            try (OutputStream out = Files.newOutputStream(
+                directory.resolve("large.csv"))) {
+                write_records_(out, "large", 5000);
+            }
+            expected += 5000;
+            Path malformed = directory.resolve("malformed.csv");
+            try (OutputStream out = Files.newOutputStream(malformed)) {
+                write_records_(out, "malformed", 5);
+                out.write(String.join("", Collections.nCopies(100, "x"))
+                              .getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(directory.resolve("ignored.txt"), new byte[]{'x'});
+            List<Path> files = CSVFileIngester.files(directory, "**.csv*");
+            Assert.assertEquals(13, files.size());
+
+            CSVFileIngester ingester = new CSVFileIngester(
+                builder, StandardCharsets.UTF_8, pool, 4096);
+            CSVFileIngester.Result<Map<String, Integer>> result =
+                ingester.ingest(files, ConcurrentHashMap::new,
+                                (counts, file, record) -> {
+                                    Assert.assertEquals("caf\u00e9\n" +
+                                                        record.get(1),
+                                                        record.get(2));
+                                    counts.merge(record.get(0), 1,
+                                                 Integer::sum);
+                                });
+            Assert.assertEquals(expected + 5, result.recordCount());
+            Assert.assertEquals(Collections.singleton(malformed),
+                                result.errors().keySet());
+            Map<String, Integer> merged = new ConcurrentHashMap<>();
+            for (Map<String, Integer> counts : result.accumulators()) {
+                counts.forEach((k, v) -> merged.merge(k, v, Integer::sum));
+            }
+            Assert.assertEquals(Integer.valueOf(5000), merged.get("large"));
+            Assert.assertEquals(Integer.valueOf(3000), merged.get("packed"));
+            Assert.assertEquals(Integer.valueOf(19), merged.get("small9"));
+
+            List<Path> failed = Collections.synchronizedList(
+                new ArrayList<>());
+            List<List<String>> records;
+            try (Stream<List<String>> stream = ingester.newStream(
+                files, (file, ex) -> failed.add(file))) {
+                records = stream.collect(Collectors.toList());
+            }
+            Assert.assertEquals(Collections.singletonList(malformed), failed);
+            Assert.assertEquals(expected + 5, records.size());
+            List<String> large = records.stream()
+                .filter(record -> record.get(0).equals("large"))
+                .map(record -> record.get(1)).collect(Collectors.toList());
+            Assert.assertEquals(5000, large.size());
+            for (int i = 0; i < large.size(); i++) {
+                Assert.assertEquals(Integer.toString(i), large.get(i));
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        } finally {
+            pool.shutdown();
+            try {
+                if (directory != null) {
+                    delete_(directory);
+                }
+            } catch (Exception ex) {
+                Assert.fail(ex.toString());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of open file descriptors of the process.
+     *
+     * @return the number of open file descriptors
+     * @throws IOException if an I/O exception occurred
+     */
+    private static long open_files_()
+            throws
+            IOException {
+        try (Stream<Path> stream = Files.list(Paths.get("/proc/self/fd"))) {
+            return stream.count();
+        }
+    }
+
+    /**
+     * Test that closing a stream after a short-circuiting operation closes
+     * the files opened by all its splits.
+     */
+    @Test
+    public void test_streamClosed() {
+        Assume.assumeTrue(Files.isDirectory(Paths.get("/proc/self/fd")));
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        Path directory = null;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            directory = Files.createTempDirectory("csv");
+            List<Path> files = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                Path file = directory.resolve("file" + i + ".csv");
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    write_records_(out, "file" + i, 1000);
+                }
+                files.add(file);
+            }
+            CSVFileIngester ingester = new CSVFileIngester(
+                builder, StandardCharsets.UTF_8, pool, 1024 * 1024);
+            for (int i = 0; i < 2; i++) {
+                long before = open_files_();
+                try (Stream<List<String>> stream = ingester.newStream(
+                    files, (file, ex) -> Assert.fail(ex.toString()))) {
+                    Assert.assertTrue(pool.submit(
+                        () -> stream.filter(record -> record.get(1)
+                            .equals("500")).findAny()).get().isPresent());
+                    /* the cancelled splits stop with their files open */
+                    pool.awaitQuiescence(10, TimeUnit.SECONDS);
+                }
+                Assert.assertEquals(before, open_files_());
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        } finally {
+            pool.shutdown();
+            try {
+                if (directory != null) {
+                    delete_(directory);
+                }
+            } catch (Exception ex) {
+                Assert.fail(ex.toString());
+            }
+        }
+    }
+
+    /**
+     * Test that an exception in a range of a file stops the other ranges of
+     * the file.
+     */
+    @Test
+    public void test_rangeFailed() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+            .maxFieldSize(64);
+        Path directory = null;
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            directory = Files.createTempDirectory("csv");
+            Path first = directory.resolve("first.csv");
+            Path last = directory.resolve("last.csv");
+            String malformed = "x," + String.join(
+                "", Collections.nCopies(100, "x")) + ",x\n";
+            try (OutputStream out = Files.newOutputStream(first)) {
+                write_records_(out, "first", 50);
+                out.write(malformed.getBytes(StandardCharsets.UTF_8));
+                write_records_(out, "first", 5000);
+            }
+            try (OutputStream out = Files.newOutputStream(last)) {
+                write_records_(out, "last", 5000);
+                out.write(malformed.getBytes(StandardCharsets.UTF_8));
+            }
+            CSVFileIngester ingester = new CSVFileIngester(
+                builder, StandardCharsets.UTF_8, pool, 4096);
+
+            /* the ranges are parsed in order by the only worker */
+            CSVFileIngester.Result<List<List<String>>> result =
+                ingester.ingest(Collections.singletonList(first),
+                                ArrayList::new,
+                                (records, file, record) -> records.add(
+                                    record));
+            Assert.assertEquals(Collections.singleton(first),
+                                result.errors().keySet());
+            Assert.assertEquals(50, result.accumulators().get(0).size());
+
+            List<Path> failed = new ArrayList<>();
+            List<List<String>> records = new ArrayList<>();
+            try (Stream<List<String>> stream = ingester.newStream(
+                Collections.singletonList(last),
+                (file, ex) -> failed.add(file))) {
+                Spliterator<List<String>> suffix = stream.spliterator();
+                Spliterator<List<String>> prefix = suffix.trySplit();
+                Assert.assertNotNull(prefix);
+                suffix.forEachRemaining(records::add);
+                Assert.assertEquals(Collections.singletonList(last), failed);
+                Assert.assertFalse(records.isEmpty());
+                records.clear();
+                prefix.forEachRemaining(records::add);
+                Assert.assertEquals(Collections.emptyList(), records);
+                Assert.assertEquals(Collections.singletonList(last), failed);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        } finally {
+            pool.shutdown();
+            try {
+                if (directory != null) {
+                    delete_(directory);
+                }
+            } catch (Exception ex) {
+                Assert.fail(ex.toString());
+            }
+        }
+    }
+
+}
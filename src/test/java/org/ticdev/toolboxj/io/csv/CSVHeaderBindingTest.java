@@ -0,0 +1,271 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVHeaderBinding} and {@link CSVRecordMapper}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVHeaderBindingTest {
+
+    /**
+     * Bean with a setter of each supported type.
+     */
+    public static class Person {
+
+        /**
+         * the name
+         */
+        private String firstName;
+
+        /**
+         * the age
+         */
+        private int age;
+
+        /**
+         * the identifier
+         */
+        private Long id;
+
+        /**
+         * the score
+         */
+        private double score;
+
+        /**
+         * the status
+         */
+        private boolean active;
+
+        /**
+         * the birth date
+         */
+        private LocalDate birthDate;
+
+        /**
+         * Sets the name.
+         *
+         * @param firstName the name
+         */
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        /**
+         * Sets the age.
+         *
+         * @param age the age
+         */
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        /**
+         * Sets the identifier.
+         *
+         * @param id the identifier
+         */
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        /**
+         * Sets the score.
+         *
+         * @param score the score
+         */
+        public void setScore(double score) {
+            this.score = score;
+        }
+
+        /**
+         * Sets the status.
+         *
+         * @param active the status
+         */
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        /**
+         * Sets the birth date.
+         *
+         * @param birthDate the birth date
+         */
+        public void setBirthDate(LocalDate birthDate) {
+            this.birthDate = birthDate;
+        }
+
+        @Override
+        public String toString() {
+            return firstName + "/" + age + "/" + id + "/" + score + "/" +
+                   active + "/" + birthDate;
+        }
+
+    }
+
+    /**
+     * Test mapping with the setters of a class, in any column order, with
+     * columns of the header that are not mapped.
+     */
+    @Test
+    public void test_ofClass() {
+        String content = "ID,Birth Date,extra,first_name,AGE,score,active\n" +
+                         "7,2000-02-29,x,\"Doe, Jane\",31,2.5,true\n" +
+                         "8,1970-01-01,y,John,40,-1,false\n";
+        CSVParser parser = CSVParserBuilder.newInstance().addDelimiter(',')
+            .textDelimiter('"').build(new BufferedCSVParserInputHelper());
+        CSVHeaderBinding<Person> binding = CSVHeaderBinding.of(Person.class);
+        Assert.assertEquals(6, binding.columnNames().size());
+        try (Stream<Person> stream = CSVSupport.newStream(
+            parser, new StringReader(content), binding)) {
+            List<String> actual = stream.map(Person::toString)
+                .collect(Collectors.toList());
+            Assert.assertEquals(Arrays.asList(
+                "Doe, Jane/31/7/2.5/true/2000-02-29",
+                "John/40/8/-1.0/false/1970-01-01"), actual);
+        }
+    }
+
+    /**
+     * Test mapping with a projection: the selected columns of the header
+     * are resolved to their index in the input.
+     */
+    @Test
+    public void test_projection() {
+        String content = "ID,Birth Date,extra,first_name,AGE,score,active\n" +
+                         "7,2000-02-29,x,\"Doe, Jane\",31,2.5,true\n" +
+                         "8,1970-01-01,y,John,40,-1,false\n";
+        CSVParser parser = CSVParserBuilder.newInstance().addDelimiter(',')
+            .textDelimiter('"').selectColumns(4, 2, 3)
+            .build(new BufferedCSVParserInputHelper());
+        Assert.assertArrayEquals(new int[] {2, 3, 4},
+                                 parser.selectedColumns());
+        try (Stream<Person> stream = CSVSupport.newStream(
+            parser, new StringReader(content),
+            CSVHeaderBinding.of(Person.class))) {
+            List<String> actual = stream.map(Person::toString)
+                .collect(Collectors.toList());
+            Assert.assertEquals(Arrays.asList(
+                "Doe, Jane/31/null/0.0/false/null",
+                "John/40/null/0.0/false/null"), actual);
+        }
+        try {
+            CSVHeaderBinding.of(Person.class).bind(
+                Arrays.asList("a", "b", "c"), new int[] {0, 1});
+            Assert.fail("Header larger than the projection expected");
+        } catch (IllegalArgumentException ex) {
+            /* expected */
+        }
+    }
+
+    /**
+     * Test the explicit columns of a builder, which are required and
+     * replace the columns of the setters.
+     */
+    @Test
+    public void test_builder() {
+        CSVHeaderBinding<Person> binding =
+            CSVHeaderBinding.newBuilder(Person.class)
+                .intColumn("years", Person::setAge)
+                .stringColumn("firstName",
+                              (p, s) -> p.setFirstName(s.toUpperCase()))
+                .build();
+        CSVRecordMapper<Person> mapper =
+            binding.bind(Arrays.asList("first name", "years", "unused"));
+        Assert.assertEquals(2, mapper.columnCount());
+        Assert.assertEquals("years", mapper.columnName(0));
+        Assert.assertEquals(1, mapper.fieldIndex(0));
+        Assert.assertArrayEquals(new boolean[] {true, true},
+                                 mapper.selection());
+        CSVParser parser = CSVParserBuilder.newInstance().addDelimiter(',')
+            .build(new BufferedCSVParserInputHelper());
+        StringReader reader = new StringReader("ann,12,z\nbob,x\nc\n");
+        CSVRecord record = new CSVRecord();
+        try {
+            Assert.assertEquals("ANN/12/null/0.0/false/null",
+                mapper.mapNext(parser, reader, record).toString());
+            try {
+                mapper.mapNext(parser, reader, record);
+                Assert.fail("Invalid int expected");
+            } catch (CSVParserException ex) {
+                Assert.assertTrue(ex.getMessage(),
+                                  ex.getMessage().contains("years"));
+                Assert.assertEquals(2, ex.getLineNumber());
+            }
+            try {
+                mapper.mapNext(parser, reader, record);
+                Assert.fail("Missing field expected");
+            } catch (CSVParserException ex) {
+                /* expected */
+            }
+            Assert.assertNull(mapper.mapNext(parser, reader, record));
+            parser = CSVParserBuilder.newInstance().addDelimiter(',')
+                .filterColumn(0, value -> !"skip".contentEquals(value))
+                .build(new BufferedCSVParserInputHelper());
+            try {
+                mapper.mapNext(parser,
+                    new StringReader("skip,1\nskip,2\nbob,x\n"), record);
+                Assert.fail("Invalid int expected");
+            } catch (CSVParserException ex) {
+                Assert.assertEquals(3, ex.getLineNumber());
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        try {
+            binding.bind(Arrays.asList("firstName", "age"));
+            Assert.fail("Missing column expected");
+        } catch (IllegalArgumentException ex) {
+            /* expected */
+        }
+    }
+
+    /**
+     * Test mapping into a class loaded by another class loader, which the
+     * class loader of the library cannot see.
+     */
+    @Test
+    public void test_otherClassLoader() {
+        URL classes = Person.class.getProtectionDomain().getCodeSource()
+            .getLocation();
+        try (URLClassLoader loader =
+                 new URLClassLoader(new URL[] {classes}, null)) {
+            Class<?> type = loader.loadClass(Person.class.getName());
+            Assert.assertNotSame(Person.class, type);
+            CSVRecordMapper<?> mapper = CSVHeaderBinding.of(type)
+                .bind(Arrays.asList("firstName", "age", "id", "active"));
+            CSVRecord record = new CSVRecord();
+            for (String field : Arrays.asList("Ann", "12", "7", "true")) {
+                record.append(field);
+                record.endField();
+            }
+            Object person = mapper.map(record, 2);
+            Assert.assertSame(type, person.getClass());
+            Assert.assertEquals("Ann/12/7/0.0/true/null", person.toString());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * A class without an accessible constructor cannot be bound.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_noConstructor() {
+        CSVHeaderBinding.of(List.class);
+    }
+
+}
@@ -0,0 +1,289 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVMappedFileSpliterator}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVMappedFileSpliteratorTest {
+
+    /**
+     * Splits the spliterator as much as possible and collects the records of
+     * all the ranges, in order.
+     *
+     * @param spliterator the spliterator
+     * @param records     the destination for the records
+     */
+    private static void split_collect_(
+            Spliterator<List<String>> spliterator,
+            List<List<String>> records) {
+        Spliterator<List<String>> prefix = spliterator.trySplit();
+        if (prefix != null) {
+            split_collect_(prefix, records);
+            split_collect_(spliterator, records);
+        } else {
+            spliterator.forEachRemaining(records::add);
+        }
+    }
+
+    /**
+     * Generates random CSV content from the given alphabet.
+     *
+     * @param random   the random generator
+     * @param alphabet the alphabet
+     * @param length   the length of the content
+     * @return the content
+     */
+    private static String random_content_(
+            Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses the content of the file split in the smallest possible ranges
+     * and compares the records with the ones from parsing the whole content.
+     *
+     * @param file          the file
+     * @param content       the file content
+     * @param configuration the parser configuration
+     * @throws Exception if an exception occurred
+     */
+    private static void check_split_(
+            Path file, String content,
+            CSVParserConfiguration configuration)
+            throws
+            Exception {
+        List<List<String>> expected;
+        try {
+            expected = CSVSupport.parseReader(new StringReader(content),
+                configuration);
+        } catch (CSVParserException ex) {
+            /* not valid content for this configuration */
+            return;
+        }
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel =
+            FileChannel.open(file, StandardOpenOption.READ)) {
+            List<List<String>> actual = new ArrayList<>();
+            split_collect_(new CSVMappedFileSpliterator(channel,
+                configuration, StandardCharsets.UTF_8, 1), actual);
+            Assert.assertEquals(content, expected, actual);
+        }
+    }
+
+    /**
+     * Splitting must never cut a record, whatever the quoting.
+     */
+    @Test
+    public void test_splitBoundaries() {
+        CSVParserBuilder quoted = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        CSVParserBuilder escaped = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').escapeCharacter('\\')
+            .textDelimiterEscapesItself(false).multiLineEOL("\n");
+        Random random = new Random(7);
+        try {
+            Path file = Files.createTempFile("csv", ".csv");
+            try {
+                for (int i = 0; i < 300; i++) {
+                    check_split_(file,
+                        random_content_(random, "ab,\"\r\né", 40),
+                        quoted);
+                    check_split_(file,
+                        random_content_(random, "ab,\"\\\r\n", 40),
+                        escaped);
+                }
+            } finally {
+                Files.delete(file);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Line numbers reported by a range must be the ones from the whole file.
+     */
+    @Test
+    public void test_lineNumber() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+            .maxFieldSize(3);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("\"1\n2\",3\r\n");
+        }
+        content.append("1234\n");
+        try {
+            Path file = Files.createTempFile("csv", ".csv");
+            try {
+                Files.write(file, content.toString()
+                    .getBytes(StandardCharsets.UTF_8));
+                try (FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.READ)) {
+                    split_collect_(new CSVMappedFileSpliterator(channel,
+                        builder, StandardCharsets.UTF_8, 1),
+                        new ArrayList<>());
+                    Assert.fail("Field limit not detected");
+                } catch (RuntimeException ex) {
+                    Assert.assertTrue(ex.getCause() instanceof
+                        CSVParserFieldTooLargeException);
+                    Assert.assertEquals(201,
+                        ((CSVParserFieldTooLargeException) ex.getCause())
+                            .getLineNumber());
+                }
+            } finally {
+                Files.delete(file);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Ranges split at sparse split points, scanned or taken from an index,
+     * provide the records of the whole file with its line numbers.
+     */
+    @Test
+    public void test_sparseSplitPoints() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+            .maxFieldSize(4);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append(i).append(",\"a\nb\"\r\n");
+        }
+        String valid = content.toString();
+        content.append("12345\n");
+        try {
+            Path file = Files.createTempFile("csv", ".csv");
+            try {
+                Files.write(file, valid.getBytes(StandardCharsets.UTF_8));
+                List<List<String>> expected = CSVSupport.parseReader(
+                    new StringReader(valid), builder);
+                CSVRecordIndex index = CSVRecordIndex.build(file, builder, 7);
+                try (FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.READ)) {
+                    List<List<String>> actual = new ArrayList<>();
+                    split_collect_(new CSVMappedFileSpliterator(channel,
+                        builder, StandardCharsets.UTF_8, 100), actual);
+                    Assert.assertEquals(expected, actual);
+                    actual.clear();
+                    split_collect_(new CSVMappedFileSpliterator(channel,
+                        builder, StandardCharsets.UTF_8, 100, index), actual);
+                    Assert.assertEquals(expected, actual);
+                }
+                Files.write(file, content.toString()
+                    .getBytes(StandardCharsets.UTF_8));
+                try (FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.READ)) {
+                    new CSVMappedFileSpliterator(channel, builder,
+                        StandardCharsets.UTF_8, 100, index);
+                    Assert.fail("Index of another file not detected");
+                } catch (IllegalArgumentException ex) {
+                    /* expected */
+                }
+                index = CSVRecordIndex.build(file, builder, 7);
+                try (FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.READ)) {
+                    split_collect_(new CSVMappedFileSpliterator(channel,
+                        builder, StandardCharsets.UTF_8, 100, index),
+                        new ArrayList<>());
+                    Assert.fail("Field limit not detected");
+                } catch (RuntimeException ex) {
+                    Assert.assertTrue(ex.getCause() instanceof
+                        CSVParserFieldTooLargeException);
+                    Assert.assertEquals(1001,
+                        ((CSVParserFieldTooLargeException) ex.getCause())
+                            .getLineNumber());
+                }
+            } finally {
+                Files.delete(file);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test the parallel stream and the size estimate
+     */
+    @Test
+    public void test_newParallelStream() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"');
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append(i).append(",\"a\nb\"\n");
+        }
+        try {
+            Path file = Files.createTempFile("csv", ".csv");
+            try {
+                Files.write(file, content.toString()
+                    .getBytes(StandardCharsets.UTF_8));
+                try (FileChannel channel =
+                    FileChannel.open(file, StandardOpenOption.READ)) {
+                    long estimate = new CSVMappedFileSpliterator(channel,
+                        builder, StandardCharsets.UTF_8).estimateSize();
+                    Assert.assertTrue(estimate > 900 && estimate < 1100);
+                }
+                try (Stream<List<String>> stream = CSVSupport
+                    .newParallelStream(file, StandardCharsets.UTF_8,
+                        builder)) {
+                    List<String> first = stream.map(r -> r.get(0))
+                        .collect(Collectors.toList());
+                    Assert.assertEquals(1000, first.size());
+                    Assert.assertEquals("999", first.get(999));
+                }
+            } finally {
+                Files.delete(file);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Character sets that are not ASCII compatible are rejected
+     */
+    @Test
+    public void test_invalidCharset() {
+        try {
+            Path file = Files.createTempFile("csv", ".csv");
+            try (FileChannel channel =
+                FileChannel.open(file, StandardOpenOption.READ)) {
+                new CSVMappedFileSpliterator(channel,
+                    CSVParserBuilder.newInstance(),
+                    StandardCharsets.UTF_16);
+                Assert.fail("UTF-16 must be rejected");
+            } catch (IllegalArgumentException ex) {
+                /* expected */
+            } finally {
+                Files.delete(file);
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+}
@@ -1,9 +1,15 @@
 package org.ticdev.toolboxj.io.csv;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -209,4 +215,438 @@ public class CSVParserTest {
 
     }
 
+    /**
+     * Test the projection of the selected columns, with the character and
+     * the byte parsers.
+     */
+    @Test
+    public void test_selectColumns() {
+        String str = "a,\"b,x\",c,d\n1,2,3\n\"q\"\"\",x\ny";
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').selectColumns(2, 0, 2);
+        Assert.assertArrayEquals(new int[] {0, 2}, builder.selectedColumns());
+        List<List<String>> expected = string_array_to_list_(new String[][] {
+            { "a", "c" },
+            { "1", "3" },
+            { "q\"" },
+            { "y" }
+        });
+        try {
+            Assert.assertEquals(expected,
+                CSVSupport.parseReader(new StringReader(str), builder));
+
+            CSVByteParser byteParser =
+                builder.buildByteParser(StandardCharsets.UTF_8);
+            InputStream input = new ByteArrayInputStream(
+                str.getBytes(StandardCharsets.UTF_8));
+            List<List<String>> actual = new LinkedList<>();
+            List<String> record;
+            while ((record = byteParser.parseRecord(input, null)) != null) {
+                actual.add(record);
+            }
+            Assert.assertEquals(expected, actual);
+
+            /* an explicit selection replaces the projection */
+            CSVRecord csvRecord = new CSVRecord();
+            Assert.assertTrue(builder.build().readRecord(
+                new StringReader(str), csvRecord,
+                new boolean[] {false, true}));
+            Assert.assertEquals(4, csvRecord.size());
+            Assert.assertEquals("b,x", csvRecord.getString(1));
+            Assert.assertEquals("", csvRecord.getString(2));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * The limits apply to the fields that are not selected.
+     */
+    @Test
+    public void test_selectColumns_limits() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').maxFieldSize(3)
+            .maxFieldsPerRecord(3).selectColumns(0);
+        try {
+            builder.build().parseRecord(
+                new StringReader("a,\"bcdef\"\n"), null);
+            Assert.fail("Expected CSVParserFieldTooLargeException");
+        } catch (CSVParserFieldTooLargeException ex) {
+            /* expected */
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        try {
+            builder.build().parseRecord(new StringReader("a,b,c,d\n"), null);
+            Assert.fail("Expected CSVParserTooManyFieldsException");
+        } catch (CSVParserTooManyFieldsException ex) {
+            /* expected */
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        try {
+            builder.buildByteParser(StandardCharsets.UTF_8).parseRecord(
+                new ByteArrayInputStream(
+                    "a,bcdef\n".getBytes(StandardCharsets.UTF_8)), null);
+            Assert.fail("Expected CSVParserFieldTooLargeException");
+        } catch (CSVParserFieldTooLargeException ex) {
+            /* expected */
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test the record filters, with and without projection, with the
+     * character and the byte parsers, and in streams.
+     */
+    @Test
+    public void test_filterColumn() {
+        String str = "1,keep,\"a\nb\"\n2,drop,\"c,d\"\n3,keep\n4\n5,drop";
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+            .filterColumn(1, field -> !"drop".contentEquals(field));
+        List<List<String>> expected = string_array_to_list_(new String[][] {
+            { "1", "keep", "a\nb" },
+            { "3", "keep" },
+            { "4" }
+        });
+        try {
+            Assert.assertEquals(expected,
+                CSVSupport.parseReader(new StringReader(str), builder));
+            try (Stream<List<String>> stream = CSVSupport.newStream(
+                builder.build(), new StringReader(str))) {
+                Assert.assertEquals(expected,
+                                    stream.collect(Collectors.toList()));
+            }
+            CSVByteParser byteParser =
+                builder.buildByteParser(StandardCharsets.UTF_8);
+            InputStream input = new ByteArrayInputStream(
+                str.getBytes(StandardCharsets.UTF_8));
+            List<List<String>> actual = new LinkedList<>();
+            List<String> record;
+            while ((record = byteParser.parseRecord(input, null)) != null) {
+                actual.add(record);
+            }
+            Assert.assertEquals(expected, actual);
+
+            /* the filtered column is not selected */
+            builder.selectColumns(0, 2).filterColumn(0, field -> true);
+            expected = string_array_to_list_(new String[][] {
+                { "1", "a\nb" },
+                { "3" },
+                { "4" }
+            });
+            Assert.assertEquals(expected,
+                CSVSupport.parseReader(new StringReader(str), builder));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * The fields of a column with a dictionary are the same instances in all
+     * the records, with and without a projection.
+     */
+    @Test
+    public void test_dictionaryColumn() {
+        String str = "1,red,x\n2,blue,y\n3,red,z\n4,\"red\",w\n";
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+            .dictionaryColumn(1, 16);
+        try {
+            List<List<String>> actual =
+                CSVSupport.parseReader(new StringReader(str), builder);
+            Assert.assertEquals(4, actual.size());
+            Assert.assertSame(actual.get(0).get(1), actual.get(2).get(1));
+            Assert.assertSame(actual.get(0).get(1), actual.get(3).get(1));
+            Assert.assertEquals("blue", actual.get(1).get(1));
+            Assert.assertNotSame(actual.get(0).get(0), actual.get(2).get(0));
+
+            CSVByteParser byteParser =
+                builder.buildByteParser(StandardCharsets.UTF_8);
+            InputStream input = new ByteArrayInputStream(
+                str.getBytes(StandardCharsets.UTF_8));
+            List<String> first = byteParser.parseRecord(input, null);
+            byteParser.parseRecord(input, null);
+            List<String> third = byteParser.parseRecord(input, null);
+            Assert.assertEquals("red", first.get(1));
+            Assert.assertSame(first.get(1), third.get(1));
+
+            builder.selectColumns(1, 2);
+            actual = CSVSupport.parseReader(new StringReader(str), builder);
+            Assert.assertEquals(Arrays.asList("red", "z"), actual.get(2));
+            Assert.assertSame(actual.get(0).get(0), actual.get(2).get(0));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Escaped characters are expanded with their mapping, including the
+     * characters beyond the mapped ones, and the expansions are bounded.
+     */
+    @Test
+    public void test_escapeExpansion() {
+        String str = "a\\tb,\\\u00e9\\z\\\u20ac,\"c\\\nd\"\n";
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\r\n")
+            .escapeCharacter('\\').eolEscaped(true)
+            .addEscapeCharacterExpansionMapping('t', "\t")
+            .addEscapeCharacterExpansionMapping('\u00e9', "e\u0301");
+        try {
+            Assert.assertEquals(
+                Collections.singletonList(Arrays.asList(
+                    "a\tb", "e\u0301z\u20ac", "c\r\nd")),
+                CSVSupport.parseReader(new StringReader(str), builder));
+            builder.maxFieldSize(3);
+            try {
+                CSVSupport.parseReader(new StringReader("abc\\t\n"),
+                                       builder);
+                Assert.fail("Field too large expected");
+            } catch (CSVParserFieldTooLargeException ex) {
+                /* expected */
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test that a null multi-line EOL expansion is accepted, and only fails
+     * on a record spanning several lines.
+     */
+    @Test
+    public void test_nullMultiLineEOL() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL(null);
+        try {
+            Assert.assertEquals(
+                Collections.singletonList(Arrays.asList("a", "b c")),
+                CSVSupport.parseReader(new StringReader("a,\"b c\"\n"),
+                                       builder));
+            try {
+                CSVSupport.parseReader(new StringReader("a,\"b\nc\"\n"),
+                                       builder);
+                Assert.fail("Parser exception expected");
+            } catch (CSVParserException ex) {
+                Assert.assertEquals(2, ex.getLineNumber());
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Returns the records of the given content, or the class and the line
+     * number of the limit exception followed by the records before it.
+     *
+     * @param parser  the parser
+     * @param content the content
+     * @return the records and the exception
+     */
+    private static List<Object> parse_limited_(
+        CSVParser parser, String content) {
+        List<Object> result = new LinkedList<>();
+        StringReader reader = new StringReader(content);
+        try {
+            List<String> record;
+            while ((record = parser.parseRecord(reader, null)) != null) {
+                result.add(record);
+            }
+        } catch (CSVParserFieldTooLargeException |
+                 CSVParserLineTooLongException ex) {
+            result.add(0, ex.getClass() + ":" + ex.getLineNumber());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        return result;
+    }
+
+    /**
+     * The runs of plain characters of text delimited fields, copied in bulk
+     * by the buffered helper, give the same records and the same limit
+     * exceptions as the characters parsed one by one.
+     */
+    @Test
+    public void test_textDelimitedRuns() {
+        String str = "\"abc,def\",\"gh\"\"ij\"\"\",\"k\\tl\"\r\n" +
+                     "\"mnopq\r\nrs,tu\",\"\",v\r\n\"wxyz0123456789\",x\n";
+        for (int maxFieldSize : new int[] {4, 6, 8, 14, 100}) {
+            for (int maxRecordCharSize : new int[] {5, 10, 13, 100}) {
+                CSVParserBuilder builder = CSVParserBuilder.newInstance()
+                    .addDelimiter(',').textDelimiter('"')
+                    .textDelimiterEscapesItself(true).multiLineEOL("\n")
+                    .escapeCharacter('\\')
+                    .addEscapeCharacterExpansionMapping('t', "\t")
+                    .maxFieldSize(maxFieldSize)
+                    .maxRecordCharSize(maxRecordCharSize);
+                List<Object> expected = parse_limited_(
+                    builder.build(new DefaultCSVParserInputHelper()), str);
+                for (int bufferSize : new int[] {3, 7, 1024}) {
+                    Assert.assertEquals(expected, parse_limited_(
+                        builder.build(
+                            new BufferedCSVParserInputHelper(bufferSize)),
+                        str));
+                }
+                if (maxFieldSize == 100 && maxRecordCharSize == 100) {
+                    Assert.assertEquals(Arrays.asList(
+                        Arrays.asList("abc,def", "gh\"ij\"", "k\tl"),
+                        Arrays.asList("mnopq\nrs,tu", "", "v"),
+                        Arrays.asList("wxyz0123456789", "x")), expected);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parsers resumed at the checkpoint of each record boundary read the
+     * same remaining records, with the same line numbers.
+     */
+    @Test
+    public void test_checkpoint() {
+        String str = "a,b\r\n\"c\r\nd\",e\n\rf,\"g\"\"\"\r\r\n" +
+                     "h,i\nj";
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+            .textDelimiterEscapesItself(true);
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        try {
+            List<CSVParserInputHelper> helpers = Arrays.asList(
+                new DefaultCSVParserInputHelper(),
+                new BufferedCSVParserInputHelper(3));
+            for (CSVParserInputHelper helper : helpers) {
+                CSVParser parser = builder.build(helper);
+                StringReader reader = new StringReader(str);
+                List<CSVCheckpoint> checkpoints = new LinkedList<>();
+                List<List<String>> records = new LinkedList<>();
+                List<Long> lines = new LinkedList<>();
+                checkpoints.add(parser.checkpoint());
+                List<String> record;
+                while ((record = parser.parseRecord(reader, null)) != null) {
+                    records.add(record);
+                    lines.add(parser.lineNumber());
+                    checkpoints.add(parser.checkpoint());
+                }
+                Assert.assertEquals(6, records.size());
+                Assert.assertEquals(CSVCheckpoint.START, checkpoints.get(0));
+                Assert.assertEquals(str.length(),
+                                    checkpoints.get(6).offset());
+                for (int i = 0; i < checkpoints.size(); i++) {
+                    CSVCheckpoint checkpoint = checkpoints.get(i);
+                    CSVParser resumed = builder.build(
+                        new BufferedCSVParserInputHelper(5, checkpoint));
+                    reader = new StringReader(
+                        str.substring((int) checkpoint.offset()));
+                    for (int j = i; j < records.size(); j++) {
+                        Assert.assertEquals(records.get(j),
+                            resumed.parseRecord(reader, null));
+                        Assert.assertEquals(lines.get(j),
+                            Long.valueOf(resumed.lineNumber()));
+                    }
+                    Assert.assertNull(resumed.parseRecord(reader, null));
+                }
+            }
+
+            CSVByteParser byteParser =
+                builder.buildByteParser(StandardCharsets.UTF_8);
+            InputStream input = new ByteArrayInputStream(bytes);
+            List<CSVCheckpoint> checkpoints = new LinkedList<>();
+            List<List<String>> records = new LinkedList<>();
+            checkpoints.add(byteParser.checkpoint());
+            List<String> record;
+            while ((record = byteParser.parseRecord(input, null)) != null) {
+                records.add(record);
+                checkpoints.add(byteParser.checkpoint());
+            }
+            for (int i = 0; i < checkpoints.size(); i++) {
+                CSVCheckpoint checkpoint = checkpoints.get(i);
+                CSVByteParser resumed = builder.buildByteParser(
+                    StandardCharsets.UTF_8, checkpoint);
+                int offset = (int) checkpoint.offset();
+                input = new ByteArrayInputStream(
+                    bytes, offset, bytes.length - offset);
+                for (int j = i; j < records.size(); j++) {
+                    Assert.assertEquals(records.get(j),
+                                        resumed.parseRecord(input, null));
+                }
+                Assert.assertNull(resumed.parseRecord(input, null));
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * The metrics count the records, fields, quoted fields, expansions,
+     * characters, consumer time and limit exceptions.
+     */
+    @Test
+    public void test_metrics() {
+        String str = "a,\"b,c\",d\\n\ne\n\"f\",g,h,i,j\n";
+        CSVParserMetrics metrics = new CSVParserMetrics();
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+            .escapeCharacter('\\')
+            .addEscapeCharacterExpansionMapping('n', "\n")
+            .metrics(metrics);
+        try {
+            try (Stream<List<String>> stream = CSVSupport.newStream(
+                builder.build(), new StringReader(str))) {
+                Assert.assertEquals(3, stream.count());
+            }
+            Assert.assertEquals(3, metrics.records());
+            Assert.assertEquals(9, metrics.fields());
+            Assert.assertEquals(2, metrics.quotedFields());
+            Assert.assertEquals(1, metrics.escapeExpansions());
+            Assert.assertEquals(str.length(), metrics.characters());
+            /* the reads of single characters are counted, not timed */
+            Assert.assertEquals(0, metrics.readNanos());
+            long[] histogram = metrics.fieldsPerRecordHistogram();
+            Assert.assertEquals(1, histogram[0]);
+            Assert.assertEquals(1, histogram[2]);
+            Assert.assertEquals(1, histogram[3]);
+            Assert.assertTrue(metrics.recordsPerSecond() > 0);
+
+            builder.maxFieldsPerRecord(4);
+            try {
+                CSVSupport.parseReader(new StringReader(str), builder);
+                Assert.fail("Expected CSVParserTooManyFieldsException");
+            } catch (CSVParserTooManyFieldsException ex) {
+                Assert.assertEquals(1, metrics.tooManyFieldsCount());
+            }
+            metrics.reset();
+            Assert.assertEquals(0, metrics.records());
+
+            builder.maxFieldsPerRecord(5);
+            CSVParser buffered =
+                builder.build(new BufferedCSVParserInputHelper());
+            try (Stream<List<String>> stream = CSVSupport.newStream(
+                buffered, new StringReader(str))) {
+                Assert.assertEquals(3, stream.count());
+            }
+            Assert.assertEquals(str.length(), metrics.characters());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * The limits apply to the rest of a rejected record.
+     */
+    @Test
+    public void test_filterColumn_limits() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').maxFieldSize(3)
+            .filterColumn(0, field -> false);
+        try {
+            builder.build().parseRecord(new StringReader("a,bcdef\n"), null);
+            Assert.fail("Expected CSVParserFieldTooLargeException");
+        } catch (CSVParserFieldTooLargeException ex) {
+            /* expected */
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
 }
@@ -0,0 +1,253 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVPipelinedReader}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVPipelinedReaderTest {
+
+    /**
+     * the configuration used by the tests
+     */
+    private static final CSVParserBuilder BUILDER =
+        CSVParserBuilder.newInstance().addDelimiter(',').textDelimiter('"')
+            .multiLineEOL("\n").maxFieldSize(50);
+
+    /**
+     * Returns true if a pipeline thread is still alive after waiting a
+     * bounded time for it to stop: the I/O thread is not waited for by the
+     * reader when the parsing ends early.
+     *
+     * @return true if a pipeline thread is alive
+     */
+    private static boolean pipeline_alive_() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("csv-")) {
+                try {
+                    thread.join(5000);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                if (thread.isAlive()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The records are the same as when parsing on a single thread.
+     */
+    @Test
+    public void test_sameAsParseReader() {
+        Random random = new Random(9);
+        StringBuilder sb = new StringBuilder();
+        String alphabet = "abc,,\"\r\n\u00e9\u20ac";
+        for (int i = 0; i < 20000; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        sb.append('"');
+        String content = sb.toString().replace("\"", "\"\"")
+            .replace("\"\"\"\"", "\"x\"");
+        try {
+            List<List<String>> expected = CSVSupport.parseReader(
+                new StringReader(content), BUILDER);
+            List<List<String>> actual = new ArrayList<>();
+            long count = new CSVPipelinedReader(
+                BUILDER, StandardCharsets.UTF_8, 7, 3, 1).parse(
+                new ByteArrayInputStream(
+                    content.getBytes(StandardCharsets.UTF_8)),
+                record -> {
+                    List<String> fields = new ArrayList<>();
+                    for (int i = 0; i < record.size(); i++) {
+                        fields.add(record.getString(i));
+                    }
+                    actual.add(fields);
+                });
+            Assert.assertEquals(expected.size(), count);
+            Assert.assertEquals(expected, actual);
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        Assert.assertFalse(pipeline_alive_());
+    }
+
+    /**
+     * Parser exceptions are thrown with the line number, after the records
+     * before them are consumed.
+     */
+    @Test
+    public void test_parserException() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < 100; i++) {
+            sb.append(i).append(",x\n");
+        }
+        for (int i = 0; i < 60; i++) {
+            sb.append('y');
+        }
+        long[] count = {0};
+        try {
+            new CSVPipelinedReader(BUILDER, StandardCharsets.UTF_8,
+                                   16, 8, 2)
+                .parse(new ByteArrayInputStream(
+                    sb.toString().getBytes(StandardCharsets.UTF_8)),
+                       record -> count[0]++);
+            Assert.fail("Field limit not detected");
+        } catch (CSVParserFieldTooLargeException ex) {
+            Assert.assertEquals(100, ex.getLineNumber());
+            Assert.assertEquals(99, count[0]);
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        Assert.assertFalse(pipeline_alive_());
+    }
+
+    /**
+     * Exceptions of the input stream and of the consumer are thrown, and the
+     * threads are stopped.
+     */
+    @Test
+    public void test_otherExceptions() {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read()
+                    throws
+                    IOException {
+                throw new IOException("read failed");
+            }
+        };
+        try {
+            CSVSupport.parsePipelined(failing, StandardCharsets.UTF_8,
+                                      BUILDER, record -> { });
+            Assert.fail("I/O exception not thrown");
+        } catch (IOException ex) {
+            Assert.assertEquals("read failed", ex.getMessage());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        Assert.assertFalse(pipeline_alive_());
+        byte[] bytes = new byte[1024 * 1024];
+        Arrays.fill(bytes, (byte) '\n');
+        try {
+            new CSVPipelinedReader(BUILDER, StandardCharsets.UTF_8,
+                                   1024, 4, 1)
+                .parse(new ByteArrayInputStream(bytes), record -> {
+                    throw new IllegalStateException("consumer failed");
+                });
+            Assert.fail("Consumer exception not thrown");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("consumer failed", ex.getMessage());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        Assert.assertFalse(pipeline_alive_());
+    }
+
+    /**
+     * Unchecked exceptions of the input stream are thrown as they are.
+     */
+    @Test(timeout = 10000)
+    public void test_uncheckedInputException() {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("read failed");
+            }
+        };
+        try {
+            CSVSupport.parsePipelined(failing, StandardCharsets.UTF_8,
+                                      BUILDER, record -> { });
+            Assert.fail("Unchecked exception not thrown");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("read failed", ex.getMessage());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        Assert.assertFalse(pipeline_alive_());
+    }
+
+    /**
+     * A consumer exception is thrown without waiting for a stalled read of
+     * the input stream, whose thread stops when the read returns.
+     */
+    @Test(timeout = 10000)
+    public void test_stalledInput() {
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream stalled = new InputStream() {
+            private boolean first = true;
+
+            @Override
+            public int read() {
+                return -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (first) {
+                    first = false;
+                    b[off] = '\n';
+                    return 1;
+                }
+                while (true) {
+                    try {
+                        release.await();
+                        return -1;
+                    } catch (InterruptedException ex) {
+                        /* like a blocking read, ignores interrupts */
+                    }
+                }
+            }
+        };
+        try {
+            new CSVPipelinedReader(BUILDER, StandardCharsets.UTF_8,
+                                   16, 1, 1)
+                .parse(stalled, record -> {
+                    throw new IllegalStateException("consumer failed");
+                });
+            Assert.fail("Consumer exception not thrown");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("consumer failed", ex.getMessage());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        release.countDown();
+        Assert.assertFalse(pipeline_alive_());
+    }
+
+    /**
+     * Interrupting the calling thread cancels the parsing.
+     */
+    @Test
+    public void test_interrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            CSVSupport.parsePipelined(
+                new ByteArrayInputStream(new byte[]{'a'}),
+                StandardCharsets.UTF_8, BUILDER, record -> { });
+            Assert.fail("Interruption not detected");
+        } catch (InterruptedException ex) {
+            // expected
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        Thread.interrupted();
+        Assert.assertFalse(pipeline_alive_());
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVRecordDecoder}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVRecordDecoderTest {
+
+    /**
+     * Test decoding all the column types
+     */
+    @Test
+    public void test_decodeAll() {
+        List<Object> values = new ArrayList<>();
+        CSVRecordDecoder decoder = CSVRecordDecoder.newBuilder()
+            .intColumn(values::add)
+            .longColumn(values::add)
+            .skipColumn()
+            .doubleColumn(values::add)
+            .booleanColumn(values::add)
+            .dateColumn(values::add)
+            .stringColumn(values::add)
+            .build();
+        String content = "1,-2,skipped,2.5,true,2020-01-02,\"a,b\",extra\r\n"
+                         + "3,4,,-1e3,FALSE,1970-01-01,c";
+        CSVParser parser = CSVParserBuilder.newInstance().addDelimiter(',')
+            .textDelimiter('"').build(new BufferedCSVParserInputHelper());
+        try {
+            Assert.assertEquals(2,
+                decoder.decodeAll(parser, new StringReader(content)));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        Assert.assertEquals(7, decoder.columnCount());
+        Assert.assertEquals(CSVColumnType.SKIP, decoder.columnType(2));
+        Object[] expected = {1, -2L, 2.5, true,
+            LocalDate.of(2020, 1, 2).toEpochDay(), "a,b",
+            3, 4L, -1000.0, false, 0L, "c"};
+        Assert.assertArrayEquals(expected, values.toArray());
+    }
+
+    /**
+     * The skipped columns are not copied into the record
+     */
+    @Test
+    public void test_skippedNotCopied() {
+        CSVRecordDecoder decoder = CSVRecordDecoder.newBuilder()
+            .skipColumn().intColumn(value -> { }).build();
+        CSVParser parser = CSVParserBuilder.newInstance().addDelimiter(',')
+            .textDelimiter('"').build(new BufferedCSVParserInputHelper(4));
+        CSVRecord record = new CSVRecord();
+        try {
+            Assert.assertTrue(decoder.decodeNext(parser,
+                new StringReader("\"abc\"\"def\",12,ghi"), record));
+            Assert.assertEquals(3, record.size());
+            Assert.assertEquals(0, record.length(0));
+            Assert.assertEquals("12", record.getString(1));
+            Assert.assertEquals(0, record.length(2));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * The limits apply to the skipped columns
+     */
+    @Test
+    public void test_skippedLimits() {
+        CSVRecordDecoder decoder = CSVRecordDecoder.newBuilder()
+            .skipColumns(2).build();
+        CSVParser parser = CSVParserBuilder.newInstance().addDelimiter(',')
+            .maxFieldSize(3).build(new BufferedCSVParserInputHelper());
+        try {
+            decoder.decodeAll(parser, new StringReader("1,22\r\n333,4444"));
+            Assert.fail("Field limit not detected");
+        } catch (CSVParserFieldTooLargeException ex) {
+            Assert.assertEquals(2, ex.getLineNumber());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Decoding errors give the column and the line of the record, after
+     * the records skipped by a filter
+     */
+    @Test
+    public void test_decodeError() {
+        CSVRecordDecoder decoder = CSVRecordDecoder.newBuilder()
+            .intColumn(value -> { }).intColumn(value -> { }).build();
+        CSVParser parser = CSVParserBuilder.newInstance().addDelimiter(',')
+            .build(new BufferedCSVParserInputHelper());
+        try {
+            decoder.decodeAll(parser, new StringReader("1,2\n3,x\n"));
+            Assert.fail("Decoding error not detected");
+        } catch (CSVParserException ex) {
+            Assert.assertEquals(2, ex.getLineNumber());
+            Assert.assertTrue(ex.getDetails(),
+                ex.getDetails().startsWith("Column 1:"));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        try {
+            decoder.decodeAll(parser, new StringReader("1"));
+            Assert.fail("Missing column not detected");
+        } catch (CSVParserException ex) {
+            Assert.assertEquals(3, ex.getLineNumber());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+        parser = CSVParserBuilder.newInstance().addDelimiter(',')
+            .filterColumn(0, value -> !"skip".contentEquals(value))
+            .build(new BufferedCSVParserInputHelper());
+        try {
+            decoder.decodeAll(parser,
+                new StringReader("1,2\nskip,0\nskip,0\n3,x\n"));
+            Assert.fail("Decoding error not detected");
+        } catch (CSVParserException ex) {
+            Assert.assertEquals(4, ex.getLineNumber());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ticdev.toolboxj.io.MappedFileInputStream;
+
+/**
+ * Test class for {@link CSVRecordIndex}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVRecordIndexTest {
+
+    /**
+     * Returns the records of the given bytes, parsed by a byte parser
+     * resumed at the given checkpoint.
+     *
+     * @param builder    the parser configuration
+     * @param input      the input, positioned at the checkpoint
+     * @param checkpoint the checkpoint
+     * @return the records
+     * @throws Exception if the parser failed
+     */
+    private static List<List<String>> parse_(
+        CSVParserBuilder builder, InputStream input, CSVCheckpoint checkpoint)
+        throws
+        Exception {
+        CSVByteParser parser =
+            builder.buildByteParser(StandardCharsets.UTF_8, checkpoint);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = parser.parseRecord(input, null)) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Test building, saving, seeking and splitting an index.
+     */
+    @Test
+    public void test_index() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i).append(",\"a\r\nb ").append(i).append("\"")
+                .append(i % 3 == 0 ? "\n" : "\r\n");
+            if (i % 100 == 0) {
+                sb.append("\r\n");
+            }
+        }
+        sb.append("last");
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = null;
+        Path indexFile = null;
+        try {
+            List<List<String>> expected = CSVSupport.parseReader(
+                new StringReader(sb.toString()), builder);
+            file = Files.createTempFile("csv", ".csv");
+            Files.write(file, bytes);
+            CSVRecordIndex index = CSVRecordIndex.build(file, builder, 7);
+            Assert.assertEquals(expected.size(), index.recordCount());
+            Assert.assertEquals(bytes.length, index.fileSize());
+            Assert.assertEquals((expected.size() + 6) / 7, index.size());
+
+            indexFile = Files.createTempFile("csv", ".idx");
+            index.write(indexFile);
+            CSVRecordIndex copy = CSVRecordIndex.read(indexFile);
+            Assert.assertEquals(index.recordCount(), copy.recordCount());
+            Assert.assertEquals(index.end(), copy.end());
+            for (int i = 0; i < index.size(); i++) {
+                Assert.assertEquals(index.entry(i), copy.entry(i));
+            }
+
+            for (int record : new int[]{0, 1, 7, 100, 103, 1009}) {
+                CSVCheckpoint checkpoint = copy.seek(file, builder, record);
+                int offset = (int) checkpoint.offset();
+                Assert.assertEquals(
+                    expected.subList(record, expected.size()),
+                    parse_(builder, new ByteArrayInputStream(
+                        bytes, offset, bytes.length - offset), checkpoint));
+            }
+            Assert.assertEquals(index.end(),
+                                index.seek(file, builder, expected.size()));
+
+            List<CSVCheckpoint> ranges = index.split(4);
+            Assert.assertEquals(5, ranges.size());
+            List<List<String>> actual = new ArrayList<>();
+            try (FileChannel channel =
+                     FileChannel.open(file, StandardOpenOption.READ)) {
+                for (int i = 0; i + 1 < ranges.size(); i++) {
+                    actual.addAll(parse_(builder, new MappedFileInputStream(
+                        channel, ranges.get(i).offset(),
+                        ranges.get(i + 1).offset()), ranges.get(i)));
+                }
+            }
+            Assert.assertEquals(expected, actual);
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        } finally {
+            try {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+                if (indexFile != null) {
+                    Files.deleteIfExists(indexFile);
+                }
+            } catch (Exception ex) {
+                Assert.fail(ex.toString());
+            }
+        }
+    }
+
+}
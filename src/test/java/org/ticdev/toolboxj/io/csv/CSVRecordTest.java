@@ -0,0 +1,98 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVRecord} and {@link CSVParser#readRecord}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVRecordTest {
+
+    /**
+     * Returns the fields of the record as strings.
+     *
+     * @param record the record
+     * @return the list of fields
+     */
+    private static List<String> fields_(CSVRecord record) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < record.size(); i++) {
+            result.add(record.get(i).toString());
+        }
+        return result;
+    }
+
+    /**
+     * Reading into a reusable record must give the same fields as parsing into
+     * lists.
+     */
+    @Test
+    public void test_readRecord() {
+        String str = "\"1,2\n3\",4,\"\n\"\n\"5\"\n,,\n\"\"";
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        try {
+            List<List<String>> expected =
+                CSVSupport.parseReader(new StringReader(str), builder);
+            CSVParser parser = builder.build();
+            StringReader reader = new StringReader(str);
+            CSVRecord record = new CSVRecord(1, 1);
+            List<List<String>> actual = new ArrayList<>();
+            while (parser.readRecord(reader, record)) {
+                actual.add(fields_(record));
+            }
+            Assert.assertEquals(0, record.size());
+            Assert.assertEquals(expected, actual);
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test the field views
+     */
+    @Test
+    public void test_views() {
+        CSVRecord record = new CSVRecord(1, 1);
+        record.append("ab");
+        record.endField();
+        record.endField();
+        record.append(new char[] { 'x', 'c', 'd', 'e' }, 1, 3);
+        record.append('f');
+        Assert.assertEquals(4, record.fieldLength());
+        record.endField();
+        Assert.assertEquals(3, record.size());
+        Assert.assertEquals("ab", record.getString(0));
+        Assert.assertEquals(0, record.length(1));
+        Assert.assertEquals(2, record.start(2));
+        Assert.assertEquals(6, record.end(2));
+        CharSequence view = record.get(2);
+        Assert.assertSame(view, record.get(2));
+        Assert.assertEquals(4, view.length());
+        Assert.assertEquals('d', view.charAt(1));
+        Assert.assertEquals("de", view.subSequence(1, 3));
+        Assert.assertEquals("cdef", view.toString());
+        Assert.assertEquals("[ab, , cdef]", record.toString());
+        try {
+            view.charAt(4);
+            Assert.fail("Index outside the field must fail");
+        } catch (IndexOutOfBoundsException ex) {
+            /* expected */
+        }
+        record.clear();
+        Assert.assertEquals(0, record.size());
+        try {
+            record.get(0);
+            Assert.fail("Index outside the record must fail");
+        } catch (IndexOutOfBoundsException ex) {
+            /* expected */
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for the file methods of {@link CSVSupport}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVSupportTest {
+
+    /**
+     * Plain and gzip files must give the same records, with
+     * {@link CSVSupport#parseFile(Path, java.nio.charset.Charset, CSVParserConfiguration)}
+     * and
+     * {@link CSVSupport#newStream(Path, java.nio.charset.Charset, CSVParserConfiguration)}.
+     */
+    @Test
+    public void test_compressedFile() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append(i).append(",\"text, ").append(i)
+                .append("\",\"caf\u00e9\"\n");
+        }
+        byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+        Path plain = null;
+        Path gzip = null;
+        try {
+            List<List<String>> expected = CSVSupport.parseReader(
+                new StringReader(sb.toString()), builder);
+            plain = Files.createTempFile("csv", ".csv");
+            Files.write(plain, content);
+            gzip = Files.createTempFile("csv", ".csv.gz");
+            try (OutputStream out =
+                     new GZIPOutputStream(Files.newOutputStream(gzip))) {
+                out.write(content);
+            }
+            for (Path file : new Path[]{plain, gzip}) {
+                Assert.assertEquals(expected, CSVSupport.parseFile(
+                    file, StandardCharsets.UTF_8, builder));
+                try (Stream<List<String>> stream = CSVSupport.newStream(
+                    file, StandardCharsets.UTF_8, builder)) {
+                    Assert.assertEquals(expected,
+                                        stream.collect(Collectors.toList()));
+                }
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        } finally {
+            try {
+                if (plain != null) {
+                    Files.deleteIfExists(plain);
+                }
+                if (gzip != null) {
+                    Files.deleteIfExists(gzip);
+                }
+            } catch (Exception ex) {
+                Assert.fail(ex.toString());
+            }
+        }
+    }
+
+    /**
+     * A file parsed in two parts, the second one resumed at a checkpoint,
+     * gives the same records as the whole file.
+     */
+    @Test
+    public void test_resumeFile() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i).append(",\"caf\u00e9\r\n").append(i)
+                .append("\"\r\n");
+        }
+        Path file = null;
+        try {
+            List<List<String>> expected = CSVSupport.parseReader(
+                new StringReader(sb.toString()), builder);
+            file = Files.createTempFile("csv", ".csv");
+            Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+            List<List<String>> actual = new ArrayList<>();
+            CSVCheckpoint checkpoint;
+            try (InputStream input = CSVSupport.newInputStream(
+                file, CSVCheckpoint.START)) {
+                CSVByteParser parser =
+                    builder.buildByteParser(StandardCharsets.UTF_8);
+                for (int i = 0; i < 1234; i++) {
+                    actual.add(parser.parseRecord(input, null));
+                }
+                checkpoint = parser.checkpoint();
+            }
+            Assert.assertEquals(2 * 1234 + 1, checkpoint.lineNumber());
+            try (InputStream input =
+                     CSVSupport.newInputStream(file, checkpoint)) {
+                CSVByteParser parser = builder.buildByteParser(
+                    StandardCharsets.UTF_8, checkpoint);
+                List<String> record;
+                while ((record = parser.parseRecord(input, null)) != null) {
+                    actual.add(record);
+                }
+            }
+            Assert.assertEquals(expected, actual);
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        } finally {
+            try {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (Exception ex) {
+                Assert.fail(ex.toString());
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of live read-ahead threads.
+     *
+     * @return the number of threads
+     */
+    private static long read_ahead_threads_() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("read-ahead") &&
+                              thread.isAlive())
+            .count();
+    }
+
+    /**
+     * A configuration the parser rejects does not leave the file open and
+     * its read-ahead thread running.
+     */
+    @Test
+    public void test_newStreamInvalidConfiguration() {
+        CSVParserBuilder builder =
+            CSVParserBuilder.newInstance().addDelimiter(null);
+        Path file = null;
+        try {
+            file = Files.createTempFile("csv", ".csv");
+            /* larger than the read-ahead blocks, so the thread blocks */
+            byte[] content = new byte[4 * 1024 * 1024];
+            Arrays.fill(content, (byte) 'a');
+            Files.write(file, content);
+            long threads = read_ahead_threads_();
+            try {
+                CSVSupport.newStream(file, StandardCharsets.UTF_8, builder);
+                Assert.fail("Invalid configuration expected");
+            } catch (RuntimeException ex) {
+                /* expected */
+            }
+            Assert.assertEquals(threads, read_ahead_threads_());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        } finally {
+            try {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (Exception ex) {
+                Assert.fail(ex.toString());
+            }
+        }
+    }
+
+}
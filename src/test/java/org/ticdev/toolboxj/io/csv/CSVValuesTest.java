@@ -0,0 +1,179 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVValues}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVValuesTest {
+
+    /**
+     * Returns the characters of the string surrounded by other characters,
+     * so the range does not start at zero.
+     *
+     * @param s the string
+     * @return the characters
+     */
+    private static char[] padded_(String s) {
+        return ("x" + s + "y").toCharArray();
+    }
+
+    /**
+     * Parses an int the same way {@link Integer#parseInt(String)} does.
+     *
+     * @param s the string
+     */
+    private static void check_int_(String s) {
+        Object expected;
+        try {
+            expected = Integer.parseInt(s);
+        } catch (NumberFormatException ex) {
+            expected = "error";
+        }
+        Object actual;
+        try {
+            actual = CSVValues.parseInt(padded_(s), 1, s.length() + 1);
+        } catch (NumberFormatException ex) {
+            actual = "error";
+        }
+        Assert.assertEquals(s, expected, actual);
+    }
+
+    /**
+     * Parses a long the same way {@link Long#parseLong(String)} does.
+     *
+     * @param s the string
+     */
+    private static void check_long_(String s) {
+        Object expected;
+        try {
+            expected = Long.parseLong(s);
+        } catch (NumberFormatException ex) {
+            expected = "error";
+        }
+        Object actual;
+        try {
+            actual = CSVValues.parseLong(padded_(s), 1, s.length() + 1);
+        } catch (NumberFormatException ex) {
+            actual = "error";
+        }
+        Assert.assertEquals(s, expected, actual);
+    }
+
+    /**
+     * Parses a double the same way {@link Double#parseDouble(String)} does.
+     *
+     * @param s the string
+     */
+    private static void check_double_(String s) {
+        Object expected;
+        try {
+            expected = Double.parseDouble(s);
+        } catch (NumberFormatException ex) {
+            expected = "error";
+        }
+        Object actual;
+        try {
+            actual = CSVValues.parseDouble(padded_(s), 1, s.length() + 1);
+        } catch (NumberFormatException ex) {
+            actual = "error";
+        }
+        Assert.assertEquals(s, expected, actual);
+    }
+
+    /**
+     * Test integer parsing
+     */
+    @Test
+    public void test_integers() {
+        String[] values = {"0", "-0", "+0", "7", "-", "+", "", "12a", " 1",
+            "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "9223372036854775807", "9223372036854775808",
+            "-9223372036854775808", "-9223372036854775809",
+            "00000000000000000000012"};
+        for (String value : values) {
+            check_int_(value);
+            check_long_(value);
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            check_int_(Integer.toString(random.nextInt()));
+            check_long_(Long.toString(random.nextLong()));
+        }
+    }
+
+    /**
+     * Test double parsing
+     */
+    @Test
+    public void test_doubles() {
+        String[] values = {"0", "-0", "0.0", "-0.0", "1", "1.", ".5", ".",
+            "-", "", "1e10", "1E-10", "1e", "1e+", "2.5e-3", "1.5d", "1f",
+            " 1.5 ", "NaN", "-Infinity", "0x1p3", "123456789012345",
+            "1234567890123456", "0.000000000000000000000000001",
+            "1e22", "1e23", "1e-22", "1e-23", "9007199254740993",
+            "1.7976931348623157e308", "4.9e-324", "1e400", "1e-400",
+            "1.2.3", "1e5e5", "1e99999999999"};
+        for (String value : values) {
+            check_double_(value);
+        }
+        Random random = new Random(2);
+        for (int i = 0; i < 10000; i++) {
+            check_double_(Double.toString(random.nextDouble() * 1e6));
+            check_double_(String.format("%.4f", random.nextGaussian()));
+            check_double_(Long.toString(random.nextLong()));
+            check_double_(Double.toString(Double.longBitsToDouble(
+                random.nextLong())));
+        }
+    }
+
+    /**
+     * Test boolean parsing
+     */
+    @Test
+    public void test_booleans() {
+        Assert.assertTrue(CSVValues.parseBoolean(padded_("TRUE"), 1, 5));
+        Assert.assertFalse(CSVValues.parseBoolean(padded_("false"), 1, 6));
+        try {
+            CSVValues.parseBoolean(padded_("yes"), 1, 4);
+            Assert.fail("Invalid boolean not detected");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Test date parsing
+     */
+    @Test
+    public void test_dates() {
+        Random random = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            LocalDate date = LocalDate.ofEpochDay(
+                random.nextInt(3652059) - 719528);
+            String s = date.toString();
+            Assert.assertEquals(s, date.toEpochDay(),
+                CSVValues.parseEpochDay(padded_(s), 1, s.length() + 1));
+        }
+        String[] invalid = {"2019-02-29", "2019-13-01", "2019-00-10",
+            "2019-04-31", "2019-4-30", "2019/04/30", "20190430xx",
+            "2019-04-3x"};
+        for (String s : invalid) {
+            try {
+                CSVValues.parseEpochDay(padded_(s), 1, s.length() + 1);
+                Assert.fail("Invalid date not detected: " + s);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+        Assert.assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(),
+            CSVValues.parseEpochDay(padded_("2000-02-29"), 1, 11));
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.ticdev.toolboxj.io.csv;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CSVWriter}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVWriterTest {
+
+    /**
+     * Test that only the fields with structural characters are quoted.
+     */
+    @Test
+    public void test_minimal_quoting() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"');
+        try {
+            StringWriter out = new StringWriter();
+            try (CSVWriter writer = new CSVWriter(out, builder, "\n", 32)) {
+                writer.writeRecord(Arrays.asList("a", "b,c", "d\"e", "", null))
+                    .writeField("x\ny").writeInt(-12).writeLong(Long.MIN_VALUE)
+                    .writeDouble(1.5).writeBoolean(true).endRecord();
+            }
+            Assert.assertEquals(
+                "a,\"b,c\",\"d\"\"e\",,\n\"x\ny\",-12,-9223372036854775808,"
+                + "1.5,true\n",
+                out.toString());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test the escape character, inside and outside text delimiters.
+     */
+    @Test
+    public void test_escape_character() {
+        try {
+            StringWriter out = new StringWriter();
+            CSVParserBuilder quoted = CSVParserBuilder.newInstance()
+                .addDelimiter(';').textDelimiter('\'').escapeCharacter('\\');
+            try (CSVWriter writer = new CSVWriter(out, quoted, "\n", 32)) {
+                writer.writeRecord(Arrays.asList("a'b", "c\\d", "e"));
+            }
+            Assert.assertEquals("'a\\'b';'c\\\\d';e\n", out.toString());
+
+            out = new StringWriter();
+            CSVParserBuilder unquoted = CSVParserBuilder.newInstance()
+                .addDelimiter(';').escapeCharacter('\\');
+            try (CSVWriter writer = new CSVWriter(out, unquoted, "\n", 32)) {
+                writer.writeRecord(Arrays.asList("a;b", "c"));
+            }
+            Assert.assertEquals("a\\;b;c\n", out.toString());
+
+            CSVParserBuilder none = CSVParserBuilder.newInstance()
+                .addDelimiter(';');
+            try (CSVWriter writer =
+                     new CSVWriter(new StringWriter(), none, "\n", 32)) {
+                writer.writeField("a;b");
+                Assert.fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException ex) {
+                /* expected */
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Written records, larger than the buffer and encoded to bytes, must be
+     * parsed back to the same fields.
+     */
+    @Test
+    public void test_round_trip() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"').multiLineEOL("\n");
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add(Arrays.asList(
+                "plain" + i, "with,comma", "q\"uote\"",
+                "long \uD83D\uDE00 field " + i + " " + new String(new char[50])
+                    .replace('\0', 'x'),
+                "multi\nline"));
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (CSVWriter writer = new CSVWriter(
+                out, StandardCharsets.UTF_8, builder)) {
+                for (List<String> record : expected) {
+                    writer.writeRecord(record);
+                }
+            }
+            List<List<String>> actual = CSVSupport.parseReader(
+                new StringReader(
+                    new String(out.toByteArray(), StandardCharsets.UTF_8)),
+                builder);
+            Assert.assertEquals(expected, actual);
+
+            StringWriter small = new StringWriter();
+            try (CSVWriter writer = new CSVWriter(small, builder, "\n", 32)) {
+                for (List<String> record : expected) {
+                    writer.writeRecord(record);
+                }
+            }
+            Assert.assertEquals(expected, CSVSupport.parseReader(
+                new StringReader(small.toString()), builder));
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Test writing a record directly from a parsed record.
+     */
+    @Test
+    public void test_write_record() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',').textDelimiter('"');
+        try {
+            CSVParser parser = builder.build();
+            CSVRecord record = new CSVRecord();
+            Assert.assertTrue(parser.readRecord(
+                new StringReader("1,\"2,3\",\"\"\"\"\n"), record));
+            StringWriter out = new StringWriter();
+            try (CSVWriter writer = new CSVWriter(out, builder, "\r\n", 32)) {
+                writer.writeRecord(record);
+            }
+            Assert.assertEquals("1,\"2,3\",\"\"\"\"\r\n", out.toString());
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+    /**
+     * Flushing the writer flushes the output stream it writes to.
+     */
+    @Test
+    public void test_flush_output_stream() {
+        CSVParserBuilder builder = CSVParserBuilder.newInstance()
+            .addDelimiter(',');
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (CSVWriter writer = new CSVWriter(
+                new BufferedOutputStream(out, 1024), StandardCharsets.UTF_8,
+                builder)) {
+                writer.writeField("a").writeField("b");
+                writer.flush();
+                Assert.assertEquals("a,b",
+                    new String(out.toByteArray(), StandardCharsets.UTF_8));
+            }
+        } catch (Exception ex) {
+            Assert.fail(ex.toString());
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.ticdev.toolboxj.io.csv.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ticdev.toolboxj.io.csv.CSVParserBuilder;
+import org.ticdev.toolboxj.io.csv.CSVParserInputHelper;
+
+/**
+ * Test class for {@link CSVCharacterClasses}.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVCharacterClassesTest {
+
+    /**
+     * Test the classification of the tokens
+     */
+    @Test
+    public void test_classOf() {
+        CSVCharacterClasses classes = new CSVCharacterClasses(
+            CSVParserBuilder.newInstance().addDelimiter(',')
+                .addDelimiter('\u00a7').addDelimiter('\u20ac')
+                .textDelimiter('"').escapeCharacter('\u2020'));
+        Assert.assertEquals(CSVCharacterClasses.EOL,
+            classes.classOf(CSVParserInputHelper.EOL));
+        Assert.assertEquals(CSVCharacterClasses.EOF,
+            classes.classOf(CSVParserInputHelper.EOF));
+        Assert.assertEquals(CSVCharacterClasses.EOL, classes.classOf('\r'));
+        Assert.assertEquals(CSVCharacterClasses.EOL, classes.classOf('\n'));
+        Assert.assertEquals(CSVCharacterClasses.DELIMITER,
+            classes.classOf(','));
+        Assert.assertEquals(CSVCharacterClasses.DELIMITER,
+            classes.classOf('\u00a7'));
+        Assert.assertEquals(CSVCharacterClasses.DELIMITER,
+            classes.classOf('\u20ac'));
+        Assert.assertEquals(CSVCharacterClasses.TEXT, classes.classOf('"'));
+        Assert.assertEquals(CSVCharacterClasses.ESCAPE,
+            classes.classOf('\u2020'));
+        Assert.assertEquals(CSVCharacterClasses.PLAIN, classes.classOf('a'));
+        Assert.assertEquals(CSVCharacterClasses.PLAIN,
+            classes.classOf('\u00ff'));
+        Assert.assertEquals(CSVCharacterClasses.PLAIN,
+            classes.classOf('\uffff'));
+        Assert.assertTrue(classes.isStructural('\u20ac'));
+        Assert.assertFalse(classes.isStructural('\u00e9'));
+    }
+
+    /**
+     * A character with more than one role gets the class the parser checks
+     * first.
+     */
+    @Test
+    public void test_priority() {
+        CSVCharacterClasses classes = new CSVCharacterClasses(
+            CSVParserBuilder.newInstance().addDelimiter('"')
+                .addDelimiter('\\').textDelimiter('"')
+                .escapeCharacter('\\'));
+        Assert.assertEquals(CSVCharacterClasses.TEXT, classes.classOf('"'));
+        Assert.assertEquals(CSVCharacterClasses.ESCAPE,
+            classes.classOf('\\'));
+    }
+
+}
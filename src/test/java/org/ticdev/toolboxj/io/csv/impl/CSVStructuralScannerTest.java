@@ -0,0 +1,140 @@
+package org.ticdev.toolboxj.io.csv.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ticdev.toolboxj.io.csv.BufferedCSVParserInputHelper;
+import org.ticdev.toolboxj.io.csv.CSVByteParser;
+import org.ticdev.toolboxj.io.csv.CSVParser;
+import org.ticdev.toolboxj.io.csv.CSVParserBuilder;
+import org.ticdev.toolboxj.io.csv.CSVParserInputHelper;
+import org.ticdev.toolboxj.io.csv.DefaultCSVParserInputHelper;
+
+/**
+ * Test class for {@link CSVStructuralScanner} and the bulk copy of plain runs
+ * in the parsers.
+ *
+ * @author <a href="mailto:tandauioan@gmail.com">Ioan - Ciprian Tandau</a>
+ */
+public class CSVStructuralScannerTest {
+
+    /**
+     * The SWAR scan must find the same structural bytes as the sequential
+     * scan, for any range.
+     */
+    @Test
+    public void test_swarSameAsSequential() {
+        CSVStructuralScanner[] scanners = {
+            new CSVStructuralScanner(CSVParserBuilder.newInstance()
+                .addDelimiter(',').textDelimiter('"')),
+            new CSVStructuralScanner(CSVParserBuilder.newInstance()
+                .addDelimiter(',').addDelimiter(';').textDelimiter('"')
+                .escapeCharacter('\\'))
+        };
+        Random random = new Random(3);
+        byte[] alphabet = "abc,;\"\\\r\n\u00e9".getBytes(
+            StandardCharsets.UTF_8);
+        for (int n = 0; n < 400; n++) {
+            CSVStructuralScanner scanner = scanners[n % scanners.length];
+            byte[] bytes = new byte[48];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = random.nextInt(16) > 0 ? (byte) 'x'
+                    : alphabet[random.nextInt(alphabet.length)];
+            }
+            ByteBuffer view = CSVStructuralScanner.view(bytes);
+            for (int from = 0; from < bytes.length; from++) {
+                for (int to = from; to <= bytes.length; to++) {
+                    Assert.assertEquals(
+                        scanner.indexOfSequential(bytes, from, to),
+                        scanner.indexOf(bytes, view, from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses all the records, returning either the records or the class of
+     * the exception and the line number.
+     *
+     * @param parser the parser
+     * @param input  the input
+     * @return the records or the exception details
+     */
+    private static Object parse_all_(CSVParser parser, String input) {
+        StringReader reader = new StringReader(input);
+        List<Object> result = new ArrayList<>();
+        try {
+            List<String> record;
+            while ((record = parser.parseRecord(reader, null)) != null) {
+                result.add(record);
+            }
+        } catch (Exception ex) {
+            result.add(ex.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Parses all the records with a byte parser, returning either the records
+     * or the class of the exception and the line number.
+     *
+     * @param parser the parser
+     * @param input  the input
+     * @return the records or the exception details
+     */
+    private static Object parse_all_(CSVByteParser parser, String input) {
+        ByteArrayInputStream stream = new ByteArrayInputStream(
+            input.getBytes(StandardCharsets.ISO_8859_1));
+        List<Object> result = new ArrayList<>();
+        try {
+            List<String> record;
+            while ((record = parser.parseRecord(stream, null)) != null) {
+                result.add(record);
+            }
+        } catch (Exception ex) {
+            result.add(ex.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Copying runs in bulk must give the same records and the same limit
+     * exceptions, on the same lines, as copying character by character.
+     */
+    @Test
+    public void test_bulkCopySameAsPerCharacter() {
+        Random random = new Random(5);
+        String alphabet = "xxxxxxxxxab,\"\r\n";
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 40; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String input = sb.toString();
+            CSVParserBuilder builder = CSVParserBuilder.newInstance()
+                .addDelimiter(',').textDelimiter('"').multiLineEOL("\n")
+                .maxFieldSize(1 + random.nextInt(12))
+                .maxRecordCharSize(1 + random.nextInt(20));
+            Object expected = parse_all_(
+                builder.build(new DefaultCSVParserInputHelper()), input);
+            for (int size = 1; size < 6; size++) {
+                CSVParserInputHelper helper =
+                    new BufferedCSVParserInputHelper(size);
+                Assert.assertEquals(input, expected,
+                    parse_all_(builder.build(helper), input));
+                Assert.assertEquals(input, expected, parse_all_(
+                    new DefaultCSVByteParser(builder,
+                        StandardCharsets.ISO_8859_1, size),
+                    input));
+            }
+        }
+    }
+
+}